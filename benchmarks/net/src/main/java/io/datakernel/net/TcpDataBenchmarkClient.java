@@ -21,6 +21,7 @@ import java.net.InetSocketAddress;
 
 import static io.datakernel.config.ConfigConverters.ofInetSocketAddress;
 import static io.datakernel.config.ConfigConverters.ofInteger;
+import static io.datakernel.config.ConfigConverters.ofSelectorProvider;
 import static io.datakernel.serializer.BinarySerializers.INT_SERIALIZER;
 
 @SuppressWarnings("WeakerAccess")
@@ -46,7 +47,10 @@ public class TcpDataBenchmarkClient extends Launcher {
 
 	@Provides
 	@Named("benchmark")
-	Eventloop benchmarkEventloop() { return Eventloop.create(); }
+	Eventloop benchmarkEventloop(Config config) {
+		return Eventloop.create()
+				.withSelectorProvider(config.get(ofSelectorProvider(), "eventloop.selectorProvider", null));
+	}
 
 	@Provides
 	@Named("client")
@@ -76,6 +80,7 @@ public class TcpDataBenchmarkClient extends Launcher {
 		long bestTime = -1;
 		long worstTime = -1;
 
+		System.out.println("Selector provider: " + benchmarkEventloop.getSelectorProviderName());
 		System.out.println("Warming up ...");
 		for (int i = 0; i < warmupRounds; i++) {
 			long roundTime = round();
@@ -1,5 +1,6 @@
 package io.datakernel.net;
 
+import io.datakernel.config.Config;
 import io.datakernel.csp.ChannelConsumer;
 import io.datakernel.csp.ChannelSupplier;
 import io.datakernel.datastream.csp.ChannelDeserializer;
@@ -14,12 +15,20 @@ import io.datakernel.service.ServiceGraphModule;
 
 import java.util.function.Function;
 
+import static io.datakernel.config.ConfigConverters.ofSelectorProvider;
 import static io.datakernel.serializer.BinarySerializers.INT_SERIALIZER;
 
 public class TcpDataBenchmarkServer extends Launcher {
 	@Provides
-	Eventloop eventloop() {
-		return Eventloop.create();
+	Eventloop eventloop(Config config) {
+		return Eventloop.create()
+				.withSelectorProvider(config.get(ofSelectorProvider(), "eventloop.selectorProvider", null));
+	}
+
+	@Provides
+	Config config() {
+		return Config.create()
+				.overrideWith(Config.ofSystemProperties("config"));
 	}
 
 	@Provides
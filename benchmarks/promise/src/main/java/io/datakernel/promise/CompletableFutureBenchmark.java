@@ -36,6 +36,20 @@ public class CompletableFutureBenchmark {
 		additional.complete(10);
 	}
 
+	@Benchmark
+	public void completeChainMeasure(Blackhole blackhole) {
+		CompletableFuture.completedFuture(10).thenApply(a -> a + a).thenCompose(a -> CompletableFuture.completedFuture(a > 0)).thenAccept(blackhole::consume);
+	}
+
+	@Benchmark
+	public void multipleCallbacksMeasure(Blackhole blackhole) {
+		CompletableFuture<Integer> promise = new CompletableFuture<>();
+		promise.whenComplete((result, e) -> blackhole.consume(result));
+		promise.whenComplete((result, e) -> blackhole.consume(e));
+		promise.whenComplete((result, e) -> blackhole.consume(promise));
+		promise.complete(10);
+	}
+
 	public static void main(String[] args) throws RunnerException {
 
 		Options opt = new OptionsBuilder()
@@ -35,6 +35,20 @@ public class DkPromiseBenchmark {
 		additional.set(10);
 	}
 
+	@Benchmark
+	public void completeChainMeasure(Blackhole blackhole) {
+		Promise.of(10).map(a -> a + a).then(a -> Promise.of(a > 0)).whenResult(blackhole::consume);
+	}
+
+	@Benchmark
+	public void multipleCallbacksMeasure(Blackhole blackhole) {
+		SettablePromise<Integer> promise = new SettablePromise<>();
+		promise.whenComplete((result, e) -> blackhole.consume(result));
+		promise.whenComplete((result, e) -> blackhole.consume(e));
+		promise.whenComplete((result, e) -> blackhole.consume(promise));
+		promise.set(10);
+	}
+
 	public static void main(String[] args) throws RunnerException {
 
 		Options opt = new OptionsBuilder()
@@ -33,6 +33,7 @@ import org.jetbrains.annotations.Nullable;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.nio.channels.spi.SelectorProvider;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.*;
@@ -440,6 +441,10 @@ public final class ConfigConverters {
 								ServerSocketSettings::withReuseAddress,
 								config.get(ofBoolean(), "reuseAddress",
 										defaultValue.hasReuseAddress() ? defaultValue.getReuseAddress() : null)))
+						.andThen(applyIfNotNull(
+								ServerSocketSettings::withReusePort,
+								config.get(ofBoolean(), "reusePort",
+										defaultValue.hasReusePort() ? defaultValue.getReusePort() : null)))
 						.apply(ServerSocketSettings.create(DEFAULT_BACKLOG));
 			}
 		};
@@ -552,6 +557,31 @@ public final class ConfigConverters {
 		};
 	}
 
+	/**
+	 * Selector provider is either {@code default} (the one of the JVM),
+	 * or a class name of {@link SelectorProvider} implementation, which has a public no-arg constructor
+	 */
+	public static ConfigConverter<SelectorProvider> ofSelectorProvider() {
+		return new SimpleConfigConverter<SelectorProvider>() {
+			@Override
+			public SelectorProvider fromString(String string) {
+				if (string.equals("default")) {
+					return SelectorProvider.provider();
+				}
+				try {
+					return (SelectorProvider) Class.forName(string).newInstance();
+				} catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+					throw new IllegalArgumentException("Cannot create selector provider " + string, e);
+				}
+			}
+
+			@Override
+			public String toString(SelectorProvider value) {
+				return value == SelectorProvider.provider() ? "default" : value.getClass().getName();
+			}
+		};
+	}
+
 	public static ConfigConverter<Schedule> ofEventloopTaskSchedule() {
 		return new ConfigConverter<Schedule>() {
 			@NotNull
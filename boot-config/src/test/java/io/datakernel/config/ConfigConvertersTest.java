@@ -23,9 +23,17 @@ import io.datakernel.eventloop.net.SocketSettings;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
 import java.net.UnknownHostException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.Pipe;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.AbstractSelector;
+import java.nio.channels.spi.SelectorProvider;
 import java.time.*;
 import java.util.HashMap;
 import java.util.List;
@@ -326,6 +334,23 @@ public class ConfigConvertersTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testSelectorProvider() {
+		Config config = Config.create()
+				.with("default", "default")
+				.with("custom", DelegatingSelectorProvider.class.getName())
+				.with("invalid", "java.lang.Object");
+
+		assertSame(SelectorProvider.provider(), config.get(ofSelectorProvider(), "default"));
+		assertTrue(config.get(ofSelectorProvider(), "custom") instanceof DelegatingSelectorProvider);
+		assertNull(config.get(ofSelectorProvider(), "absent", null));
+		try {
+			config.get(ofSelectorProvider(), "invalid");
+			fail();
+		} catch (IllegalArgumentException ignored) {
+		}
+	}
+
 	/**
 	 * Testing *as* methods like ofDurationAsMillis, ofPeriodAsDays, etc...
 	 */
@@ -343,4 +368,38 @@ public class ConfigConvertersTest {
 		assertEquals(MemSize.gigabytes(2).toLong(), (long) testConfig.get(ofMemSizeAsLong(), "ofMemSizeAsBytesLong"));
 		assertEquals(now.toEpochMilli(), (long) testConfig.get(ofInstantAsEpochMillis(), "ofInstantAsEpochMillis"));
 	}
+
+	public static final class DelegatingSelectorProvider extends SelectorProvider {
+		private final SelectorProvider provider = SelectorProvider.provider();
+
+		@Override
+		public DatagramChannel openDatagramChannel() throws IOException {
+			return provider.openDatagramChannel();
+		}
+
+		@Override
+		public DatagramChannel openDatagramChannel(ProtocolFamily family) throws IOException {
+			return provider.openDatagramChannel(family);
+		}
+
+		@Override
+		public Pipe openPipe() throws IOException {
+			return provider.openPipe();
+		}
+
+		@Override
+		public AbstractSelector openSelector() throws IOException {
+			return provider.openSelector();
+		}
+
+		@Override
+		public ServerSocketChannel openServerSocketChannel() throws IOException {
+			return provider.openServerSocketChannel();
+		}
+
+		@Override
+		public SocketChannel openSocketChannel() throws IOException {
+			return provider.openSocketChannel();
+		}
+	}
 }
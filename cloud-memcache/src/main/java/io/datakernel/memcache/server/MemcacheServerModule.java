@@ -9,6 +9,7 @@ import io.datakernel.promise.Promise;
 import io.datakernel.rpc.server.RpcServer;
 import io.datakernel.serializer.SerializerBuilder;
 
+import static io.datakernel.common.MemSize.bytes;
 import static io.datakernel.common.MemSize.kilobytes;
 import static io.datakernel.config.ConfigConverters.*;
 import static io.datakernel.memcache.protocol.MemcacheRpcMessage.*;
@@ -28,14 +29,26 @@ public class MemcacheServerModule extends AbstractModule {
 	}
 
 	@Provides
-	RingBuffer ringBuffer(Config config) {
-		return RingBuffer.create(
-				config.get(ofInteger(), "memcache.buffers"),
-				config.get(ofMemSize(), "memcache.bufferCapacity").toInt());
+	MemcacheStorage storage(Config config) {
+		String storage = config.get("memcache.storage", "ringBuffer");
+		switch (storage) {
+			case "ringBuffer":
+				return RingBuffer.create(
+						config.get(ofInteger(), "memcache.buffers"),
+						config.get(ofMemSize(), "memcache.bufferCapacity").toInt());
+			case "slab":
+				return SlabStorage.create(
+						config.get(ofMemSize(), "memcache.capacity").toLong(),
+						config.get(ofMemSize(), "memcache.pageSize", bytes(SlabStorage.DEFAULT_PAGE_SIZE)).toInt(),
+						config.get(ofInteger(), "memcache.minChunkSize", SlabStorage.DEFAULT_MIN_CHUNK_SIZE),
+						config.get(ofDouble(), "memcache.growthFactor", SlabStorage.DEFAULT_GROWTH_FACTOR));
+			default:
+				throw new IllegalArgumentException("No memcache storage named " + storage + " exists!");
+		}
 	}
 
 	@Provides
-	RpcServer server(Eventloop eventloop, Config config, RingBuffer storage) {
+	RpcServer server(Eventloop eventloop, Config config, MemcacheStorage storage) {
 		return RpcServer.create(eventloop)
 				.withHandler(GetRequest.class, GetResponse.class,
 						request -> Promise.of(new GetResponse(storage.get(request.getKey()))))
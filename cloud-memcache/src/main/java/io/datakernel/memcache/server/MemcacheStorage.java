@@ -0,0 +1,25 @@
+package io.datakernel.memcache.server;
+
+import io.datakernel.memcache.protocol.MemcacheRpcMessage.Slice;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A storage engine of memcache server, which may evict any of its items, once it is full
+ *
+ * @see RingBuffer
+ * @see SlabStorage
+ */
+public interface MemcacheStorage {
+	/**
+	 * Returns the latest data of the key, if it is still present.
+	 * The slice refers to the memory of the storage, so it is only valid until the next put
+	 */
+	@Nullable
+	Slice get(byte[] key);
+
+	void put(byte[] key, byte[] data, int offset, int length);
+
+	default void put(byte[] key, byte[] data) {
+		put(key, data, 0, data.length);
+	}
+}
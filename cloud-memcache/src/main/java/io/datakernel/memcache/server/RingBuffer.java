@@ -20,7 +20,7 @@ import static java.lang.System.currentTimeMillis;
  * It works like a cache, when you use it you shouldn't rely on the result,
  * because it can be rewritten by the new data when it overfills
  */
-public final class RingBuffer implements RingBufferMBean {
+public final class RingBuffer implements MemcacheStorage, RingBufferMBean {
 	private static final Boolean CHECK = Check.isEnabled(RingBuffer.class);
 
 	/**
@@ -154,6 +154,7 @@ public final class RingBuffer implements RingBufferMBean {
 	 * @param key of your item
 	 * @return the item in case your item is still present in {@see Buffer}
 	 */
+	@Override
 	public Slice get(byte[] key) {
 		statsGets.recordEvent();
 		for (int i = 0; i < ringBuffers.length; i++) {
@@ -175,6 +176,7 @@ public final class RingBuffer implements RingBufferMBean {
 	 * @param key  is used as a pointer for the cached {@param data}
 	 * @param data is thing to need to cache
 	 */
+	@Override
 	public void put(byte[] key, byte[] data) {
 		put(key, data, 0, data.length);
 	}
@@ -183,6 +185,7 @@ public final class RingBuffer implements RingBufferMBean {
 	 * The same to the above method,
 	 * there are extra params to handle the {@param data}
 	 */
+	@Override
 	public void put(byte[] key, byte[] data, int offset, int length) {
 		if (CHECK) checkArgument(data.length <= ringBuffers[currentBuffer].array.length,
 				"Size of data is larger than the size of buffer");
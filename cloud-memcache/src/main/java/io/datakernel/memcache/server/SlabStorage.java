@@ -0,0 +1,505 @@
+package io.datakernel.memcache.server;
+
+import io.datakernel.jmx.stats.EventStats;
+import io.datakernel.memcache.protocol.MemcacheRpcMessage.Slice;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.datakernel.common.Preconditions.checkArgument;
+import static java.lang.Math.max;
+
+/**
+ * The storage, which keeps each item in a chunk of its slab class, and evicts items one by one
+ * <p>
+ * The memory is split into pages, which are assigned to slab classes on demand. Each slab class cuts its pages
+ * into chunks of the same size, and the chunk size grows by the growth factor from one class to the next,
+ * so that items of any size waste little of their chunks. An update of a key is written over its previous chunk,
+ * or moves the item to another class, so that no stale copies of items are kept.
+ * <p>
+ * Once a slab class is full, it evicts one of its items with CLOCK policy: an item, which has been read since
+ * the previous pass of the clock hand, is given one more round, so that frequently read items are not evicted.
+ * A slab class, which has no pages at all, once all of the pages are assigned, takes a page from the class
+ * with the most pages.
+ * <p>
+ * Items are looked up in an open-addressing index of hashes of keys and references to chunks.
+ */
+public final class SlabStorage implements MemcacheStorage, SlabStorageMBean {
+	public static final int DEFAULT_PAGE_SIZE = 1 << 20;
+	public static final int DEFAULT_MIN_CHUNK_SIZE = 64;
+	public static final double DEFAULT_GROWTH_FACTOR = 1.25;
+
+	private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+	// chunk header: state, key length, data length
+	private static final int HEADER_SIZE = 1 + 4 + 4;
+	private static final byte FREE = 0;
+	private static final byte STORED = 1;
+	private static final byte REFERENCED = 2;
+
+	private static final class SlabClass {
+		final int chunkSize;
+		final int chunksPerPage;
+
+		int[] pages = new int[4];
+		int pageCount;
+
+		long[] freeChunks = new long[16];
+		int freeCount;
+
+		// the clock hand
+		int handPage;
+		int handChunk;
+
+		SlabClass(int chunkSize, int pageSize) {
+			this.chunkSize = chunkSize;
+			this.chunksPerPage = pageSize / chunkSize;
+		}
+
+		void pushFreeChunk(long ref) {
+			if (freeCount == freeChunks.length) {
+				freeChunks = Arrays.copyOf(freeChunks, freeCount * 2);
+			}
+			freeChunks[freeCount++] = ref;
+		}
+	}
+
+	private final int pageSize;
+	private final byte[][] pages;
+	private final SlabClass[] pageClasses;
+	private int assignedPages;
+	private final SlabClass[] slabClasses;
+
+	// index
+	private int[] hashes = new int[INITIAL_INDEX_CAPACITY];
+	private long[] refs = new long[INITIAL_INDEX_CAPACITY];
+	private int mask = INITIAL_INDEX_CAPACITY - 1;
+	private int items;
+	private long size;
+
+	// JMX
+	private static final Duration SMOOTHING_WINDOW = Duration.ofMinutes(1);
+	private final EventStats statsPuts = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats statsGets = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats statsMisses = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats statsEvictions = EventStats.create(SMOOTHING_WINDOW);
+
+	private SlabStorage(int pageSize, int amountPages, SlabClass[] slabClasses) {
+		this.pageSize = pageSize;
+		this.pages = new byte[amountPages][];
+		this.pageClasses = new SlabClass[amountPages];
+		this.slabClasses = slabClasses;
+	}
+
+	public static SlabStorage create(long capacity) {
+		return create(capacity, DEFAULT_PAGE_SIZE, DEFAULT_MIN_CHUNK_SIZE, DEFAULT_GROWTH_FACTOR);
+	}
+
+	/**
+	 * @param capacity     total size of pages, which are allocated on demand
+	 * @param pageSize     size of a page, which is also the max size of an item with its key
+	 * @param minChunkSize size of chunks of the smallest slab class
+	 * @param growthFactor ratio of chunk sizes of consecutive slab classes
+	 */
+	public static SlabStorage create(long capacity, int pageSize, int minChunkSize, double growthFactor) {
+		checkArgument(minChunkSize > HEADER_SIZE, "Min chunk size should be greater than " + HEADER_SIZE);
+		checkArgument(pageSize >= minChunkSize, "Page size should not be less than min chunk size");
+		checkArgument(capacity >= pageSize && capacity / pageSize <= Integer.MAX_VALUE,
+				"Capacity should be between page size and " + Integer.MAX_VALUE + " pages");
+		checkArgument(growthFactor > 1, "Growth factor should be greater than 1");
+		List<SlabClass> slabClasses = new ArrayList<>();
+		for (int chunkSize = minChunkSize; chunkSize < pageSize; ) {
+			slabClasses.add(new SlabClass(chunkSize, pageSize));
+			// chunks are aligned by 8 bytes
+			chunkSize = max(chunkSize + 8, (int) (chunkSize * growthFactor) + 7 & ~7);
+		}
+		slabClasses.add(new SlabClass(pageSize, pageSize));
+		return new SlabStorage(pageSize, (int) (capacity / pageSize), slabClasses.toArray(new SlabClass[0]));
+	}
+
+	@Nullable
+	@Override
+	public Slice get(byte[] key) {
+		statsGets.recordEvent();
+		int slot = find(key, hash(key, 0, key.length));
+		if (slot == -1) {
+			statsMisses.recordEvent();
+			return null;
+		}
+		long ref = refs[slot];
+		byte[] page = pages[page(ref)];
+		int offset = offset(ref);
+		page[offset] = REFERENCED;
+		int keyLength = readInt(page, offset + 1);
+		return new Slice(page, offset + HEADER_SIZE + keyLength, readInt(page, offset + 5));
+	}
+
+	@Override
+	public void put(byte[] key, byte[] data, int offset, int length) {
+		int itemSize = HEADER_SIZE + key.length + length;
+		checkArgument(itemSize <= pageSize, "Size of data is larger than the size of page");
+		statsPuts.recordEvent();
+		SlabClass slabClass = slabClassOf(itemSize);
+
+		int hash = hash(key, 0, key.length);
+		int slot = find(key, hash);
+		if (slot != -1) {
+			long ref = refs[slot];
+			byte[] page = pages[page(ref)];
+			int chunkOffset = offset(ref);
+			size -= readInt(page, chunkOffset + 5);
+			if (pageClasses[page(ref)] == slabClass) {
+				// the state of the chunk is kept, so that frequently updated items are not evicted
+				writeData(page, chunkOffset, data, offset, length);
+				size += length;
+				return;
+			}
+			removeSlot(slot);
+			freeChunk(ref);
+		}
+
+		long ref = allocate(slabClass);
+		byte[] page = pages[page(ref)];
+		int chunkOffset = offset(ref);
+		page[chunkOffset] = STORED;
+		writeInt(page, chunkOffset + 1, key.length);
+		System.arraycopy(key, 0, page, chunkOffset + HEADER_SIZE, key.length);
+		writeData(page, chunkOffset, data, offset, length);
+		insert(hash, ref);
+		size += length;
+	}
+
+	private static void writeData(byte[] page, int chunkOffset, byte[] data, int offset, int length) {
+		writeInt(page, chunkOffset + 5, length);
+		System.arraycopy(data, offset, page, chunkOffset + HEADER_SIZE + readInt(page, chunkOffset + 1), length);
+	}
+
+	// region slabs
+	private SlabClass slabClassOf(int itemSize) {
+		int lo = 0;
+		int hi = slabClasses.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (slabClasses[mid].chunkSize < itemSize) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return slabClasses[lo];
+	}
+
+	private long allocate(SlabClass slabClass) {
+		if (slabClass.freeCount == 0) {
+			if (assignedPages < pages.length) {
+				int page = assignedPages++;
+				pages[page] = new byte[pageSize];
+				assignPage(slabClass, page);
+			} else if (slabClass.pageCount == 0) {
+				assignPage(slabClass, takePage());
+			} else {
+				return evict(slabClass);
+			}
+		}
+		return slabClass.freeChunks[--slabClass.freeCount];
+	}
+
+	private void assignPage(SlabClass slabClass, int page) {
+		pageClasses[page] = slabClass;
+		if (slabClass.pageCount == slabClass.pages.length) {
+			slabClass.pages = Arrays.copyOf(slabClass.pages, slabClass.pageCount * 2);
+		}
+		slabClass.pages[slabClass.pageCount++] = page;
+		byte[] bytes = pages[page];
+		for (int chunk = slabClass.chunksPerPage - 1; chunk >= 0; chunk--) {
+			int offset = chunk * slabClass.chunkSize;
+			bytes[offset] = FREE;
+			slabClass.pushFreeChunk(ref(page, offset));
+		}
+	}
+
+	/**
+	 * Evicts all of the items of the last page of a slab class with the most pages
+	 */
+	private int takePage() {
+		SlabClass victim = slabClasses[0];
+		for (SlabClass slabClass : slabClasses) {
+			if (slabClass.pageCount > victim.pageCount) {
+				victim = slabClass;
+			}
+		}
+		int page = victim.pages[--victim.pageCount];
+		byte[] bytes = pages[page];
+		for (int chunk = 0; chunk < victim.chunksPerPage; chunk++) {
+			int offset = chunk * victim.chunkSize;
+			if (bytes[offset] != FREE) {
+				removeItem(ref(page, offset));
+				statsEvictions.recordEvent();
+			}
+		}
+		int kept = 0;
+		for (int i = 0; i < victim.freeCount; i++) {
+			long ref = victim.freeChunks[i];
+			if (page(ref) != page) {
+				victim.freeChunks[kept++] = ref;
+			}
+		}
+		victim.freeCount = kept;
+		if (victim.handPage >= victim.pageCount) {
+			victim.handPage = 0;
+			victim.handChunk = 0;
+		}
+		return page;
+	}
+
+	/**
+	 * Advances the clock hand of a full slab class up to an item, which has not been read since the previous pass
+	 */
+	private long evict(SlabClass slabClass) {
+		while (true) {
+			int page = slabClass.pages[slabClass.handPage];
+			int offset = slabClass.handChunk * slabClass.chunkSize;
+			if (++slabClass.handChunk == slabClass.chunksPerPage) {
+				slabClass.handChunk = 0;
+				if (++slabClass.handPage == slabClass.pageCount) {
+					slabClass.handPage = 0;
+				}
+			}
+			byte[] bytes = pages[page];
+			if (bytes[offset] == REFERENCED) {
+				bytes[offset] = STORED;
+			} else if (bytes[offset] == STORED) {
+				long ref = ref(page, offset);
+				removeItem(ref);
+				statsEvictions.recordEvent();
+				return ref;
+			}
+		}
+	}
+
+	private void freeChunk(long ref) {
+		pages[page(ref)][offset(ref)] = FREE;
+		pageClasses[page(ref)].pushFreeChunk(ref);
+	}
+
+	private void removeItem(long ref) {
+		byte[] page = pages[page(ref)];
+		int offset = offset(ref);
+		size -= readInt(page, offset + 5);
+		int hash = hash(page, offset + HEADER_SIZE, readInt(page, offset + 1));
+		int slot = hash & mask;
+		while (refs[slot] != ref || hashes[slot] == 0) {
+			slot = (slot + 1) & mask;
+		}
+		removeSlot(slot);
+	}
+	// endregion
+
+	// region index
+	private int find(byte[] key, int hash) {
+		for (int slot = hash & mask; hashes[slot] != 0; slot = (slot + 1) & mask) {
+			if (hashes[slot] == hash && keyEquals(refs[slot], key)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	private boolean keyEquals(long ref, byte[] key) {
+		byte[] page = pages[page(ref)];
+		int offset = offset(ref);
+		if (readInt(page, offset + 1) != key.length) return false;
+		int keyOffset = offset + HEADER_SIZE;
+		for (int i = 0; i < key.length; i++) {
+			if (page[keyOffset + i] != key[i]) return false;
+		}
+		return true;
+	}
+
+	private void insert(int hash, long ref) {
+		if (items >= (hashes.length >>> 2) * 3) {
+			growIndex();
+		}
+		int slot = hash & mask;
+		while (hashes[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		hashes[slot] = hash;
+		refs[slot] = ref;
+		items++;
+	}
+
+	/**
+	 * Removes an entry of linear probing, and shifts the following entries back to their ideal slots
+	 */
+	private void removeSlot(int slot) {
+		items--;
+		int empty = slot;
+		for (int i = (slot + 1) & mask; hashes[i] != 0; i = (i + 1) & mask) {
+			int ideal = hashes[i] & mask;
+			// the entry stays if its ideal slot is cyclically within (empty, i]
+			if (empty <= i ? (empty < ideal && ideal <= i) : (empty < ideal || ideal <= i)) {
+				continue;
+			}
+			hashes[empty] = hashes[i];
+			refs[empty] = refs[i];
+			empty = i;
+		}
+		hashes[empty] = 0;
+	}
+
+	private void growIndex() {
+		int[] oldHashes = hashes;
+		long[] oldRefs = refs;
+		hashes = new int[oldHashes.length * 2];
+		refs = new long[oldHashes.length * 2];
+		mask = hashes.length - 1;
+		for (int i = 0; i < oldHashes.length; i++) {
+			if (oldHashes[i] == 0) continue;
+			int slot = oldHashes[i] & mask;
+			while (hashes[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			hashes[slot] = oldHashes[i];
+			refs[slot] = oldRefs[i];
+		}
+	}
+
+	private static int hash(byte[] bytes, int offset, int length) {
+		int h = 0;
+		for (int i = offset; i < offset + length; i++) {
+			h = 92821 * h + bytes[i];
+		}
+		// murmur3 finalizer, so that the lower bits of the hash are distributed evenly
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		// zero marks an empty slot
+		return h == 0 ? 1 : h;
+	}
+	// endregion
+
+	private static long ref(int page, int offset) {
+		return (long) page << 32 | offset;
+	}
+
+	private static int page(long ref) {
+		return (int) (ref >>> 32);
+	}
+
+	private static int offset(long ref) {
+		return (int) ref;
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8 | (bytes[offset + 3] & 0xFF);
+	}
+
+	private static void writeInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+
+	// JMX
+	@Override
+	public void reset() {
+		statsMisses.resetStats();
+		statsEvictions.resetStats();
+	}
+
+	@Override
+	public String getStatsPuts() {
+		return statsPuts.toString();
+	}
+
+	@Override
+	public double getStatsPutsRate() {
+		return statsPuts.getSmoothedRate();
+	}
+
+	@Override
+	public long getStatsPutsTotal() {
+		return statsPuts.getTotalCount();
+	}
+
+	@Override
+	public String getStatsGets() {
+		return statsGets.toString();
+	}
+
+	@Override
+	public double getStatsGetsRate() {
+		return statsGets.getSmoothedRate();
+	}
+
+	@Override
+	public long getStatsGetsTotal() {
+		return statsGets.getTotalCount();
+	}
+
+	@Override
+	public String getStatsMisses() {
+		return statsMisses.toString();
+	}
+
+	@Override
+	public double getStatsMissesRate() {
+		return statsMisses.getSmoothedRate();
+	}
+
+	@Override
+	public long getStatsMissesTotal() {
+		return statsMisses.getTotalCount();
+	}
+
+	@Override
+	public String getStatsEvictions() {
+		return statsEvictions.toString();
+	}
+
+	@Override
+	public double getStatsEvictionsRate() {
+		return statsEvictions.getSmoothedRate();
+	}
+
+	@Override
+	public long getStatsEvictionsTotal() {
+		return statsEvictions.getTotalCount();
+	}
+
+	@Override
+	public int getItems() {
+		return items;
+	}
+
+	/**
+	 * Is used to get the size of stored data, without keys and unused space of chunks
+	 */
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public String getPages() {
+		return assignedPages + " / " + pages.length;
+	}
+
+	@Override
+	public String getSlabClasses() {
+		StringBuilder sb = new StringBuilder();
+		for (SlabClass slabClass : slabClasses) {
+			if (slabClass.pageCount == 0) continue;
+			if (sb.length() != 0) sb.append(", ");
+			sb.append(slabClass.chunkSize).append(" bytes: ").append(slabClass.pageCount).append(" pages");
+		}
+		return sb.toString();
+	}
+}
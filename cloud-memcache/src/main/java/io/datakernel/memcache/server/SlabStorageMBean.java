@@ -0,0 +1,37 @@
+package io.datakernel.memcache.server;
+
+public interface SlabStorageMBean {
+	void reset();
+
+	String getStatsPuts();
+
+	double getStatsPutsRate();
+
+	long getStatsPutsTotal();
+
+	String getStatsGets();
+
+	double getStatsGetsRate();
+
+	long getStatsGetsTotal();
+
+	String getStatsMisses();
+
+	double getStatsMissesRate();
+
+	long getStatsMissesTotal();
+
+	String getStatsEvictions();
+
+	double getStatsEvictionsRate();
+
+	long getStatsEvictionsTotal();
+
+	int getItems();
+
+	long getSize();
+
+	String getPages();
+
+	String getSlabClasses();
+}
@@ -0,0 +1,134 @@
+package io.datakernel.memcache.server;
+
+import io.datakernel.memcache.protocol.MemcacheRpcMessage.Slice;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SlabStorageTest {
+	private static final int PAGE_SIZE = 1024;
+	private static final int AMOUNT_PAGES = 4;
+	// chunks of 64, 128, 256, 512 and 1024 bytes
+	private static final int MIN_CHUNK_SIZE = 64;
+	private static final double GROWTH_FACTOR = 2;
+
+	private static final int CHUNKS_PER_PAGE = PAGE_SIZE / MIN_CHUNK_SIZE;
+
+	private final SlabStorage storage = SlabStorage.create(PAGE_SIZE * AMOUNT_PAGES, PAGE_SIZE, MIN_CHUNK_SIZE, GROWTH_FACTOR);
+
+	@Test
+	public void testGet() {
+		storage.put(key(1), value(20, 1));
+		storage.put(key(2), value(100, 2));
+
+		assertArrayEquals(value(20, 1), toArray(storage.get(key(1))));
+		assertArrayEquals(value(100, 2), toArray(storage.get(key(2))));
+		assertNull(storage.get(key(3)));
+		assertEquals(2, storage.getItems());
+		assertEquals(120, storage.getSize());
+		assertEquals(1, storage.getStatsMissesTotal());
+	}
+
+	@Test
+	public void testPutTheSameKeyKeepsNoStaleCopies() {
+		for (int i = 0; i < 10; i++) {
+			storage.put(key(1), value(20, i));
+		}
+		assertArrayEquals(value(20, 9), toArray(storage.get(key(1))));
+
+		// moves the item to the slab class of larger chunks
+		storage.put(key(1), value(200, 10));
+		assertArrayEquals(value(200, 10), toArray(storage.get(key(1))));
+		storage.put(key(1), value(20, 11));
+		assertArrayEquals(value(20, 11), toArray(storage.get(key(1))));
+
+		assertEquals(1, storage.getItems());
+		assertEquals(20, storage.getSize());
+		assertEquals(0, storage.getStatsEvictionsTotal());
+	}
+
+	@Test
+	public void testReadItemsAreNotEvicted() {
+		int capacity = CHUNKS_PER_PAGE * AMOUNT_PAGES;
+		for (int i = 0; i < capacity; i++) {
+			storage.put(key(i), value(20, i));
+		}
+		assertEquals(0, storage.getStatsEvictionsTotal());
+
+		for (int i = capacity; i < capacity * 3; i++) {
+			assertArrayEquals(value(20, 0), toArray(storage.get(key(0))));
+			storage.put(key(i), value(20, i));
+		}
+
+		assertArrayEquals(value(20, 0), toArray(storage.get(key(0))));
+		assertNull(storage.get(key(1)));
+		assertArrayEquals(value(20, capacity * 3 - 1), toArray(storage.get(key(capacity * 3 - 1))));
+		assertEquals(capacity, storage.getItems());
+		assertEquals(capacity * 2, storage.getStatsEvictionsTotal());
+	}
+
+	@Test
+	public void testPageIsTakenForNewSlabClass() {
+		int capacity = CHUNKS_PER_PAGE * AMOUNT_PAGES;
+		for (int i = 0; i < capacity; i++) {
+			storage.put(key(i), value(20, i));
+		}
+
+		storage.put(key(capacity), value(900, capacity));
+
+		assertArrayEquals(value(900, capacity), toArray(storage.get(key(capacity))));
+		assertArrayEquals(value(20, 0), toArray(storage.get(key(0))));
+		assertEquals(capacity - CHUNKS_PER_PAGE + 1, storage.getItems());
+		assertEquals(CHUNKS_PER_PAGE, storage.getStatsEvictionsTotal());
+		assertEquals("64 bytes: 3 pages, 1024 bytes: 1 pages", storage.getSlabClasses());
+
+		// the smaller items evict each other within the remaining pages
+		for (int i = capacity + 1; i < capacity * 2; i++) {
+			storage.put(key(i), value(20, i));
+		}
+		assertArrayEquals(value(900, capacity), toArray(storage.get(key(capacity))));
+	}
+
+	@Test
+	public void testManyItems() {
+		SlabStorage storage = SlabStorage.create(1 << 24, PAGE_SIZE, MIN_CHUNK_SIZE, GROWTH_FACTOR);
+		int amountItems = 10_000;
+		for (int i = 0; i < amountItems; i++) {
+			storage.put(key(i), value(20, i));
+		}
+		// every other item is moved to another slab class
+		for (int i = 0; i < amountItems; i += 2) {
+			storage.put(key(i), value(100, i));
+		}
+
+		for (int i = 0; i < amountItems; i++) {
+			assertArrayEquals(value(i % 2 == 0 ? 100 : 20, i), toArray(storage.get(key(i))));
+		}
+		assertEquals(amountItems, storage.getItems());
+		assertEquals(0, storage.getStatsEvictionsTotal());
+		assertEquals(0, storage.getStatsMissesTotal());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPutItemLargerThanPage() {
+		storage.put(key(1), new byte[PAGE_SIZE]);
+	}
+
+	private static byte[] key(int i) {
+		return new byte[]{(byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i};
+	}
+
+	private static byte[] value(int length, int seed) {
+		byte[] value = new byte[length];
+		Arrays.fill(value, (byte) seed);
+		value[0] = (byte) (seed >>> 8);
+		return value;
+	}
+
+	private static byte[] toArray(Slice slice) {
+		assertNotNull(slice);
+		return Arrays.copyOfRange(slice.array(), slice.offset(), slice.offset() + slice.length());
+	}
+}
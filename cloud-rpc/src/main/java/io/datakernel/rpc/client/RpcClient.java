@@ -17,11 +17,14 @@
 package io.datakernel.rpc.client;
 
 import io.datakernel.async.callback.Callback;
+import io.datakernel.async.process.AdaptiveConcurrencyLimiter;
 import io.datakernel.async.service.EventloopService;
 import io.datakernel.common.Check;
 import io.datakernel.common.Initializable;
 import io.datakernel.common.MemSize;
 import io.datakernel.common.exception.StacklessException;
+import io.datakernel.csp.process.LZ4Dictionary;
+import io.datakernel.datastream.StreamSupplier;
 import io.datakernel.datastream.csp.ChannelSerializer;
 import io.datakernel.eventloop.Eventloop;
 import io.datakernel.eventloop.jmx.EventloopJmxBeanEx;
@@ -40,9 +43,9 @@ import io.datakernel.rpc.client.jmx.RpcConnectStats;
 import io.datakernel.rpc.client.jmx.RpcRequestStats;
 import io.datakernel.rpc.client.sender.RpcSender;
 import io.datakernel.rpc.client.sender.RpcStrategies;
+import io.datakernel.rpc.client.sender.RpcStrategyAdaptiveConcurrency;
 import io.datakernel.rpc.client.sender.RpcStrategy;
-import io.datakernel.rpc.protocol.RpcMessage;
-import io.datakernel.rpc.protocol.RpcStream;
+import io.datakernel.rpc.protocol.*;
 import io.datakernel.rpc.server.RpcServer;
 import io.datakernel.serializer.BinarySerializer;
 import io.datakernel.serializer.SerializerBuilder;
@@ -106,6 +109,11 @@ public final class RpcClient implements IRpcClient, EventloopService, Initializa
 	private MemSize maxPacketSize = MAX_PACKET_SIZE;
 	private boolean compression = false;
 	private Duration autoFlushInterval = Duration.ZERO;
+	@Nullable
+	private Duration adaptiveFlushDelay;
+	@Nullable
+	private LZ4Dictionary compressionDictionary;
+	private List<LZ4Dictionary> decompressionDictionaries = Collections.emptyList();
 	private Duration keepAliveInterval = Duration.ZERO;
 
 	private List<Class<?>> messageTypes;
@@ -119,6 +127,7 @@ public final class RpcClient implements IRpcClient, EventloopService, Initializa
 	private BinarySerializer<RpcMessage> serializer;
 
 	private RpcSender requestSender = new NoSenderAvailable();
+	private int streamWindow = RpcItemsSupplier.DEFAULT_WINDOW;
 
 	@Nullable
 	private SettablePromise<Void> stopPromise;
@@ -239,6 +248,45 @@ public final class RpcClient implements IRpcClient, EventloopService, Initializa
 		return withAutoFlush(autoFlushInterval);
 	}
 
+	/**
+	 * Flushes requests at the end of an eventloop tick while the connection keeps up with them,
+	 * and coalesces them for no longer than given delay under load, instead of the fixed auto flush interval
+	 *
+	 * @see ChannelSerializer#withAdaptiveFlush(Duration)
+	 */
+	public RpcClient withAdaptiveFlush(@Nullable Duration maxFlushDelay) {
+		this.adaptiveFlushDelay = maxFlushDelay;
+		return this;
+	}
+
+	/**
+	 * Compresses messages with given dictionary, so that small messages of the same message types are compressed
+	 * as well as large blocks, for example, with the one {@link LZ4Dictionary#train trained} on serialized messages
+	 * of the message types.
+	 * <p>
+	 * Received messages are decompressed with any of the given dictionaries, as each block carries the id of its own.
+	 * So a newly trained dictionary is rolled out by adding it as a decompression dictionary to all of the peers first,
+	 * and then by compressing with it, while the previous dictionary is still accepted for decompression.
+	 *
+	 * @param compressionDictionary     dictionary of outgoing messages, which is accepted for incoming messages as well
+	 * @param decompressionDictionaries  other dictionaries of incoming messages, such as the previous one
+	 */
+	public RpcClient withCompressionDictionary(@NotNull LZ4Dictionary compressionDictionary, LZ4Dictionary... decompressionDictionaries) {
+		this.compression = true;
+		this.compressionDictionary = compressionDictionary;
+		this.decompressionDictionaries = Arrays.asList(decompressionDictionaries);
+		return this;
+	}
+
+	/**
+	 * Sets a number of streamed items, which a server may send ahead of their consumption
+	 */
+	public RpcClient withStreamWindow(int streamWindow) {
+		checkArgument(streamWindow > 0, "Stream window should be positive");
+		this.streamWindow = streamWindow;
+		return this;
+	}
+
 	public RpcClient withKeepAlive(Duration keepAliveInterval) {
 		this.keepAliveInterval = keepAliveInterval;
 		return this;
@@ -351,7 +399,7 @@ public final class RpcClient implements IRpcClient, EventloopService, Initializa
 							asyncTcpSocketImpl :
 							wrapClientSocket(asyncTcpSocketImpl, sslContext, sslExecutor);
 					RpcStream stream = new RpcStream(socket, serializer, defaultPacketSize, maxPacketSize,
-							autoFlushInterval, compression, false); // , statsSerializer, statsDeserializer, statsCompressor, statsDecompressor);
+							autoFlushInterval, adaptiveFlushDelay, compression, compressionDictionary, decompressionDictionaries, false); // , statsSerializer, statsDeserializer, statsCompressor, statsDecompressor);
 					RpcClientConnection connection = new RpcClientConnection(eventloop, this, address, stream, keepAliveInterval.toMillis());
 					stream.setListener(connection);
 
@@ -426,6 +474,74 @@ public final class RpcClient implements IRpcClient, EventloopService, Initializa
 		requestSender.sendRequest(request, cb);
 	}
 
+	/**
+	 * Sends the request to a server, which answers it with a stream of items,
+	 * as a {@link RpcServer#withStreamHandler stream handler}.
+	 * <p>
+	 * The request is routed by the strategy of this client as any other request, while the items
+	 * are then sent over the chosen connection. Strategies which may send a request to several servers,
+	 * such as {@link RpcStrategies#firstValidResult} or {@link RpcStrategies#hedging}, do not support streams.
+	 *
+	 * @param <I>     request class
+	 * @param <T>     item class
+	 * @param request request for server
+	 */
+	public <I, T> StreamSupplier<T> streamRequest(I request) {
+		return streamRequest(request, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Same as {@link #streamRequest(Object)}, but the stream fails with {@link #RPC_TIMEOUT_EXCEPTION}
+	 * unless it is completed within given timeout in milliseconds
+	 */
+	public <I, T> StreamSupplier<T> streamRequest(I request, int timeout) {
+		if (CHECK) checkState(eventloop.inEventloopThread(), "Not in eventloop thread");
+		RpcItemsSupplier<T> items = new RpcItemsSupplier<>(streamWindow);
+		sendStreamRequest(request, items, timeout, (result, e) -> {
+			if (e != null) items.closeEx(e);
+		});
+		return items;
+	}
+
+	/**
+	 * Sends the request to a server, followed by the stream of items, which are uploaded as long as
+	 * the server grants credits for them, and are handled by an {@link RpcServer#withUploadHandler upload handler}.
+	 *
+	 * @param <I>     request class
+	 * @param <T>     item class
+	 * @param <O>     response class
+	 * @param request request for server
+	 * @see #streamRequest(Object)
+	 */
+	public <I, T, O> Promise<O> streamUpload(I request, StreamSupplier<T> items) {
+		return streamUpload(request, items, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Same as {@link #streamUpload(Object, StreamSupplier)}, but the upload fails with {@link #RPC_TIMEOUT_EXCEPTION}
+	 * unless the response is received within given timeout in milliseconds
+	 */
+	public <I, T, O> Promise<O> streamUpload(I request, StreamSupplier<T> items, int timeout) {
+		if (CHECK) checkState(eventloop.inEventloopThread(), "Not in eventloop thread");
+		RpcItemsConsumer<T> consumer = new RpcItemsConsumer<>();
+		SettablePromise<O> result = new SettablePromise<>();
+		sendStreamRequest(request, consumer, timeout, (O response, Throwable e) -> {
+			if (e != null) consumer.closeEx(e);
+			result.trySet(response, e);
+		});
+		// the consumer is opened by a connection by now, so that items are not sent ahead of the request
+		items.streamTo(consumer);
+		return result;
+	}
+
+	private <I, O> void sendStreamRequest(I request, Object stream, int timeout, Callback<O> cb) {
+		if (timeout > 0) {
+			requestSender.sendStreamRequest(request, stream, timeout, cb);
+		} else {
+			cb.accept(null, RPC_TIMEOUT_EXCEPTION);
+		}
+	}
+
 	public IRpcClient adaptToAnotherEventloop(Eventloop anotherEventloop) {
 		if (anotherEventloop == this.eventloop) {
 			return this;
@@ -547,6 +663,13 @@ public final class RpcClient implements IRpcClient, EventloopService, Initializa
 		return count;
 	}
 
+	@JmxAttribute(description = "adaptive limit of concurrent requests, if the strategy of this client is wrapped " +
+			"with RpcStrategies.adaptiveConcurrency()")
+	@Nullable
+	public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+		return RpcStrategyAdaptiveConcurrency.getLimiter(requestSender);
+	}
+
 	@JmxAttribute(description = "exception that occurred because of protocol error " +
 			"(serialization, deserialization, compression, decompression, etc)")
 	public ExceptionStats getLastProtocolError() {
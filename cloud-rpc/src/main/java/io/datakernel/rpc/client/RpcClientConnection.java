@@ -23,6 +23,7 @@ import io.datakernel.common.Stopwatch;
 import io.datakernel.common.exception.AsyncTimeoutException;
 import io.datakernel.datastream.StreamDataAcceptor;
 import io.datakernel.eventloop.Eventloop;
+import io.datakernel.eventloop.ScheduledRunnable;
 import io.datakernel.jmx.api.JmxRefreshable;
 import io.datakernel.jmx.api.attribute.JmxAttribute;
 import io.datakernel.jmx.api.attribute.JmxReducers.JmxReducerSum;
@@ -35,13 +36,15 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import java.net.InetSocketAddress;
-import java.util.*;
+import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static io.datakernel.common.Preconditions.checkState;
 import static io.datakernel.eventloop.RunnableWithContext.wrapContext;
 import static io.datakernel.rpc.client.IRpcClient.RPC_OVERLOAD_EXCEPTION;
 import static io.datakernel.rpc.client.IRpcClient.RPC_TIMEOUT_EXCEPTION;
+import static io.datakernel.rpc.client.RpcRequestTable.NO_DEADLINE;
 import static org.slf4j.LoggerFactory.getLogger;
 
 public final class RpcClientConnection implements RpcStream.Listener, RpcSender, JmxRefreshable {
@@ -49,10 +52,15 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 	private static final Boolean CHECK = Check.isEnabled(RpcClientConnection.class);
 
 	private static final int BUCKET_CAPACITY = ApplicationSettings.getInt(RpcClientConnection.class, "bucketCapacity", 16);
+	private static final int INITIAL_CAPACITY = ApplicationSettings.getInt(RpcClientConnection.class, "initialCapacity", 1024);
+	private static final int TIMEOUT_WHEEL_SIZE = ApplicationSettings.getInt(RpcClientConnection.class, "timeoutWheelSize", 1024);
 
 	private StreamDataAcceptor<RpcMessage> downstreamDataAcceptor = null;
 	private boolean overloaded = false;
 	private boolean closed;
+	private final StreamDataAcceptor<RpcMessage> peer = message -> {
+		if (!closed) downstreamDataAcceptor.accept(message);
+	};
 
 	public static final RpcException CONNECTION_CLOSED = new RpcException(RpcClientConnection.class, "Connection closed");
 	public static final RpcException CONNECTION_UNRESPONSIVE = new RpcException(RpcClientConnection.class, "Unresponsive connection");
@@ -61,22 +69,17 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 	private final RpcClient rpcClient;
 	private final RpcStream stream;
 	private final InetSocketAddress address;
-	private final Map<Integer, Callback<?>> activeRequests = new HashMap<>();
-	private final Map<Long, ExpirationList> expirationLists = new HashMap<>();
+	private final RpcRequestTable activeRequests;
+	@Nullable
+	private ScheduledRunnable expiration;
+	private long expirationTimestamp;
+	private final Consumer<Callback<?>> expiredCallbacks = this::onExpired;
 
 	private ArrayList<RpcMessage> initialBuffer = new ArrayList<>();
 
-	private static final class ExpirationList {
-		private int size;
-		private int[] cookies;
-
-		ExpirationList(int[] cookies) {
-			this.cookies = cookies;
-		}
-	}
-
 	private int cookie = 0;
 	private boolean serverClosing;
+	private int activeDownloads;
 
 	// JMX
 	private boolean monitoring;
@@ -95,6 +98,7 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		this.stream = stream;
 		this.address = address;
 		this.keepAliveMillis = keepAliveMillis;
+		this.activeRequests = new RpcRequestTable(INITIAL_CAPACITY, TIMEOUT_WHEEL_SIZE, BUCKET_CAPACITY, eventloop.currentTimeMillis());
 
 		// JMX
 		this.monitoring = false;
@@ -119,37 +123,7 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 				cb = doJmxMonitoring(request, timeout, cb);
 			}
 
-			if (timeout != Integer.MAX_VALUE) {
-				ExpirationList list = expirationLists.computeIfAbsent(eventloop.currentTimeMillis() + timeout, t -> {
-					ExpirationList l = new ExpirationList(new int[BUCKET_CAPACITY]);
-					eventloop.scheduleBackground(t, wrapContext(this, () -> {
-						expirationLists.remove(t);
-
-						for (int i = 0; i < l.size; i++) {
-							Callback<?> expiredCb = activeRequests.remove(l.cookies[i]);
-							if (expiredCb != null) {
-								// jmx
-								connectionStats.getExpiredRequests().recordEvent();
-								rpcClient.getGeneralRequestsStats().getExpiredRequests().recordEvent();
-
-								expiredCb.accept(null, RPC_TIMEOUT_EXCEPTION);
-							}
-						}
-
-						if (serverClosing && activeRequests.size() == 0) {
-							shutdown();
-						}
-					}));
-					return l;
-				});
-
-				if (list.size >= list.cookies.length) {
-					list.cookies = Arrays.copyOf(list.cookies, list.cookies.length * 2);
-				}
-				list.cookies[list.size++] = cookie;
-			}
-
-			activeRequests.put(cookie, cb);
+			addActiveRequest(cb, timeout);
 
 			downstreamDataAcceptor.accept(RpcMessage.of(cookie, request));
 		} else {
@@ -173,7 +147,7 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 				cb = doJmxMonitoring(request, Integer.MAX_VALUE, cb);
 			}
 
-			activeRequests.put(cookie, cb);
+			activeRequests.add(cookie, cb, NO_DEADLINE);
 
 			downstreamDataAcceptor.accept(RpcMessage.of(cookie, request));
 		} else {
@@ -181,6 +155,97 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		}
 	}
 
+	@Override
+	public <I, O> void sendStreamRequest(I request, Object stream, int timeout, @NotNull Callback<O> cb) {
+		if (CHECK) checkState(eventloop.inEventloopThread(), "Not in eventloop thread");
+
+		// jmx
+		totalRequests.recordEvent();
+		connectionRequests.recordEvent();
+
+		if (!overloaded || request instanceof RpcMandatoryData) {
+			cookie++;
+
+			// jmx
+			if (monitoring) {
+				cb = doJmxMonitoring(request, timeout, cb);
+			}
+
+			openStream(request, stream, timeout, cb);
+		} else {
+			doProcessOverloaded(cb);
+		}
+	}
+
+	private void addActiveRequest(Callback<?> cb, int timeout) {
+		if (timeout != Integer.MAX_VALUE) {
+			long deadline = activeRequests.add(cookie, cb, eventloop.currentTimeMillis() + timeout);
+			if (expiration == null || deadline < expirationTimestamp) {
+				scheduleExpiration(deadline);
+			}
+		} else {
+			activeRequests.add(cookie, cb, NO_DEADLINE);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <I, O> void openStream(I request, Object stream, int timeout, Callback<O> cb) {
+		int cookie = this.cookie;
+		if (stream instanceof RpcItemsSupplier) {
+			RpcItemsSupplier<?> items = (RpcItemsSupplier<?>) stream;
+			downstreamDataAcceptor.accept(RpcMessage.of(cookie, RpcStreamRequest.of(request, items.getWindow())));
+			addActiveRequest(new StreamRequest(items, null, (Callback<Object>) cb), timeout);
+			activeDownloads++;
+			items.open(cookie, peer, items.getWindow());
+			items.getEndOfStream()
+					.whenException(e -> onStreamClosed(cookie, e));
+		} else {
+			RpcItemsConsumer<?> items = (RpcItemsConsumer<?>) stream;
+			downstreamDataAcceptor.accept(RpcMessage.of(cookie, RpcStreamRequest.of(request, 0)));
+			addActiveRequest(new StreamRequest(null, items, (Callback<Object>) cb), timeout);
+			items.open(cookie, peer, 0);
+			items.getAcknowledgement()
+					.whenException(e -> {
+						// an upload which is cancelled by a server still waits for the response
+						if (!items.isClosedByPeer()) onStreamClosed(cookie, e);
+					});
+		}
+	}
+
+	private void onStreamClosed(int cookie, Throwable e) {
+		Callback<?> cb = activeRequests.remove(cookie);
+		if (cb != null) {
+			cb.accept(null, e);
+		}
+	}
+
+	private void scheduleExpiration(long timestamp) {
+		if (expiration != null) {
+			expiration.cancel();
+		}
+		expirationTimestamp = timestamp;
+		expiration = eventloop.scheduleBackground(timestamp, wrapContext(this, () -> {
+			expiration = null;
+			activeRequests.expire(eventloop.currentTimeMillis(), expiredCallbacks);
+			long nextExpiration = activeRequests.getNextExpiration();
+			if (nextExpiration != NO_DEADLINE) {
+				scheduleExpiration(nextExpiration);
+			}
+
+			if (serverClosing && activeRequests.isEmpty()) {
+				shutdown();
+			}
+		}));
+	}
+
+	private void onExpired(Callback<?> cb) {
+		// jmx
+		connectionStats.getExpiredRequests().recordEvent();
+		rpcClient.getGeneralRequestsStats().getExpiredRequests().recordEvent();
+
+		cb.accept(null, RPC_TIMEOUT_EXCEPTION);
+	}
+
 	private <I, O> Callback<O> doJmxMonitoring(I request, int timeout, @NotNull Callback<O> cb) {
 		RpcRequestStats requestStatsPerClass = rpcClient.ensureRequestStatsPerClass(request.getClass());
 		requestStatsPerClass.getTotalRequests().recordEvent();
@@ -202,13 +267,22 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 			processErrorMessage(message);
 		} else if (message.getData().getClass() == RpcControlMessage.class) {
 			processControlMessage((RpcControlMessage) message.getData());
+		} else if (message.getData().getClass() == RpcStreamControl.class) {
+			processStreamControl(message.getCookie(), (RpcStreamControl) message.getData());
 		} else {
+			if (activeDownloads != 0) {
+				Callback<?> streamCb = activeRequests.get(message.getCookie());
+				if (streamCb instanceof StreamRequest && ((StreamRequest) streamCb).download != null) {
+					((StreamRequest) streamCb).download.onItem(message.getData());
+					return;
+				}
+			}
 			@SuppressWarnings("unchecked")
 			Callback<Object> cb = (Callback<Object>) activeRequests.remove(message.getCookie());
 			if (cb == null) return;
 
 			cb.accept(message.getData(), null);
-			if (serverClosing && activeRequests.size() == 0) {
+			if (serverClosing && activeRequests.isEmpty()) {
 				shutdown();
 			}
 		}
@@ -228,11 +302,28 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		}
 	}
 
+	private void processStreamControl(int cookie, RpcStreamControl control) {
+		Callback<?> cb = activeRequests.get(cookie);
+		if (!(cb instanceof StreamRequest)) return;
+		StreamRequest streamRequest = (StreamRequest) cb;
+		if (streamRequest.upload != null) {
+			streamRequest.upload.onControl(control);
+		} else if (control.isEndOfStream()) {
+			activeRequests.remove(cookie);
+			//noinspection ConstantConditions
+			streamRequest.download.onControl(control);
+			streamRequest.accept(null, null);
+			if (serverClosing && activeRequests.isEmpty()) {
+				shutdown();
+			}
+		}
+	}
+
 	private void processControlMessage(RpcControlMessage controlMessage) {
 		if (controlMessage == RpcControlMessage.CLOSE) {
 			rpcClient.removeConnection(address);
 			serverClosing = true;
-			if (activeRequests.size() == 0) {
+			if (activeRequests.isEmpty()) {
 				shutdown();
 			}
 		} else if (controlMessage == RpcControlMessage.PONG) {
@@ -288,7 +379,10 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		if (isClosed()) return;
 		logger.error("Serialization error: {} for data {}", address, message.getData(), e);
 		rpcClient.getLastProtocolError().recordException(e, address);
-		activeRequests.remove(message.getCookie()).accept(null, e);
+		Callback<?> cb = activeRequests.remove(message.getCookie());
+		if (cb != null) {
+			cb.accept(null, e);
+		}
 	}
 
 	@Override
@@ -316,12 +410,13 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		closed = true;
 		rpcClient.removeConnection(address);
 
+		if (expiration != null) {
+			expiration.cancel();
+			expiration = null;
+		}
 		while (!activeRequests.isEmpty()) {
-			for (Integer cookie : new HashSet<>(activeRequests.keySet())) {
-				Callback<?> cb = activeRequests.remove(cookie);
-				if (cb != null) {
-					cb.accept(null, CONNECTION_CLOSED);
-				}
+			for (Callback<?> cb : activeRequests.removeAll()) {
+				cb.accept(null, CONNECTION_CLOSED);
 			}
 		}
 	}
@@ -360,6 +455,44 @@ public final class RpcClientConnection implements RpcStream.Listener, RpcSender,
 		connectionStats.refresh(timestamp);
 	}
 
+	/**
+	 * A callback of a request, which has opened a stream of items
+	 */
+	private final class StreamRequest implements Callback<Object> {
+		@Nullable
+		final RpcItemsSupplier<?> download;
+		@Nullable
+		final RpcItemsConsumer<?> upload;
+		final Callback<Object> cb;
+
+		StreamRequest(@Nullable RpcItemsSupplier<?> download, @Nullable RpcItemsConsumer<?> upload, Callback<Object> cb) {
+			this.download = download;
+			this.upload = upload;
+			this.cb = cb;
+		}
+
+		@Override
+		public void accept(Object result, @Nullable Throwable e) {
+			if (download != null) {
+				activeDownloads--;
+				if (e == RPC_TIMEOUT_EXCEPTION) {
+					// the server is notified, as it is not aware of the timeout
+					download.closeEx(e);
+				} else if (e != null) {
+					download.closeByPeer(e);
+				}
+			} else if (e == RPC_TIMEOUT_EXCEPTION) {
+				//noinspection ConstantConditions
+				upload.closeEx(e);
+			} else {
+				// a server may respond before the end of items, if it does not need the rest of them
+				//noinspection ConstantConditions
+				upload.closeByPeer(e != null ? e : RpcItemsConsumer.STREAM_CANCELLED);
+			}
+			cb.accept(result, e);
+		}
+	}
+
 	private final class JmxConnectionMonitoringResultCallback<T> implements Callback<T> {
 		private final Stopwatch stopwatch;
 		private final Callback<T> callback;
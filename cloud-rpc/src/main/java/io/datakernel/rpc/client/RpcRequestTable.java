@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.rpc.client;
+
+import io.datakernel.async.callback.Callback;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static java.lang.Math.max;
+
+/**
+ * Callbacks of active requests of a connection, indexed by their cookies.
+ * <p>
+ * As cookies are assigned sequentially, the callbacks are kept in a ring of slots indexed by the lower bits
+ * of cookies. The ring grows only when at least half of its slots are taken, so its size follows
+ * the number of requests in flight. A request which outlives as many of newer requests as there are slots
+ * (for example, a request without a timeout or a stream) is moved out of the ring into an overflow map,
+ * once a newer request needs its slot.
+ * Deadlines of requests are kept in a timer wheel of cookies with millisecond ticks,
+ * whose buckets are reused from round to round.
+ * <p>
+ * Once warmed up, neither adding nor removing of requests allocates any memory,
+ * unless requests are moved to the overflow map.
+ */
+final class RpcRequestTable {
+	static final long NO_DEADLINE = Long.MAX_VALUE;
+
+	private int[] cookies;
+	private Callback<?>[] callbacks;
+	private long[] deadlines;
+	private int mask;
+	private int size;
+
+	private final Map<Integer, Overflow> overflow = new HashMap<>();
+
+	private final Bucket[] wheel;
+	private final int wheelMask;
+	private int timedCookies;
+	private long lastExpiredTimestamp;
+
+	private static final class Bucket {
+		int size;
+		int[] cookies;
+
+		Bucket(int capacity) {
+			this.cookies = new int[capacity];
+		}
+
+		void add(int cookie) {
+			if (size == cookies.length) {
+				cookies = Arrays.copyOf(cookies, cookies.length * 2);
+			}
+			cookies[size++] = cookie;
+		}
+	}
+
+	private static final class Overflow {
+		final Callback<?> cb;
+		final long deadline;
+
+		Overflow(Callback<?> cb, long deadline) {
+			this.cb = cb;
+			this.deadline = deadline;
+		}
+	}
+
+	RpcRequestTable(int initialCapacity, int wheelSize, int bucketCapacity, long timestamp) {
+		int capacity = Integer.highestOneBit(max(initialCapacity - 1, 1)) << 1;
+		this.cookies = new int[capacity];
+		this.callbacks = new Callback<?>[capacity];
+		this.deadlines = new long[capacity];
+		this.mask = capacity - 1;
+
+		int wheelCapacity = Integer.highestOneBit(max(wheelSize - 1, 1)) << 1;
+		this.wheel = new Bucket[wheelCapacity];
+		for (int i = 0; i < wheelCapacity; i++) {
+			wheel[i] = new Bucket(bucketCapacity);
+		}
+		this.wheelMask = wheelCapacity - 1;
+		this.lastExpiredTimestamp = timestamp;
+	}
+
+	/**
+	 * Adds a callback of a request, which expires at given timestamp, or never if it is {@link #NO_DEADLINE}
+	 *
+	 * @return the actual deadline, which is never earlier than the next millisecond after the last expiration
+	 */
+	long add(int cookie, Callback<?> cb, long deadline) {
+		int index = cookie & mask;
+		if (callbacks[index] != null) {
+			if ((size - overflow.size()) * 2 >= callbacks.length) {
+				grow();
+				index = cookie & mask;
+			}
+			if (callbacks[index] != null) {
+				overflow.put(cookies[index], new Overflow(callbacks[index], deadlines[index]));
+			}
+		}
+		if (deadline != NO_DEADLINE) {
+			deadline = max(deadline, lastExpiredTimestamp + 1);
+			wheel[(int) deadline & wheelMask].add(cookie);
+			timedCookies++;
+		}
+		cookies[index] = cookie;
+		callbacks[index] = cb;
+		deadlines[index] = deadline;
+		size++;
+		return deadline;
+	}
+
+	@Nullable
+	Callback<?> get(int cookie) {
+		int index = cookie & mask;
+		Callback<?> cb = callbacks[index];
+		if (cb != null && cookies[index] == cookie) return cb;
+		if (overflow.isEmpty()) return null;
+		Overflow entry = overflow.get(cookie);
+		return entry != null ? entry.cb : null;
+	}
+
+	@Nullable
+	Callback<?> remove(int cookie) {
+		int index = cookie & mask;
+		Callback<?> cb = callbacks[index];
+		if (cb != null && cookies[index] == cookie) {
+			callbacks[index] = null;
+			size--;
+			return cb;
+		}
+		if (overflow.isEmpty()) return null;
+		Overflow entry = overflow.remove(cookie);
+		if (entry == null) return null;
+		size--;
+		return entry.cb;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int capacity() {
+		return callbacks.length;
+	}
+
+	int overflowSize() {
+		return overflow.size();
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes callbacks of the requests, whose deadlines have passed by given timestamp
+	 */
+	void expire(long timestamp, Consumer<Callback<?>> expiredCallbacks) {
+		long from = max(lastExpiredTimestamp + 1, timestamp - wheelMask);
+		lastExpiredTimestamp = max(lastExpiredTimestamp, timestamp);
+		for (long tick = from; tick <= timestamp; tick++) {
+			Bucket bucket = wheel[(int) tick & wheelMask];
+			int kept = 0;
+			for (int i = 0; i < bucket.size; i++) {
+				int cookie = bucket.cookies[i];
+				int index = cookie & mask;
+				if (callbacks[index] == null || cookies[index] != cookie) {
+					Overflow entry = overflow.isEmpty() ? null : overflow.get(cookie);
+					if (entry == null) {
+						timedCookies--;
+					} else if (entry.deadline <= timestamp) {
+						timedCookies--;
+						overflow.remove(cookie);
+						size--;
+						expiredCallbacks.accept(entry.cb);
+					} else {
+						bucket.cookies[kept++] = cookie;
+					}
+				} else if (deadlines[index] <= timestamp) {
+					timedCookies--;
+					Callback<?> cb = callbacks[index];
+					callbacks[index] = null;
+					size--;
+					expiredCallbacks.accept(cb);
+				} else {
+					// the request expires in one of the next rounds of the wheel
+					bucket.cookies[kept++] = cookie;
+				}
+			}
+			bucket.size = kept;
+		}
+	}
+
+	/**
+	 * Returns a timestamp of the next tick, at which some of the requests may expire, or {@link #NO_DEADLINE}
+	 */
+	long getNextExpiration() {
+		if (timedCookies == 0) return NO_DEADLINE;
+		for (long tick = lastExpiredTimestamp + 1; tick <= lastExpiredTimestamp + wheel.length; tick++) {
+			if (wheel[(int) tick & wheelMask].size != 0) {
+				return tick;
+			}
+		}
+		throw new AssertionError();
+	}
+
+	List<Callback<?>> removeAll() {
+		List<Callback<?>> result = new ArrayList<>(size);
+		for (int i = 0; i < callbacks.length; i++) {
+			if (callbacks[i] != null) {
+				result.add(callbacks[i]);
+				callbacks[i] = null;
+			}
+		}
+		for (Overflow entry : overflow.values()) {
+			result.add(entry.cb);
+		}
+		overflow.clear();
+		size = 0;
+		for (Bucket bucket : wheel) {
+			bucket.size = 0;
+		}
+		timedCookies = 0;
+		return result;
+	}
+
+	private void grow() {
+		int[] oldCookies = cookies;
+		Callback<?>[] oldCallbacks = callbacks;
+		long[] oldDeadlines = deadlines;
+		int capacity = oldCallbacks.length * 2;
+		cookies = new int[capacity];
+		callbacks = new Callback<?>[capacity];
+		deadlines = new long[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldCallbacks.length; i++) {
+			if (oldCallbacks[i] == null) continue;
+			int index = oldCookies[i] & mask;
+			// of two requests, which share a slot, the older one is moved out of the ring
+			if (callbacks[index] != null) {
+				if (oldCookies[i] - cookies[index] < 0) {
+					overflow.put(oldCookies[i], new Overflow(oldCallbacks[i], oldDeadlines[i]));
+					continue;
+				}
+				overflow.put(cookies[index], new Overflow(callbacks[index], deadlines[index]));
+			}
+			cookies[index] = oldCookies[i];
+			callbacks[index] = oldCallbacks[i];
+			deadlines[index] = oldDeadlines[i];
+		}
+	}
+}
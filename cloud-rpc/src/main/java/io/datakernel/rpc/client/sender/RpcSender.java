@@ -18,14 +18,30 @@ package io.datakernel.rpc.client.sender;
 
 import io.datakernel.async.callback.Callback;
 import io.datakernel.rpc.protocol.RpcException;
+import io.datakernel.rpc.protocol.RpcItemsConsumer;
+import io.datakernel.rpc.protocol.RpcItemsSupplier;
 import org.jetbrains.annotations.NotNull;
 
 public interface RpcSender {
 	RpcException NO_SENDER_AVAILABLE_EXCEPTION = new RpcException(RpcSender.class, "No senders available");
+	RpcException STREAMS_NOT_SUPPORTED_EXCEPTION = new RpcException(RpcSender.class, "Stream requests are not supported");
 
 	<I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb);
 
 	default <I, O> void sendRequest(I request, @NotNull Callback<O> cb) {
 		sendRequest(request, Integer.MAX_VALUE, cb);
 	}
+
+	/**
+	 * Sends a request, which opens given stream of items over the connection the request is sent to.
+	 * <p>
+	 * A stream can be opened only with a single server, so senders which may send a request
+	 * to several servers do not support stream requests.
+	 *
+	 * @param stream {@link RpcItemsSupplier} of items to be received,
+	 *               or {@link RpcItemsConsumer} of items to be sent
+	 */
+	default <I, O> void sendStreamRequest(I request, Object stream, int timeout, @NotNull Callback<O> cb) {
+		cb.accept(null, STREAMS_NOT_SUPPORTED_EXCEPTION);
+	}
 }
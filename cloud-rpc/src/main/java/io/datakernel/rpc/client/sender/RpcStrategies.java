@@ -73,6 +73,18 @@ public final class RpcStrategies {
 		return RpcStrategyFirstValidResult.create(list);
 	}
 
+	public static RpcStrategyHedging hedging(RpcStrategy... senders) {
+		return hedging(asList(senders));
+	}
+
+	public static RpcStrategyHedging hedging(List<RpcStrategy> senders) {
+		return RpcStrategyHedging.create(RpcStrategyList.ofStrategies(senders));
+	}
+
+	public static RpcStrategyHedging hedging(RpcStrategyList list) {
+		return RpcStrategyHedging.create(list);
+	}
+
 	public static RpcStrategyRoundRobin roundRobin(RpcStrategy... senders) {
 		return roundRobin(asList(senders));
 	}
@@ -105,10 +117,18 @@ public final class RpcStrategies {
 		return RpcStrategyRendezvousHashing.create(hashFunction);
 	}
 
+	public static RpcStrategyConsistentHashing consistentHashing(@NotNull HashFunction<?> hashFunction) {
+		return RpcStrategyConsistentHashing.create(hashFunction);
+	}
+
 	public static RpcStrategyTypeDispatching typeDispatching() {
 		return RpcStrategyTypeDispatching.create();
 	}
 
+	public static RpcStrategyAdaptiveConcurrency adaptiveConcurrency(@NotNull RpcStrategy strategy) {
+		return RpcStrategyAdaptiveConcurrency.create(strategy);
+	}
+
 	public static RpcStrategyRandomSampling randomSampling() {
 		return RpcStrategyRandomSampling.create();
 	}
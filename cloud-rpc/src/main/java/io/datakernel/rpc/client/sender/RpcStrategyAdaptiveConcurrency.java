@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.rpc.client.sender;
+
+import io.datakernel.async.callback.Callback;
+import io.datakernel.async.process.AdaptiveConcurrencyLimiter;
+import io.datakernel.common.exception.AsyncTimeoutException;
+import io.datakernel.rpc.client.RpcClientConnectionPool;
+import io.datakernel.rpc.protocol.RpcMandatoryData;
+import io.datakernel.rpc.protocol.RpcOverloadException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Strategy which limits the number of concurrent requests of its sub strategy with an {@link AdaptiveConcurrencyLimiter}.
+ * <p>
+ * Requests beyond the limit are rejected right away with {@link #CONCURRENCY_LIMIT_EXCEEDED}, while requests which
+ * have timed out or have been rejected by an overloaded connection decrease the limit.
+ * {@link RpcMandatoryData} requests are not limited.
+ * <p>
+ * A new limiter is created for each sender, as a strategy may be shared by clients of different eventloops,
+ * so the limit is probed anew once senders are recreated on reconnects.
+ */
+public final class RpcStrategyAdaptiveConcurrency implements RpcStrategy {
+	public static final RpcOverloadException CONCURRENCY_LIMIT_EXCEEDED = new RpcOverloadException(RpcStrategyAdaptiveConcurrency.class, "Concurrency limit exceeded");
+
+	private final RpcStrategy strategy;
+	private final Supplier<AdaptiveConcurrencyLimiter> limiterFactory;
+
+	private RpcStrategyAdaptiveConcurrency(RpcStrategy strategy, Supplier<AdaptiveConcurrencyLimiter> limiterFactory) {
+		this.strategy = strategy;
+		this.limiterFactory = limiterFactory;
+	}
+
+	public static RpcStrategyAdaptiveConcurrency create(@NotNull RpcStrategy strategy) {
+		return new RpcStrategyAdaptiveConcurrency(strategy, AdaptiveConcurrencyLimiter::create);
+	}
+
+	/**
+	 * Sets a factory of limiters, which is called once per each created sender
+	 */
+	public RpcStrategyAdaptiveConcurrency withLimiter(@NotNull Supplier<AdaptiveConcurrencyLimiter> limiterFactory) {
+		return new RpcStrategyAdaptiveConcurrency(strategy, limiterFactory);
+	}
+
+	/**
+	 * Returns the limiter of given sender, if it has been created by this kind of strategy
+	 */
+	@Nullable
+	public static AdaptiveConcurrencyLimiter getLimiter(RpcSender sender) {
+		return sender instanceof Sender ? ((Sender) sender).limiter : null;
+	}
+
+	@Override
+	public Set<InetSocketAddress> getAddresses() {
+		return strategy.getAddresses();
+	}
+
+	@Nullable
+	@Override
+	public RpcSender createSender(RpcClientConnectionPool pool) {
+		RpcSender sender = strategy.createSender(pool);
+		if (sender == null)
+			return null;
+		return new Sender(sender, limiterFactory.get());
+	}
+
+	static final class Sender implements RpcSender {
+		private final RpcSender sender;
+		private final AdaptiveConcurrencyLimiter limiter;
+
+		Sender(@NotNull RpcSender sender, @NotNull AdaptiveConcurrencyLimiter limiter) {
+			this.sender = sender;
+			this.limiter = limiter;
+		}
+
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+			if (request instanceof RpcMandatoryData) {
+				sender.sendRequest(request, timeout, cb);
+				return;
+			}
+			if (!limiter.tryAcquire()) {
+				limiter.onRejected();
+				cb.accept(null, CONCURRENCY_LIMIT_EXCEEDED);
+				return;
+			}
+			sender.sendRequest(request, timeout, release(cb));
+		}
+
+		@Override
+		public <I, O> void sendStreamRequest(I request, Object stream, int timeout, @NotNull Callback<O> cb) {
+			if (request instanceof RpcMandatoryData) {
+				sender.sendStreamRequest(request, stream, timeout, cb);
+				return;
+			}
+			if (!limiter.tryAcquire()) {
+				limiter.onRejected();
+				cb.accept(null, CONCURRENCY_LIMIT_EXCEEDED);
+				return;
+			}
+			sender.sendStreamRequest(request, stream, timeout, release(cb));
+		}
+
+		private <O> Callback<O> release(Callback<O> cb) {
+			long start = System.nanoTime();
+			return (result, e) -> {
+				if (e == null) {
+					limiter.onSuccess(System.nanoTime() - start);
+				} else if (e instanceof AsyncTimeoutException || e instanceof RpcOverloadException) {
+					limiter.onDropped();
+				} else {
+					limiter.onIgnored();
+				}
+				cb.accept(result, e);
+			};
+		}
+	}
+}
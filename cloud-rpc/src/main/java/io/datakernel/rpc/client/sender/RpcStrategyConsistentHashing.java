@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.rpc.client.sender;
+
+import io.datakernel.async.callback.Callback;
+import io.datakernel.common.HashUtils;
+import io.datakernel.common.ref.RefInt;
+import io.datakernel.rpc.client.RpcClientConnectionPool;
+import io.datakernel.rpc.hash.HashBucketFunction;
+import io.datakernel.rpc.hash.HashFunction;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.util.*;
+
+import static io.datakernel.common.Preconditions.checkArgument;
+
+/**
+ * Strategy which places requests on a ring of shards by hashes of the requests.
+ * <p>
+ * Each shard is represented on the ring with a number of virtual nodes, so that once a shard
+ * goes down or comes back, only the requests of that shard are moved to or from the other ones.
+ * The ring is sorted once a sender is created, that is, once the set of active shards changes,
+ * and a shard of a request is then found with a binary search.
+ * <p>
+ * With {@link #withBoundedLoad bounded load}, a shard accepts no more than {@code c} times
+ * the average number of in-flight requests per shard, and the requests beyond that spill over
+ * to the next shards on the ring, so that hot keys do not overload a single shard.
+ */
+public final class RpcStrategyConsistentHashing implements RpcStrategy {
+	private static final int MIN_SUB_STRATEGIES_FOR_CREATION_DEFAULT = 1;
+	public static final int DEFAULT_VIRTUAL_NODES = 128;
+	private static final HashBucketFunction DEFAULT_NODE_HASH_FUNCTION = (shardId, node) -> HashUtils.murmur3hash(shardId.hashCode(), node);
+
+	private final Map<Object, RpcStrategy> shards;
+	private final HashFunction<?> hashFunction;
+	private final int minShards;
+	private final HashBucketFunction nodeHashFunction;
+	private final int virtualNodes;
+	private final double loadFactor;
+
+	private RpcStrategyConsistentHashing(@NotNull HashFunction<?> hashFunction, int minShards,
+			@NotNull HashBucketFunction nodeHashFunction, int virtualNodes, double loadFactor,
+			Map<Object, RpcStrategy> shards) {
+		this.hashFunction = hashFunction;
+		this.minShards = minShards;
+		this.nodeHashFunction = nodeHashFunction;
+		this.virtualNodes = virtualNodes;
+		this.loadFactor = loadFactor;
+		this.shards = shards;
+	}
+
+	public static RpcStrategyConsistentHashing create(HashFunction<?> hashFunction) {
+		return new RpcStrategyConsistentHashing(hashFunction, MIN_SUB_STRATEGIES_FOR_CREATION_DEFAULT,
+				DEFAULT_NODE_HASH_FUNCTION, DEFAULT_VIRTUAL_NODES, 0,
+				new LinkedHashMap<>());
+	}
+
+	public RpcStrategyConsistentHashing withMinActiveShards(int minShards) {
+		checkArgument(minShards > 0, "minSubStrategiesForCreation must be greater than 0");
+		return new RpcStrategyConsistentHashing(hashFunction, minShards, nodeHashFunction, virtualNodes, loadFactor,
+				new LinkedHashMap<>(shards));
+	}
+
+	/**
+	 * Sets a function which places virtual nodes of shards on the ring
+	 */
+	public RpcStrategyConsistentHashing withNodeHashFunction(@NotNull HashBucketFunction nodeHashFunction) {
+		return new RpcStrategyConsistentHashing(hashFunction, minShards, nodeHashFunction, virtualNodes, loadFactor,
+				new LinkedHashMap<>(shards));
+	}
+
+	public RpcStrategyConsistentHashing withVirtualNodes(int virtualNodes) {
+		checkArgument(virtualNodes > 0, "Number of virtual nodes must be greater than 0");
+		return new RpcStrategyConsistentHashing(hashFunction, minShards, nodeHashFunction, virtualNodes, loadFactor,
+				new LinkedHashMap<>(shards));
+	}
+
+	/**
+	 * Bounds in-flight requests of each shard with {@code loadFactor} times the average
+	 * in-flight requests per shard, which should be greater than 1, for example 1.25
+	 */
+	public RpcStrategyConsistentHashing withBoundedLoad(double loadFactor) {
+		checkArgument(loadFactor > 1, "Load factor must be greater than 1");
+		return new RpcStrategyConsistentHashing(hashFunction, minShards, nodeHashFunction, virtualNodes, loadFactor,
+				new LinkedHashMap<>(shards));
+	}
+
+	public RpcStrategyConsistentHashing withShard(Object shardId, @NotNull RpcStrategy strategy) {
+		shards.put(shardId, strategy);
+		return this;
+	}
+
+	public RpcStrategyConsistentHashing withShards(InetSocketAddress... addresses) {
+		return withShards(Arrays.asList(addresses));
+	}
+
+	public RpcStrategyConsistentHashing withShards(List<InetSocketAddress> addresses) {
+		for (InetSocketAddress address : addresses) {
+			shards.put(address, RpcStrategySingleServer.create(address));
+		}
+		return this;
+	}
+
+	@Override
+	public Set<InetSocketAddress> getAddresses() {
+		HashSet<InetSocketAddress> result = new HashSet<>();
+		for (RpcStrategy strategy : shards.values()) {
+			result.addAll(strategy.getAddresses());
+		}
+		return result;
+	}
+
+	@Override
+	@Nullable
+	public RpcSender createSender(RpcClientConnectionPool pool) {
+		List<RpcSender> senders = new ArrayList<>();
+		List<Object> shardIds = new ArrayList<>();
+		for (Map.Entry<Object, RpcStrategy> entry : shards.entrySet()) {
+			RpcSender sender = entry.getValue().createSender(pool);
+			if (sender != null) {
+				senders.add(sender);
+				shardIds.add(entry.getKey());
+			}
+		}
+		if (senders.size() < minShards) {
+			return null;
+		}
+		if (senders.size() == 1 && loadFactor == 0) {
+			return senders.get(0);
+		}
+
+		long[] points = new long[senders.size() * virtualNodes];
+		for (int shard = 0; shard < senders.size(); shard++) {
+			for (int node = 0; node < virtualNodes; node++) {
+				int hash = nodeHashFunction.hash(shardIds.get(shard), node);
+				points[shard * virtualNodes + node] = (long) hash << 32 | shard;
+			}
+		}
+		Arrays.sort(points);
+		int[] ringHashes = new int[points.length];
+		int[] ringShards = new int[points.length];
+		for (int i = 0; i < points.length; i++) {
+			ringHashes[i] = (int) (points[i] >> 32);
+			ringShards[i] = (int) points[i];
+		}
+		// loads belong to a sender, as a strategy may be shared by clients of different eventloops
+		RefInt[] loads = new RefInt[senders.size()];
+		for (int i = 0; i < loads.length; i++) {
+			loads[i] = new RefInt(0);
+		}
+		return new Sender(hashFunction, ringHashes, ringShards,
+				senders.toArray(new RpcSender[0]), loads, new RefInt(0), loadFactor);
+	}
+
+	static final class Sender implements RpcSender {
+		private final HashFunction<?> hashFunction;
+		private final int[] ringHashes;
+		private final int[] ringShards;
+		private final RpcSender[] senders;
+		private final RefInt[] loads;
+		private final RefInt totalLoad;
+		private final double loadFactor;
+
+		Sender(@NotNull HashFunction<?> hashFunction, int[] ringHashes, int[] ringShards,
+				RpcSender[] senders, RefInt[] loads, RefInt totalLoad, double loadFactor) {
+			this.hashFunction = hashFunction;
+			this.ringHashes = ringHashes;
+			this.ringShards = ringShards;
+			this.senders = senders;
+			this.loads = loads;
+			this.totalLoad = totalLoad;
+			this.loadFactor = loadFactor;
+		}
+
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+			int shard = selectShard(request);
+			senders[shard].sendRequest(request, timeout, loadFactor == 0 ? cb : trackLoad(shard, cb));
+		}
+
+		@Override
+		public <I, O> void sendStreamRequest(I request, Object stream, int timeout, @NotNull Callback<O> cb) {
+			int shard = selectShard(request);
+			senders[shard].sendStreamRequest(request, stream, timeout, loadFactor == 0 ? cb : trackLoad(shard, cb));
+		}
+
+		@SuppressWarnings("unchecked")
+		private int selectShard(Object request) {
+			int hash = HashUtils.murmur3hash(((HashFunction<Object>) hashFunction).hashCode(request));
+			int index = Arrays.binarySearch(ringHashes, hash);
+			if (index < 0) index = -index - 1;
+			if (index == ringHashes.length) index = 0;
+
+			if (loadFactor == 0) {
+				return ringShards[index];
+			}
+
+			// at least one of shards is below the capacity, as it is not less than the average load
+			int capacity = (int) Math.ceil(loadFactor * (totalLoad.get() + 1) / senders.length);
+			int shard = ringShards[index];
+			while (loads[shard].get() >= capacity) {
+				if (++index == ringShards.length) index = 0;
+				shard = ringShards[index];
+			}
+			return shard;
+		}
+
+		private <O> Callback<O> trackLoad(int shard, Callback<O> cb) {
+			RefInt load = loads[shard];
+			load.inc();
+			totalLoad.inc();
+			return (result, e) -> {
+				load.dec();
+				totalLoad.dec();
+				cb.accept(result, e);
+			};
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.rpc.client.sender;
+
+import io.datakernel.async.callback.Callback;
+import io.datakernel.eventloop.Eventloop;
+import io.datakernel.eventloop.ScheduledRunnable;
+import io.datakernel.rpc.client.RpcClientConnectionPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static io.datakernel.common.Preconditions.checkArgument;
+import static io.datakernel.common.Utils.nullify;
+import static io.datakernel.eventloop.RunnableWithContext.wrapContext;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Strategy which sends a request to the first available sub strategy, and if there is no reply within
+ * the observed {@link #withQuantile quantile} of its latencies, sends a duplicate (a hedge) to the next one.
+ * The first successful reply is taken, while the replies to the other copies of the request are ignored.
+ * <p>
+ * Number of hedges is limited by a {@link #withBudget budget}, which is a share of the requests which may be duplicated,
+ * so that a slow cluster is not overloaded with hedges. Latencies are tracked per sub sender of each sender,
+ * and until enough of them are observed, requests are not hedged.
+ */
+public final class RpcStrategyHedging implements RpcStrategy {
+	public static final double DEFAULT_QUANTILE = 0.95;
+	public static final double DEFAULT_BUDGET = 0.05;
+	static final int LATENCY_SAMPLES = 256;
+	static final int MIN_LATENCY_SAMPLES = 64;
+	private static final double MAX_HEDGE_TOKENS = 10;
+
+	private final RpcStrategyList list;
+	private final double quantile;
+	private final double budget;
+	private final long minDelayMillis;
+
+	private RpcStrategyHedging(RpcStrategyList list, double quantile, double budget, long minDelayMillis) {
+		this.list = list;
+		this.quantile = quantile;
+		this.budget = budget;
+		this.minDelayMillis = minDelayMillis;
+	}
+
+	public static RpcStrategyHedging create(RpcStrategyList list) {
+		return new RpcStrategyHedging(list, DEFAULT_QUANTILE, DEFAULT_BUDGET, 0);
+	}
+
+	/**
+	 * Sets a quantile of latencies of a sub strategy, after which a hedge is sent
+	 */
+	public RpcStrategyHedging withQuantile(double quantile) {
+		checkArgument(quantile > 0 && quantile < 1, "Quantile should be in range (0, 1)");
+		return new RpcStrategyHedging(list, quantile, budget, minDelayMillis);
+	}
+
+	/**
+	 * Sets a max share of requests which may be hedged
+	 */
+	public RpcStrategyHedging withBudget(double budget) {
+		checkArgument(budget >= 0 && budget <= 1, "Budget should be in range [0, 1]");
+		return new RpcStrategyHedging(list, quantile, budget, minDelayMillis);
+	}
+
+	/**
+	 * Sets a min delay of a hedge, regardless of observed latencies
+	 */
+	public RpcStrategyHedging withMinDelay(long minDelayMillis) {
+		checkArgument(minDelayMillis >= 0, "Min delay cannot be negative");
+		return new RpcStrategyHedging(list, quantile, budget, minDelayMillis);
+	}
+
+	@Override
+	public Set<InetSocketAddress> getAddresses() {
+		return list.getAddresses();
+	}
+
+	@Nullable
+	@Override
+	public RpcSender createSender(RpcClientConnectionPool pool) {
+		List<RpcSender> nullableSenders = list.listOfNullableSenders(pool);
+		List<RpcSender> senders = new ArrayList<>();
+		List<LatencyTracker> trackers = new ArrayList<>();
+		for (int i = 0; i < nullableSenders.size(); i++) {
+			if (nullableSenders.get(i) != null) {
+				senders.add(nullableSenders.get(i));
+				trackers.add(new LatencyTracker(quantile));
+			}
+		}
+		if (senders.isEmpty())
+			return null;
+		if (senders.size() == 1)
+			return senders.get(0);
+		return new Sender(senders, trackers, budget, minDelayMillis);
+	}
+
+	static final class LatencyTracker {
+		private final double quantile;
+		private final long[] samples = new long[LATENCY_SAMPLES];
+		private int count;
+		private long thresholdMillis = -1;
+
+		LatencyTracker(double quantile) {
+			this.quantile = quantile;
+		}
+
+		void recordLatency(long nanos) {
+			samples[count++ % samples.length] = nanos;
+			if (count % MIN_LATENCY_SAMPLES == 0) {
+				long[] sorted = Arrays.copyOf(samples, min(count, samples.length));
+				Arrays.sort(sorted);
+				// hedges are scheduled with granularity of eventloop timers
+				thresholdMillis = (sorted[(int) (quantile * (sorted.length - 1))] + 999_999) / 1_000_000;
+			}
+			if (count == 2 * LATENCY_SAMPLES) count = LATENCY_SAMPLES;
+		}
+
+		/**
+		 * Returns the observed quantile of latencies, or -1 if not enough of them have been observed yet
+		 */
+		long getThresholdMillis() {
+			return thresholdMillis;
+		}
+	}
+
+	static final class Sender implements RpcSender {
+		private final RpcSender[] subSenders;
+		private final LatencyTracker[] latencyTrackers;
+		private final double budget;
+		private final long minDelayMillis;
+
+		private double hedgeTokens;
+
+		Sender(@NotNull List<RpcSender> senders, @NotNull List<LatencyTracker> latencyTrackers, double budget, long minDelayMillis) {
+			assert senders.size() > 1;
+			this.subSenders = senders.toArray(new RpcSender[0]);
+			this.latencyTrackers = latencyTrackers.toArray(new LatencyTracker[0]);
+			this.budget = budget;
+			this.minDelayMillis = minDelayMillis;
+		}
+
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+			hedgeTokens = min(hedgeTokens + budget, MAX_HEDGE_TOKENS);
+			new HedgedRequest<>(this, Eventloop.getCurrentEventloop(), request, timeout, cb).send(0);
+		}
+
+		boolean tryHedge() {
+			if (hedgeTokens < 1) return false;
+			hedgeTokens--;
+			return true;
+		}
+	}
+
+	private static final class HedgedRequest<I, O> {
+		private final Sender sender;
+		private final Eventloop eventloop;
+		private final I request;
+		private final int timeout;
+		private final long startTimestamp;
+		private final Callback<O> cb;
+
+		private int outstanding;
+		private boolean completed;
+		@Nullable
+		private ScheduledRunnable hedge;
+
+		HedgedRequest(Sender sender, Eventloop eventloop, I request, int timeout, Callback<O> cb) {
+			this.sender = sender;
+			this.eventloop = eventloop;
+			this.request = request;
+			this.timeout = timeout;
+			this.startTimestamp = eventloop.currentTimeMillis();
+			this.cb = cb;
+		}
+
+		void send(int index) {
+			outstanding++;
+			int remainingTimeout = timeout == Integer.MAX_VALUE ?
+					timeout :
+					(int) max(timeout - (eventloop.currentTimeMillis() - startTimestamp), 0);
+			long sendNanos = System.nanoTime();
+			sender.subSenders[index].<I, O>sendRequest(request, remainingTimeout, (result, e) -> {
+				if (e == null) {
+					sender.latencyTrackers[index].recordLatency(System.nanoTime() - sendNanos);
+				}
+				onResult(result, e);
+			});
+			if (completed || index + 1 == sender.subSenders.length) return;
+			long thresholdMillis = sender.latencyTrackers[index].getThresholdMillis();
+			if (thresholdMillis == -1) return;
+			hedge = eventloop.delay(max(thresholdMillis, sender.minDelayMillis), wrapContext(this, () -> {
+				hedge = null;
+				if (!completed && sender.tryHedge()) {
+					send(index + 1);
+				}
+			}));
+		}
+
+		void onResult(O result, @Nullable Throwable e) {
+			outstanding--;
+			if (completed) return;
+			if (e == null || outstanding == 0) {
+				completed = true;
+				hedge = nullify(hedge, ScheduledRunnable::cancel);
+				cb.accept(result, e);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "HedgedRequest{request=" + request + ", outstanding=" + outstanding + '}';
+		}
+	}
+}
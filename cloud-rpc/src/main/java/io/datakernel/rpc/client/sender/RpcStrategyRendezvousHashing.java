@@ -150,6 +150,14 @@ public final class RpcStrategyRendezvousHashing implements RpcStrategy {
 			sender.sendRequest(request, timeout, cb);
 		}
 
+		@SuppressWarnings("unchecked")
+		@Override
+		public <I, O> void sendStreamRequest(I request, Object stream, int timeout, @NotNull Callback<O> cb) {
+			int hash = ((HashFunction<Object>) hashFunction).hashCode(request);
+			RpcSender sender = hashBuckets[hash & (hashBuckets.length - 1)];
+			sender.sendStreamRequest(request, stream, timeout, cb);
+		}
+
 	}
 
 	// visible for testing
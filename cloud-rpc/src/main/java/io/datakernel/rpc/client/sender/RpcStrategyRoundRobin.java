@@ -77,5 +77,12 @@ public final class RpcStrategyRoundRobin implements RpcStrategy {
 			sender.sendRequest(request, timeout, cb);
 		}
 
+		@Override
+		public <I, O> void sendStreamRequest(I request, Object stream, int timeout, @NotNull Callback<O> cb) {
+			RpcSender sender = subSenders[nextSender];
+			nextSender = (nextSender + 1) % subSenders.length;
+			sender.sendStreamRequest(request, stream, timeout, cb);
+		}
+
 	}
 }
@@ -91,5 +91,17 @@ public final class RpcStrategySharding implements RpcStrategy {
 			}
 		}
 
+		@SuppressWarnings("unchecked")
+		@Override
+		public <I, O> void sendStreamRequest(I request, Object stream, int timeout, @NotNull Callback<O> cb) {
+			int shardIndex = ((ShardingFunction<Object>) shardingFunction).getShard(request);
+			RpcSender sender = subSenders[shardIndex];
+			if (sender != null) {
+				sender.sendStreamRequest(request, stream, timeout, cb);
+			} else {
+				cb.accept(null, NO_SENDER_AVAILABLE_EXCEPTION);
+			}
+		}
+
 	}
 }
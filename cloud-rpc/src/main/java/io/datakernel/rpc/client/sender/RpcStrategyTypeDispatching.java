@@ -93,15 +93,28 @@ public final class RpcStrategyTypeDispatching implements RpcStrategy {
 
 		@Override
 		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
-			RpcSender sender = typeToSender.get(request.getClass());
-			if (sender == null) {
-				sender = defaultSender;
-			}
+			RpcSender sender = getSender(request);
 			if (sender != null) {
 				sender.sendRequest(request, timeout, cb);
 			} else {
 				cb.accept(null, NO_SENDER_AVAILABLE_EXCEPTION);
 			}
 		}
+
+		@Override
+		public <I, O> void sendStreamRequest(I request, Object stream, int timeout, @NotNull Callback<O> cb) {
+			RpcSender sender = getSender(request);
+			if (sender != null) {
+				sender.sendStreamRequest(request, stream, timeout, cb);
+			} else {
+				cb.accept(null, NO_SENDER_AVAILABLE_EXCEPTION);
+			}
+		}
+
+		@Nullable
+		private RpcSender getSender(Object request) {
+			RpcSender sender = typeToSender.get(request.getClass());
+			return sender != null ? sender : defaultSender;
+		}
 	}
 }
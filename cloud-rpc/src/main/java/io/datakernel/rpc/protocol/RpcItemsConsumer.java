@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2015 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.datakernel.rpc.protocol;
+
+import io.datakernel.datastream.AbstractStreamConsumer;
+import io.datakernel.datastream.StreamDataAcceptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Consumes items of a stream and sends them to a peer with the cookie of the stream,
+ * as long as the peer has granted credits for them.
+ * <p>
+ * The stream is completed with {@link RpcStreamControl#END_OF_STREAM}, or with {@link RpcRemoteException}
+ * if the upstream supplier fails.
+ */
+public final class RpcItemsConsumer<T> extends AbstractStreamConsumer<T> {
+	public static final RpcException STREAM_CANCELLED = new RpcException(RpcItemsConsumer.class, "Stream has been cancelled by peer");
+
+	private int cookie;
+	@Nullable
+	private StreamDataAcceptor<RpcMessage> peer;
+
+	private int credit;
+	private boolean closedByPeer;
+
+	private final StreamDataAcceptor<T> acceptor = item -> {
+		//noinspection ConstantConditions - items are accepted only once this consumer is opened
+		peer.accept(RpcMessage.of(cookie, item));
+		if (--credit == 0) {
+			suspend();
+		}
+	};
+
+	/**
+	 * Binds this consumer to a stream of given cookie
+	 *
+	 * @param initialCredit credits, which have been granted by the peer along with the request
+	 */
+	public void open(int cookie, @NotNull StreamDataAcceptor<RpcMessage> peer, int initialCredit) {
+		this.cookie = cookie;
+		this.peer = peer;
+		// the error is sent ahead of other listeners of acknowledgement, which may close the connection
+		getAcknowledgement().whenException(e -> {
+			if (!closedByPeer) peer.accept(RpcMessage.of(cookie, new RpcRemoteException(e)));
+		});
+		addCredit(initialCredit);
+	}
+
+	public void onControl(RpcStreamControl control) {
+		if (control.isCancel()) {
+			if (isEndOfStream()) return;
+			// the peer keeps the stream until its end, so that items which are in flight are not taken for requests
+			//noinspection ConstantConditions
+			peer.accept(RpcMessage.of(cookie, RpcStreamControl.END_OF_STREAM));
+			closeByPeer(STREAM_CANCELLED);
+		} else if (!control.isEndOfStream()) {
+			addCredit(control.getCredit());
+		}
+	}
+
+	/**
+	 * Closes this consumer because of an error, which has been received from the peer, so that it is not sent back
+	 */
+	public void closeByPeer(@NotNull Throwable e) {
+		closedByPeer = true;
+		closeEx(e);
+	}
+
+	public boolean isClosedByPeer() {
+		return closedByPeer;
+	}
+
+	private void addCredit(int credit) {
+		this.credit += credit;
+		if (this.credit > 0) {
+			resume(acceptor);
+		}
+	}
+
+	@Override
+	protected void onEndOfStream() {
+		//noinspection ConstantConditions - end of stream is accepted only once this consumer is opened
+		peer.accept(RpcMessage.of(cookie, RpcStreamControl.END_OF_STREAM));
+		acknowledge();
+	}
+}
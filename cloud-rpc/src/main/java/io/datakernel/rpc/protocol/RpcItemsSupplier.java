@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.datakernel.rpc.protocol;
+
+import io.datakernel.common.ApplicationSettings;
+import io.datakernel.datastream.AbstractStreamSupplier;
+import io.datakernel.datastream.StreamDataAcceptor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import static io.datakernel.common.Preconditions.checkArgument;
+
+/**
+ * Supplies items of a stream, which are received from a peer with the cookie of the stream.
+ * <p>
+ * The peer may send only as many items as it has been granted credits for.
+ * Once the half of the window is consumed downstream, the consumed items are granted back,
+ * so that no more than a window of items is ever buffered, if the downstream consumer is suspended.
+ */
+public final class RpcItemsSupplier<T> extends AbstractStreamSupplier<T> {
+	public static final int DEFAULT_WINDOW = ApplicationSettings.getInt(RpcItemsSupplier.class, "window", 256);
+
+	private final int window;
+	private int cookie;
+	@Nullable
+	private StreamDataAcceptor<RpcMessage> peer;
+
+	private int received;
+	private int granted;
+	private boolean closedByPeer;
+
+	public RpcItemsSupplier(int window) {
+		checkArgument(window > 0, "Window must be greater than 0");
+		this.window = window;
+	}
+
+	public int getWindow() {
+		return window;
+	}
+
+	/**
+	 * Binds this supplier to a stream of given cookie
+	 *
+	 * @param initialCredit credits, which have already been granted to the peer along with the request
+	 */
+	public void open(int cookie, @NotNull StreamDataAcceptor<RpcMessage> peer, int initialCredit) {
+		this.cookie = cookie;
+		this.peer = peer;
+		this.granted = initialCredit;
+		// the cancellation is sent ahead of other listeners of end of stream, which may close the connection
+		getEndOfStream().whenException(e -> {
+			if (!closedByPeer) peer.accept(RpcMessage.of(cookie, RpcStreamControl.CANCEL));
+		});
+		grantCredit();
+	}
+
+	@SuppressWarnings("unchecked")
+	public void onItem(Object item) {
+		received++;
+		send((T) item);
+		grantCredit();
+	}
+
+	public void onControl(RpcStreamControl control) {
+		if (control.isEndOfStream()) {
+			sendEndOfStream();
+		}
+	}
+
+	/**
+	 * Closes this supplier because of an error, which has been received from the peer, so that it is not cancelled back
+	 */
+	public void closeByPeer(@NotNull Throwable e) {
+		closedByPeer = true;
+		closeEx(e);
+	}
+
+	@Override
+	protected void onResumed() {
+		grantCredit();
+	}
+
+	private void grantCredit() {
+		if (peer == null || !isReady() || isEndOfStream()) return;
+		// all of the received items have been consumed, as this supplier is ready
+		int credit = received + window - granted;
+		if (credit >= (window + 1) / 2) {
+			granted += credit;
+			peer.accept(RpcMessage.of(cookie, RpcStreamControl.of(credit)));
+		}
+	}
+}
@@ -42,8 +42,9 @@ public final class RpcMessage {
 	}
 
 	@Serialize(order = 2)
+	// stream messages are indexed before the others, so that indexes of the others are kept as they were
 	@SerializeSubclasses(
-			startIndex = -1, value = {RpcControlMessage.class, RpcRemoteException.class},
+			startIndex = -3, value = {RpcStreamRequest.class, RpcStreamControl.class, RpcControlMessage.class, RpcRemoteException.class},
 			extraSubclassesId = MESSAGE_TYPES
 	)
 
@@ -22,6 +22,9 @@ import io.datakernel.csp.ChannelConsumer;
 import io.datakernel.csp.ChannelSupplier;
 import io.datakernel.csp.process.ChannelLZ4Compressor;
 import io.datakernel.csp.process.ChannelLZ4Decompressor;
+import io.datakernel.csp.process.ChannelLZ4DictionaryCompressor;
+import io.datakernel.csp.process.ChannelLZ4DictionaryDecompressor;
+import io.datakernel.csp.process.LZ4Dictionary;
 import io.datakernel.datastream.AbstractStreamConsumer;
 import io.datakernel.datastream.AbstractStreamSupplier;
 import io.datakernel.datastream.StreamDataAcceptor;
@@ -30,8 +33,12 @@ import io.datakernel.datastream.csp.ChannelSerializer;
 import io.datakernel.net.AsyncTcpSocket;
 import io.datakernel.serializer.BinarySerializer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
 
 public final class RpcStream {
 	private static final CloseException RPC_CLOSE_EXCEPTION = new CloseException(RpcStream.class, "RPC Channel Closed");
@@ -80,6 +87,21 @@ public final class RpcStream {
 			BinarySerializer<RpcMessage> messageSerializer,
 			MemSize initialBufferSize, MemSize maxMessageSize,
 			Duration autoFlushInterval, boolean compression, boolean server) {
+		this(socket, messageSerializer, initialBufferSize, maxMessageSize, autoFlushInterval, null, compression, null, emptyList(), server);
+	}
+
+	/**
+	 * @param adaptiveFlushDelay        max delay of adaptive flushing, which overrides the auto flush interval if not {@code null}
+	 * @param compressionDictionary     dictionary of outgoing messages, which is accepted for incoming messages as well
+	 * @param decompressionDictionaries other dictionaries of incoming messages, which the peer may compress them with
+	 * @see ChannelSerializer#withAdaptiveFlush(Duration)
+	 */
+	public RpcStream(AsyncTcpSocket socket,
+			BinarySerializer<RpcMessage> messageSerializer,
+			MemSize initialBufferSize, MemSize maxMessageSize,
+			Duration autoFlushInterval, @Nullable Duration adaptiveFlushDelay,
+			boolean compression, @Nullable LZ4Dictionary compressionDictionary, List<LZ4Dictionary> decompressionDictionaries,
+			boolean server) {
 		this.server = server;
 		this.socket = socket;
 
@@ -88,10 +110,25 @@ public final class RpcStream {
 				.withMaxMessageSize(maxMessageSize)
 				.withAutoFlushInterval(autoFlushInterval)
 				.withSerializationErrorHandler((message, e) -> listener.onSerializationError(message, e));
+		if (adaptiveFlushDelay != null) {
+			serializer.withAdaptiveFlush(adaptiveFlushDelay);
+		}
 		ChannelDeserializer<RpcMessage> deserializer = ChannelDeserializer.create(messageSerializer)
 				.withMaxMessageSize(maxMessageSize);
 
-		if (compression) {
+		if (compression && compressionDictionary != null) {
+			ChannelLZ4DictionaryDecompressor decompressor = ChannelLZ4DictionaryDecompressor.create(compressionDictionary);
+			for (LZ4Dictionary dictionary : decompressionDictionaries) {
+				decompressor.withDictionary(dictionary);
+			}
+			ChannelLZ4DictionaryCompressor compressor = ChannelLZ4DictionaryCompressor.create(compressionDictionary);
+
+			ChannelSupplier.ofSocket(socket).bindTo(decompressor.getInput());
+			decompressor.getOutput().bindTo(deserializer.getInput());
+
+			serializer.getOutput().bindTo(compressor.getInput());
+			compressor.getOutput().set(ChannelConsumer.ofSocket(socket));
+		} else if (compression) {
 			ChannelLZ4Decompressor decompressor = ChannelLZ4Decompressor.create();
 			ChannelLZ4Compressor compressor = ChannelLZ4Compressor.createFastCompressor();
 
@@ -122,6 +159,17 @@ public final class RpcStream {
 		internalConsumer.resume(listener);
 	}
 
+	/**
+	 * Stops reading of incoming messages, so that the backpressure is propagated to the peer
+	 */
+	public void receiverSuspend() {
+		internalConsumer.suspend();
+	}
+
+	public void receiverResume() {
+		internalConsumer.resume(listener);
+	}
+
 	public void sendEndOfStream() {
 		internalSupplier.sendEndOfStream();
 	}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2015 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.datakernel.rpc.protocol;
+
+import io.datakernel.serializer.annotations.Deserialize;
+import io.datakernel.serializer.annotations.Serialize;
+
+/**
+ * A control message of a stream, opened with {@link RpcStreamRequest}.
+ * <p>
+ * It either grants the peer credits for sending more items,
+ * or signals that the items are over, or that the receiving side is no longer interested in them.
+ */
+public final class RpcStreamControl {
+	public static final RpcStreamControl END_OF_STREAM = new RpcStreamControl(0);
+	public static final RpcStreamControl CANCEL = new RpcStreamControl(-1);
+
+	private final int credit;
+
+	private RpcStreamControl(int credit) {
+		this.credit = credit;
+	}
+
+	public static RpcStreamControl of(@Deserialize("credit") int credit) {
+		return credit == 0 ? END_OF_STREAM : credit == -1 ? CANCEL : new RpcStreamControl(credit);
+	}
+
+	@Serialize(order = 1)
+	public int getCredit() {
+		return credit;
+	}
+
+	public boolean isEndOfStream() {
+		return this == END_OF_STREAM;
+	}
+
+	public boolean isCancel() {
+		return this == CANCEL;
+	}
+
+	@Override
+	public String toString() {
+		return isEndOfStream() ? "END_OF_STREAM" : isCancel() ? "CANCEL" : "RpcStreamControl{credit=" + credit + '}';
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2015 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.datakernel.rpc.protocol;
+
+import io.datakernel.serializer.annotations.Deserialize;
+import io.datakernel.serializer.annotations.Serialize;
+import io.datakernel.serializer.annotations.SerializeSubclasses;
+
+import static io.datakernel.rpc.protocol.RpcMessage.MESSAGE_TYPES;
+
+/**
+ * A request, which opens a stream of items between a client and a server.
+ * <p>
+ * Items are sent as ordinary messages with the cookie of the request,
+ * as long as the receiving side grants credits for them with {@link RpcStreamControl} messages.
+ */
+public final class RpcStreamRequest {
+	private final Object request;
+	private final int credit;
+
+	private RpcStreamRequest(Object request, int credit) {
+		this.request = request;
+		this.credit = credit;
+	}
+
+	/**
+	 * @param credit number of items the server may send before it is granted more credits
+	 */
+	public static RpcStreamRequest of(@Deserialize("request") Object request, @Deserialize("credit") int credit) {
+		return new RpcStreamRequest(request, credit);
+	}
+
+	@Serialize(order = 1)
+	@SerializeSubclasses(value = {}, extraSubclassesId = MESSAGE_TYPES)
+	public Object getRequest() {
+		return request;
+	}
+
+	@Serialize(order = 2)
+	public int getCredit() {
+		return credit;
+	}
+
+	@Override
+	public String toString() {
+		return "RpcStreamRequest{request=" + request + ", credit=" + credit + '}';
+	}
+}
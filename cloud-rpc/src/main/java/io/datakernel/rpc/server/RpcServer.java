@@ -16,8 +16,11 @@
 
 package io.datakernel.rpc.server;
 
+import io.datakernel.async.process.AsyncExecutor;
+import io.datakernel.async.process.AsyncExecutors;
 import io.datakernel.common.MemSize;
 import io.datakernel.common.parse.ParseException;
+import io.datakernel.csp.process.LZ4Dictionary;
 import io.datakernel.datastream.csp.ChannelSerializer;
 import io.datakernel.eventloop.Eventloop;
 import io.datakernel.eventloop.net.ServerSocketSettings;
@@ -33,11 +36,13 @@ import io.datakernel.promise.Promise;
 import io.datakernel.promise.SettablePromise;
 import io.datakernel.rpc.client.RpcClient;
 import io.datakernel.rpc.protocol.RpcControlMessage;
+import io.datakernel.rpc.protocol.RpcItemsSupplier;
 import io.datakernel.rpc.protocol.RpcMessage;
 import io.datakernel.rpc.protocol.RpcStream;
 import io.datakernel.serializer.BinarySerializer;
 import io.datakernel.serializer.SerializerBuilder;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.net.InetAddress;
 import java.time.Duration;
@@ -46,6 +51,7 @@ import java.util.*;
 import static io.datakernel.common.Preconditions.checkArgument;
 import static io.datakernel.common.Preconditions.checkState;
 import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 
 /**
  * An RPC server that works asynchronously. This server uses fast serializers
@@ -85,8 +91,20 @@ public final class RpcServer extends AbstractServer<RpcServer> {
 	private MemSize maxMessageSize = DEFAULT_MAX_MESSAGE_SIZE;
 	private boolean compression = false;
 	private Duration autoFlushInterval = Duration.ZERO;
+	@Nullable
+	private Duration adaptiveFlushDelay;
+	@Nullable
+	private LZ4Dictionary compressionDictionary;
+	private List<LZ4Dictionary> decompressionDictionaries = Collections.emptyList();
+	@Nullable
+	private AsyncExecutor handlerExecutor;
+	private int maxParallelRequests = Integer.MAX_VALUE;
+	private boolean orderedResponses;
 
 	private final Map<Class<?>, RpcRequestHandler<?, ?>> handlers = new LinkedHashMap<>();
+	private final Map<Class<?>, RpcStreamHandler<?, ?>> streamHandlers = new HashMap<>();
+	private final Map<Class<?>, RpcUploadHandler<?, ?, ?>> uploadHandlers = new HashMap<>();
+	private int streamWindow = RpcItemsSupplier.DEFAULT_WINDOW;
 	private ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
 	private SerializerBuilder serializerBuilder = SerializerBuilder.create(classLoader);
 	private List<Class<?>> messageTypes;
@@ -176,6 +194,85 @@ public final class RpcServer extends AbstractServer<RpcServer> {
 		return this;
 	}
 
+	/**
+	 * Flushes responses at the end of an eventloop tick while the connection keeps up with them,
+	 * and coalesces them for no longer than given delay under load, instead of the fixed auto flush interval
+	 *
+	 * @see ChannelSerializer#withAdaptiveFlush(Duration)
+	 */
+	public RpcServer withAdaptiveFlush(@Nullable Duration maxFlushDelay) {
+		this.adaptiveFlushDelay = maxFlushDelay;
+		return this;
+	}
+
+	/**
+	 * Compresses messages with given dictionary, so that small messages of the same message types are compressed
+	 * as well as large blocks, for example, with the one {@link LZ4Dictionary#train trained} on serialized messages
+	 * of the message types.
+	 * <p>
+	 * Received messages are decompressed with any of the given dictionaries, as each block carries the id of its own.
+	 * So a newly trained dictionary is rolled out by adding it as a decompression dictionary to all of the peers first,
+	 * and then by compressing with it, while the previous dictionary is still accepted for decompression.
+	 *
+	 * @param compressionDictionary     dictionary of outgoing messages, which is accepted for incoming messages as well
+	 * @param decompressionDictionaries  other dictionaries of incoming messages, such as the previous one
+	 */
+	public RpcServer withCompressionDictionary(@NotNull LZ4Dictionary compressionDictionary, LZ4Dictionary... decompressionDictionaries) {
+		this.compression = true;
+		this.compressionDictionary = compressionDictionary;
+		this.decompressionDictionaries = Arrays.asList(decompressionDictionaries);
+		return this;
+	}
+
+	/**
+	 * Runs request handlers with given executor, instead of running them in the eventloop of a connection,
+	 * so that CPU-heavy handlers do not serialize requests of the connection.
+	 * Handlers should then be safe to be called from the threads of the executor.
+	 *
+	 * @see #withHandlerEventloops(List)
+	 * @see #withMaxParallelRequests(int)
+	 */
+	public RpcServer withHandlerExecutor(@NotNull AsyncExecutor handlerExecutor) {
+		this.handlerExecutor = handlerExecutor;
+		return this;
+	}
+
+	/**
+	 * Runs request handlers in given eventloops in round-robin manner,
+	 * for example in eventloops of a {@code WorkerPool}
+	 */
+	public RpcServer withHandlerEventloops(@NotNull List<Eventloop> eventloops) {
+		checkArgument(!eventloops.isEmpty(), "At least one eventloop must be present");
+		return withHandlerExecutor(AsyncExecutors.roundRobin(eventloops.stream()
+				.map(AsyncExecutors::ofEventloop)
+				.collect(toList())));
+	}
+
+	/**
+	 * Limits the number of requests of a connection, which are handled at the same time.
+	 * Once the limit is reached, reading of requests from the connection is suspended,
+	 * so that slow handlers propagate backpressure to clients.
+	 */
+	public RpcServer withMaxParallelRequests(int maxParallelRequests) {
+		checkArgument(maxParallelRequests > 0, "Max parallel requests should be positive");
+		this.maxParallelRequests = maxParallelRequests;
+		return this;
+	}
+
+	/**
+	 * Sends responses of a connection in order of its requests. By default, responses are sent as soon
+	 * as they are ready, and are matched with requests by clients.
+	 * Responses which wait for an earlier one count towards {@link #withMaxParallelRequests(int) parallel requests}.
+	 */
+	public RpcServer withOrderedResponses() {
+		return withOrderedResponses(true);
+	}
+
+	public RpcServer withOrderedResponses(boolean orderedResponses) {
+		this.orderedResponses = orderedResponses;
+		return this;
+	}
+
 	/**
 	 * Adds a handler for a specified request-response pair.
 	 *
@@ -192,13 +289,50 @@ public final class RpcServer extends AbstractServer<RpcServer> {
 		return this;
 	}
 
+	/**
+	 * Adds a handler for requests, which are answered with streams of items.
+	 * Items are sent as long as a client grants credits for them, so that a slow client
+	 * suspends the stream, instead of having its items buffered.
+	 * <p>
+	 * Stream handlers are run in the eventloop of a connection, regardless of {@link #withHandlerExecutor handler executor}.
+	 *
+	 * @see RpcClient#streamRequest
+	 */
+	public <I, T> RpcServer withStreamHandler(Class<I> requestClass, Class<T> itemClass, RpcStreamHandler<I, T> handler) {
+		streamHandlers.put(requestClass, handler);
+		return this;
+	}
+
+	/**
+	 * Adds a handler for requests, which are followed by streams of items, uploaded by a client.
+	 * <p>
+	 * Upload handlers are run in the eventloop of a connection, regardless of {@link #withHandlerExecutor handler executor}.
+	 *
+	 * @see RpcClient#streamUpload
+	 */
+	public <I, T, O> RpcServer withUploadHandler(Class<I> requestClass, Class<T> itemClass, Class<O> responseClass,
+			RpcUploadHandler<I, T, O> handler) {
+		uploadHandlers.put(requestClass, handler);
+		return this;
+	}
+
+	/**
+	 * Sets a number of items of an upload, which a client may send ahead of their consumption
+	 */
+	public RpcServer withStreamWindow(int streamWindow) {
+		checkArgument(streamWindow > 0, "Stream window should be positive");
+		this.streamWindow = streamWindow;
+		return this;
+	}
+
 	// endregion
 
 	@Override
 	protected void serve(AsyncTcpSocket socket, InetAddress remoteAddress) {
 		RpcStream stream = new RpcStream(socket, serializer, initialBufferSize, maxMessageSize,
-				autoFlushInterval, compression, true); // , statsSerializer, statsDeserializer, statsCompressor, statsDecompressor);
-		RpcServerConnection connection = new RpcServerConnection(this, remoteAddress, handlers, stream);
+				autoFlushInterval, adaptiveFlushDelay, compression, compressionDictionary, decompressionDictionaries, true); // , statsSerializer, statsDeserializer, statsCompressor, statsDecompressor);
+		RpcServerConnection connection = new RpcServerConnection(this, remoteAddress, handlers, stream,
+				handlerExecutor, maxParallelRequests, orderedResponses);
 		stream.setListener(connection);
 		add(connection);
 
@@ -238,6 +372,18 @@ public final class RpcServer extends AbstractServer<RpcServer> {
 		connections.add(connection);
 	}
 
+	Map<Class<?>, RpcStreamHandler<?, ?>> getStreamHandlers() {
+		return streamHandlers;
+	}
+
+	Map<Class<?>, RpcUploadHandler<?, ?, ?>> getUploadHandlers() {
+		return uploadHandlers;
+	}
+
+	int getStreamWindow() {
+		return streamWindow;
+	}
+
 	boolean remove(RpcServerConnection connection) {
 		if (!connections.remove(connection)) {
 			return false;
@@ -288,6 +434,16 @@ public final class RpcServer extends AbstractServer<RpcServer> {
 		return connections.size();
 	}
 
+	@JmxAttribute(description = "requests which are being handled, including those which are waiting for the handler executor",
+			reducer = JmxReducerSum.class)
+	public int getHandlingRequests() {
+		int count = 0;
+		for (RpcServerConnection connection : connections) {
+			count += connection.getHandlingRequests();
+		}
+		return count;
+	}
+
 	@JmxAttribute
 	public EventStats getTotalConnects() {
 		return totalConnects;
@@ -16,6 +16,7 @@
 
 package io.datakernel.rpc.server;
 
+import io.datakernel.async.process.AsyncExecutor;
 import io.datakernel.common.parse.ParseException;
 import io.datakernel.datastream.StreamDataAcceptor;
 import io.datakernel.jmx.api.JmxRefreshable;
@@ -24,28 +25,55 @@ import io.datakernel.jmx.stats.EventStats;
 import io.datakernel.jmx.stats.ExceptionStats;
 import io.datakernel.jmx.stats.ValueStats;
 import io.datakernel.promise.Promise;
-import io.datakernel.rpc.protocol.RpcControlMessage;
-import io.datakernel.rpc.protocol.RpcMessage;
-import io.datakernel.rpc.protocol.RpcRemoteException;
-import io.datakernel.rpc.protocol.RpcStream;
+import io.datakernel.rpc.protocol.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 public final class RpcServerConnection implements RpcStream.Listener, JmxRefreshable {
 	private static final Logger logger = LoggerFactory.getLogger(RpcServerConnection.class);
+	public static final RpcException STREAM_CLOSED = new RpcException(RpcServerConnection.class, "Connection closed");
+	public static final RpcException UPLOAD_ABANDONED = new RpcException(RpcServerConnection.class, "Upload has been completed before the end of items");
 
 	private StreamDataAcceptor<RpcMessage> downstreamDataAcceptor;
+	private final StreamDataAcceptor<RpcMessage> peer = message -> downstreamDataAcceptor.accept(message);
 
 	private final RpcServer rpcServer;
 	private final RpcStream stream;
 	private final Map<Class<?>, RpcRequestHandler<?, ?>> handlers;
+	@Nullable
+	private final AsyncExecutor handlerExecutor;
+	private final int maxParallelRequests;
+	@Nullable
+	private final ArrayDeque<PendingResponse> pendingResponses;
 
 	private int activeRequests = 1;
+	private int handlingRequests;
+	private boolean receiverSuspended;
+
+	private final Map<Integer, RpcItemsConsumer<?>> downloads = new HashMap<>();
+	private final Map<Integer, RpcItemsSupplier<?>> uploads = new HashMap<>();
+
+	private static final class PendingResponse {
+		final int cookie;
+		final Object messageData;
+		Object result;
+		Throwable e;
+		boolean complete;
+
+		PendingResponse(int cookie, Object messageData) {
+			this.cookie = cookie;
+			this.messageData = messageData;
+		}
+	}
 
 	// jmx
 	private final InetAddress remoteAddress;
@@ -56,10 +84,14 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 	private boolean monitoring = false;
 
 	RpcServerConnection(RpcServer rpcServer, InetAddress remoteAddress,
-			Map<Class<?>, RpcRequestHandler<?, ?>> handlers, RpcStream stream) {
+			Map<Class<?>, RpcRequestHandler<?, ?>> handlers, RpcStream stream,
+			@Nullable AsyncExecutor handlerExecutor, int maxParallelRequests, boolean orderedResponses) {
 		this.rpcServer = rpcServer;
 		this.stream = stream;
 		this.handlers = handlers;
+		this.handlerExecutor = handlerExecutor;
+		this.maxParallelRequests = maxParallelRequests;
+		this.pendingResponses = orderedResponses ? new ArrayDeque<>() : null;
 
 		// jmx
 		this.remoteAddress = remoteAddress;
@@ -76,36 +108,170 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 
 	@Override
 	public void accept(RpcMessage message) {
+		Object messageData = message.getData();
+		Class<?> dataClass = messageData.getClass();
+		if (dataClass == RpcStreamControl.class || dataClass == RpcRemoteException.class) {
+			processStreamMessage(message.getCookie(), messageData);
+			return;
+		}
+		if (!uploads.isEmpty()) {
+			RpcItemsSupplier<?> upload = uploads.get(message.getCookie());
+			if (upload != null) {
+				upload.onItem(messageData);
+				return;
+			}
+		}
+		if (dataClass == RpcStreamRequest.class) {
+			openStream(message.getCookie(), (RpcStreamRequest) messageData);
+			return;
+		}
+
 		activeRequests++;
+		if (++handlingRequests == maxParallelRequests && !receiverSuspended) {
+			// slow handlers throttle reading of requests, instead of buffering them
+			receiverSuspended = true;
+			stream.receiverSuspend();
+		}
 
 		int cookie = message.getCookie();
 		long startTime = monitoring ? System.currentTimeMillis() : 0;
 
-		Object messageData = message.getData();
-		serve(messageData)
+		PendingResponse pendingResponse = null;
+		if (pendingResponses != null) {
+			pendingResponse = new PendingResponse(cookie, messageData);
+			pendingResponses.add(pendingResponse);
+		}
+		PendingResponse finalPendingResponse = pendingResponse;
+		Promise<Object> promise;
+		if (handlerExecutor == null) {
+			promise = serve(messageData);
+		} else {
+			try {
+				promise = handlerExecutor.execute(() -> serve(messageData));
+			} catch (RejectedExecutionException e) {
+				promise = Promise.ofException(e);
+			}
+		}
+		promise
 				.whenComplete((result, e) -> {
 					if (startTime != 0) {
 						int value = (int) (System.currentTimeMillis() - startTime);
 						requestHandlingTime.recordValue(value);
 						rpcServer.getRequestHandlingTime().recordValue(value);
 					}
-					if (e == null) {
-						downstreamDataAcceptor.accept(RpcMessage.of(cookie, result));
-
-						successfulRequests.recordEvent();
-						rpcServer.getSuccessfulRequests().recordEvent();
-					} else {
-						logger.warn("Exception while processing request ID {}", cookie, e);
-						RpcMessage errorMessage = RpcMessage.of(cookie, new RpcRemoteException(e));
-						sendError(errorMessage, messageData, e);
+					if (finalPendingResponse == null) {
+						onRequestHandled();
+						sendResponse(cookie, messageData, result, e);
+						return;
 					}
-					if (--activeRequests == 0) {
-						doClose();
-						stream.sendEndOfStream();
+					finalPendingResponse.result = result;
+					finalPendingResponse.e = e;
+					finalPendingResponse.complete = true;
+					// responses which wait for an earlier one still count towards parallel requests
+					while (!pendingResponses.isEmpty() && pendingResponses.peek().complete) {
+						PendingResponse response = pendingResponses.poll();
+						onRequestHandled();
+						sendResponse(response.cookie, response.messageData, response.result, response.e);
 					}
 				});
 	}
 
+	private void onRequestHandled() {
+		if (--handlingRequests < maxParallelRequests && receiverSuspended) {
+			receiverSuspended = false;
+			stream.receiverResume();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void openStream(int cookie, RpcStreamRequest streamRequest) {
+		activeRequests++;
+		Object request = streamRequest.getRequest();
+
+		RpcStreamHandler<Object, Object> streamHandler = (RpcStreamHandler<Object, Object>) rpcServer.getStreamHandlers().get(request.getClass());
+		if (streamHandler != null) {
+			RpcItemsConsumer<Object> items = new RpcItemsConsumer<>();
+			items.open(cookie, peer, streamRequest.getCredit());
+			downloads.put(cookie, items);
+			streamHandler.run(request).streamTo(items)
+					.whenComplete(($, e) -> {
+						downloads.remove(cookie);
+						onStreamComplete(request, e);
+					});
+			return;
+		}
+
+		RpcUploadHandler<Object, Object, Object> uploadHandler = (RpcUploadHandler<Object, Object, Object>) rpcServer.getUploadHandlers().get(request.getClass());
+		if (uploadHandler != null) {
+			RpcItemsSupplier<Object> items = new RpcItemsSupplier<>(rpcServer.getStreamWindow());
+			items.open(cookie, peer, 0);
+			uploads.put(cookie, items);
+			uploadHandler.run(request, items)
+					.whenComplete((result, e) -> {
+						// the rest of items is cancelled, while the upload is kept until its end
+						items.closeEx(UPLOAD_ABANDONED);
+						sendResponse(cookie, request, result, e);
+					});
+			return;
+		}
+
+		sendResponse(cookie, request, null, new ParseException(RpcServerConnection.class, "Failed to process stream request " + request));
+	}
+
+	private void processStreamMessage(int cookie, Object messageData) {
+		if (messageData instanceof RpcStreamControl) {
+			RpcStreamControl control = (RpcStreamControl) messageData;
+			RpcItemsConsumer<?> download = downloads.get(cookie);
+			if (download != null) {
+				download.onControl(control);
+				return;
+			}
+			RpcItemsSupplier<?> upload = control.isEndOfStream() ? uploads.remove(cookie) : uploads.get(cookie);
+			if (upload != null) {
+				upload.onControl(control);
+			}
+		} else {
+			RpcItemsSupplier<?> upload = uploads.remove(cookie);
+			if (upload != null) {
+				upload.closeByPeer((RpcRemoteException) messageData);
+			}
+		}
+	}
+
+	private void onStreamComplete(Object request, @Nullable Throwable e) {
+		if (e == null) {
+			successfulRequests.recordEvent();
+			rpcServer.getSuccessfulRequests().recordEvent();
+		} else {
+			logger.warn("Exception while streaming items of request {}", request, e);
+			lastRequestHandlingException.recordException(e, request);
+			rpcServer.getLastRequestHandlingException().recordException(e, request);
+			failedRequests.recordEvent();
+			rpcServer.getFailedRequests().recordEvent();
+		}
+		if (--activeRequests == 0) {
+			doClose();
+			stream.sendEndOfStream();
+		}
+	}
+
+	private void sendResponse(int cookie, Object messageData, Object result, @Nullable Throwable e) {
+		if (e == null) {
+			downstreamDataAcceptor.accept(RpcMessage.of(cookie, result));
+
+			successfulRequests.recordEvent();
+			rpcServer.getSuccessfulRequests().recordEvent();
+		} else {
+			logger.warn("Exception while processing request ID {}", cookie, e);
+			RpcMessage errorMessage = RpcMessage.of(cookie, new RpcRemoteException(e));
+			sendError(errorMessage, messageData, e);
+		}
+		if (--activeRequests == 0) {
+			doClose();
+			stream.sendEndOfStream();
+		}
+	}
+
 	@Override
 	public void onReceiverEndOfStream() {
 		activeRequests--;
@@ -158,6 +324,13 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 	private void doClose() {
 		rpcServer.remove(this);
 		downstreamDataAcceptor = $ -> {};
+		for (RpcItemsConsumer<?> download : new ArrayList<>(downloads.values())) {
+			download.closeByPeer(STREAM_CLOSED);
+		}
+		for (RpcItemsSupplier<?> upload : new ArrayList<>(uploads.values())) {
+			upload.closeByPeer(STREAM_CLOSED);
+		}
+		uploads.clear();
 	}
 
 	public void shutdown() {
@@ -195,6 +368,21 @@ public final class RpcServerConnection implements RpcStream.Listener, JmxRefresh
 		return lastRequestHandlingException;
 	}
 
+	@JmxAttribute(description = "requests which are being handled, including those which are waiting for the handler executor")
+	public int getHandlingRequests() {
+		return handlingRequests;
+	}
+
+	@JmxAttribute(description = "whether reading of requests is suspended because of too many of handling requests")
+	public boolean isReceiverSuspended() {
+		return receiverSuspended;
+	}
+
+	@JmxAttribute(description = "streams of items, which are sent or received")
+	public int getActiveStreams() {
+		return downloads.size() + uploads.size();
+	}
+
 	@JmxAttribute
 	public String getRemoteAddress() {
 		return remoteAddress.toString();
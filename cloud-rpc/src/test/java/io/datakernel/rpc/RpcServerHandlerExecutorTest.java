@@ -0,0 +1,194 @@
+package io.datakernel.rpc;
+
+import io.datakernel.async.function.AsyncSupplier;
+import io.datakernel.async.process.AsyncExecutor;
+import io.datakernel.common.collection.Try;
+import io.datakernel.eventloop.Eventloop;
+import io.datakernel.promise.Promise;
+import io.datakernel.promise.Promises;
+import io.datakernel.promise.SettablePromise;
+import io.datakernel.rpc.client.RpcClient;
+import io.datakernel.rpc.protocol.RpcRemoteException;
+import io.datakernel.rpc.server.RpcServer;
+import io.datakernel.test.rules.ByteBufRule;
+import io.datakernel.test.rules.EventloopRule;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.datakernel.eventloop.Eventloop.getCurrentEventloop;
+import static io.datakernel.promise.TestUtils.await;
+import static io.datakernel.rpc.client.sender.RpcStrategies.server;
+import static io.datakernel.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public final class RpcServerHandlerExecutorTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	private static final int REQUESTS = 100;
+	private static final int MAX_PARALLEL_REQUESTS = 4;
+
+	private final List<Eventloop> handlerEventloops = new ArrayList<>();
+	private final Set<Thread> handlerThreads = Collections.synchronizedSet(new HashSet<>());
+	private final AtomicInteger handling = new AtomicInteger();
+	private final AtomicInteger maxHandling = new AtomicInteger();
+	private final List<Integer> responses = new ArrayList<>();
+
+	private int port;
+
+	@Before
+	public void setUp() {
+		port = getFreePort();
+		for (int i = 0; i < 2; i++) {
+			Eventloop eventloop = Eventloop.create();
+			eventloop.keepAlive(true);
+			new Thread(eventloop).start();
+			handlerEventloops.add(eventloop);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		for (Eventloop eventloop : handlerEventloops) {
+			eventloop.execute(() -> eventloop.keepAlive(false));
+		}
+	}
+
+	@Test
+	public void testOrderedResponsesOfParallelHandlers() throws Exception {
+		RpcServer server = RpcServer.create(getCurrentEventloop())
+				.withMessageTypes(Integer.class)
+				.withHandler(Integer.class, Integer.class, request -> {
+					handlerThreads.add(Thread.currentThread());
+					maxHandling.accumulateAndGet(handling.incrementAndGet(), Math::max);
+					// later requests complete earlier
+					return Promises.delay((REQUESTS - request) % 7L, request * 2)
+							.whenComplete(handling::decrementAndGet);
+				})
+				.withHandlerEventloops(handlerEventloops)
+				.withMaxParallelRequests(MAX_PARALLEL_REQUESTS)
+				.withOrderedResponses()
+				.withListenPort(port);
+		server.listen();
+
+		RpcClient client = RpcClient.create(getCurrentEventloop())
+				.withMessageTypes(Integer.class)
+				.withStrategy(server(new InetSocketAddress("localhost", port)));
+
+		List<Integer> result = await(client.start()
+				.then(() -> Promises.toList(IntStream.range(0, REQUESTS)
+						.mapToObj(i -> client.<Integer, Integer>sendRequest(i)
+								.whenResult(responses::add))))
+				.whenComplete(() -> {
+					client.stop();
+					server.close();
+				}));
+
+		List<Integer> expected = IntStream.range(0, REQUESTS).mapToObj(i -> i * 2).collect(Collectors.toList());
+		assertEquals(expected, result);
+		assertEquals(expected, responses);
+		assertFalse(handlerThreads.contains(Thread.currentThread()));
+		assertEquals(2, handlerThreads.size());
+		assertTrue(maxHandling.get() <= MAX_PARALLEL_REQUESTS);
+	}
+
+	@Test
+	public void testStuckHeadOfLineRequestSuspendsReading() throws Exception {
+		SettablePromise<Integer> stuck = new SettablePromise<>();
+		List<Integer> handled = new ArrayList<>();
+		RpcServer server = RpcServer.create(getCurrentEventloop())
+				.withMessageTypes(Integer.class)
+				.withHandler(Integer.class, Integer.class, request -> {
+					handled.add(request);
+					return request == 0 ? stuck : Promise.of(request * 2);
+				})
+				.withMaxParallelRequests(MAX_PARALLEL_REQUESTS)
+				.withOrderedResponses()
+				.withListenPort(port);
+		server.listen();
+
+		RpcClient client = RpcClient.create(getCurrentEventloop())
+				.withMessageTypes(Integer.class)
+				.withStrategy(server(new InetSocketAddress("localhost", port)));
+
+		List<Integer> result = await(client.start()
+				// a warm up request, so that requests are handled right after they are sent
+				.then(() -> client.<Integer, Integer>sendRequest(REQUESTS))
+				.then(() -> {
+					handled.clear();
+					Promise<List<Integer>> responses = Promises.toList(IntStream.range(0, REQUESTS)
+							.mapToObj(i -> client.<Integer, Integer>sendRequest(i)));
+					return Promises.delay(100L)
+							.whenResult(() -> {
+								// the requests behind the stuck one are handled, but their responses are not sent
+								assertEquals(MAX_PARALLEL_REQUESTS, handled.size());
+								stuck.set(0);
+							})
+							.then(() -> responses);
+				})
+				.whenComplete(() -> {
+					client.stop();
+					server.close();
+				}));
+
+		assertEquals(IntStream.range(0, REQUESTS).mapToObj(i -> i * 2).collect(Collectors.toList()), result);
+		assertEquals(REQUESTS, handled.size());
+	}
+
+	@Test
+	public void testRejectedRequestsAreAnsweredWithErrors() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		RpcServer server = RpcServer.create(getCurrentEventloop())
+				.withMessageTypes(Integer.class)
+				.withHandler(Integer.class, Integer.class, request -> Promise.of(request * 2))
+				.withHandlerExecutor(new AsyncExecutor() {
+					@NotNull
+					@Override
+					public <T> Promise<T> execute(@NotNull AsyncSupplier<T> supplier) throws RejectedExecutionException {
+						if (executions.getAndIncrement() % 2 == 1) {
+							throw new RejectedExecutionException("Too many operations running");
+						}
+						return supplier.get();
+					}
+				})
+				.withMaxParallelRequests(MAX_PARALLEL_REQUESTS)
+				.withOrderedResponses()
+				.withListenPort(port);
+		server.listen();
+
+		RpcClient client = RpcClient.create(getCurrentEventloop())
+				.withMessageTypes(Integer.class)
+				.withStrategy(server(new InetSocketAddress("localhost", port)));
+
+		List<Try<Integer>> result = await(client.start()
+				.then(() -> Promises.toList(IntStream.range(0, REQUESTS)
+						.mapToObj(i -> client.<Integer, Integer>sendRequest(i).toTry())))
+				.whenComplete(() -> {
+					client.stop();
+					server.close();
+				}));
+
+		assertEquals(REQUESTS, result.size());
+		for (int i = 0; i < REQUESTS; i++) {
+			Try<Integer> response = result.get(i);
+			if (i % 2 == 0) {
+				assertEquals(Integer.valueOf(i * 2), response.get());
+			} else {
+				assertTrue(response.getException() instanceof RpcRemoteException);
+			}
+		}
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.rpc;
+
+import io.datakernel.common.exception.StacklessException;
+import io.datakernel.datastream.AbstractStreamConsumer;
+import io.datakernel.datastream.StreamSupplier;
+import io.datakernel.promise.Promise;
+import io.datakernel.promise.Promises;
+import io.datakernel.promise.SettablePromise;
+import io.datakernel.rpc.client.RpcClient;
+import io.datakernel.rpc.protocol.RpcRemoteException;
+import io.datakernel.rpc.server.RpcServer;
+import io.datakernel.test.rules.ByteBufRule;
+import io.datakernel.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.datakernel.eventloop.Eventloop.getCurrentEventloop;
+import static io.datakernel.promise.TestUtils.await;
+import static io.datakernel.promise.TestUtils.awaitException;
+import static io.datakernel.rpc.client.IRpcClient.RPC_TIMEOUT_EXCEPTION;
+import static io.datakernel.rpc.client.sender.RpcSender.STREAMS_NOT_SUPPORTED_EXCEPTION;
+import static io.datakernel.rpc.client.sender.RpcStrategies.firstValidResult;
+import static io.datakernel.rpc.client.sender.RpcStrategies.server;
+import static io.datakernel.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public final class RpcStreamingTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	private static final int WINDOW = 16;
+	private static final StacklessException ERROR = new StacklessException(RpcStreamingTest.class, "Test error");
+
+	private InetSocketAddress address;
+	private RpcServer server;
+	private RpcClient client;
+	private int produced;
+
+	@Before
+	public void setUp() throws Exception {
+		int port = getFreePort();
+		address = new InetSocketAddress("localhost", port);
+		server = RpcServer.create(getCurrentEventloop())
+				.withMessageTypes(Integer.class, String.class)
+				.withHandler(String.class, String.class, request -> Promise.of("Hello, " + request))
+				.withStreamHandler(Integer.class, Integer.class, count -> {
+					if (count < 0) {
+						return StreamSupplier.concat(StreamSupplier.of(1, 2, 3), StreamSupplier.closingWithError(ERROR));
+					}
+					return StreamSupplier.ofStream(IntStream.range(0, count).peek($ -> produced++).boxed());
+				})
+				.withUploadHandler(String.class, Integer.class, Integer.class, (request, items) -> {
+					if (request.equals("ignore")) {
+						return Promise.of(-1);
+					}
+					return items.toList().map(list -> list.stream().mapToInt(Integer::intValue).sum());
+				})
+				.withStreamWindow(WINDOW)
+				.withListenPort(port);
+		server.listen();
+
+		client = RpcClient.create(getCurrentEventloop())
+				.withMessageTypes(Integer.class, String.class)
+				.withStreamWindow(WINDOW)
+				.withStrategy(server(address));
+	}
+
+	private void stop() {
+		client.stop();
+		server.close();
+	}
+
+	@Test
+	public void testStreamRequest() {
+		List<Integer> result = await(client.start()
+				.then(() -> client.<Integer, Integer>streamRequest(1000).toList())
+				.whenComplete(this::stop));
+
+		assertEquals(IntStream.range(0, 1000).boxed().collect(Collectors.toList()), result);
+	}
+
+	@Test
+	public void testStreamRequestsInterleavedWithRequests() {
+		List<Object> result = await(client.start()
+				.then(() -> Promises.<Object>toList(
+						client.<Integer, Integer>streamRequest(100).toList(),
+						client.sendRequest("world"),
+						client.<Integer, Integer>streamRequest(200).toList(),
+						client.sendRequest("again")))
+				.whenComplete(this::stop));
+
+		assertEquals(100, ((List<?>) result.get(0)).size());
+		assertEquals("Hello, world", result.get(1));
+		assertEquals(200, ((List<?>) result.get(2)).size());
+		assertEquals("Hello, again", result.get(3));
+	}
+
+	@Test
+	public void testStreamError() {
+		Throwable e = awaitException(client.start()
+				.then(() -> client.<Integer, Integer>streamRequest(-1).toList())
+				.whenComplete(this::stop));
+
+		assertTrue(e instanceof RpcRemoteException);
+	}
+
+	@Test
+	public void testSuspendedConsumerIsNotOverflown() {
+		AbstractStreamConsumer<Integer> suspended = new AbstractStreamConsumer<Integer>() {};
+		Throwable e = awaitException(client.start()
+				.then(() -> {
+					Promise<Void> streamed = client.<Integer, Integer>streamRequest(100_000).streamTo(suspended);
+					return Promises.delay(200L)
+							.then(() -> {
+								assertTrue(produced > 0);
+								assertTrue(produced <= WINDOW + 1);
+								suspended.closeEx(ERROR);
+								return streamed;
+							});
+				})
+				// the connection is still usable after cancellation of the stream
+				.whenException(() -> client.sendRequest("world")
+						.whenComplete(this::stop)));
+
+		assertSame(ERROR, e);
+	}
+
+	@Test
+	public void testUpload() {
+		int result = await(client.start()
+				.then(() -> client.<String, Integer, Integer>streamUpload("sum",
+						StreamSupplier.ofStream(IntStream.range(0, 1000).boxed())))
+				.whenComplete(this::stop));
+
+		assertEquals(IntStream.range(0, 1000).sum(), result);
+	}
+
+	@Test
+	public void testUploadResponseBeforeEndOfItems() {
+		List<Object> result = await(client.start()
+				.then(() -> Promises.<Object>toList(
+						client.<String, Integer, Integer>streamUpload("ignore",
+								StreamSupplier.ofStream(IntStream.range(0, 1000).boxed())),
+						// items which are in flight are not taken for requests
+						client.sendRequest("world")))
+				.whenComplete(this::stop));
+
+		assertEquals(-1, result.get(0));
+		assertEquals("Hello, world", result.get(1));
+	}
+
+	@Test
+	public void testUploadError() {
+		Throwable e = awaitException(client.start()
+				.then(() -> client.<String, Integer, Integer>streamUpload("sum",
+						StreamSupplier.concat(StreamSupplier.of(1, 2, 3), StreamSupplier.closingWithError(ERROR))))
+				.whenComplete(this::stop));
+
+		assertSame(ERROR, e);
+	}
+
+	@Test
+	public void testStreamRequestTimeout() {
+		AbstractStreamConsumer<Integer> suspended = new AbstractStreamConsumer<Integer>() {};
+		Throwable e = awaitException(client.start()
+				.then(() -> client.<Integer, Integer>streamRequest(100_000, 100).streamTo(suspended))
+				.whenException(() -> client.sendRequest("world")
+						.whenComplete(this::stop)));
+
+		assertSame(RPC_TIMEOUT_EXCEPTION, e);
+		assertTrue(produced <= WINDOW + 1);
+	}
+
+	@Test
+	public void testUploadTimeout() {
+		Throwable e = awaitException(client.start()
+				.then(() -> client.<String, Integer, Integer>streamUpload("sum",
+						StreamSupplier.concat(StreamSupplier.of(1, 2, 3), StreamSupplier.ofPromise(new SettablePromise<>())), 100))
+				.whenComplete(this::stop));
+
+		assertSame(RPC_TIMEOUT_EXCEPTION, e);
+	}
+
+	@Test
+	public void testStreamsAreNotSentToSeveralServers() {
+		RpcClient client = RpcClient.create(getCurrentEventloop())
+				.withMessageTypes(Integer.class, String.class)
+				.withStrategy(firstValidResult(server(address), server(address)));
+
+		Throwable e = awaitException(client.start()
+				.then(() -> client.<Integer, Integer>streamRequest(1000).toList())
+				.whenComplete(() -> {
+					client.stop();
+					server.close();
+				}));
+
+		assertSame(STREAMS_NOT_SUPPORTED_EXCEPTION, e);
+		assertEquals(0, produced);
+	}
+}
@@ -0,0 +1,119 @@
+package io.datakernel.rpc.client;
+
+import io.datakernel.async.callback.Callback;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.datakernel.rpc.client.RpcRequestTable.NO_DEADLINE;
+import static org.junit.Assert.*;
+
+public class RpcRequestTableTest {
+	private static final Callback<Object> CALLBACK = (result, e) -> {};
+
+	@Test
+	public void testRequestPendingForever() {
+		RpcRequestTable table = new RpcRequestTable(4, 16, 2, 0);
+		Callback<Object> longLived = (result, e) -> {};
+		table.add(0, longLived, NO_DEADLINE);
+		for (int cookie = 1; cookie < 100_000; cookie++) {
+			table.add(cookie, CALLBACK, NO_DEADLINE);
+			assertSame(CALLBACK, table.remove(cookie));
+		}
+		// the long lived request is moved out of the ring, which is not grown
+		assertEquals(4, table.capacity());
+		assertEquals(1, table.overflowSize());
+		assertEquals(1, table.size());
+		assertNull(table.remove(1));
+		assertSame(longLived, table.get(0));
+		assertSame(longLived, table.remove(0));
+		assertTrue(table.isEmpty());
+		assertEquals(0, table.overflowSize());
+
+		// cookies wrap around
+		table.add(Integer.MAX_VALUE, CALLBACK, NO_DEADLINE);
+		table.add(Integer.MIN_VALUE, CALLBACK, NO_DEADLINE);
+		assertSame(CALLBACK, table.remove(Integer.MAX_VALUE));
+		assertSame(CALLBACK, table.remove(Integer.MIN_VALUE));
+	}
+
+	@Test
+	public void testGrowsWithRequestsInFlight() {
+		RpcRequestTable table = new RpcRequestTable(4, 16, 2, 0);
+		List<Callback<Object>> callbacks = new ArrayList<>();
+		for (int cookie = 0; cookie < 100; cookie++) {
+			Callback<Object> cb = (result, e) -> {};
+			callbacks.add(cb);
+			table.add(cookie, cb, NO_DEADLINE);
+		}
+		assertEquals(128, table.capacity());
+		assertEquals(0, table.overflowSize());
+		for (int cookie = 0; cookie < 100; cookie++) {
+			assertSame(callbacks.get(cookie), table.remove(cookie));
+		}
+		assertTrue(table.isEmpty());
+	}
+
+	@Test
+	public void testExpirationOfMovedRequest() {
+		RpcRequestTable table = new RpcRequestTable(4, 16, 2, 0);
+		List<Callback<?>> expired = new ArrayList<>();
+		Callback<Object> longLived = (result, e) -> {};
+		table.add(0, longLived, 100);
+		for (int cookie = 1; cookie < 10; cookie++) {
+			table.add(cookie, CALLBACK, NO_DEADLINE);
+			assertSame(CALLBACK, table.remove(cookie));
+		}
+		assertEquals(1, table.overflowSize());
+
+		table.expire(50, expired::add);
+		assertTrue(expired.isEmpty());
+		table.expire(100, expired::add);
+		assertEquals(1, expired.size());
+		assertSame(longLived, expired.get(0));
+		assertTrue(table.isEmpty());
+		assertEquals(0, table.overflowSize());
+		assertEquals(NO_DEADLINE, table.getNextExpiration());
+	}
+
+	@Test
+	public void testExpiration() {
+		RpcRequestTable table = new RpcRequestTable(4, 16, 2, 1000);
+		List<Callback<?>> expired = new ArrayList<>();
+		Callback<Object> first = (result, e) -> {};
+		Callback<Object> second = (result, e) -> {};
+		Callback<Object> beyondWheel = (result, e) -> {};
+
+		assertEquals(1010, table.add(1, first, 1010));
+		assertEquals(1020, table.add(2, second, 1020));
+		table.add(3, CALLBACK, 1010);
+		assertEquals(1100, table.add(4, beyondWheel, 1100));
+		table.add(5, CALLBACK, NO_DEADLINE);
+		assertSame(CALLBACK, table.remove(3));
+		// the request beyond the wheel shares a bucket with an earlier tick
+		assertEquals(1004, table.getNextExpiration());
+
+		table.expire(1004, expired::add);
+		assertTrue(expired.isEmpty());
+		assertEquals(1010, table.getNextExpiration());
+
+		table.expire(1015, expired::add);
+		assertEquals(1, expired.size());
+		assertSame(first, expired.get(0));
+		assertEquals(1020, table.getNextExpiration());
+
+		// deadlines which have already been passed are moved to the next tick
+		assertEquals(1016, table.add(6, CALLBACK, 1000));
+
+		table.expire(1099, expired::add);
+		assertEquals(3, expired.size());
+		assertSame(second, expired.get(1));
+		assertEquals(1100, table.getNextExpiration());
+
+		table.expire(1200, expired::add);
+		assertSame(beyondWheel, expired.get(3));
+		assertEquals(NO_DEADLINE, table.getNextExpiration());
+		assertEquals(1, table.size());
+	}
+}
@@ -0,0 +1,123 @@
+package io.datakernel.rpc.client.sender;
+
+import io.datakernel.async.callback.Callback;
+import io.datakernel.async.process.AdaptiveConcurrencyLimiter;
+import io.datakernel.rpc.client.sender.helper.RpcClientConnectionPoolStub;
+import io.datakernel.rpc.client.sender.helper.RpcMessageDataStub;
+import io.datakernel.rpc.protocol.RpcMandatoryData;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.datakernel.rpc.client.IRpcClient.RPC_TIMEOUT_EXCEPTION;
+import static io.datakernel.rpc.client.sender.Callbacks.ignore;
+import static io.datakernel.rpc.client.sender.RpcStrategies.adaptiveConcurrency;
+import static io.datakernel.rpc.client.sender.RpcStrategies.server;
+import static io.datakernel.rpc.client.sender.RpcStrategyAdaptiveConcurrency.CONCURRENCY_LIMIT_EXCEEDED;
+import static io.datakernel.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public class RpcStrategyAdaptiveConcurrencyTest {
+	private static final InetSocketAddress ADDRESS = new InetSocketAddress("localhost", getFreePort());
+
+	private final List<Callback<Object>> callbacks = new ArrayList<>();
+
+	@Test
+	public void testRequestsBeyondLimitAreRejected() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		pool.put(ADDRESS, new CallbacksSender());
+		AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.create()
+				.withInitialLimit(2)
+				.withBackoffRatio(0.5);
+		RpcSender sender = adaptiveConcurrency(server(ADDRESS)).withLimiter(() -> limiter).createSender(pool);
+
+		List<Throwable> exceptions = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			sender.sendRequest(new RpcMessageDataStub(), 50, (result, e) -> exceptions.add(e));
+		}
+		assertEquals(2, callbacks.size());
+		assertEquals(1, exceptions.size());
+		assertSame(CONCURRENCY_LIMIT_EXCEEDED, exceptions.get(0));
+		assertEquals(1, limiter.getRejects().getTotalCount());
+
+		// timed out requests decrease the limit
+		callbacks.get(0).accept(null, RPC_TIMEOUT_EXCEPTION);
+		assertEquals(1, limiter.getLimit());
+		assertEquals(1, limiter.getInFlight());
+		sender.sendRequest(new RpcMessageDataStub(), 50, ignore());
+		assertEquals(2, callbacks.size());
+
+		// mandatory requests are not limited
+		sender.sendRequest(new MandatoryDataStub(), 50, ignore());
+		assertEquals(3, callbacks.size());
+		assertEquals(1, limiter.getInFlight());
+
+		callbacks.get(1).accept("result", null);
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testStreamRequestsBeyondLimitAreRejectedOnce() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		pool.put(ADDRESS, new CallbacksSender());
+		AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.create()
+				.withInitialLimit(1);
+		RpcSender sender = adaptiveConcurrency(server(ADDRESS)).withLimiter(() -> limiter).createSender(pool);
+
+		List<Throwable> exceptions = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			sender.sendStreamRequest(new RpcMessageDataStub(), new Object(), 50, (result, e) -> exceptions.add(e));
+		}
+		assertEquals(1, callbacks.size());
+		assertEquals(1, exceptions.size());
+		assertSame(CONCURRENCY_LIMIT_EXCEEDED, exceptions.get(0));
+
+		callbacks.get(0).accept("result", null);
+		assertEquals(0, limiter.getInFlight());
+		assertEquals(2, exceptions.size());
+		assertNull(exceptions.get(1));
+	}
+
+	@Test
+	public void testEachSenderHasItsOwnLimiter() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		pool.put(ADDRESS, new CallbacksSender());
+		RpcStrategy strategy = adaptiveConcurrency(server(ADDRESS))
+				.withLimiter(() -> AdaptiveConcurrencyLimiter.create().withInitialLimit(1));
+		RpcSender sender1 = strategy.createSender(pool);
+		RpcSender sender2 = strategy.createSender(pool);
+
+		List<Throwable> exceptions = new ArrayList<>();
+		sender1.sendRequest(new RpcMessageDataStub(), 50, (result, e) -> exceptions.add(e));
+		sender2.sendRequest(new RpcMessageDataStub(), 50, (result, e) -> exceptions.add(e));
+		assertEquals(2, callbacks.size());
+		assertTrue(exceptions.isEmpty());
+		assertNotSame(RpcStrategyAdaptiveConcurrency.getLimiter(sender1), RpcStrategyAdaptiveConcurrency.getLimiter(sender2));
+		assertEquals(1, RpcStrategyAdaptiveConcurrency.getLimiter(sender1).getInFlight());
+	}
+
+	@Test
+	public void testNoSenderWithoutConnections() {
+		assertNull(adaptiveConcurrency(server(ADDRESS)).createSender(new RpcClientConnectionPoolStub()));
+	}
+
+	private final class CallbacksSender implements RpcSender {
+		@SuppressWarnings("unchecked")
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+			callbacks.add((Callback<Object>) cb);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <I, O> void sendStreamRequest(I request, Object stream, int timeout, @NotNull Callback<O> cb) {
+			callbacks.add((Callback<Object>) cb);
+		}
+	}
+
+	private static final class MandatoryDataStub implements RpcMandatoryData {
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.rpc.client.sender;
+
+import io.datakernel.async.callback.Callback;
+import io.datakernel.rpc.client.sender.helper.RpcClientConnectionPoolStub;
+import io.datakernel.rpc.client.sender.helper.RpcMessageDataStubWithKey;
+import io.datakernel.rpc.client.sender.helper.RpcMessageDataStubWithKeyHashFunction;
+import io.datakernel.rpc.client.sender.helper.RpcSenderStub;
+import io.datakernel.rpc.hash.HashFunction;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.datakernel.rpc.client.sender.Callbacks.assertNoCalls;
+import static io.datakernel.rpc.client.sender.RpcStrategies.consistentHashing;
+import static io.datakernel.rpc.client.sender.RpcStrategies.server;
+import static io.datakernel.test.TestUtils.getFreePort;
+import static java.util.Collections.singleton;
+import static org.junit.Assert.*;
+
+public class RpcStrategyConsistentHashingTest {
+
+	private static final String HOST = "localhost";
+
+	private static final InetSocketAddress ADDRESS_1 = new InetSocketAddress(HOST, getFreePort());
+	private static final InetSocketAddress ADDRESS_2 = new InetSocketAddress(HOST, getFreePort());
+	private static final InetSocketAddress ADDRESS_3 = new InetSocketAddress(HOST, getFreePort());
+
+	private static final HashFunction<Object> HASH_FUNCTION = new RpcMessageDataStubWithKeyHashFunction();
+
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	public void itShouldDistributeCallsBetweenActiveSenders() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcSenderStub connection1 = new RpcSenderStub();
+		RpcSenderStub connection2 = new RpcSenderStub();
+		RpcSenderStub connection3 = new RpcSenderStub();
+		RpcStrategy consistentHashing = consistentHashing(HASH_FUNCTION)
+				.withShard(1, server(ADDRESS_1))
+				.withShard(2, server(ADDRESS_2))
+				.withShard(3, server(ADDRESS_3));
+		int calls = 30000;
+		int timeout = 50;
+
+		pool.put(ADDRESS_1, connection1);
+		pool.put(ADDRESS_2, connection2);
+		pool.put(ADDRESS_3, connection3);
+		RpcSender sender = consistentHashing.createSender(pool);
+		for (int i = 0; i < calls; i++) {
+			sender.sendRequest(new RpcMessageDataStubWithKey(i), timeout, assertNoCalls());
+		}
+
+		double delta = calls / 3 * 0.2;
+		assertEquals(calls / 3, connection1.getRequests(), delta);
+		assertEquals(calls / 3, connection2.getRequests(), delta);
+		assertEquals(calls / 3, connection3.getRequests(), delta);
+	}
+
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	public void itShouldMoveOnlyRequestsOfRemovedShard() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RecordingSender connection1 = new RecordingSender();
+		RecordingSender connection2 = new RecordingSender();
+		RecordingSender connection3 = new RecordingSender();
+		RpcStrategy consistentHashing = consistentHashing(HASH_FUNCTION)
+				.withShard(1, server(ADDRESS_1))
+				.withShard(2, server(ADDRESS_2))
+				.withShard(3, server(ADDRESS_3));
+		int calls = 10000;
+
+		pool.put(ADDRESS_1, connection1);
+		pool.put(ADDRESS_2, connection2);
+		pool.put(ADDRESS_3, connection3);
+		RpcSender sender = consistentHashing.createSender(pool);
+		for (int i = 0; i < calls; i++) {
+			sender.sendRequest(new RpcMessageDataStubWithKey(i), 50, assertNoCalls());
+		}
+		List<Object> keys1 = new ArrayList<>(connection1.requests);
+		List<Object> keys3 = new ArrayList<>(connection3.requests);
+
+		pool.remove(ADDRESS_2);
+		connection1.requests.clear();
+		connection3.requests.clear();
+		sender = consistentHashing.createSender(pool);
+		for (int i = 0; i < calls; i++) {
+			sender.sendRequest(new RpcMessageDataStubWithKey(i), 50, assertNoCalls());
+		}
+
+		assertTrue(connection1.requests.containsAll(keys1));
+		assertTrue(connection3.requests.containsAll(keys3));
+		assertEquals(calls, connection1.requests.size() + connection3.requests.size());
+	}
+
+	@SuppressWarnings("ConstantConditions")
+	@Test
+	public void itShouldSpillOverloadedShardToNextOnes() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RecordingSender connection1 = new RecordingSender();
+		RecordingSender connection2 = new RecordingSender();
+		RecordingSender connection3 = new RecordingSender();
+		RpcStrategy consistentHashing = consistentHashing(HASH_FUNCTION)
+				.withBoundedLoad(1.25)
+				.withShard(1, server(ADDRESS_1))
+				.withShard(2, server(ADDRESS_2))
+				.withShard(3, server(ADDRESS_3));
+		int calls = 300;
+
+		pool.put(ADDRESS_1, connection1);
+		pool.put(ADDRESS_2, connection2);
+		pool.put(ADDRESS_3, connection3);
+		RpcSender sender = consistentHashing.createSender(pool);
+		// a single hot key
+		for (int i = 0; i < calls; i++) {
+			sender.sendRequest(new RpcMessageDataStubWithKey(42), 50, (result, e) -> {});
+		}
+
+		int max = (int) Math.ceil(1.25 * calls / 3);
+		assertTrue(connection1.callbacks.size() <= max);
+		assertTrue(connection2.callbacks.size() <= max);
+		assertTrue(connection3.callbacks.size() <= max);
+		assertEquals(calls, connection1.callbacks.size() + connection2.callbacks.size() + connection3.callbacks.size());
+
+		// once requests are completed, the hot key returns to its shard, even if the ring has been rebuilt
+		RecordingSender[] connections = {connection1, connection2, connection3};
+		for (RecordingSender connection : connections) {
+			connection.completeAll();
+		}
+		sender = consistentHashing.createSender(pool);
+		for (int i = 0; i < calls; i++) {
+			sender.sendRequest(new RpcMessageDataStubWithKey(42), 50, (result, e) -> {});
+		}
+		for (RecordingSender connection : connections) {
+			assertTrue(connection.callbacks.size() <= max);
+		}
+		assertEquals(calls, connection1.callbacks.size() + connection2.callbacks.size() + connection3.callbacks.size());
+	}
+
+	@Test
+	public void itShouldTrackLoadsOfEachSenderSeparately() {
+		RecordingSender[] connections = {new RecordingSender(), new RecordingSender(), new RecordingSender()};
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		pool.put(ADDRESS_1, connections[0]);
+		pool.put(ADDRESS_2, connections[1]);
+		pool.put(ADDRESS_3, connections[2]);
+		RpcStrategy consistentHashing = consistentHashing(HASH_FUNCTION)
+				.withBoundedLoad(1.25)
+				.withShard(1, server(ADDRESS_1))
+				.withShard(2, server(ADDRESS_2))
+				.withShard(3, server(ADDRESS_3));
+
+		RpcSender sender1 = consistentHashing.createSender(pool);
+		sender1.sendRequest(new RpcMessageDataStubWithKey(42), 50, (result, e) -> {});
+		RecordingSender home = Arrays.stream(connections).filter(connection -> !connection.callbacks.isEmpty()).findFirst().get();
+
+		// in-flight requests of one client do not spill requests of another client over to other shards
+		RpcSender sender2 = consistentHashing.createSender(pool);
+		sender2.sendRequest(new RpcMessageDataStubWithKey(42), 50, (result, e) -> {});
+		assertEquals(2, home.callbacks.size());
+	}
+
+	@Test
+	public void itShouldNotShareShardsWithDerivedStrategies() {
+		RpcStrategyConsistentHashing base = consistentHashing(HASH_FUNCTION)
+				.withShard(1, server(ADDRESS_1));
+		RpcStrategyConsistentHashing derived = base.withBoundedLoad(1.25);
+		base.withShard(2, server(ADDRESS_2));
+
+		assertEquals(singleton(ADDRESS_1), derived.getAddresses());
+	}
+
+	@Test
+	public void itShouldBeCreatedWhenThereAreAtLeastOneActiveSubSender() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcStrategy consistentHashing = consistentHashing(HASH_FUNCTION)
+				.withShard(1, server(ADDRESS_1))
+				.withShard(2, server(ADDRESS_2))
+				.withShard(3, server(ADDRESS_3));
+
+		pool.put(ADDRESS_3, new RpcSenderStub());
+
+		assertNotNull(consistentHashing.createSender(pool));
+	}
+
+	@Test
+	public void itShouldNotBeCreatedWhenThereAreNotEnoughActiveSubSenders() {
+		RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+		RpcStrategy consistentHashing = consistentHashing(HASH_FUNCTION)
+				.withMinActiveShards(3)
+				.withShard(1, server(ADDRESS_1))
+				.withShard(2, server(ADDRESS_2))
+				.withShard(3, server(ADDRESS_3));
+
+		pool.put(ADDRESS_1, new RpcSenderStub());
+		pool.put(ADDRESS_2, new RpcSenderStub());
+
+		assertNull(consistentHashing.createSender(pool));
+	}
+
+	private static final class RecordingSender implements RpcSender {
+		final List<Object> requests = new ArrayList<>();
+		final List<Callback<?>> callbacks = new ArrayList<>();
+
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+			requests.add(((RpcMessageDataStubWithKey) request).getKey());
+			callbacks.add(cb);
+		}
+
+		void completeAll() {
+			List<Callback<?>> callbacks = new ArrayList<>(this.callbacks);
+			this.callbacks.clear();
+			callbacks.forEach(cb -> cb.accept(null, null));
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package io.datakernel.rpc.client.sender;
+
+import io.datakernel.async.callback.Callback;
+import io.datakernel.promise.Promise;
+import io.datakernel.rpc.client.sender.helper.RpcClientConnectionPoolStub;
+import io.datakernel.rpc.client.sender.helper.RpcMessageDataStub;
+import io.datakernel.test.rules.EventloopRule;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+
+import static io.datakernel.eventloop.Eventloop.getCurrentEventloop;
+import static io.datakernel.promise.TestUtils.await;
+import static io.datakernel.rpc.client.sender.RpcStrategies.hedging;
+import static io.datakernel.rpc.client.sender.RpcStrategies.server;
+import static io.datakernel.rpc.client.sender.RpcStrategyHedging.MIN_LATENCY_SAMPLES;
+import static io.datakernel.test.TestUtils.getFreePort;
+import static org.junit.Assert.*;
+
+public class RpcStrategyHedgingTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	private static final InetSocketAddress ADDRESS_1 = new InetSocketAddress("localhost", getFreePort());
+	private static final InetSocketAddress ADDRESS_2 = new InetSocketAddress("localhost", getFreePort());
+
+	private final RpcClientConnectionPoolStub pool = new RpcClientConnectionPoolStub();
+	private final ReplyingSender primary = new ReplyingSender("primary");
+	private final ReplyingSender replica = new ReplyingSender("replica");
+
+	@Before
+	public void setUp() {
+		pool.put(ADDRESS_1, primary);
+		pool.put(ADDRESS_2, replica);
+	}
+
+	@Test
+	public void testSlowRequestIsHedged() {
+		RpcSender sender = hedging(server(ADDRESS_1), server(ADDRESS_2))
+				.withBudget(1)
+				.createSender(pool);
+		warmUp(sender);
+
+		primary.delayMillis = -1;
+		assertEquals("replica", await(send(sender)));
+		assertEquals(MIN_LATENCY_SAMPLES + 1, primary.requests);
+		assertEquals(1, replica.requests);
+	}
+
+	@Test
+	public void testRequestsAreNotHedgedBeyondBudget() {
+		RpcSender sender = hedging(server(ADDRESS_1), server(ADDRESS_2))
+				.withBudget(0)
+				.createSender(pool);
+		warmUp(sender);
+
+		primary.delayMillis = 20;
+		assertEquals("primary", await(send(sender)));
+		assertEquals(0, replica.requests);
+	}
+
+	@Test
+	public void testRequestsAreNotHedgedUntilLatenciesAreObserved() {
+		RpcSender sender = hedging(server(ADDRESS_1), server(ADDRESS_2))
+				.withBudget(1)
+				.createSender(pool);
+
+		primary.delayMillis = 20;
+		assertEquals("primary", await(send(sender)));
+		assertEquals(0, replica.requests);
+	}
+
+	@Test
+	public void testLatenciesAreObservedPerSender() {
+		RpcStrategy strategy = hedging(server(ADDRESS_1), server(ADDRESS_2))
+				.withBudget(1);
+		warmUp(strategy.createSender(pool));
+
+		// latencies observed by a sender of one client do not hedge requests of another one
+		RpcSender sender = strategy.createSender(pool);
+		primary.delayMillis = 20;
+		assertEquals("primary", await(send(sender)));
+		assertEquals(0, replica.requests);
+	}
+
+	private static void warmUp(RpcSender sender) {
+		for (int i = 0; i < MIN_LATENCY_SAMPLES; i++) {
+			assertEquals("primary", await(send(sender)));
+		}
+	}
+
+	private static Promise<String> send(RpcSender sender) {
+		return Promise.ofCallback(cb -> sender.sendRequest(new RpcMessageDataStub(), 1000, cb));
+	}
+
+	private static final class ReplyingSender implements RpcSender {
+		private final String reply;
+		long delayMillis;
+		int requests;
+
+		ReplyingSender(String reply) {
+			this.reply = reply;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <I, O> void sendRequest(I request, int timeout, @NotNull Callback<O> cb) {
+			requests++;
+			if (delayMillis == 0) {
+				cb.accept((O) reply, null);
+			} else if (delayMillis > 0) {
+				getCurrentEventloop().delay(delayMillis, () -> cb.accept((O) reply, null));
+			}
+		}
+	}
+}
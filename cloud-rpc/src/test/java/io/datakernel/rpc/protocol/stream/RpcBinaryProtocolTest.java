@@ -19,6 +19,7 @@ package io.datakernel.rpc.protocol.stream;
 import io.datakernel.common.MemSize;
 import io.datakernel.csp.process.ChannelLZ4Compressor;
 import io.datakernel.csp.process.ChannelLZ4Decompressor;
+import io.datakernel.csp.process.LZ4Dictionary;
 import io.datakernel.datastream.StreamSupplier;
 import io.datakernel.datastream.csp.ChannelDeserializer;
 import io.datakernel.datastream.csp.ChannelSerializer;
@@ -38,6 +39,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.IntStream;
 
@@ -48,6 +50,7 @@ import static io.datakernel.test.TestUtils.getFreePort;
 import static java.lang.ClassLoader.getSystemClassLoader;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 public final class RpcBinaryProtocolTest {
@@ -115,6 +118,85 @@ public final class RpcBinaryProtocolTest {
 		}
 	}
 
+	@Test
+	public void testCompressionDictionary() throws IOException {
+		BinarySerializer<RpcMessage> binarySerializer = SerializerBuilder.create(getSystemClassLoader())
+				.withSubclasses(RpcMessage.MESSAGE_TYPES, String.class)
+				.build(RpcMessage.class);
+		LZ4Dictionary dictionary = LZ4Dictionary.train(samples(binarySerializer, "Hello, request #"), 1024);
+
+		RpcClient client = RpcClient.create(Eventloop.getCurrentEventloop())
+				.withMessageTypes(String.class)
+				.withCompressionDictionary(dictionary)
+				.withStrategy(server(new InetSocketAddress("localhost", LISTEN_PORT)));
+
+		RpcServer server = RpcServer.create(Eventloop.getCurrentEventloop())
+				.withMessageTypes(String.class)
+				.withCompressionDictionary(dictionary)
+				.withHandler(String.class, String.class, request -> Promise.of("Hello, " + request + "!"))
+				.withListenPort(LISTEN_PORT);
+		server.listen();
+
+		List<String> list = await(client.start()
+				.then(() ->
+						Promises.toList(IntStream.range(0, 10)
+								.mapToObj(i -> client.<String, String>sendRequest("request #" + i, 1000))))
+				.whenComplete(() -> {
+					client.stop();
+					server.close();
+				}));
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals("Hello, request #" + i + "!", list.get(i));
+		}
+	}
+
+	@Test
+	public void testDifferentCompressionDictionaries() throws IOException {
+		BinarySerializer<RpcMessage> binarySerializer = SerializerBuilder.create(getSystemClassLoader())
+				.withSubclasses(RpcMessage.MESSAGE_TYPES, String.class)
+				.build(RpcMessage.class);
+		LZ4Dictionary previous = LZ4Dictionary.train(samples(binarySerializer, "Hello, request #"), 1024);
+		LZ4Dictionary current = LZ4Dictionary.train(samples(binarySerializer, "Hello again, request #"), 1024);
+		assertNotEquals(previous.getId(), current.getId());
+
+		// the client has switched to the new dictionary, while the server still compresses with the previous one
+		RpcClient client = RpcClient.create(Eventloop.getCurrentEventloop())
+				.withMessageTypes(String.class)
+				.withCompressionDictionary(current, previous)
+				.withStrategy(server(new InetSocketAddress("localhost", LISTEN_PORT)));
+
+		RpcServer server = RpcServer.create(Eventloop.getCurrentEventloop())
+				.withMessageTypes(String.class)
+				.withCompressionDictionary(previous, current)
+				.withHandler(String.class, String.class, request -> Promise.of("Hello, " + request + "!"))
+				.withListenPort(LISTEN_PORT);
+		server.listen();
+
+		List<String> list = await(client.start()
+				.then(() ->
+						Promises.toList(IntStream.range(0, 10)
+								.mapToObj(i -> client.<String, String>sendRequest("request #" + i, 1000))))
+				.whenComplete(() -> {
+					client.stop();
+					server.close();
+				}));
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals("Hello, request #" + i + "!", list.get(i));
+		}
+	}
+
+	private static List<byte[]> samples(BinarySerializer<RpcMessage> binarySerializer, String prefix) {
+		return IntStream.range(0, 100)
+				.mapToObj(i -> {
+					byte[] bytes = new byte[100];
+					int size = binarySerializer.encode(bytes, 0, RpcMessage.of(i, prefix + i + "!"));
+					return Arrays.copyOf(bytes, size);
+				})
+				.collect(toList());
+	}
+
 	@Test
 	public void testSerializationErrorOnClient() throws IOException {
 		String testMessage = "12345";
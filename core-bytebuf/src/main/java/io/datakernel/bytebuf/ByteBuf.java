@@ -28,6 +28,7 @@ import java.nio.charset.Charset;
 
 import static io.datakernel.common.Preconditions.checkArgument;
 import static io.datakernel.common.Preconditions.checkState;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 /**
@@ -72,11 +73,22 @@ public class ByteBuf implements Recyclable, Sliceable<ByteBuf>, AutoCloseable {
 			root.recycle();
 		}
 
+		@Override
+		public boolean release() {
+			return root.release();
+		}
+
 		@Override
 		public void addRef() {
 			root.addRef();
 		}
 
+		@Override
+		@Contract(pure = true)
+		public int refCount() {
+			return root.refCount();
+		}
+
 		@Override
 		@NotNull
 		public ByteBuf slice(int offset, int length) {
@@ -256,18 +268,52 @@ public class ByteBuf implements Recyclable, Sliceable<ByteBuf>, AutoCloseable {
 	 */
 	@Override
 	public void recycle() {
+		release();
+	}
+
+	/**
+	 * Increases {@link #refs} value by 1, so that this {@code ByteBuf} can be shared
+	 * with one more owner without copying. Each added reference should be matched with
+	 * a {@link #release()}, and the buf is returned to {@link ByteBufPool} only on the final release.
+	 * <p>
+	 * Adding a reference to a slice adds it to the {@code ByteBuf} it was sliced from.
+	 * {@code ByteBuf}s which are not pooled are not reference counted.
+	 * <p>
+	 * Note that reference counting is not thread-safe,
+	 * so a buf should be shared only within a single eventloop.
+	 */
+	public void addRef() {
 		if (CHECK_RECYCLE && isRecycled()) throw ByteBufPool.onByteBufRecycled(this);
-		if (refs > 0 && --refs == 0) {
-			if (CHECK_RECYCLE) refs = -1;
-			ByteBufPool.recycle(this);
+		if (isRecycleNeeded()) {
+			refs++;
 		}
 	}
 
 	/**
-	 * Increases {@link #refs} value by 1.
+	 * Releases one reference to this {@code ByteBuf}, same as {@link #recycle()}.
+	 * Whether it was the last reference is decided before the buf goes back to {@link ByteBufPool},
+	 * as once there it may be allocated again by another thread.
+	 *
+	 * @return {@code true} if no references are left after this release
 	 */
-	public void addRef() {
-		refs++;
+	public boolean release() {
+		if (CHECK_RECYCLE && isRecycled()) throw ByteBufPool.onByteBufRecycled(this);
+		if (refs <= 0) return true;
+		if (--refs != 0) return false;
+		if (CHECK_RECYCLE) refs = -1;
+		ByteBufPool.recycle(this);
+		return true;
+	}
+
+	/**
+	 * Returns the number of references that should be released
+	 * before this {@code ByteBuf} is returned to {@link ByteBufPool}.
+	 *
+	 * @return reference count, or 0 if this {@code ByteBuf} is not pooled or is already recycled
+	 */
+	@Contract(pure = true)
+	public int refCount() {
+		return max(refs, 0);
 	}
 
 	/**
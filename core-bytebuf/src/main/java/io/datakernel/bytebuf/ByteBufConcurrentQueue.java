@@ -40,6 +40,39 @@ final class ByteBufConcurrentQueue {
 			pos2 = ((long) head << 32) + (tail & 0xFFFFFFFFL);
 		} while (!pos.compareAndSet(pos1, pos2));
 
+		return take(tail);
+	}
+
+	/**
+	 * Polls up to {@code count} ByteBufs with a single update of the queue positions
+	 *
+	 * @return number of ByteBufs put into {@code bufs}, starting from index 0
+	 */
+	public int pollAll(ByteBuf[] bufs, int count) {
+		long pos1, pos2;
+		int head, tail, polled;
+		do {
+			pos1 = pos.get();
+			head = (int) (pos1 >>> 32);
+			tail = (int) pos1;
+			polled = Math.min(count, head - tail);
+			if (polled == 0) {
+				return 0;
+			}
+			if (ByteBufPool.USE_WATCHDOG) {
+				int size = head - tail - polled;
+				realMin.updateAndGet(prevMin -> Math.min(prevMin, size));
+			}
+			pos2 = ((long) head << 32) + ((tail + polled) & 0xFFFFFFFFL);
+		} while (!pos.compareAndSet(pos1, pos2));
+
+		for (int i = 0; i < polled; i++) {
+			bufs[i] = take(tail + 1 + i);
+		}
+		return polled;
+	}
+
+	private ByteBuf take(int tail) {
 		Integer boxedTail = null;
 
 		while (true) {
@@ -69,7 +102,27 @@ final class ByteBufConcurrentQueue {
 			pos2 = pos1 + 0x100000000L;
 		} while (!pos.compareAndSet(pos1, pos2));
 
-		int head = (int) (pos2 >>> 32);
+		put((int) (pos2 >>> 32), buf);
+	}
+
+	/**
+	 * Offers {@code count} ByteBufs, starting from index {@code from}, with a single update of the queue positions
+	 */
+	public void offerAll(ByteBuf[] bufs, int from, int count) {
+		if (count == 0) return;
+		long pos1, pos2;
+		do {
+			pos1 = pos.get();
+			pos2 = pos1 + ((long) count << 32);
+		} while (!pos.compareAndSet(pos1, pos2));
+
+		int head = (int) (pos1 >>> 32);
+		for (int i = 0; i < count; i++) {
+			put(head + 1 + i, bufs[from + i]);
+		}
+	}
+
+	private void put(int head, ByteBuf buf) {
 		buf.pos = head;
 
 		AtomicReferenceArray<ByteBuf> bufs = array.get();
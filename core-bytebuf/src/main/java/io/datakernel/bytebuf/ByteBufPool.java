@@ -20,10 +20,18 @@ import io.datakernel.bytebuf.ByteBuf.ByteBufSlice;
 import io.datakernel.common.ApplicationSettings;
 import io.datakernel.common.MemSize;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
 
 import static io.datakernel.common.Preconditions.checkArgument;
 import static java.lang.Integer.numberOfLeadingZeros;
@@ -86,6 +94,33 @@ public final class ByteBufPool {
 	 */
 	static final boolean CLEAR_ON_RECYCLE = ApplicationSettings.getBoolean(ByteBufPool.class, "clearOnRecycle", false);
 
+	/**
+	 * Defines the maximum total size of ByteBufs which are kept in the global slabs of this ByteBufPool.
+	 * Recycled ByteBufs which do not fit are dropped and left to the garbage collector.
+	 * By default set at 0, which means that the pool is not bounded.
+	 */
+	private static final long MAX_POOL_SIZE = ApplicationSettings.getMemSize(ByteBufPool.class, "maxPoolSize", MemSize.ZERO).toLong();
+
+	/**
+	 * Defines the maximum total size of ByteBufs which are kept in each of the global slabs of this ByteBufPool.
+	 * By default set at 0, which means that slabs are not bounded.
+	 */
+	private static final long MAX_SLAB_SIZE = ApplicationSettings.getMemSize(ByteBufPool.class, "maxSlabSize", MemSize.ZERO).toLong();
+	private static final boolean BOUNDED = MAX_POOL_SIZE != 0 || MAX_SLAB_SIZE != 0;
+
+	/**
+	 * Enables per-thread caches in front of the global slabs. Each thread keeps up to
+	 * {@code threadLocalCacheCapacity} ByteBufs per slab and exchanges them with the global
+	 * slabs in batches of half of the capacity, so that most of {@link #allocate(int)} and
+	 * {@link #recycle(ByteBuf)} calls do not touch shared state.
+	 * Only ByteBufs not bigger than {@code threadLocalCacheMaxSize} are cached locally.
+	 * By default set at value {@code false}.
+	 */
+	static final boolean THREAD_LOCAL_CACHE = ApplicationSettings.getBoolean(ByteBufPool.class, "threadLocalCache", false);
+	static final int LOCAL_CACHE_CAPACITY = ApplicationSettings.getInt(ByteBufPool.class, "threadLocalCacheCapacity", 32);
+	static final int LOCAL_CACHE_BATCH = max(1, LOCAL_CACHE_CAPACITY / 2);
+	private static final int LOCAL_CACHE_MAX_SIZE = ApplicationSettings.getMemSize(ByteBufPool.class, "threadLocalCacheMaxSize", MemSize.kilobytes(256)).toInt();
+
 	static final boolean USE_WATCHDOG = ApplicationSettings.getBoolean(ByteBufPool.class, "useWatchdog", false);
 	static final Duration WATCHDOG_INTERVAL = ApplicationSettings.getDuration(ByteBufPool.class, "watchdogInterval", Duration.ofSeconds(2));
 	static final Duration WATCHDOG_SMOOTHING_WINDOW = ApplicationSettings.getDuration(ByteBufPool.class, "watchdogSmoothingWindow", Duration.ofSeconds(10));
@@ -105,6 +140,8 @@ public final class ByteBufPool {
 	static final SlabStats[] slabStats;
 	static final AtomicInteger[] created;
 	static final AtomicInteger[] reused;
+	static final AtomicInteger[] dropped;
+	static final AtomicLong poolSize = new AtomicLong();
 
 	private static final ByteBufPoolStats stats = new ByteBufPoolStats();
 
@@ -159,18 +196,35 @@ public final class ByteBufPool {
 		}
 	}
 
+	private static final ThreadLocal<LocalCache> localCache = ThreadLocal.withInitial(LocalCache::new);
+	private static final Map<Thread, LocalCache> localCaches = Collections.synchronizedMap(new WeakHashMap<>());
+	private static volatile int localCacheGeneration;
+
 	private static final Map<ByteBuf, Entry> allocateRegistry = Collections.synchronizedMap(new WeakHashMap<>());
 	private static final Map<ByteBuf, Entry> recycleRegistry = Collections.synchronizedMap(new WeakHashMap<>());
 
+	/**
+	 * Tracks ByteBufs registered in {@link #allocateRegistry}, so that the ones
+	 * which were garbage collected without being released are reported as leaked.
+	 */
+	private static final int LEAKED_BUFS_HISTORY = 100;
+	private static final ReferenceQueue<ByteBuf> leakQueue = new ReferenceQueue<>();
+	private static final Map<ByteBuf, LeakReference> leakReferences = Collections.synchronizedMap(new WeakHashMap<>());
+	private static final Set<LeakReference> leakReferencesAlive = ConcurrentHashMap.newKeySet();
+	private static final Deque<Entry> leakedBufs = new ConcurrentLinkedDeque<>();
+	private static final AtomicInteger leaked = new AtomicInteger();
+
 	static {
 		slabs = new ByteBufConcurrentQueue[NUMBER_OF_SLABS];
 		slabStats = new SlabStats[NUMBER_OF_SLABS];
 		created = new AtomicInteger[NUMBER_OF_SLABS];
 		reused = new AtomicInteger[NUMBER_OF_SLABS];
+		dropped = new AtomicInteger[NUMBER_OF_SLABS];
 		for (int i = 0; i < NUMBER_OF_SLABS; i++) {
 			slabs[i] = new ByteBufConcurrentQueue();
 			created[i] = new AtomicInteger();
 			reused[i] = new AtomicInteger();
+			dropped[i] = new AtomicInteger();
 		}
 		if (USE_WATCHDOG) {
 			for (int i = 0; i < NUMBER_OF_SLABS; i++) {
@@ -218,8 +272,9 @@ public final class ByteBufPool {
 			}
 		}
 		int index = 32 - numberOfLeadingZeros(size - 1); // index==32 for size==0
-		ByteBufConcurrentQueue queue = slabs[index];
-		ByteBuf buf = queue.poll();
+		ByteBuf buf = THREAD_LOCAL_CACHE && size <= LOCAL_CACHE_MAX_SIZE ?
+				localCache.get().poll(index) :
+				pollSlab(index);
 		if (buf != null) {
 			if (ByteBuf.CHECK_RECYCLE && buf.refs != -1) throw onByteBufRecycled(buf);
 			buf.tail = 0;
@@ -229,12 +284,77 @@ public final class ByteBufPool {
 		} else {
 			buf = ByteBuf.wrapForWriting(new byte[index == 32 ? 0 : 1 << index]);
 			buf.refs = 1;
-			if (STATS) recordNew(index);
+			if (STATS || USE_WATCHDOG) recordNew(index);
+		}
+		if (REGISTRY) {
+			Entry entry = buildRegistryEntry(buf);
+			allocateRegistry.put(buf, entry);
+			trackLeak(buf, entry);
 		}
-		if (REGISTRY) allocateRegistry.put(buf, buildRegistryEntry(buf));
 		return buf;
 	}
 
+	@Nullable
+	private static ByteBuf pollSlab(int slab) {
+		ByteBuf buf = slabs[slab].poll();
+		if (MAX_POOL_SIZE != 0 && buf != null) poolSize.addAndGet(-buf.array.length);
+		return buf;
+	}
+
+	private static int pollSlab(int slab, ByteBuf[] bufs, int count) {
+		int polled = slabs[slab].pollAll(bufs, count);
+		if (MAX_POOL_SIZE != 0 && polled != 0) poolSize.addAndGet(-(long) polled * bufs[0].array.length);
+		return polled;
+	}
+
+	private static void clearSlab(int slab) {
+		//noinspection StatementWithEmptyBody
+		while (pollSlab(slab) != null) {
+		}
+	}
+
+	private static void offerSlab(int slab, @NotNull ByteBuf buf) {
+		if (BOUNDED && reserve(slab, buf.array.length, 1) == 0) {
+			drop(slab, buf);
+			return;
+		}
+		slabs[slab].offer(buf);
+	}
+
+	private static void offerSlab(int slab, ByteBuf[] bufs, int from, int count) {
+		int reserved = BOUNDED ? reserve(slab, bufs[from].array.length, count) : count;
+		slabs[slab].offerAll(bufs, from, reserved);
+		for (int i = from + reserved; i < from + count; i++) {
+			drop(slab, bufs[i]);
+		}
+	}
+
+	/**
+	 * Reserves space for up to {@code count} ByteBufs of given size in the global slab
+	 *
+	 * @return number of ByteBufs which fit into the slab
+	 */
+	private static int reserve(int slab, int size, int count) {
+		if (size == 0) return count;
+		if (MAX_SLAB_SIZE != 0) {
+			count = (int) Math.min(count, max(0, MAX_SLAB_SIZE / size - slabs[slab].size()));
+		}
+		if (MAX_POOL_SIZE != 0 && count != 0) {
+			long excess = poolSize.addAndGet((long) count * size) - MAX_POOL_SIZE;
+			if (excess > 0) {
+				int excessCount = (int) Math.min(count, (excess + size - 1) / size);
+				poolSize.addAndGet(-(long) excessCount * size);
+				count -= excessCount;
+			}
+		}
+		return count;
+	}
+
+	private static void drop(int slab, ByteBuf buf) {
+		dropped[slab].incrementAndGet();
+		if (REGISTRY) recycleRegistry.remove(buf);
+	}
+
 	private static void recordNew(int index) {
 		created[index].incrementAndGet();
 	}
@@ -250,10 +370,47 @@ public final class ByteBufPool {
 				Arrays.copyOfRange(stackTrace, 4, stackTrace.length));
 	}
 
+	private static final class LeakReference extends WeakReference<ByteBuf> {
+		final Entry allocated;
+
+		LeakReference(ByteBuf buf, Entry allocated) {
+			super(buf, leakQueue);
+			this.allocated = allocated;
+		}
+	}
+
+	private static void trackLeak(@NotNull ByteBuf buf, @NotNull Entry allocated) {
+		pollLeaks();
+		LeakReference reference = new LeakReference(buf, allocated);
+		leakReferencesAlive.add(reference);
+		leakReferences.put(buf, reference);
+	}
+
+	private static void untrackLeak(@NotNull ByteBuf buf) {
+		LeakReference reference = leakReferences.remove(buf);
+		if (reference != null) {
+			leakReferencesAlive.remove(reference);
+			reference.clear();
+		}
+	}
+
+	private static void pollLeaks() {
+		Reference<? extends ByteBuf> reference;
+		while ((reference = leakQueue.poll()) != null) {
+			//noinspection SuspiciousMethodCalls
+			if (!leakReferencesAlive.remove(reference)) continue;
+			leaked.incrementAndGet();
+			leakedBufs.addLast(((LeakReference) reference).allocated);
+			if (leaked.get() > LEAKED_BUFS_HISTORY) {
+				leakedBufs.pollFirst();
+			}
+		}
+	}
+
 	static AssertionError onByteBufRecycled(@NotNull ByteBuf buf) {
 		int slab = 32 - numberOfLeadingZeros(buf.array.length - 1);
-		ByteBufConcurrentQueue queue = slabs[slab];
-		queue.clear();
+		clearSlab(slab);
+		if (THREAD_LOCAL_CACHE) localCacheGeneration++;
 		return new AssertionError("Attempt to use recycled ByteBuf" +
 				(REGISTRY ? ByteBufPool.getByteBufTrace(buf) : ""));
 	}
@@ -304,13 +461,17 @@ public final class ByteBufPool {
 	 */
 	static void recycle(@NotNull ByteBuf buf) {
 		int slab = 32 - numberOfLeadingZeros(buf.array.length - 1);
-		ByteBufConcurrentQueue queue = slabs[slab];
 		if (CLEAR_ON_RECYCLE) Arrays.fill(buf.array(), (byte) 0);
 		if (REGISTRY) {
 			recycleRegistry.put(buf, buildRegistryEntry(buf));
 			allocateRegistry.remove(buf);
+			untrackLeak(buf);
 		}
-		queue.offer(buf);
+		if (THREAD_LOCAL_CACHE && buf.array.length <= LOCAL_CACHE_MAX_SIZE) {
+			localCache.get().offer(slab, buf);
+			return;
+		}
+		offerSlab(slab, buf);
 	}
 
 	@NotNull
@@ -404,16 +565,30 @@ public final class ByteBufPool {
 
 	/**
 	 * Clears all of the slabs and stats.
+	 * <p>
+	 * Per-thread caches are invalidated as well: as a cache is accessed only by its own thread,
+	 * each thread drops its cached ByteBufs on its next access to the pool. Caches of idle threads
+	 * keep their ByteBufs until then, but they are no longer counted in stats.
 	 */
 	public static void clear() {
+		localCacheGeneration++;
 		for (int i = 0; i < ByteBufPool.NUMBER_OF_SLABS; i++) {
-			slabs[i].clear();
+			clearSlab(i);
 			created[i].set(0);
 			reused[i].set(0);
+			dropped[i].set(0);
 			if (USE_WATCHDOG) slabStats[i].clear();
 		}
+		clearRegistry();
+	}
+
+	private static void clearRegistry() {
 		allocateRegistry.clear();
 		recycleRegistry.clear();
+		leakReferences.clear();
+		leakReferencesAlive.clear();
+		leakedBufs.clear();
+		leaked.set(0);
 	}
 
 	@NotNull
@@ -430,14 +605,36 @@ public final class ByteBufPool {
 
 		long getPoolSize();
 
+		long getMaxPoolSize();
+
+		long getMaxSlabSize();
+
+		int getDroppedItems();
+
+		long getLocalCacheHits();
+
+		long getLocalCacheMisses();
+
+		long getLocalCacheRefills();
+
+		long getLocalCacheSpills();
+
+		int getLocalCacheItems();
+
 		long getTotalSlabMins();
 
 		long getTotalEvicted();
 
+		double getNewItemsRate();
+
 		List<String> getPoolSlabs();
 
 		List<Entry> queryUnrecycledBufs(int limit);
 
+		int getLeakedItems();
+
+		List<Entry> queryLeakedBufs(int limit);
+
 		void clear();
 
 		void clearRegistry();
@@ -471,14 +668,14 @@ public final class ByteBufPool {
 
 		@Override
 		public int getPoolItems() {
-			return stream(slabs).mapToInt(ByteBufConcurrentQueue::size).sum();
+			return stream(slabs).mapToInt(ByteBufConcurrentQueue::size).sum() + getLocalCacheItems();
 		}
 
 		public String getPoolItemsString() {
 			StringBuilder sb = new StringBuilder();
 			for (int i = 0; i < ByteBufPool.NUMBER_OF_SLABS; ++i) {
 				int createdItems = created[i].get();
-				int poolItems = slabs[i].size();
+				int poolItems = slabs[i].size() + localCacheSize(i);
 				if (createdItems != poolItems) {
 					sb.append(String.format("Slab %d (%d) ", i, (1 << i)))
 							.append(" created: ").append(createdItems)
@@ -498,6 +695,60 @@ public final class ByteBufPool {
 			return result;
 		}
 
+		@Override
+		public long getLocalCacheHits() {
+			return collectLocalCaches(cache -> cache.hits);
+		}
+
+		@Override
+		public long getLocalCacheMisses() {
+			return collectLocalCaches(cache -> cache.misses);
+		}
+
+		@Override
+		public long getLocalCacheRefills() {
+			return collectLocalCaches(cache -> cache.refills);
+		}
+
+		@Override
+		public long getLocalCacheSpills() {
+			return collectLocalCaches(cache -> cache.spills);
+		}
+
+		@Override
+		public int getLocalCacheItems() {
+			return (int) collectLocalCaches(LocalCache::size);
+		}
+
+		private long collectLocalCaches(ToLongFunction<LocalCache> fn) {
+			if (!THREAD_LOCAL_CACHE) return 0;
+			int generation = localCacheGeneration;
+			long result = 0;
+			synchronized (localCaches) {
+				for (LocalCache cache : localCaches.values()) {
+					if (cache.generation == generation) {
+						result += fn.applyAsLong(cache);
+					}
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public long getMaxPoolSize() {
+			return MAX_POOL_SIZE;
+		}
+
+		@Override
+		public long getMaxSlabSize() {
+			return MAX_SLAB_SIZE;
+		}
+
+		@Override
+		public int getDroppedItems() {
+			return stream(dropped).mapToInt(AtomicInteger::get).sum();
+		}
+
 		@Override
 		public long getTotalSlabMins() {
 			if (!USE_WATCHDOG) return -1;
@@ -518,6 +769,16 @@ public final class ByteBufPool {
 			return totalEvicted;
 		}
 
+		@Override
+		public double getNewItemsRate() {
+			if (!USE_WATCHDOG) return -1;
+			double totalRate = 0;
+			for (SlabStats slabStat : slabStats) {
+				totalRate += slabStat.createdPerInterval;
+			}
+			return totalRate * 1000 / WATCHDOG_INTERVAL.toMillis();
+		}
+
 		public Map<ByteBuf, Entry> getUnrecycledBufs() {
 			return new HashMap<>(allocateRegistry);
 		}
@@ -529,28 +790,51 @@ public final class ByteBufPool {
 			return danglingBufs.values().stream().sorted(comparingLong(Entry::getTimestamp)).limit(limit).collect(toList());
 		}
 
+		/**
+		 * Returns the number of ByteBufs which were garbage collected without being recycled.
+		 * Leaks are tracked only when {@code REGISTRY} is enabled.
+		 */
+		@Override
+		public int getLeakedItems() {
+			pollLeaks();
+			return leaked.get();
+		}
+
+		@Override
+		public List<Entry> queryLeakedBufs(int limit) {
+			if (limit < 1) throw new IllegalArgumentException("Limit must be >= 1");
+			pollLeaks();
+			List<Entry> result = new ArrayList<>(leakedBufs);
+			return new ArrayList<>(result.subList(max(0, result.size() - limit), result.size()));
+		}
+
 		@Override
 		public List<String> getPoolSlabs() {
 			List<String> result = new ArrayList<>(slabs.length + 1);
 			String header = "SlotSize,Created,Reused,InPool,Total(Kb)";
-			if (USE_WATCHDOG) header += ",RealMin,EstMean,Error,Evicted";
+			if (BOUNDED) header += ",Dropped";
+			if (USE_WATCHDOG) header += ",RealMin,EstMean,Error,Evicted,NewPerInterval";
 			result.add(header);
 			for (int i = 0; i < slabs.length; i++) {
 				int idx = (i + 32) % slabs.length;
 				long slabSize = idx == 32 ? 0 : 1L << idx;
 				ByteBufConcurrentQueue slab = slabs[idx];
-				int count = slab.size();
+				int count = slab.size() + localCacheSize(idx);
 				String slabInfo = slabSize + "," +
 						(STATS ? created[idx] : "-") + "," +
 						(STATS ? reused[idx] : "-") + "," +
 						count + "," +
 						slabSize * count / 1024;
-				if (USE_WATCHDOG){
+				if (BOUNDED) {
+					slabInfo += "," + dropped[idx];
+				}
+				if (USE_WATCHDOG) {
 					SlabStats slabStat = slabStats[idx];
 					slabInfo += "," + slab.realMin.get() + "," +
 							String.format("%.1f", slabStat.estimatedMin) + "," +
 							String.format("%.1f", slabStat.estimatedError) + "," +
-							slabStat.evictedTotal;
+							slabStat.evictedTotal + "," +
+							String.format("%.1f", slabStat.createdPerInterval);
 				}
 
 				result.add(slabInfo);
@@ -565,11 +849,124 @@ public final class ByteBufPool {
 
 		@Override
 		public void clearRegistry() {
-			allocateRegistry.clear();
-			recycleRegistry.clear();
+			ByteBufPool.clearRegistry();
 		}
 	}
 
+	// region thread local cache
+	private static int localCacheSize(int slab) {
+		if (!THREAD_LOCAL_CACHE) return 0;
+		int generation = localCacheGeneration;
+		int result = 0;
+		synchronized (localCaches) {
+			for (LocalCache cache : localCaches.values()) {
+				if (cache.generation == generation) {
+					result += cache.sizes[slab];
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A per-thread magazine of ByteBufs for each slab.
+	 * It is accessed only by its owner thread, stats are read racily by JMX.
+	 * <p>
+	 * A hit is an allocation served by the magazine, and a miss is an allocation from an empty magazine,
+	 * which tries to refill it with a batch of ByteBufs from the global slab.
+	 */
+	static final class LocalCache {
+		final ByteBuf[][] stacks = new ByteBuf[NUMBER_OF_SLABS][];
+		final int[] sizes = new int[NUMBER_OF_SLABS];
+		int generation = localCacheGeneration;
+
+		long hits;
+		long misses;
+		long refills;
+		long spills;
+
+		LocalCache() {
+			localCaches.put(currentThread(), this);
+		}
+
+		@Nullable
+		ByteBuf poll(int slab) {
+			ensureGeneration();
+			int size = sizes[slab];
+			if (size == 0) {
+				misses++;
+				size = refill(slab);
+				if (size == 0) {
+					return null;
+				}
+			} else {
+				hits++;
+			}
+			ByteBuf[] stack = stacks[slab];
+			ByteBuf buf = stack[--size];
+			stack[size] = null;
+			sizes[slab] = size;
+			return buf;
+		}
+
+		void offer(int slab, ByteBuf buf) {
+			ensureGeneration();
+			ByteBuf[] stack = stacks[slab];
+			if (stack == null) {
+				stack = stacks[slab] = new ByteBuf[LOCAL_CACHE_CAPACITY];
+			}
+			int size = sizes[slab];
+			if (size == LOCAL_CACHE_CAPACITY) {
+				size = spill(slab);
+			}
+			stack[size] = buf;
+			sizes[slab] = size + 1;
+		}
+
+		private int refill(int slab) {
+			ByteBuf[] stack = stacks[slab];
+			if (stack == null) {
+				stack = stacks[slab] = new ByteBuf[LOCAL_CACHE_CAPACITY];
+			}
+			int size = pollSlab(slab, stack, LOCAL_CACHE_BATCH);
+			if (size != 0) refills++;
+			return size;
+		}
+
+		private int spill(int slab) {
+			ByteBuf[] stack = stacks[slab];
+			int size = sizes[slab] - LOCAL_CACHE_BATCH;
+			offerSlab(slab, stack, size, LOCAL_CACHE_BATCH);
+			Arrays.fill(stack, size, size + LOCAL_CACHE_BATCH, null);
+			spills++;
+			return size;
+		}
+
+		void clear(int slab) {
+			if (stacks[slab] != null) Arrays.fill(stacks[slab], null);
+			sizes[slab] = 0;
+		}
+
+		private void ensureGeneration() {
+			int currentGeneration = localCacheGeneration;
+			if (generation == currentGeneration) return;
+			generation = currentGeneration;
+			for (int i = 0; i < NUMBER_OF_SLABS; i++) {
+				clear(i);
+			}
+			hits = misses = refills = spills = 0;
+		}
+
+		long size() {
+			long result = 0;
+			for (int size : sizes) {
+				result += size;
+			}
+			return result;
+		}
+	}
+	// endregion
+
 	// region watchdog
 	private static final class SlabStats {
 		double estimatedMin;
@@ -577,9 +974,12 @@ public final class ByteBufPool {
 		int evictedLast;
 		int evictedMax;
 		double estimatedError;
+		int createdLast;
+		double createdPerInterval;
 
 		void clear() {
-			estimatedMin = estimatedError = evictedTotal = evictedLast = evictedMax = 0;
+			estimatedMin = estimatedError = evictedTotal = evictedLast = evictedMax = createdLast = 0;
+			createdPerInterval = 0;
 		}
 
 		@Override
@@ -590,16 +990,22 @@ public final class ByteBufPool {
 					", evictedTotal=" + evictedTotal +
 					", evictedLast=" + evictedLast +
 					", evictedMax=" + evictedMax +
+					", createdPerInterval=" + createdPerInterval +
 					'}';
 		}
 	}
 
-	private static void updateStats() {
+	static void updateStats() {
 		for (int i = 0; i < slabs.length; i++) {
 			SlabStats stats = slabStats[i];
 			ByteBufConcurrentQueue slab = slabs[i];
 			int realMin = slab.realMin.getAndSet(slab.size());
 
+			int createdTotal = created[i].get();
+			int createdNew = max(0, createdTotal - stats.createdLast);
+			stats.createdLast = createdTotal;
+			stats.createdPerInterval += (createdNew - stats.createdPerInterval) * SMOOTHING_COEFF;
+
 			double realError = Math.abs(stats.estimatedMin - realMin);
 			stats.estimatedError += (realError - stats.estimatedError) * SMOOTHING_COEFF;
 
@@ -611,14 +1017,15 @@ public final class ByteBufPool {
 		}
 	}
 
-	private static void evict() {
+	static void evict() {
 		for (int i = 0; i < slabs.length; i++) {
-			ByteBufConcurrentQueue slab = slabs[i];
 			SlabStats stats = slabStats[i];
-			int evictCount = (int) Math.round(stats.estimatedMin - stats.estimatedError * WATCHDOG_ERROR_MARGIN);
 			stats.evictedLast = 0;
+			// slab is under allocation pressure, its bufs are going to be reused soon
+			if (stats.createdPerInterval >= 1.0) continue;
+			int evictCount = (int) Math.round(stats.estimatedMin - stats.estimatedError * WATCHDOG_ERROR_MARGIN);
 			for (int j = 0; j < evictCount; j++) {
-				ByteBuf buf = slab.poll();
+				ByteBuf buf = pollSlab(i);
 				if (buf == null) break;
 				stats.estimatedMin--;
 				stats.evictedLast++;
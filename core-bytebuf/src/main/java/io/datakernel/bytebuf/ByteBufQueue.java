@@ -25,6 +25,7 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.function.Consumer;
 import java.util.stream.Collector;
@@ -32,6 +33,7 @@ import java.util.stream.Collector;
 import static io.datakernel.common.Preconditions.checkArgument;
 import static io.datakernel.common.Preconditions.checkState;
 import static io.datakernel.common.collection.CollectionUtils.emptyIterator;
+import static java.lang.Math.min;
 import static java.lang.System.arraycopy;
 
 /**
@@ -379,6 +381,23 @@ public final class ByteBufQueue implements Recyclable {
 		return bufs[(first + n) % bufs.length];
 	}
 
+	/**
+	 * Wraps bufs of this queue into Java's {@link ByteBuffer}s ready to read,
+	 * so that the whole queue can be passed to a single gathering write.
+	 * <p>
+	 * Bufs are not taken out of this queue, written bytes should be removed with {@link #skip(int)}.
+	 *
+	 * @return array of {@link ByteBuffer}s ready to read
+	 */
+	@NotNull
+	public ByteBuffer[] toReadByteBuffers() {
+		ByteBuffer[] buffers = new ByteBuffer[remainingBufs()];
+		for (int i = 0, j = first; j != last; i++, j = next(j)) {
+			buffers[i] = bufs[j].toReadByteBuffer();
+		}
+		return buffers;
+	}
+
 	/**
 	 * Returns the number of ByteBufs in this queue.
 	 */
@@ -723,6 +742,274 @@ public final class ByteBufQueue implements Recyclable {
 		return skipped;
 	}
 
+	/**
+	 * Creates a read-only view over the bytes of this queue,
+	 * which reads values across boundaries of the bufs without coalescing them.
+	 *
+	 * @see ByteBufQueueView
+	 */
+	@NotNull
+	public ByteBufQueueView view() {
+		return new ByteBufQueueView(this);
+	}
+
+	/**
+	 * Read-only cursor over the bytes of a {@link ByteBufQueue}, which
+	 * supports {@link ByteBuf} read API across boundaries of the queued bufs.
+	 * <p>
+	 * Reading from the view does not change the queue. Read bytes may be removed from the queue
+	 * with {@link #commit()}, or the view can be moved back to the queue start with {@link #rewind()},
+	 * for example when a message turns out to be incomplete.
+	 * <p>
+	 * The view should be rewound after the queue is modified by anything else than {@link #commit()}.
+	 */
+	public static final class ByteBufQueueView {
+		private final ByteBufQueue queue;
+
+		private int index;
+		private int offset;
+		private int position;
+
+		private ByteBufQueueView(@NotNull ByteBufQueue queue) {
+			this.queue = queue;
+			rewind();
+		}
+
+		/**
+		 * Moves this view back to the first byte of the queue.
+		 */
+		public void rewind() {
+			index = queue.first;
+			offset = index != queue.last ? queue.bufs[index].head : 0;
+			position = 0;
+		}
+
+		/**
+		 * Removes all the bytes read through this view from the queue, recycling fully read bufs.
+		 */
+		public void commit() {
+			queue.skip(position);
+			rewind();
+		}
+
+		/**
+		 * Returns the number of bytes read through this view since the last rewind or commit.
+		 */
+		@Contract(pure = true)
+		public int position() {
+			return position;
+		}
+
+		@Contract(pure = true)
+		public boolean canRead() {
+			return index != queue.last;
+		}
+
+		@Contract(pure = true)
+		public int readRemaining() {
+			if (!canRead()) return 0;
+			int result = queue.bufs[index].tail - offset;
+			for (int i = queue.next(index); i != queue.last; i = queue.next(i)) {
+				result += queue.bufs[i].readRemaining();
+			}
+			return result;
+		}
+
+		@Contract(pure = true)
+		public boolean hasRemainingBytes(int remaining) {
+			if (remaining == 0) return true;
+			if (!canRead()) return false;
+			remaining -= queue.bufs[index].tail - offset;
+			for (int i = queue.next(index); remaining > 0 && i != queue.last; i = queue.next(i)) {
+				remaining -= queue.bufs[i].readRemaining();
+			}
+			return remaining <= 0;
+		}
+
+		@Contract(pure = true)
+		public byte peek() {
+			if (CHECK) checkState(canRead(), "No bytes to peek");
+			return queue.bufs[index].array[offset];
+		}
+
+		@Contract(pure = true)
+		public byte peek(int offset) {
+			if (CHECK) checkState(hasRemainingBytes(offset + 1), "Offset exceeds the number of bytes in queue");
+			int i = index;
+			int p = this.offset + offset;
+			while (true) {
+				ByteBuf buf = queue.bufs[i];
+				if (p < buf.tail) return buf.array[p];
+				p -= buf.tail;
+				i = queue.next(i);
+				p += queue.bufs[i].head;
+			}
+		}
+
+		/**
+		 * Returns the offset of the first byte which is accepted by a given scanner,
+		 * relative to the current position of this view. This view is not moved.
+		 *
+		 * @return offset of the found byte, or the number of remaining bytes if there is no such byte
+		 */
+		public int scanBytes(@NotNull ByteScanner byteScanner) {
+			int scanned = 0;
+			for (int i = index; i != queue.last; i = queue.next(i)) {
+				ByteBuf buf = queue.bufs[i];
+				byte[] array = buf.array;
+				int from = i == index ? offset : buf.head;
+				int tail = buf.tail;
+				for (int p = from; p != tail; p++) {
+					if (byteScanner.consume(array[p])) {
+						return scanned + p - from;
+					}
+				}
+				scanned += tail - from;
+			}
+			return scanned;
+		}
+
+		/**
+		 * Returns the offset of a given byte, relative to the current position of this view.
+		 * This view is not moved.
+		 *
+		 * @return offset of the byte, or -1 if there is no such byte
+		 */
+		public int indexOf(byte value) {
+			int scanned = 0;
+			for (int i = index; i != queue.last; i = queue.next(i)) {
+				ByteBuf buf = queue.bufs[i];
+				int from = i == index ? offset : buf.head;
+				int found = ByteBufStrings.indexOf(buf.array, from, buf.tail - from, value);
+				if (found != -1) {
+					return scanned + found - from;
+				}
+				scanned += buf.tail - from;
+			}
+			return -1;
+		}
+
+		public int skip(int maxSize) {
+			int s = maxSize;
+			while (s != 0 && canRead()) {
+				int size = min(s, queue.bufs[index].tail - offset);
+				move(size);
+				s -= size;
+			}
+			return maxSize - s;
+		}
+
+		public int read(@NotNull byte[] b) {
+			return read(b, 0, b.length);
+		}
+
+		public int read(@NotNull byte[] b, int off, int len) {
+			int s = len;
+			while (s != 0 && canRead()) {
+				ByteBuf buf = queue.bufs[index];
+				int size = min(s, buf.tail - offset);
+				arraycopy(buf.array, offset, b, off, size);
+				move(size);
+				off += size;
+				s -= size;
+			}
+			return len - s;
+		}
+
+		public byte readByte() {
+			if (CHECK) checkState(canRead(), "No bytes to read");
+			byte result = queue.bufs[index].array[offset];
+			move(1);
+			return result;
+		}
+
+		public boolean readBoolean() {
+			return readByte() != 0;
+		}
+
+		public char readChar() {
+			return (char) readShort();
+		}
+
+		public short readShort() {
+			ByteBuf buf = queue.bufs[index];
+			if (buf.tail - offset >= 2) {
+				byte[] array = buf.array;
+				short result = (short) (((array[offset] & 0xFF) << 8)
+						| (array[offset + 1] & 0xFF));
+				move(2);
+				return result;
+			}
+			return (short) (((readByte() & 0xFF) << 8)
+					| (readByte() & 0xFF));
+		}
+
+		public int readInt() {
+			ByteBuf buf = queue.bufs[index];
+			if (buf.tail - offset >= 4) {
+				byte[] array = buf.array;
+				int result = ((array[offset] & 0xFF) << 24)
+						| ((array[offset + 1] & 0xFF) << 16)
+						| ((array[offset + 2] & 0xFF) << 8)
+						| (array[offset + 3] & 0xFF);
+				move(4);
+				return result;
+			}
+			return ((readByte() & 0xFF) << 24)
+					| ((readByte() & 0xFF) << 16)
+					| ((readByte() & 0xFF) << 8)
+					| (readByte() & 0xFF);
+		}
+
+		public long readLong() {
+			return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+		}
+
+		public float readFloat() {
+			return Float.intBitsToFloat(readInt());
+		}
+
+		public double readDouble() {
+			return Double.longBitsToDouble(readLong());
+		}
+
+		public int readVarInt() {
+			int result = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				byte b = readByte();
+				result |= (b & 0x7f) << shift;
+				if (b >= 0)
+					return result;
+			}
+			throw new IllegalStateException("Read varint was too long");
+		}
+
+		public long readVarLong() {
+			long result = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte b = readByte();
+				result |= (long) (b & 0x7F) << shift;
+				if (b >= 0)
+					return result;
+			}
+			throw new IllegalStateException("Read varint was too long");
+		}
+
+		private void move(int size) {
+			position += size;
+			offset += size;
+			if (offset == queue.bufs[index].tail) {
+				index = queue.next(index);
+				offset = index != queue.last ? queue.bufs[index].head : 0;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "ByteBufQueueView{position=" + position + ", queue=" + queue + '}';
+		}
+	}
+
 	@NotNull
 	public Iterator<ByteBuf> asIterator() {
 		if (!hasRemaining()) return emptyIterator();
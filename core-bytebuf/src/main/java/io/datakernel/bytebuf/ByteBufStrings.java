@@ -21,6 +21,7 @@ import io.datakernel.common.concurrent.ThreadLocalCharArray;
 import io.datakernel.common.parse.ParseException;
 
 import static io.datakernel.common.Preconditions.checkArgument;
+import static java.lang.Math.min;
 
 /**
  * This class contains various fast string utilities for {@link ByteBuf ByteBufs} and byte arrays
@@ -45,6 +46,15 @@ public final class ByteBufStrings {
 	 */
 	private static final byte[] MIN_INT_BYTES = new byte[]{45, 50, 49, 52, 55, 52, 56, 51, 54, 52, 56};
 
+	// Constants for word-at-a-time (SWAR) processing of 8 bytes packed into a little-endian long
+	private static final long ONES = 0x0101010101010101L;
+	private static final long HIGH_BITS = 0x8080808080808080L;
+	private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+	private static final long NIBBLES = 0xF0F0F0F0F0F0F0F0L;
+	private static final long ZEROS = 0x3030303030303030L;
+	private static final long UPPER_CASE_MIN = (0x80 - 'A') * ONES;
+	private static final long UPPER_CASE_MAX = (0x80 - 'Z' - 1) * ONES;
+
 	// ASCII
 	public static void encodeAscii(byte[] array, int pos, String string) {
 		for (int i = 0; i < string.length(); i++) {
@@ -134,7 +144,12 @@ public final class ByteBufStrings {
 	public static boolean equalsLowerCaseAscii(byte[] lowerCasePattern, byte[] array, int offset, int size) {
 		if (lowerCasePattern.length != size)
 			return false;
-		for (int i = 0; i < lowerCasePattern.length; i++) {
+		int i = 0;
+		for (; i + 8 <= size; i += 8) {
+			if (toLowerCaseWord(readLong(array, offset + i)) != readLong(lowerCasePattern, i))
+				return false;
+		}
+		for (; i < lowerCasePattern.length; i++) {
 			byte p = lowerCasePattern[i];
 			if (CHECK) checkArgument(p < 'A' || p > 'Z');
 			byte a = array[offset + i];
@@ -161,6 +176,114 @@ public final class ByteBufStrings {
 		return true;
 	}
 
+	/**
+	 * Returns the index of the first occurrence of a given byte within the range,
+	 * checking 8 bytes at a time
+	 *
+	 * @return index of the byte in array, or -1 if there is no such byte within the range
+	 */
+	public static int indexOf(byte[] array, int pos, int len, byte value) {
+		int end = pos + len;
+		long pattern = (value & 0xFF) * ONES;
+		for (; pos + 8 <= end; pos += 8) {
+			long found = zeroBytes(readLong(array, pos) ^ pattern);
+			if (found != 0) {
+				return pos + (Long.numberOfTrailingZeros(found) >>> 3);
+			}
+		}
+		for (; pos < end; pos++) {
+			if (array[pos] == value) {
+				return pos;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the first occurrence of any of two given bytes within the range,
+	 * checking 8 bytes at a time
+	 *
+	 * @return index of the byte in array, or -1 if there are no such bytes within the range
+	 */
+	public static int indexOf(byte[] array, int pos, int len, byte value1, byte value2) {
+		int end = pos + len;
+		long pattern1 = (value1 & 0xFF) * ONES;
+		long pattern2 = (value2 & 0xFF) * ONES;
+		for (; pos + 8 <= end; pos += 8) {
+			long word = readLong(array, pos);
+			long found = zeroBytes(word ^ pattern1) | zeroBytes(word ^ pattern2);
+			if (found != 0) {
+				return pos + (Long.numberOfTrailingZeros(found) >>> 3);
+			}
+		}
+		for (; pos < end; pos++) {
+			byte b = array[pos];
+			if (b == value1 || b == value2) {
+				return pos;
+			}
+		}
+		return -1;
+	}
+
+	public static boolean isAscii(byte[] array, int pos, int len) {
+		int end = pos + len;
+		long bits = 0;
+		for (; pos + 8 <= end; pos += 8) {
+			bits |= readLong(array, pos);
+		}
+		for (; pos < end; pos++) {
+			bits |= array[pos];
+		}
+		return (bits & HIGH_BITS) == 0;
+	}
+
+	public static boolean isAscii(ByteBuf buf) {
+		return isAscii(buf.array(), buf.head(), buf.readRemaining());
+	}
+
+	/**
+	 * Reads 8 bytes starting from a given position as a little-endian long,
+	 * so that the byte at lowest index becomes the lowest byte of the word
+	 */
+	static long readLong(byte[] array, int pos) {
+		return (array[pos] & 0xFFL) |
+				(array[pos + 1] & 0xFFL) << 8 |
+				(array[pos + 2] & 0xFFL) << 16 |
+				(array[pos + 3] & 0xFFL) << 24 |
+				(array[pos + 4] & 0xFFL) << 32 |
+				(array[pos + 5] & 0xFFL) << 40 |
+				(array[pos + 6] & 0xFFL) << 48 |
+				(array[pos + 7] & 0xFFL) << 56;
+	}
+
+	/**
+	 * Marks zero bytes of a word with their high bits.
+	 * Bytes above the lowest zero byte may be marked falsely, so only the lowest mark is exact
+	 */
+	private static long zeroBytes(long word) {
+		return (word - ONES) & ~word & HIGH_BITS;
+	}
+
+	private static long toLowerCaseWord(long word) {
+		long heptets = word & LOW_BITS;
+		long upperCase = ((heptets + UPPER_CASE_MIN) ^ (heptets + UPPER_CASE_MAX)) & ~word & HIGH_BITS;
+		return word | (upperCase >>> 2);
+	}
+
+	private static boolean isDigits(long word) {
+		return (word & NIBBLES) == ZEROS && ((word + 0x0606060606060606L) & NIBBLES) == ZEROS;
+	}
+
+	/**
+	 * Converts a word of 8 decimal digits into its numeric value
+	 */
+	private static int decodeDigits(long word) {
+		word -= ZEROS;
+		word = (word * 10 + (word >>> 8)) & 0x00FF00FF00FF00FFL;
+		word = (word * 100 + (word >>> 16)) & 0x0000FFFF0000FFFFL;
+		return (int) ((word * 10000 + (word >>> 32)) & 0xFFFFFFFFL);
+	}
+
 	public static int hashCode(byte[] array, int offset, int size) {
 		int result = 1;
 		for (int i = offset; i < offset + size; i++) {
@@ -259,6 +382,11 @@ public final class ByteBufStrings {
 	public static int decodeUtf8(byte[] array, int pos, int len, char[] buffer, int to) throws ParseException {
 		int end = pos + len;
 		try {
+			while (pos + 8 <= end && (readLong(array, pos) & HIGH_BITS) == 0) {
+				for (int i = 0; i < 8; i++) {
+					buffer[to++] = (char) array[pos++];
+				}
+			}
 			while (pos < end) {
 				int c = array[pos++] & 0xff;
 				switch ((c >> 4) & 0x0F) {
@@ -474,7 +602,15 @@ public final class ByteBufStrings {
 
 	public static int decodePositiveInt(byte[] array, int pos, int len) throws ParseException {
 		int result = 0;
-		for (int i = pos; i < pos + len; i++) {
+		int i = pos;
+		if (len >= 8) {
+			long word = readLong(array, i);
+			if (isDigits(word)) {
+				result = decodeDigits(word);
+				i += 8;
+			}
+		}
+		for (; i < pos + len; i++) {
 			byte b = (byte) (array[i] - '0');
 			if (b < 0 || b >= 10) {
 				throw new ParseException("Not a decimal value: " + new String(array, pos, len));
@@ -489,7 +625,14 @@ public final class ByteBufStrings {
 
 	public static long decodePositiveLong(byte[] array, int pos, int len) throws ParseException {
 		long result = 0;
-		for (int i = pos; i < pos + len; i++) {
+		int i = pos;
+		// at most 16 digits, which cannot overflow
+		for (int limit = pos + min(len, 16); i + 8 <= limit; i += 8) {
+			long word = readLong(array, i);
+			if (!isDigits(word)) break;
+			result = result * 100_000_000 + decodeDigits(word);
+		}
+		for (; i < pos + len; i++) {
 			byte b = (byte) (array[i] - '0');
 			if (b < 0 || b >= 10) {
 				throw new ParseException("Not a decimal value: " + new String(array, pos, len));
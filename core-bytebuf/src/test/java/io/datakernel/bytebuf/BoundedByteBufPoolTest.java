@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.bytebuf;
+
+import io.datakernel.bytebuf.ByteBufPool.ByteBufPoolStats;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ByteBufPool settings are read once per JVM, so this test runs in its own surefire execution
+ */
+public class BoundedByteBufPoolTest {
+	static {
+		System.setProperty("ByteBufPool.stats", "true");
+		System.setProperty("ByteBufPool.maxPoolSize", "1024");
+		System.setProperty("ByteBufPool.maxSlabSize", "512");
+		System.setProperty("ByteBufPool.useWatchdog", "true");
+		// trimming is driven by the test, the watchdog thread sleeps after its first pass
+		System.setProperty("ByteBufPool.watchdogInterval", "PT1H");
+		System.setProperty("ByteBufPool.watchdogSmoothingWindow", "PT1H");
+		System.setProperty("ByteBufPool.watchdogErrorMargin", "0");
+	}
+
+	private static final ByteBufPoolStats stats = ByteBufPool.getStats();
+
+	@BeforeClass
+	public static void waitForWatchdog() throws InterruptedException {
+		ByteBufPool.clear();
+		Thread watchdog = Thread.getAllStackTraces().keySet().stream()
+				.filter(thread -> thread.getName().equals("bytebufpool-watchdog-thread"))
+				.findAny()
+				.orElseThrow(AssertionError::new);
+		while (watchdog.getState() != Thread.State.TIMED_WAITING) {
+			Thread.sleep(1);
+		}
+	}
+
+	@Before
+	public void setUp() {
+		ByteBufPool.clear();
+	}
+
+	@Test
+	public void testDropAboveSlabCap() {
+		recycleNew(10, 128);
+
+		assertEquals(4, ByteBufPool.slabs[7].size());
+		assertEquals(512, stats.getPoolSize());
+		assertEquals(6, stats.getDroppedItems());
+	}
+
+	@Test
+	public void testDropAbovePoolCap() {
+		recycleNew(4, 128);
+		recycleNew(8, 64);
+		assertEquals(1024, stats.getPoolSize());
+		assertEquals(0, stats.getDroppedItems());
+
+		recycleNew(1, 32);
+		assertTrue(ByteBufPool.slabs[5].isEmpty());
+		assertEquals(1, stats.getDroppedItems());
+
+		// a reused buf frees its space in the pool
+		ByteBufPool.allocate(128);
+		recycleNew(1, 32);
+		assertEquals(1, ByteBufPool.slabs[5].size());
+		assertEquals(1, stats.getDroppedItems());
+	}
+
+	@Test
+	public void testClearReleasesPoolCap() {
+		recycleNew(4, 128);
+		recycleNew(8, 64);
+		ByteBufPool.clear();
+
+		recycleNew(4, 128);
+		recycleNew(8, 64);
+		assertEquals(1024, stats.getPoolSize());
+		assertEquals(0, stats.getDroppedItems());
+	}
+
+	@Test
+	public void testTrimIdleSlabs() {
+		recycleNew(4, 128);
+
+		for (int i = 0; i < 10; i++) {
+			// a slab under allocation pressure keeps its bufs
+			ByteBuf buf1 = ByteBufPool.allocate(512);
+			ByteBuf buf2 = ByteBufPool.allocate(512);
+			buf1.recycle();
+			buf2.recycle();
+
+			ByteBufPool.updateStats();
+			ByteBufPool.evict();
+		}
+
+		assertTrue(ByteBufPool.slabs[7].isEmpty());
+		assertEquals(1, ByteBufPool.slabs[9].size());
+		assertEquals(4, stats.getTotalEvicted());
+
+		// evicted bufs no longer count towards the pool cap
+		recycleNew(4, 128);
+		assertEquals(4, ByteBufPool.slabs[7].size());
+		assertEquals(1024, stats.getPoolSize());
+	}
+
+	private static void recycleNew(int count, int size) {
+		List<ByteBuf> bufs = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			bufs.add(ByteBufPool.allocate(size));
+		}
+		bufs.forEach(ByteBuf::recycle);
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.bytebuf;
+
+import io.datakernel.bytebuf.ByteBufPool.LocalCache;
+import org.junit.Before;
+import org.junit.Test;
+
+import static io.datakernel.bytebuf.ByteBufPool.LOCAL_CACHE_BATCH;
+import static io.datakernel.bytebuf.ByteBufPool.LOCAL_CACHE_CAPACITY;
+import static io.datakernel.bytebuf.ByteBufTest.initByteBufPool;
+import static org.junit.Assert.*;
+
+public class ByteBufPoolLocalCacheTest {
+	static {
+		initByteBufPool();
+	}
+
+	private static final int SLAB = 4;
+
+	private final LocalCache cache = new LocalCache();
+
+	@Before
+	public void setUp() {
+		ByteBufPool.clear();
+	}
+
+	@Test
+	public void testHitsAndMisses() {
+		assertNull(cache.poll(SLAB));
+		assertEquals(0, cache.hits);
+		assertEquals(1, cache.misses);
+		assertEquals(0, cache.refills);
+
+		for (int i = 0; i < 3; i++) {
+			cache.offer(SLAB, newBuf());
+		}
+		for (int i = 0; i < 3; i++) {
+			assertNotNull(cache.poll(SLAB));
+		}
+		assertNull(cache.poll(SLAB));
+
+		assertEquals(3, cache.hits);
+		assertEquals(2, cache.misses);
+		assertEquals(0, cache.refills);
+		assertTrue(ByteBufPool.slabs[SLAB].isEmpty());
+	}
+
+	@Test
+	public void testRefillInBatch() {
+		int globalItems = LOCAL_CACHE_BATCH * 2 + 1;
+		for (int i = 0; i < globalItems; i++) {
+			ByteBufPool.slabs[SLAB].offer(newBuf());
+		}
+
+		assertNotNull(cache.poll(SLAB));
+		assertEquals(1, cache.refills);
+		assertEquals(1, cache.misses);
+		assertEquals(LOCAL_CACHE_BATCH - 1, cache.size());
+		assertEquals(globalItems - LOCAL_CACHE_BATCH, ByteBufPool.slabs[SLAB].size());
+
+		for (int i = 1; i < LOCAL_CACHE_BATCH; i++) {
+			assertNotNull(cache.poll(SLAB));
+		}
+		assertEquals(LOCAL_CACHE_BATCH - 1, cache.hits);
+		assertEquals(1, cache.refills);
+
+		// the last refill takes what is left in the global slab
+		assertNotNull(cache.poll(SLAB));
+		assertEquals(2, cache.refills);
+		assertEquals(LOCAL_CACHE_BATCH - 1, cache.size());
+		assertEquals(1, ByteBufPool.slabs[SLAB].size());
+	}
+
+	@Test
+	public void testSpillAtBound() {
+		for (int i = 0; i < LOCAL_CACHE_CAPACITY; i++) {
+			cache.offer(SLAB, newBuf());
+		}
+		assertEquals(0, cache.spills);
+		assertEquals(LOCAL_CACHE_CAPACITY, cache.size());
+		assertTrue(ByteBufPool.slabs[SLAB].isEmpty());
+
+		ByteBuf buf = newBuf();
+		cache.offer(SLAB, buf);
+		assertEquals(1, cache.spills);
+		assertEquals(LOCAL_CACHE_CAPACITY - LOCAL_CACHE_BATCH + 1, cache.size());
+		assertEquals(LOCAL_CACHE_BATCH, ByteBufPool.slabs[SLAB].size());
+
+		// the most recently recycled buf stays in the cache
+		assertSame(buf, cache.poll(SLAB));
+	}
+
+	@Test
+	public void testClearInvalidatesCache() {
+		cache.offer(SLAB, newBuf());
+		assertEquals(1, cache.size());
+
+		ByteBufPool.clear();
+
+		assertNull(cache.poll(SLAB));
+		assertEquals(0, cache.size());
+	}
+
+	private static ByteBuf newBuf() {
+		return ByteBuf.wrapForWriting(new byte[1 << SLAB]);
+	}
+}
@@ -11,8 +11,7 @@ import java.util.Random;
 import static io.datakernel.bytebuf.ByteBufStrings.wrapAscii;
 import static io.datakernel.bytebuf.ByteBufTest.initByteBufPool;
 import static java.util.Arrays.asList;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class ByteBufQueueTest {
 	static {
@@ -80,4 +79,48 @@ public class ByteBufQueueTest {
 		queue.asIterator().forEachRemaining(actual::add);
 		assertEquals(expected, actual);
 	}
+
+	@Test
+	public void testView() {
+		ByteBuf source = ByteBufPool.allocate(64);
+		source.writeInt(0x01020304);
+		source.writeLong(-2L);
+		source.writeVarInt(300);
+		source.writeVarLong(Long.MAX_VALUE);
+		source.writeShort((short) -5);
+		source.writeByte((byte) 'x');
+		byte[] bytes = source.asArray();
+
+		// split serialized values into bufs of 1..3 bytes
+		for (int pos = 0; pos < bytes.length; ) {
+			int size = Math.min(1 + pos % 3, bytes.length - pos);
+			queue.add(ByteBuf.wrap(bytes, pos, pos + size));
+			pos += size;
+		}
+
+		ByteBufQueue.ByteBufQueueView view = queue.view();
+		assertEquals(bytes.length, view.readRemaining());
+		assertTrue(view.hasRemainingBytes(bytes.length));
+		assertFalse(view.hasRemainingBytes(bytes.length + 1));
+		assertEquals(bytes.length - 1, view.indexOf((byte) 'x'));
+		assertEquals(bytes[7], view.peek(7));
+
+		assertEquals(0x01020304, view.readInt());
+		assertEquals(-2L, view.readLong());
+		assertEquals(300, view.readVarInt());
+		assertEquals(Long.MAX_VALUE, view.readVarLong());
+		assertEquals(-5, view.readShort());
+		assertEquals(0, view.indexOf((byte) 'x'));
+		assertEquals('x', view.readByte());
+		assertFalse(view.canRead());
+		assertEquals(bytes.length, view.position());
+		assertEquals(bytes.length, queue.remainingBytes());
+
+		view.rewind();
+		assertEquals(4, view.skip(4));
+		assertEquals(-2L, view.readLong());
+		view.commit();
+		assertEquals(bytes.length - 12, queue.remainingBytes());
+		assertEquals(300, queue.view().readVarInt());
+	}
 }
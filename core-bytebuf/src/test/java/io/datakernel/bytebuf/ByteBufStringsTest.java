@@ -22,11 +22,9 @@ import org.junit.Test;
 import java.util.Arrays;
 import java.util.Random;
 
-import static io.datakernel.bytebuf.ByteBufStrings.decodeUtf8;
-import static io.datakernel.bytebuf.ByteBufStrings.encodeLong;
+import static io.datakernel.bytebuf.ByteBufStrings.*;
 import static io.datakernel.bytebuf.ByteBufTest.initByteBufPool;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
 public class ByteBufStringsTest {
 	static {
@@ -101,7 +99,104 @@ public class ByteBufStringsTest {
 		assertEquals(String.valueOf(value), ByteBufStrings.decodeUtf8(byteBuf));
 	}
 
+	@Test
+	public void testIndexOf() {
+		byte[] bytes = "Host: example.com\r\nAccept: */*\r\n".getBytes();
+		for (int pos = 0; pos < bytes.length; pos++) {
+			for (int len = 0; pos + len <= bytes.length; len++) {
+				assertEquals(naiveIndexOf(bytes, pos, len, (byte) ':', (byte) ':'), indexOf(bytes, pos, len, (byte) ':'));
+				assertEquals(naiveIndexOf(bytes, pos, len, CR, LF), indexOf(bytes, pos, len, CR, LF));
+				assertEquals(naiveIndexOf(bytes, pos, len, (byte) 0x80, (byte) 0x80), indexOf(bytes, pos, len, (byte) 0x80));
+			}
+		}
+		bytes[20] = (byte) 0x80;
+		assertEquals(20, indexOf(bytes, 0, bytes.length, (byte) 0x80));
+	}
+
+	@Test
+	public void testIsAscii() {
+		byte[] bytes = "Content-Type: text/plain; charset=utf-8".getBytes();
+		assertTrue(isAscii(bytes, 0, bytes.length));
+		for (int i = 0; i < bytes.length; i++) {
+			byte b = bytes[i];
+			bytes[i] = (byte) 0xC3;
+			assertFalse(isAscii(bytes, 0, bytes.length));
+			assertTrue(isAscii(bytes, i + 1, bytes.length - i - 1));
+			bytes[i] = b;
+		}
+	}
+
+	@Test
+	public void testEqualsLowerCaseAscii() {
+		byte[] pattern = "content-length@[`{".getBytes();
+		assertTrue(equalsLowerCaseAscii(pattern, "Content-Length@[`{".getBytes(), 0, pattern.length));
+		assertTrue(equalsLowerCaseAscii(pattern, "CONTENT-LENGTH@[`{".getBytes(), 0, pattern.length));
+		assertFalse(equalsLowerCaseAscii(pattern, "CONTENT-LENGTH`{`{".getBytes(), 0, pattern.length));
+		assertFalse(equalsLowerCaseAscii(pattern, "CONTENT_LENGTH@[`{".getBytes(), 0, pattern.length));
+
+		byte[] bytes = new byte[pattern.length];
+		for (int b = 0; b < 256; b++) {
+			System.arraycopy(pattern, 0, bytes, 0, pattern.length);
+			bytes[3] = (byte) b;
+			boolean expected = b == 't' || b == 'T';
+			assertEquals(expected, equalsLowerCaseAscii(pattern, bytes, 0, bytes.length));
+		}
+	}
+
+	@Test
+	public void testDecodePositive() throws ParseException {
+		for (String string : new String[]{"0", "12345678", "012345678", "2147483647", "9223372036854775807", "1234567890123456"}) {
+			byte[] bytes = string.getBytes();
+			assertEquals(Long.parseLong(string), decodePositiveLong(bytes, 0, bytes.length));
+			if (bytes.length <= 10) {
+				assertEquals(Integer.parseInt(string), decodePositiveInt(bytes, 0, bytes.length));
+			}
+		}
+		for (int i = 0; i < 1000; i++) {
+			long value = RANDOM.nextLong() & Long.MAX_VALUE;
+			byte[] bytes = String.valueOf(value).getBytes();
+			assertEquals(value, decodePositiveLong(bytes, 0, bytes.length));
+		}
+
+		byte[] bytes = "1234567/".getBytes();
+		try {
+			decodePositiveInt(bytes, 0, bytes.length);
+			fail();
+		} catch (ParseException e) {
+			assertEquals("Not a decimal value: 1234567/", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testDecodeUtf8OutOfRange() {
+		byte[] bytes = "0123456789abcdef".getBytes();
+
+		// ASCII words are read ahead of the byte-by-byte loop
+		for (int pos : new int[]{1, 4, 9, 15}) {
+			try {
+				decodeUtf8(bytes, pos, bytes.length, new char[bytes.length * 2]);
+				fail();
+			} catch (ParseException e) {
+				assertSame(READ_PAST_ARRAY_LENGTH, e);
+			}
+		}
+
+		try {
+			decodeUtf8(bytes, 0, bytes.length, new char[bytes.length - 1]);
+			fail();
+		} catch (ParseException e) {
+			assertSame(READ_PAST_ARRAY_LENGTH, e);
+		}
+	}
+
 	// region helpers
+	private static int naiveIndexOf(byte[] bytes, int pos, int len, byte value1, byte value2) {
+		for (int i = pos; i < pos + len; i++) {
+			if (bytes[i] == value1 || bytes[i] == value2) return i;
+		}
+		return -1;
+	}
+
 	private void encodeLongTest(ByteBuf buf, long value) throws ParseException {
 		buf.rewind();
 		buf.moveTail(encodeLong(buf.array, buf.head(), value));
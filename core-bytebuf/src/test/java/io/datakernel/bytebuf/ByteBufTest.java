@@ -165,6 +165,56 @@ public class ByteBufTest {
 		buf.recycle();
 	}
 
+	@Test
+	public void testAddRefAndRelease() {
+		ByteBuf buf = ByteBufPool.allocate(8);
+		buf.put(new byte[]{1, 2, 3, 4});
+		assertEquals(1, buf.refCount());
+
+		ByteBuf slice = buf.slice(1, 2);
+		assertEquals(2, buf.refCount());
+		slice.addRef();
+		assertEquals(3, buf.refCount());
+		buf.addRef();
+		assertEquals(4, slice.refCount());
+
+		assertFalse(buf.release());
+		assertFalse(buf.release());
+		assertFalse(slice.release());
+		assertEquals(1, buf.refCount());
+		assertEquals(2, slice.readRemaining());
+		assertEquals(2, slice.readByte());
+		assertTrue(slice.release());
+		assertEquals(0, buf.refCount());
+
+		ByteBuf wrapped = ByteBuf.wrapForReading(new byte[]{1, 2, 3});
+		wrapped.addRef();
+		assertEquals(0, wrapped.refCount());
+		assertTrue(wrapped.release());
+	}
+
+	@Test
+	public void testFinalReleaseWithConcurrentAllocations() throws InterruptedException {
+		Thread allocator = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				ByteBufPool.allocate(8).recycle();
+			}
+		});
+		allocator.start();
+		try {
+			for (int i = 0; i < 100_000; i++) {
+				ByteBuf buf = ByteBufPool.allocate(8);
+				ByteBuf slice = buf.slice();
+				assertFalse(buf.release());
+				// the buf may be taken from the pool by another thread right after it is returned there
+				assertTrue(slice.release());
+			}
+		} finally {
+			allocator.interrupt();
+			allocator.join();
+		}
+	}
+
 	@Test
 	public void testViews() {
 		// emulate engine that receives randomly sized bufs from `net` and sends them to some `consumer`
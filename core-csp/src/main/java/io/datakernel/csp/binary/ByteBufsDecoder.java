@@ -18,6 +18,7 @@ package io.datakernel.csp.binary;
 
 import io.datakernel.bytebuf.ByteBuf;
 import io.datakernel.bytebuf.ByteBufQueue;
+import io.datakernel.bytebuf.ByteBufQueue.ByteBufQueueView;
 import io.datakernel.common.parse.InvalidSizeException;
 import io.datakernel.common.parse.ParseException;
 import io.datakernel.common.parse.ParserFunction;
@@ -87,9 +88,16 @@ public interface ByteBufsDecoder<T> {
 
     static ByteBufsDecoder<ByteBuf> ofCrlfTerminatedBytes(int maxSize) {
         return bufs -> {
-            for (int i = 0; i < min(bufs.remainingBytes() - 1, maxSize); i++) {
-                if (bufs.peekByte(i) == CR && bufs.peekByte(i + 1) == LF) {
-                    ByteBuf buf = bufs.takeExactSize(i);
+            ByteBufQueueView view = bufs.view();
+            int limit = min(bufs.remainingBytes() - 1, maxSize);
+            int scanned = 0;
+            while (true) {
+                int i = view.indexOf(CR);
+                if (i == -1 || scanned + i >= limit) break;
+                view.skip(i + 1);
+                scanned += i + 1;
+                if (view.peek() == LF) {
+                    ByteBuf buf = bufs.takeExactSize(scanned - 1);
                     bufs.skip(2);
                     return buf;
                 }
@@ -108,10 +116,7 @@ public interface ByteBufsDecoder<T> {
     static ByteBufsDecoder<ByteBuf> ofIntSizePrefixedBytes(int maxSize) {
         return bufs -> {
             if (!bufs.hasRemainingBytes(4)) return null;
-            int size = (bufs.peekByte(0) & 0xFF) << 24
-                    | (bufs.peekByte(1) & 0xFF) << 16
-                    | (bufs.peekByte(2) & 0xFF) << 8
-                    | (bufs.peekByte(3) & 0xFF);
+            int size = bufs.view().readInt();
             if (size < 0 || size > maxSize) {
                 throw new InvalidSizeException(ByteBufsDecoder.class,
                         "Size is either less than 0 or greater than maxSize. Parsed size: " + size);
@@ -159,42 +164,16 @@ public interface ByteBufsDecoder<T> {
 
     static ByteBufsDecoder<ByteBuf> ofVarIntSizePrefixedBytes(int maxSize) {
         return bufs -> {
-            int size;
-            int prefixSize;
-            if (!bufs.hasRemainingBytes(1)) return null;
-            byte b = bufs.peekByte(0);
-            if (b >= 0) {
-                size = b;
-                prefixSize = 1;
-            } else {
-                if (!bufs.hasRemainingBytes(2)) return null;
-                size = b & 0x7f;
-                if ((b = bufs.peekByte(1)) >= 0) {
-                    size |= b << 7;
-                    prefixSize = 2;
-                } else {
-                    if (!bufs.hasRemainingBytes(3)) return null;
-                    size |= (b & 0x7f) << 7;
-                    if ((b = bufs.peekByte(2)) >= 0) {
-                        size |= b << 14;
-                        prefixSize = 3;
-                    } else {
-                        if (!bufs.hasRemainingBytes(4)) return null;
-                        size |= (b & 0x7f) << 14;
-                        if ((b = bufs.peekByte(3)) >= 0) {
-                            size |= b << 21;
-                            prefixSize = 4;
-                        } else {
-                            if (!bufs.hasRemainingBytes(5)) return null;
-                            size |= (b & 0x7f) << 21;
-                            if ((b = bufs.peekByte(4)) >= 0) {
-                                size |= b << 28;
-                                prefixSize = 5;
-                            } else {
-                                throw new ParseException(ByteBufsDecoder.class, "Varint is too long for 32-bit integer");
-                            }
-                        }
-                    }
+            ByteBufQueueView view = bufs.view();
+            int size = 0;
+            int prefixSize = 0;
+            while (true) {
+                if (!view.canRead()) return null;
+                byte b = view.readByte();
+                size |= (b & 0x7f) << (7 * prefixSize++);
+                if (b >= 0) break;
+                if (prefixSize == 5) {
+                    throw new ParseException(ByteBufsDecoder.class, "Varint is too long for 32-bit integer");
                 }
             }
             if (size < 0) throw NEGATIVE_SIZE;
@@ -7,12 +7,11 @@ class Utils {
 
 	static ByteBufsDecoder<ByteBuf> parseUntilTerminatorByte(byte terminator, int maxSize) {
 		return bufs -> {
-			for (int i = 0; i < Math.min(bufs.remainingBytes(), maxSize); i++) {
-				if (bufs.peekByte(i) == terminator) {
-					ByteBuf buf = bufs.takeExactSize(i);
-					bufs.skip(1);
-					return buf;
-				}
+			int i = bufs.view().indexOf(terminator);
+			if (i != -1 && i < maxSize) {
+				ByteBuf buf = bufs.takeExactSize(i);
+				bufs.skip(1);
+				return buf;
 			}
 			if (bufs.remainingBytes() >= maxSize) {
 				throw new ParseException(ByteBufsDecoder.class, "No terminator byte is found in " + maxSize + " bytes");
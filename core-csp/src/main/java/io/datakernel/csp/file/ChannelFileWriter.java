@@ -19,6 +19,7 @@ package io.datakernel.csp.file;
 import io.datakernel.async.file.AsyncFileService;
 import io.datakernel.async.file.ExecutorAsyncFileService;
 import io.datakernel.bytebuf.ByteBuf;
+import io.datakernel.bytebuf.ByteBufQueue;
 import io.datakernel.csp.AbstractChannelConsumer;
 import io.datakernel.promise.Promise;
 import org.jetbrains.annotations.NotNull;
@@ -29,8 +30,10 @@ import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.concurrent.Executor;
 
+import static io.datakernel.common.Recyclable.deepRecycle;
 import static java.nio.file.StandardOpenOption.*;
 
 /**
@@ -117,8 +120,7 @@ public final class ChannelFileWriter extends AbstractChannelConsumer<ByteBuf> {
 		long p = position;
 		position += buf.readRemaining();
 
-		byte[] array = buf.getArray();
-		return fileService.write(channel, p, array, 0, array.length)
+		return fileService.write(channel, p, buf.array(), buf.head(), buf.readRemaining())
 				.thenEx(($, e2) -> {
 					if (isClosed()) return Promise.ofException(getException());
 					if (e2 != null) {
@@ -132,6 +134,56 @@ public final class ChannelFileWriter extends AbstractChannelConsumer<ByteBuf> {
 				});
 	}
 
+	/**
+	 * Writes all given bufs with a single gathering write,
+	 * instead of issuing a separate write for each of them.
+	 * A {@code null} item closes the file once the bufs before it are written, as {@link #accept} does.
+	 */
+	@NotNull
+	@Override
+	public Promise<Void> acceptAll(@NotNull Iterator<? extends ByteBuf> it) {
+		ByteBufQueue queue = new ByteBufQueue();
+		boolean endOfStream = false;
+		while (it.hasNext()) {
+			ByteBuf buf = it.next();
+			if (buf == null) {
+				endOfStream = true;
+				deepRecycle(it);
+				break;
+			}
+			queue.add(buf);
+		}
+		if (isClosed()) {
+			queue.recycle();
+			return Promise.ofException(getException());
+		}
+		Promise<Void> written = doAcceptAll(queue);
+		return endOfStream ? written.then(() -> doAccept(null)) : written;
+	}
+
+	private Promise<Void> doAcceptAll(ByteBufQueue queue) {
+		if (queue.remainingBufs() <= 1) {
+			return queue.isEmpty() ? Promise.complete() : doAccept(queue.take());
+		}
+		if (!started) {
+			position = startingOffset;
+		}
+		started = true;
+		long p = position;
+		position += queue.remainingBytes();
+
+		return fileService.write(channel, p, queue.toReadByteBuffers())
+				.whenComplete(queue::recycle)
+				.thenEx(($, e2) -> {
+					if (isClosed()) return Promise.ofException(getException());
+					if (e2 != null) {
+						closeEx(e2);
+					}
+					return Promise.of($, e2);
+				})
+				.toVoid();
+	}
+
 	private void closeFile() {
 		if (!channel.isOpen()) {
 			return;
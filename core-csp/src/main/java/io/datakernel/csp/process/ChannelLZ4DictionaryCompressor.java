@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.csp.process;
+
+import io.datakernel.bytebuf.ByteBuf;
+import io.datakernel.bytebuf.ByteBufPool;
+import io.datakernel.csp.*;
+import io.datakernel.csp.dsl.WithChannelTransformer;
+import net.jpountz.xxhash.StreamingXXHash32;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.util.Arrays;
+
+import static io.datakernel.common.Preconditions.checkArgument;
+import static io.datakernel.csp.process.ChannelLZ4Compressor.DEFAULT_SEED;
+
+/**
+ * LZ4 compressor of blocks, whose matches may refer to a shared {@link LZ4Dictionary}.
+ * <p>
+ * Blocks are compressed in the LZ4 block format with a dictionary as a prefix of each block,
+ * which is what {@code LZ4_compress_fast_continue} with {@code LZ4_loadDict} produces.
+ * As the dictionary is not supported by the LZ4 bindings, the block compression is implemented here,
+ * with the fast single-pass greedy matching of LZ4.
+ *
+ * @see ChannelLZ4DictionaryDecompressor
+ */
+public final class ChannelLZ4DictionaryCompressor extends AbstractCommunicatingProcess
+		implements WithChannelTransformer<ChannelLZ4DictionaryCompressor, ByteBuf, ByteBuf> {
+	public static final byte[] MAGIC = {'L', 'Z', '4', 'D', 'i', 'c', 't', 'B'};
+	public static final int MAGIC_LENGTH = MAGIC.length;
+
+	public static final int HEADER_LENGTH =
+			MAGIC_LENGTH    // magic bytes
+					+ 1     // token
+					+ 4     // compressed length
+					+ 4     // decompressed length
+					+ 4     // checksum
+					+ 4;    // dictionary id
+
+	static final int COMPRESSION_METHOD_RAW = 0x10;
+	static final int COMPRESSION_METHOD_LZ4 = 0x20;
+
+	static final int MIN_MATCH = 4;
+	static final int MAX_DISTANCE = 65535;
+	private static final int LAST_LITERALS = 5;
+	private static final int MF_LIMIT = 12;
+	private static final int HASH_LOG = 12;
+
+	private final LZ4Dictionary dictionary;
+	private final StreamingXXHash32 checksum = XXHashFactory.fastestInstance().newStreamingHash32(DEFAULT_SEED);
+
+	// the dictionary, followed by a block
+	private byte[] window;
+	private final int dictionaryLength;
+	private final int[] hashTable = new int[1 << HASH_LOG];
+	private final int[] dictionaryHashTable = new int[1 << HASH_LOG];
+
+	private ChannelSupplier<ByteBuf> input;
+	private ChannelConsumer<ByteBuf> output;
+
+	// region creators
+	private ChannelLZ4DictionaryCompressor(LZ4Dictionary dictionary) {
+		this.dictionary = dictionary;
+		byte[] bytes = dictionary.getBytes();
+		this.dictionaryLength = bytes.length;
+		this.window = bytes.clone();
+		Arrays.fill(dictionaryHashTable, -1);
+		for (int i = 0; i + MIN_MATCH <= dictionaryLength; i++) {
+			dictionaryHashTable[hash(readInt(window, i))] = i;
+		}
+	}
+
+	public static ChannelLZ4DictionaryCompressor create(LZ4Dictionary dictionary) {
+		return new ChannelLZ4DictionaryCompressor(dictionary);
+	}
+
+	@Override
+	public ChannelInput<ByteBuf> getInput() {
+		return input -> {
+			this.input = sanitize(input);
+			//noinspection ConstantConditions
+			if (this.input != null && this.output != null) startProcess();
+			return getProcessCompletion();
+		};
+	}
+
+	@SuppressWarnings("ConstantConditions") //check output for clarity
+	@Override
+	public ChannelOutput<ByteBuf> getOutput() {
+		return output -> {
+			this.output = sanitize(output);
+			if (this.input != null && this.output != null) startProcess();
+		};
+	}
+	// endregion
+
+	@Override
+	protected void doProcess() {
+		input.get()
+				.whenResult(buf -> {
+					if (buf != null) {
+						ByteBuf outputBuf = compressBlock(buf.array(), buf.head(), buf.readRemaining());
+						buf.recycle();
+						output.accept(outputBuf)
+								.whenResult(this::doProcess);
+					} else {
+						output.acceptAll(createEndOfStreamBlock(), null)
+								.whenResult(this::completeProcess);
+					}
+				});
+	}
+
+	@Override
+	protected void doClose(Throwable e) {
+		input.closeEx(e);
+		output.closeEx(e);
+	}
+
+	private ByteBuf compressBlock(byte[] bytes, int off, int len) {
+		checkArgument(len != 0);
+
+		ByteBuf outputBuf = ByteBufPool.allocate(HEADER_LENGTH + maxCompressedLength(len));
+		byte[] outputBytes = outputBuf.array();
+		System.arraycopy(MAGIC, 0, outputBytes, 0, MAGIC_LENGTH);
+
+		checksum.reset();
+		checksum.update(bytes, off, len);
+		int check = checksum.getValue();
+
+		if (window.length < dictionaryLength + len) {
+			window = Arrays.copyOf(window, dictionaryLength + len + (len >>> 1));
+		}
+		System.arraycopy(bytes, off, window, dictionaryLength, len);
+		int compressedLength = compress(window, dictionaryLength, len, outputBytes, HEADER_LENGTH);
+
+		int compressMethod;
+		if (compressedLength >= len) {
+			compressMethod = COMPRESSION_METHOD_RAW;
+			compressedLength = len;
+			System.arraycopy(bytes, off, outputBytes, HEADER_LENGTH, len);
+		} else {
+			compressMethod = COMPRESSION_METHOD_LZ4;
+		}
+
+		outputBytes[MAGIC_LENGTH] = (byte) compressMethod;
+		writeIntLE(compressedLength, outputBytes, MAGIC_LENGTH + 1);
+		writeIntLE(len, outputBytes, MAGIC_LENGTH + 5);
+		writeIntLE(check, outputBytes, MAGIC_LENGTH + 9);
+		writeIntLE(dictionary.getId(), outputBytes, MAGIC_LENGTH + 13);
+
+		outputBuf.tail(HEADER_LENGTH + compressedLength);
+		return outputBuf;
+	}
+
+	/**
+	 * Compresses {@code len} bytes of the window, which start right after the dictionary
+	 *
+	 * @return compressed length
+	 */
+	private int compress(byte[] src, int srcOff, int len, byte[] dest, int destOff) {
+		int srcEnd = srcOff + len;
+		int anchor = srcOff;
+		int op = destOff;
+
+		if (len >= MF_LIMIT + 1) {
+			System.arraycopy(dictionaryHashTable, 0, hashTable, 0, hashTable.length);
+			int matchLimit = srcEnd - LAST_LITERALS;
+			int mfLimit = srcEnd - MF_LIMIT;
+			int ip = srcOff;
+			while (ip < mfLimit) {
+				int sequence = readInt(src, ip);
+				int h = hash(sequence);
+				int ref = hashTable[h];
+				hashTable[h] = ip;
+				if (ref == -1 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+					ip++;
+					continue;
+				}
+
+				while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1]) {
+					ip--;
+					ref--;
+				}
+				int matchLength = MIN_MATCH;
+				while (ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) {
+					matchLength++;
+				}
+
+				op = writeSequence(src, anchor, ip - anchor, ip - ref, matchLength, dest, op);
+				ip += matchLength;
+				anchor = ip;
+				if (ip - 2 > srcOff && ip < mfLimit) {
+					hashTable[hash(readInt(src, ip - 2))] = ip - 2;
+				}
+			}
+		}
+
+		int literalLength = srcEnd - anchor;
+		int token = op++;
+		if (literalLength >= 15) {
+			dest[token] = (byte) 0xF0;
+			op = writeLength(literalLength - 15, dest, op);
+		} else {
+			dest[token] = (byte) (literalLength << 4);
+		}
+		System.arraycopy(src, anchor, dest, op, literalLength);
+		return op + literalLength - destOff;
+	}
+
+	private static int writeSequence(byte[] src, int literalOff, int literalLength, int offset, int matchLength,
+			byte[] dest, int op) {
+		int token = op++;
+		int tokenValue;
+		if (literalLength >= 15) {
+			tokenValue = 0xF0;
+			op = writeLength(literalLength - 15, dest, op);
+		} else {
+			tokenValue = literalLength << 4;
+		}
+		System.arraycopy(src, literalOff, dest, op, literalLength);
+		op += literalLength;
+
+		dest[op++] = (byte) offset;
+		dest[op++] = (byte) (offset >>> 8);
+
+		int matchLengthCode = matchLength - MIN_MATCH;
+		if (matchLengthCode >= 15) {
+			tokenValue |= 0x0F;
+			op = writeLength(matchLengthCode - 15, dest, op);
+		} else {
+			tokenValue |= matchLengthCode;
+		}
+		dest[token] = (byte) tokenValue;
+		return op;
+	}
+
+	private static int writeLength(int length, byte[] dest, int op) {
+		while (length >= 255) {
+			dest[op++] = (byte) 255;
+			length -= 255;
+		}
+		dest[op++] = (byte) length;
+		return op;
+	}
+
+	static int maxCompressedLength(int length) {
+		return length + length / 255 + 16;
+	}
+
+	private static int hash(int sequence) {
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+
+	private static int readInt(byte[] buf, int off) {
+		return (buf[off] & 0xFF) | (buf[off + 1] & 0xFF) << 8 | (buf[off + 2] & 0xFF) << 16 | (buf[off + 3] & 0xFF) << 24;
+	}
+
+	private static void writeIntLE(int i, byte[] buf, int off) {
+		buf[off++] = (byte) i;
+		buf[off++] = (byte) (i >>> 8);
+		buf[off++] = (byte) (i >>> 16);
+		buf[off] = (byte) (i >>> 24);
+	}
+
+	private ByteBuf createEndOfStreamBlock() {
+		ByteBuf outputBuf = ByteBufPool.allocate(HEADER_LENGTH);
+		byte[] outputBytes = outputBuf.array();
+		System.arraycopy(MAGIC, 0, outputBytes, 0, MAGIC_LENGTH);
+
+		outputBytes[MAGIC_LENGTH] = (byte) COMPRESSION_METHOD_RAW;
+		writeIntLE(0, outputBytes, MAGIC_LENGTH + 1);
+		writeIntLE(0, outputBytes, MAGIC_LENGTH + 5);
+		writeIntLE(0, outputBytes, MAGIC_LENGTH + 9);
+		writeIntLE(dictionary.getId(), outputBytes, MAGIC_LENGTH + 13);
+
+		outputBuf.tail(HEADER_LENGTH);
+		return outputBuf;
+	}
+}
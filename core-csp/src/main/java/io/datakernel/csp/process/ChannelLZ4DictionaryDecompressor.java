@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.csp.process;
+
+import io.datakernel.bytebuf.ByteBuf;
+import io.datakernel.bytebuf.ByteBufPool;
+import io.datakernel.bytebuf.ByteBufQueue;
+import io.datakernel.common.parse.ParseException;
+import io.datakernel.common.parse.TruncatedDataException;
+import io.datakernel.csp.AbstractCommunicatingProcess;
+import io.datakernel.csp.ChannelConsumer;
+import io.datakernel.csp.ChannelOutput;
+import io.datakernel.csp.binary.BinaryChannelInput;
+import io.datakernel.csp.binary.BinaryChannelSupplier;
+import io.datakernel.csp.dsl.WithBinaryChannelInput;
+import io.datakernel.csp.dsl.WithChannelTransformer;
+import io.datakernel.promise.Promise;
+import net.jpountz.util.SafeUtils;
+import net.jpountz.xxhash.StreamingXXHash32;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.datakernel.csp.binary.BinaryChannelSupplier.UNEXPECTED_END_OF_STREAM_EXCEPTION;
+import static io.datakernel.csp.process.ChannelLZ4Compressor.DEFAULT_SEED;
+import static io.datakernel.csp.process.ChannelLZ4DictionaryCompressor.*;
+import static java.lang.Math.min;
+
+/**
+ * Decompressor of blocks of {@link ChannelLZ4DictionaryCompressor}, which accepts blocks compressed
+ * with any of the known dictionaries, so that peers may switch to a newly trained dictionary one by one.
+ */
+public final class ChannelLZ4DictionaryDecompressor extends AbstractCommunicatingProcess
+		implements WithChannelTransformer<ChannelLZ4DictionaryDecompressor, ByteBuf, ByteBuf>, WithBinaryChannelInput<ChannelLZ4DictionaryDecompressor> {
+	public static final int HEADER_LENGTH = ChannelLZ4DictionaryCompressor.HEADER_LENGTH;
+	public static final ParseException STREAM_IS_CORRUPTED = new ParseException(ChannelLZ4DictionaryDecompressor.class, "Stream is corrupted");
+	public static final ParseException UNKNOWN_DICTIONARY = new ParseException(ChannelLZ4DictionaryDecompressor.class, "Block is compressed with unknown dictionary");
+
+	private static final int MAX_BLOCK_SIZE = 1 << 25;
+
+	private final Map<Integer, byte[]> dictionaries = new HashMap<>();
+	private final StreamingXXHash32 checksum = XXHashFactory.fastestInstance().newStreamingHash32(DEFAULT_SEED);
+
+	private ByteBufQueue bufs;
+	private BinaryChannelSupplier input;
+	private ChannelConsumer<ByteBuf> output;
+
+	private final Header header = new Header();
+
+	// region creators
+	private ChannelLZ4DictionaryDecompressor() {
+	}
+
+	public static ChannelLZ4DictionaryDecompressor create(LZ4Dictionary... dictionaries) {
+		ChannelLZ4DictionaryDecompressor decompressor = new ChannelLZ4DictionaryDecompressor();
+		for (LZ4Dictionary dictionary : dictionaries) {
+			decompressor.withDictionary(dictionary);
+		}
+		return decompressor;
+	}
+
+	public ChannelLZ4DictionaryDecompressor withDictionary(LZ4Dictionary dictionary) {
+		dictionaries.put(dictionary.getId(), dictionary.getBytes());
+		return this;
+	}
+
+	@Override
+	public BinaryChannelInput getInput() {
+		return input -> {
+			this.input = input;
+			this.bufs = input.getBufs();
+			if (this.input != null && this.output != null) startProcess();
+			return getProcessCompletion();
+		};
+	}
+
+	@SuppressWarnings("ConstantConditions") //check output for clarity
+	@Override
+	public ChannelOutput<ByteBuf> getOutput() {
+		return output -> {
+			this.output = sanitize(output);
+			if (this.input != null && this.output != null) startProcess();
+		};
+	}
+	// endregion
+
+	@Override
+	protected void doProcess() {
+		processHeader();
+	}
+
+	private void processHeader() {
+		if (!bufs.hasRemainingBytes(HEADER_LENGTH)) {
+			for (int i = 0; i < min(bufs.remainingBytes(), MAGIC.length); i++) {
+				if (bufs.peekByte(i) != MAGIC[i]) {
+					closeEx(STREAM_IS_CORRUPTED);
+					return;
+				}
+			}
+			input.needMoreData()
+					.thenEx(ChannelLZ4DictionaryDecompressor::checkTruncatedDataException)
+					.thenEx(this::sanitize)
+					.whenResult(this::processHeader);
+			return;
+		}
+
+		try (ByteBuf headerBuf = bufs.takeExactSize(HEADER_LENGTH)) {
+			readHeader(header, headerBuf.array(), headerBuf.head());
+		} catch (ParseException e) {
+			closeEx(e);
+			return;
+		}
+
+		if (!header.finished) {
+			processBody();
+			return;
+		}
+
+		input.endOfStream()
+				.thenEx(this::sanitize)
+				.then(output::acceptEndOfStream)
+				.whenResult(this::completeProcess);
+	}
+
+	private void processBody() {
+		if (!bufs.hasRemainingBytes(header.compressedLen)) {
+			input.needMoreData()
+					.thenEx(ChannelLZ4DictionaryDecompressor::checkTruncatedDataException)
+					.thenEx(this::sanitize)
+					.whenResult(this::processBody);
+			return;
+		}
+
+		ByteBuf inputBuf = bufs.takeExactSize(header.compressedLen);
+		ByteBuf outputBuf;
+		try {
+			outputBuf = decompress(inputBuf.array(), inputBuf.head());
+		} catch (ParseException e) {
+			closeEx(e);
+			return;
+		} finally {
+			inputBuf.recycle();
+		}
+
+		output.accept(outputBuf)
+				.whenResult(this::processHeader);
+	}
+
+	@Override
+	protected void doClose(Throwable e) {
+		input.closeEx(e);
+		output.closeEx(e);
+	}
+
+	public final static class Header {
+		public int originalLen;
+		public int compressedLen;
+		public int compressionMethod;
+		public int check;
+		public int dictionaryId;
+		public boolean finished;
+	}
+
+	private static void readHeader(Header header, byte[] buf, int off) throws ParseException {
+		for (int i = 0; i < MAGIC_LENGTH; ++i) {
+			if (buf[off + i] != MAGIC[i]) {
+				throw STREAM_IS_CORRUPTED;
+			}
+		}
+		header.compressionMethod = buf[off + MAGIC_LENGTH] & 0xFF;
+		if (header.compressionMethod != COMPRESSION_METHOD_RAW && header.compressionMethod != COMPRESSION_METHOD_LZ4) {
+			throw STREAM_IS_CORRUPTED;
+		}
+		header.compressedLen = SafeUtils.readIntLE(buf, off + MAGIC_LENGTH + 1);
+		header.originalLen = SafeUtils.readIntLE(buf, off + MAGIC_LENGTH + 5);
+		header.check = SafeUtils.readIntLE(buf, off + MAGIC_LENGTH + 9);
+		header.dictionaryId = SafeUtils.readIntLE(buf, off + MAGIC_LENGTH + 13);
+		if (header.originalLen > MAX_BLOCK_SIZE
+				|| (header.originalLen < 0 || header.compressedLen < 0)
+				|| (header.compressedLen > maxCompressedLength(header.originalLen))
+				|| (header.originalLen == 0 && header.compressedLen != 0)
+				|| (header.originalLen != 0 && header.compressedLen == 0)
+				|| (header.compressionMethod == COMPRESSION_METHOD_RAW && header.originalLen != header.compressedLen)) {
+			throw STREAM_IS_CORRUPTED;
+		}
+		if (header.originalLen == 0) {
+			if (header.check != 0) {
+				throw STREAM_IS_CORRUPTED;
+			}
+			header.finished = true;
+		}
+	}
+
+	private ByteBuf decompress(byte[] bytes, int off) throws ParseException {
+		byte[] dictionary = dictionaries.get(header.dictionaryId);
+		if (dictionary == null) {
+			throw UNKNOWN_DICTIONARY;
+		}
+		ByteBuf outputBuf = ByteBufPool.allocate(header.originalLen);
+		outputBuf.tail(header.originalLen);
+		try {
+			if (header.compressionMethod == COMPRESSION_METHOD_RAW) {
+				System.arraycopy(bytes, off, outputBuf.array(), 0, header.originalLen);
+			} else {
+				decompress(dictionary, bytes, off, header.compressedLen, outputBuf.array(), header.originalLen);
+			}
+			checksum.reset();
+			checksum.update(outputBuf.array(), 0, header.originalLen);
+			if (checksum.getValue() != header.check) {
+				throw STREAM_IS_CORRUPTED;
+			}
+		} catch (ParseException e) {
+			outputBuf.recycle();
+			throw e;
+		}
+		return outputBuf;
+	}
+
+	/**
+	 * Decompresses a block, whose matches may refer to the bytes of the dictionary, as if it preceded the block
+	 */
+	private static void decompress(byte[] dictionary, byte[] src, int srcOff, int srcLen, byte[] dest, int destLen) throws ParseException {
+		int ip = srcOff;
+		int srcEnd = srcOff + srcLen;
+		int op = 0;
+		try {
+			while (true) {
+				int token = src[ip++] & 0xFF;
+
+				int literalLength = token >>> 4;
+				if (literalLength == 15) {
+					int b;
+					do {
+						b = src[ip++] & 0xFF;
+						literalLength += b;
+					} while (b == 255);
+				}
+				if (literalLength > srcEnd - ip || literalLength > destLen - op) {
+					throw STREAM_IS_CORRUPTED;
+				}
+				System.arraycopy(src, ip, dest, op, literalLength);
+				ip += literalLength;
+				op += literalLength;
+				if (ip == srcEnd) {
+					break;
+				}
+
+				int offset = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+				ip += 2;
+				int matchLength = token & 0x0F;
+				if (matchLength == 15) {
+					int b;
+					do {
+						b = src[ip++] & 0xFF;
+						matchLength += b;
+					} while (b == 255);
+				}
+				matchLength += MIN_MATCH;
+				if (offset == 0 || offset > op + dictionary.length || matchLength > destLen - op) {
+					throw STREAM_IS_CORRUPTED;
+				}
+
+				int ref = op - offset;
+				if (ref < 0) {
+					// the match starts in the dictionary, and may continue at the beginning of the block
+					int dictionaryRef = dictionary.length + ref;
+					int length = min(matchLength, -ref);
+					System.arraycopy(dictionary, dictionaryRef, dest, op, length);
+					op += length;
+					matchLength -= length;
+					ref = 0;
+				}
+				// matches may overlap with their own output
+				for (int i = 0; i < matchLength; i++) {
+					dest[op++] = dest[ref++];
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new ParseException(ChannelLZ4DictionaryDecompressor.class, "Stream is corrupted", e);
+		}
+		if (op != destLen || ip != srcEnd) {
+			throw STREAM_IS_CORRUPTED;
+		}
+	}
+
+	private static Promise<Void> checkTruncatedDataException(Void $, Throwable e) {
+		if (e == null) {
+			return Promise.complete();
+		} else {
+			if (e == UNEXPECTED_END_OF_STREAM_EXCEPTION) {
+				return Promise.ofException(new TruncatedDataException(ChannelLZ4DictionaryDecompressor.class, "Unexpected end-of-stream"));
+			} else {
+				return Promise.ofException(e);
+			}
+		}
+	}
+}
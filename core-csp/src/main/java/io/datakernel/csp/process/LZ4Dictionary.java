@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.csp.process;
+
+import net.jpountz.xxhash.StreamingXXHash32;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.util.*;
+
+import static io.datakernel.common.Preconditions.checkArgument;
+import static io.datakernel.csp.process.ChannelLZ4Compressor.DEFAULT_SEED;
+import static java.lang.Math.min;
+
+/**
+ * A shared dictionary of {@link ChannelLZ4DictionaryCompressor} and {@link ChannelLZ4DictionaryDecompressor}.
+ * <p>
+ * Small blocks, such as a few serialized messages, refer to the bytes of the dictionary,
+ * which are common to most of the blocks, instead of repeating them as literals.
+ * Each compressed block carries an id of its dictionary, so that blocks are never decompressed with another dictionary.
+ */
+public final class LZ4Dictionary {
+	/**
+	 * Only the last 64KB of a dictionary are reachable by offsets of LZ4 matches
+	 */
+	public static final int MAX_SIZE = 65535;
+
+	private static final int SEGMENT_LENGTH = 8;
+
+	private final byte[] bytes;
+	private final int id;
+
+	private LZ4Dictionary(byte[] bytes, int id) {
+		this.bytes = bytes;
+		this.id = id;
+	}
+
+	public static LZ4Dictionary of(byte[] bytes) {
+		checkArgument(bytes.length != 0 && bytes.length <= MAX_SIZE, "Dictionary size should be between 1 byte and 64KB");
+		StreamingXXHash32 hash = XXHashFactory.fastestInstance().newStreamingHash32(DEFAULT_SEED);
+		hash.update(bytes, 0, bytes.length);
+		// id 0 is reserved for blocks, which are compressed without a dictionary
+		int id = hash.getValue();
+		return new LZ4Dictionary(bytes.clone(), id == 0 ? 1 : id);
+	}
+
+	/**
+	 * Trains a dictionary of up to given size on samples of data, such as serialized messages.
+	 * <p>
+	 * The dictionary is made of the runs of bytes, which occur in most of the samples.
+	 * The most frequent runs are placed at the end of the dictionary, so that they remain
+	 * reachable by LZ4 matches even if the dictionary is truncated.
+	 */
+	public static LZ4Dictionary train(List<byte[]> samples, int maxSize) {
+		checkArgument(maxSize > 0 && maxSize <= MAX_SIZE, "Dictionary size should be between 1 byte and 64KB");
+
+		// number of samples, which contain a segment
+		Map<Segment, Integer> frequencies = new HashMap<>();
+		for (byte[] sample : samples) {
+			Set<Segment> segments = new HashSet<>();
+			for (int i = 0; i + SEGMENT_LENGTH <= sample.length; i++) {
+				segments.add(new Segment(sample, i, SEGMENT_LENGTH));
+			}
+			for (Segment segment : segments) {
+				frequencies.merge(segment, 1, Integer::sum);
+			}
+		}
+
+		// maximal runs of segments, which occur in more than one sample
+		Map<Segment, Long> runs = new HashMap<>();
+		for (byte[] sample : samples) {
+			int start = -1;
+			long score = 0;
+			for (int i = 0; i + SEGMENT_LENGTH <= sample.length + 1; i++) {
+				int frequency = i + SEGMENT_LENGTH <= sample.length ?
+						frequencies.get(new Segment(sample, i, SEGMENT_LENGTH)) :
+						0;
+				if (frequency > 1) {
+					if (start == -1) start = i;
+					score += frequency;
+				} else if (start != -1) {
+					runs.merge(new Segment(sample, start, i - 1 + SEGMENT_LENGTH - start), score, Math::max);
+					start = -1;
+					score = 0;
+				}
+			}
+		}
+
+		List<Map.Entry<Segment, Long>> sorted = new ArrayList<>(runs.entrySet());
+		sorted.sort(Map.Entry.<Segment, Long>comparingByValue().reversed());
+		byte[] dictionary = new byte[maxSize];
+		int position = maxSize;
+		for (Map.Entry<Segment, Long> entry : sorted) {
+			Segment run = entry.getKey();
+			if (position == 0) break;
+			int length = min(run.length, position);
+			position -= length;
+			System.arraycopy(run.bytes, run.offset, dictionary, position, length);
+		}
+		if (position == maxSize) {
+			// there is nothing in common between samples
+			return of(new byte[]{0});
+		}
+		return of(Arrays.copyOfRange(dictionary, position, maxSize));
+	}
+
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	@Override
+	public String toString() {
+		return "LZ4Dictionary{size=" + bytes.length + ", id=" + Integer.toHexString(id) + '}';
+	}
+
+	private static final class Segment {
+		final byte[] bytes;
+		final int offset;
+		final int length;
+		final int hashCode;
+
+		Segment(byte[] bytes, int offset, int length) {
+			this.bytes = bytes;
+			this.offset = offset;
+			this.length = length;
+			int hashCode = 1;
+			for (int i = offset; i < offset + length; i++) {
+				hashCode = 31 * hashCode + bytes[i];
+			}
+			this.hashCode = hashCode;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Segment)) return false;
+			Segment that = (Segment) o;
+			if (length != that.length || hashCode != that.hashCode) return false;
+			for (int i = 0; i < length; i++) {
+				if (bytes[offset + i] != that.bytes[that.offset + i]) return false;
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+}
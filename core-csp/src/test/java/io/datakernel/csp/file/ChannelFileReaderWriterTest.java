@@ -16,11 +16,19 @@
 
 package io.datakernel.csp.file;
 
+import io.datakernel.async.file.AsyncFileService;
+import io.datakernel.async.file.ExecutorAsyncFileService;
 import io.datakernel.bytebuf.ByteBuf;
+import io.datakernel.bytebuf.ByteBufPool;
 import io.datakernel.bytebuf.ByteBufQueue;
 import io.datakernel.common.MemSize;
 import io.datakernel.csp.ChannelConsumer;
 import io.datakernel.csp.ChannelSupplier;
+import io.datakernel.csp.process.ChannelLZ4Compressor;
+import io.datakernel.csp.process.ChannelLZ4Decompressor;
+import io.datakernel.csp.process.ChannelLZ4DictionaryCompressor;
+import io.datakernel.csp.process.ChannelLZ4DictionaryDecompressor;
+import io.datakernel.csp.process.LZ4Dictionary;
 import io.datakernel.promise.Promise;
 import io.datakernel.promise.Promises;
 import io.datakernel.test.rules.ByteBufRule;
@@ -32,14 +40,20 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static io.datakernel.promise.TestUtils.await;
 import static io.datakernel.promise.TestUtils.awaitException;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.junit.Assert.*;
 
@@ -143,4 +157,128 @@ public final class ChannelFileReaderWriterTest {
 
 		assertEquals("", byteBuf.asString(UTF_8));
 	}
+
+	@Test
+	public void streamFileWriterAcceptAll() throws IOException {
+		assertAcceptAll(new ExecutorAsyncFileService(newCachedThreadPool()));
+	}
+
+	@Test
+	public void streamFileWriterAcceptAllWithDefaultGatheringWrite() throws IOException {
+		ExecutorAsyncFileService fileService = new ExecutorAsyncFileService(newCachedThreadPool());
+		assertAcceptAll(new AsyncFileService() {
+			@Override
+			public Promise<Integer> read(FileChannel channel, long position, byte[] array, int offset, int size) {
+				return fileService.read(channel, position, array, offset, size);
+			}
+
+			@Override
+			public Promise<Integer> write(FileChannel channel, long position, byte[] array, int offset, int size) {
+				return fileService.write(channel, position, array, offset, size);
+			}
+		});
+	}
+
+	@Test
+	public void streamFileWriterAcceptAllWithEndOfStream() throws IOException {
+		Path path = tempFolder.getRoot().toPath().resolve("out.dat");
+		FileChannel channel = FileChannel.open(path, WRITE, CREATE_NEW);
+		ChannelFileWriter writer = ChannelFileWriter.create(newCachedThreadPool(), channel);
+
+		await(writer.acceptAll(ByteBuf.wrapForReading("Hello".getBytes(UTF_8)), ByteBuf.wrapForReading(", world".getBytes(UTF_8)), null));
+
+		assertFalse(channel.isOpen());
+		assertEquals("Hello, world", new String(Files.readAllBytes(path), UTF_8));
+	}
+
+	@Test
+	public void streamFileWriterAcceptAllRecyclesOnFailure() throws IOException {
+		IOException error = new IOException("Test error");
+		Path path = tempFolder.getRoot().toPath().resolve("out.dat");
+		FileChannel channel = FileChannel.open(path, WRITE, CREATE_NEW);
+		ChannelFileWriter writer = ChannelFileWriter.create(new AsyncFileService() {
+			@Override
+			public Promise<Integer> read(FileChannel channel, long position, byte[] array, int offset, int size) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public Promise<Integer> write(FileChannel channel, long position, byte[] array, int offset, int size) {
+				return Promise.ofException(error);
+			}
+		}, channel);
+
+		List<ByteBuf> bufs = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			ByteBuf buf = ByteBufPool.allocate(100);
+			buf.tail(100);
+			bufs.add(buf);
+		}
+
+		assertSame(error, awaitException(writer.acceptAll(bufs)));
+	}
+
+	@Test
+	public void compressedStreamToFile() throws IOException {
+		Path path = tempFolder.getRoot().toPath().resolve("out.lz4");
+		byte[] data = new byte[100_000];
+		new Random(0).nextBytes(data);
+
+		FileChannel channel = FileChannel.open(path, WRITE, CREATE_NEW);
+		ChannelFileWriter writer = ChannelFileWriter.create(newCachedThreadPool(), channel);
+		await(ChannelSupplier.of(ByteBuf.wrapForReading(data))
+				.streamTo(writer.transformWith(ChannelLZ4Compressor.createFastCompressor())));
+
+		assertFalse(channel.isOpen());
+		ByteBuf decompressed = await(ChannelSupplier.of(ByteBuf.wrapForReading(Files.readAllBytes(path)))
+				.transformWith(ChannelLZ4Decompressor.create())
+				.toCollector(ByteBufQueue.collector()));
+		assertArrayEquals(data, decompressed.asArray());
+	}
+
+	@Test
+	public void dictionaryCompressedStreamToFile() throws IOException {
+		Path path = tempFolder.getRoot().toPath().resolve("out.lz4");
+		byte[] data = new byte[100_000];
+		new Random(0).nextBytes(data);
+		LZ4Dictionary dictionary = LZ4Dictionary.of(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+		FileChannel channel = FileChannel.open(path, WRITE, CREATE_NEW);
+		ChannelFileWriter writer = ChannelFileWriter.create(newCachedThreadPool(), channel);
+		await(ChannelSupplier.of(ByteBuf.wrapForReading(data))
+				.streamTo(writer.transformWith(ChannelLZ4DictionaryCompressor.create(dictionary))));
+
+		assertFalse(channel.isOpen());
+		ByteBuf decompressed = await(ChannelSupplier.of(ByteBuf.wrapForReading(Files.readAllBytes(path)))
+				.transformWith(ChannelLZ4DictionaryDecompressor.create(dictionary))
+				.toCollector(ByteBufQueue.collector()));
+		assertArrayEquals(data, decompressed.asArray());
+	}
+
+	private void assertAcceptAll(AsyncFileService fileService) throws IOException {
+		Path path = tempFolder.getRoot().toPath().resolve("out.dat");
+		byte[] data = new byte[1024 * 1024];
+		Random random = new Random(0);
+		random.nextBytes(data);
+
+		FileChannel channel = FileChannel.open(path, WRITE, CREATE_NEW);
+		ChannelFileWriter writer = ChannelFileWriter.create(fileService, channel);
+
+		int offset = 0;
+		while (offset < data.length) {
+			List<ByteBuf> bufs = new ArrayList<>();
+			for (int i = 0; i < 100 && offset < data.length; i++) {
+				int size = Math.min(1 + random.nextInt(4096), data.length - offset);
+				bufs.add(ByteBuf.wrap(data, offset, offset + size));
+				offset += size;
+			}
+			await(writer.acceptAll(bufs));
+		}
+
+		// positional writes leave the position of the channel as is
+		assertEquals(0, channel.position());
+
+		await(writer.accept(null));
+		assertArrayEquals(data, Files.readAllBytes(path));
+	}
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.csp.process;
+
+import io.datakernel.bytebuf.ByteBuf;
+import io.datakernel.bytebuf.ByteBufQueue;
+import io.datakernel.csp.ChannelConsumer;
+import io.datakernel.csp.ChannelSupplier;
+import io.datakernel.test.rules.ByteBufRule;
+import io.datakernel.test.rules.EventloopRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static io.datakernel.csp.process.ChannelLZ4DictionaryDecompressor.UNKNOWN_DICTIONARY;
+import static io.datakernel.promise.TestUtils.await;
+import static io.datakernel.promise.TestUtils.awaitException;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+
+public final class ChannelLZ4DictionaryTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	private static final LZ4Dictionary DICTIONARY = LZ4Dictionary.train(messages(1000, 1), 4096);
+
+	@Test
+	public void testRoundTrip() {
+		Random random = new Random(2);
+		List<byte[]> blocks = new ArrayList<>();
+		for (int size : new int[]{1, 5, 12, 13, 64, 1000, 100_000}) {
+			byte[] block = new byte[size];
+			for (int i = 0; i < size; i++) {
+				// partly repetitive, partly random
+				block[i] = (byte) (i % 3 == 0 ? random.nextInt() : i % 7);
+			}
+			blocks.add(block);
+		}
+		blocks.addAll(messages(100, 3));
+
+		List<ByteBuf> compressed = compress(DICTIONARY, blocks);
+		ByteBufQueue decompressed = new ByteBufQueue();
+		await(ChannelSupplier.ofIterable(compressed)
+				.transformWith(ChannelLZ4DictionaryDecompressor.create(DICTIONARY))
+				.streamTo(ChannelConsumer.ofConsumer(decompressed::add)));
+
+		for (byte[] block : blocks) {
+			ByteBuf buf = decompressed.takeExactSize(block.length);
+			assertArrayEquals(block, buf.asArray());
+		}
+		assertTrue(decompressed.isEmpty());
+	}
+
+	@Test
+	public void testSmallMessagesAreCompressedWithDictionary() {
+		List<byte[]> messages = messages(100, 4);
+		int originalSize = messages.stream().mapToInt(message -> message.length).sum();
+
+		int withoutDictionary = compressedSize(LZ4Dictionary.of(new byte[]{0}), messages);
+		int withDictionary = compressedSize(DICTIONARY, messages);
+
+		assertTrue(withoutDictionary > originalSize);
+		assertTrue(withDictionary * 2 < originalSize);
+	}
+
+	@Test
+	public void testUnknownDictionary() {
+		List<ByteBuf> compressed = compress(DICTIONARY, messages(10, 5));
+
+		Throwable e = awaitException(ChannelSupplier.ofIterable(compressed)
+				.transformWith(ChannelLZ4DictionaryDecompressor.create(LZ4Dictionary.of(new byte[]{0})))
+				.streamTo(ChannelConsumer.ofConsumer(ByteBuf::recycle)));
+
+		assertSame(UNKNOWN_DICTIONARY, e);
+	}
+
+	private static List<ByteBuf> compress(LZ4Dictionary dictionary, List<byte[]> blocks) {
+		List<ByteBuf> compressed = new ArrayList<>();
+		await(ChannelSupplier.ofIterable(blocks).map(ByteBuf::wrapForReading)
+				.transformWith(ChannelLZ4DictionaryCompressor.create(dictionary))
+				.streamTo(ChannelConsumer.ofConsumer(compressed::add)));
+		return compressed;
+	}
+
+	private static int compressedSize(LZ4Dictionary dictionary, List<byte[]> blocks) {
+		int size = 0;
+		for (ByteBuf buf : compress(dictionary, blocks)) {
+			size += buf.readRemaining();
+			buf.recycle();
+		}
+		return size;
+	}
+
+	// messages of the same schema with different values
+	private static List<byte[]> messages(int count, int seed) {
+		Random random = new Random(seed);
+		List<byte[]> messages = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			String message = "{\"type\":\"PutRequest\",\"key\":\"user:" + random.nextInt(100_000) +
+					"\",\"value\":{\"firstName\":\"John\",\"lastName\":\"Smith\",\"age\":" + random.nextInt(100) +
+					",\"address\":{\"city\":\"New York\",\"zip\":\"" + random.nextInt(100_000) + "\"}}}";
+			messages.add(message.getBytes(UTF_8));
+		}
+		return messages;
+	}
+}
@@ -217,7 +217,8 @@ public abstract class AbstractStreamSupplier<T> implements StreamSupplier<T> {
 				T item = buffer.pollFirst();
 				this.dataAcceptor.accept(item);
 			}
-			if (isReady() && !isEndOfStream()) {
+			// a consumer may be suspended and resumed while the supplier still waits for an asynchronous operation
+			if (isReady() && !isEndOfStream() && flushAsync == 0) {
 				onResumed();
 			}
 		}
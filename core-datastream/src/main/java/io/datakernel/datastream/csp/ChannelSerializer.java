@@ -24,6 +24,7 @@ import io.datakernel.csp.ChannelOutput;
 import io.datakernel.datastream.AbstractStreamConsumer;
 import io.datakernel.datastream.StreamConsumer;
 import io.datakernel.datastream.StreamDataAcceptor;
+import io.datakernel.eventloop.ScheduledRunnable;
 import io.datakernel.promise.Promise;
 import io.datakernel.serializer.BinarySerializer;
 import org.jetbrains.annotations.NotNull;
@@ -39,6 +40,7 @@ import static io.datakernel.common.Preconditions.checkArgument;
 import static io.datakernel.common.Utils.nullify;
 import static io.datakernel.eventloop.RunnableWithContext.wrapContext;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 
 /**
  * An adapter that converts a {@link ChannelConsumer} of {@link ByteBuf ByteBufs} to a {@link StreamConsumer} of some type,
@@ -83,12 +85,16 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 
 	public static final MemSize DEFAULT_INITIAL_BUFFER_SIZE = MemSize.kilobytes(16);
 
+	private static final int SMOOTHING_WINDOW_MILLIS = 1000;
+
 	private MemSize initialBufferSize = DEFAULT_INITIAL_BUFFER_SIZE;
 	private MemSize maxMessageSize = MAX_SIZE;
 	private boolean explicitEndOfStream = false;
 
 	@Nullable
 	private Duration autoFlushInterval;
+	@Nullable
+	private Duration adaptiveFlushDelay;
 	private BiConsumer<T, Throwable> serializationErrorHandler = ($, e) -> closeEx(e);
 
 	private Input input;
@@ -142,6 +148,21 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 		return this;
 	}
 
+	/**
+	 * Enables adaptive flushing, which overrides the auto flush interval.
+	 * <p>
+	 * While the output has no write in progress, serialized items are flushed at the end of the current
+	 * eventloop tick, as with zero auto flush interval. While a write is in progress, items are coalesced
+	 * into a buffer, which is flushed once the write completes, once the buffer is full or once the time
+	 * it takes to fill the buffer at the observed rate of serialized bytes passes, but no later
+	 * than after given max delay.
+	 */
+	public ChannelSerializer<T> withAdaptiveFlush(@NotNull Duration maxFlushDelay) {
+		checkArgument(!maxFlushDelay.isNegative(), "Max flush delay cannot be negative");
+		this.adaptiveFlushDelay = maxFlushDelay;
+		return this;
+	}
+
 	/**
 	 * Enables skipping of serialization errors.
 	 * <p>
@@ -181,7 +202,7 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 
 	@Override
 	protected void onInit() {
-		input = new Input(serializer, initialBufferSize.toInt(), maxMessageSize.toInt(), autoFlushInterval, serializationErrorHandler);
+		input = new Input(serializer, initialBufferSize.toInt(), maxMessageSize.toInt(), autoFlushInterval, adaptiveFlushDelay, serializationErrorHandler);
 	}
 
 	@Override
@@ -206,6 +227,7 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 		bufs.forEach(ByteBuf::recycle);
 		bufs.clear();
 		input.buf = nullify(input.buf, ByteBuf::recycle);
+		input.scheduledFlush = nullify(input.scheduledFlush, ScheduledRunnable::cancel);
 	}
 
 	private void doFlush() {
@@ -215,6 +237,7 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 			output.accept(bufs.poll())
 					.whenResult(() -> {
 						flushing = false;
+						input.onWriteComplete();
 						doFlush();
 					})
 					.whenException(this::closeEx);
@@ -247,7 +270,16 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 		private boolean flushPosted;
 		private final BiConsumer<T, Throwable> serializationErrorHandler;
 
-		public Input(@NotNull BinarySerializer<T> serializer, int initialBufferSize, int maxMessageSize, @Nullable Duration autoFlushInterval, BiConsumer<T, Throwable> serializationErrorHandler) {
+		// adaptive flush
+		private final int adaptiveFlushDelayMillis;
+		@Nullable
+		private ScheduledRunnable scheduledFlush;
+		private long lastFlushTimestamp;
+		private double bytesPerMilli;
+
+		public Input(@NotNull BinarySerializer<T> serializer, int initialBufferSize, int maxMessageSize,
+				@Nullable Duration autoFlushInterval, @Nullable Duration adaptiveFlushDelay,
+				BiConsumer<T, Throwable> serializationErrorHandler) {
 			this.serializationErrorHandler = serializationErrorHandler;
 			this.serializer = serializer;
 			this.maxMessageSize = maxMessageSize;
@@ -255,6 +287,7 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 			this.estimatedMessageSize = 1;
 			this.initialBufferSize = initialBufferSize;
 			this.autoFlushIntervalMillis = autoFlushInterval == null ? -1 : (int) autoFlushInterval.toMillis();
+			this.adaptiveFlushDelayMillis = adaptiveFlushDelay == null ? -1 : (int) adaptiveFlushDelay.toMillis();
 		}
 
 		@Override
@@ -341,6 +374,9 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 				if (!bufs.isEmpty()) {
 					suspend();
 				}
+				if (adaptiveFlushDelayMillis != -1) {
+					updateRate(buf.readRemaining());
+				}
 				bufs.add(buf);
 				estimatedMessageSize -= estimatedMessageSize >>> 8;
 			} else {
@@ -352,6 +388,10 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 
 		private void postFlush() {
 			flushPosted = true;
+			if (adaptiveFlushDelayMillis != -1) {
+				postAdaptiveFlush();
+				return;
+			}
 			if (autoFlushIntervalMillis == -1)
 				return;
 			if (autoFlushIntervalMillis == 0) {
@@ -366,6 +406,42 @@ public final class ChannelSerializer<T> extends AbstractStreamConsumer<T> implem
 				}));
 			}
 		}
+
+		private void postAdaptiveFlush() {
+			if (!flushing) {
+				// the pipeline is shallow, so items are sent with the least latency
+				eventloop.postLast(wrapContext(this, () -> {
+					flushPosted = false;
+					flush();
+				}));
+				return;
+			}
+			int fillMillis = bytesPerMilli == 0 ? adaptiveFlushDelayMillis : (int) (buf.writeRemaining() / bytesPerMilli);
+			scheduledFlush = eventloop.delayBackground(min(fillMillis, adaptiveFlushDelayMillis), wrapContext(this, () -> {
+				scheduledFlush = null;
+				flushPosted = false;
+				flush();
+			}));
+		}
+
+		/**
+		 * Flushes items, which have been coalesced while the previous write was in progress
+		 */
+		private void onWriteComplete() {
+			if (scheduledFlush == null) return;
+			scheduledFlush = nullify(scheduledFlush, ScheduledRunnable::cancel);
+			flushPosted = false;
+			flush();
+		}
+
+		private void updateRate(int bytes) {
+			long timestamp = eventloop.currentTimeMillis();
+			long elapsed = max(timestamp - lastFlushTimestamp, 1);
+			lastFlushTimestamp = timestamp;
+			// a smoothed rate of serialized bytes, with the weight of each flush proportional to its duration
+			double weight = min(elapsed / (double) SMOOTHING_WINDOW_MILLIS, 1.0);
+			bytesPerMilli += (bytes / (double) elapsed - bytesPerMilli) * weight;
+		}
 	}
 
 	private static int varintSize(int value) {
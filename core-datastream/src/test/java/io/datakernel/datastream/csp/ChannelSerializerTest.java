@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.datastream.csp;
+
+import io.datakernel.common.MemSize;
+import io.datakernel.csp.ChannelConsumer;
+import io.datakernel.datastream.AbstractStreamSupplier;
+import io.datakernel.eventloop.Eventloop;
+import io.datakernel.promise.Promise;
+import io.datakernel.promise.SettablePromise;
+import io.datakernel.test.rules.ByteBufRule;
+import io.datakernel.test.rules.EventloopRule;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.datakernel.eventloop.Eventloop.getCurrentEventloop;
+import static io.datakernel.serializer.BinarySerializers.INT_SERIALIZER;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public final class ChannelSerializerTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	// 1-byte header and 4 bytes of int
+	private static final int MESSAGE_SIZE = 5;
+
+	private final List<Integer> writes = new ArrayList<>();
+	private SettablePromise<Void> pendingWrite;
+	private boolean slowOutput;
+
+	private Eventloop eventloop;
+	private AbstractStreamSupplier<Integer> supplier;
+
+	@Before
+	public void setUp() {
+		eventloop = getCurrentEventloop();
+		supplier = new AbstractStreamSupplier<Integer>() {};
+		ChannelSerializer<Integer> serializer = ChannelSerializer.create(INT_SERIALIZER)
+				.withMaxMessageSize(ChannelSerializer.MAX_SIZE_1)
+				.withInitialBufferSize(MemSize.kilobytes(1))
+				.withAdaptiveFlush(Duration.ofSeconds(10));
+		serializer.getOutput().set(ChannelConsumer.of(buf -> {
+			writes.add(buf.readRemaining() / MESSAGE_SIZE);
+			buf.recycle();
+			return slowOutput ? (pendingWrite = new SettablePromise<>()) : Promise.complete();
+		}));
+		supplier.streamTo(serializer);
+		eventloop.run();
+	}
+
+	@Test
+	public void testAdaptiveFlushAtEndOfTick() {
+		supplier.send(1);
+		supplier.send(2);
+		supplier.send(3);
+		eventloop.run();
+		assertEquals(asList(3), writes);
+
+		supplier.send(4);
+		eventloop.run();
+		assertEquals(asList(3, 1), writes);
+	}
+
+	@Test
+	public void testAdaptiveFlushCoalescesWhileWriting() {
+		slowOutput = true;
+		supplier.send(1);
+		eventloop.run();
+		assertEquals(asList(1), writes);
+
+		// items of several ticks are coalesced, while the write is in progress
+		supplier.send(2);
+		supplier.send(3);
+		eventloop.run();
+		supplier.send(4);
+		eventloop.run();
+		assertEquals(asList(1), writes);
+
+		pendingWrite.set(null);
+		assertEquals(asList(1, 3), writes);
+
+		// once the output keeps up with items, they are flushed at the end of tick again
+		slowOutput = false;
+		pendingWrite.set(null);
+		supplier.send(5);
+		eventloop.run();
+		assertEquals(asList(1, 3, 1), writes);
+
+		supplier.sendEndOfStream();
+		eventloop.run();
+	}
+}
@@ -18,6 +18,7 @@ package io.datakernel.eventloop;
 
 import io.datakernel.async.callback.AsyncComputation;
 import io.datakernel.async.callback.Callback;
+import io.datakernel.common.ApplicationSettings;
 import io.datakernel.common.Check;
 import io.datakernel.common.Initializable;
 import io.datakernel.common.Stopwatch;
@@ -31,6 +32,7 @@ import io.datakernel.common.time.CurrentTimeProviderSystem;
 import io.datakernel.eventloop.jmx.EventloopJmxBeanEx;
 import io.datakernel.eventloop.net.DatagramSocketSettings;
 import io.datakernel.eventloop.net.ServerSocketSettings;
+import io.datakernel.eventloop.util.ConcurrentTaskQueue;
 import io.datakernel.eventloop.util.OptimizedSelectedKeysSet;
 import io.datakernel.jmx.api.attribute.JmxAttribute;
 import io.datakernel.jmx.api.attribute.JmxOperation;
@@ -48,7 +50,8 @@ import java.nio.channels.spi.SelectorProvider;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -56,6 +59,7 @@ import java.util.function.Supplier;
 import static io.datakernel.common.Preconditions.checkArgument;
 import static io.datakernel.common.Preconditions.checkState;
 import static io.datakernel.common.Utils.nullToSupplier;
+import static io.datakernel.eventloop.util.Utils.onSpinWait;
 import static io.datakernel.eventloop.util.Utils.tryToOptimizeSelector;
 import static java.util.Collections.emptyIterator;
 
@@ -90,6 +94,13 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	public static final AsyncTimeoutException CONNECT_TIMEOUT = new AsyncTimeoutException(Eventloop.class, "Connection timed out");
 	public static final StacklessException NOT_CONNECTED = new StacklessException(Eventloop.class, "Connection key was received but the channel was not connected - this is not possible without some bug in Java NIO");
 	public static final Duration DEFAULT_IDLE_INTERVAL = Duration.ofSeconds(1);
+	private static final int MAX_BACKOFF_SPINS = 64;
+	private static final boolean TRACE_TASKS = ApplicationSettings.getBoolean(Eventloop.class, "traceTasks", false);
+	public static final boolean OPTIMIZE_SELECTED_KEYS = ApplicationSettings.getBoolean(Eventloop.class, "optimizeSelectedKeys", true);
+	@Nullable
+	public static final Duration DEFAULT_TIMER_WHEEL_TICK = ApplicationSettings.getDuration(Eventloop.class, "timerWheelTick", null);
+	public static final Duration LOAD_SMOOTHING_WINDOW = ApplicationSettings.getDuration(Eventloop.class, "loadSmoothingWindow", Duration.ofSeconds(1));
+	private static final long LOAD_UPDATE_PERIOD = 100;
 
 	@NotNull
 	private static volatile FatalErrorHandler globalFatalErrorHandler = FatalErrorHandlers.ignoreAllErrors();
@@ -104,19 +115,25 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	/**
 	 * Collection of concurrent tasks which were added from other threads.
 	 */
-	private final ConcurrentLinkedQueue<Runnable> concurrentTasks = new ConcurrentLinkedQueue<>();
+	private final ConcurrentTaskQueue concurrentTasks = new ConcurrentTaskQueue();
+
+	/**
+	 * Set while eventloop is blocked (or about to block) in {@code Selector.select()},
+	 * so that only the first of concurrent tasks added meanwhile wakes the selector up.
+	 */
+	private final AtomicBoolean parked = new AtomicBoolean();
 
 	/**
 	 * Collection of scheduled tasks that are scheduled
 	 * to be executed at particular timestamp.
 	 */
-	private final PriorityQueue<ScheduledRunnable> scheduledTasks = new PriorityQueue<>();
+	private ScheduledTaskQueue scheduledTasks;
 
 	/**
 	 * Collection of background tasks,
 	 * if eventloop contains only background tasks, it will be closed.
 	 */
-	private final PriorityQueue<ScheduledRunnable> backgroundTasks = new PriorityQueue<>();
+	private ScheduledTaskQueue backgroundTasks;
 
 	/**
 	 * Amount of concurrent operations in other threads,
@@ -169,13 +186,28 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 
 	private Duration idleInterval = DEFAULT_IDLE_INTERVAL;
 
+	/**
+	 * Durations of busy polling phases of idle eventloop, before it parks in {@code Selector.select()}
+	 */
+	private long spinNanos;
+	private long backoffNanos;
+
 	/**
 	 * Amount of selected keys for last Selector.select()
 	 */
 	private int lastSelectedKeys;
 	private int cancelledKeys;
+	private boolean selectedKeysOptimized;
 	private int lastExternalTasksCount;
 
+	/**
+	 * Busy time of current load measurement period, load itself is published for other threads
+	 */
+	private long loadPeriodStart;
+	private long loadPeriodBusyTime;
+	private volatile double load;
+	private volatile long loadTimestamp;
+
 	// JMX
 
 	@Nullable
@@ -183,10 +215,16 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 
 	private boolean monitoring = false;
 
+	/**
+	 * Whether stack traces of task submissions are captured, so that slowest tasks could be traced back
+	 */
+	private boolean traceTasks = TRACE_TASKS;
+
 	// region builders
 	private Eventloop(@NotNull CurrentTimeProvider timeProvider) {
 		this.timeProvider = timeProvider;
 		refreshTimestamp();
+		setScheduledTaskQueues(DEFAULT_TIMER_WHEEL_TICK);
 	}
 
 	public static Eventloop create() {
@@ -234,6 +272,42 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return this;
 	}
 
+	/**
+	 * Enables adaptive polling of selector for latency-sensitive eventloops: when there is nothing to do,
+	 * eventloop busy-spins with {@code selectNow()} for {@code spinTime}, then keeps polling with back-off
+	 * pauses for {@code backoffTime}, and only then blocks in {@code select()}.
+	 * <p>
+	 * This saves selector wakeup syscalls at the cost of CPU time, which is burned while spinning.
+	 * Zero durations disable corresponding phases.
+	 */
+	@NotNull
+	public Eventloop withAdaptivePolling(@NotNull Duration spinTime, @NotNull Duration backoffTime) {
+		checkArgument(!spinTime.isNegative() && !backoffTime.isNegative(), "Polling durations cannot be negative");
+		this.spinNanos = spinTime.toNanos();
+		this.backoffNanos = backoffTime.toNanos();
+		return this;
+	}
+
+	/**
+	 * Keeps scheduled tasks in {@link ScheduledTaskWheel} with given tick duration,
+	 * instead of a binary heap, which is used by default.
+	 * Timer wheel gives O(1) schedule and cancel, at the cost of executing tasks up to one tick later.
+	 *
+	 * @param tickDuration duration of a tick, or {@code null} to use binary heap
+	 */
+	@NotNull
+	public Eventloop withTimerWheel(@Nullable Duration tickDuration) {
+		checkState(scheduledTasks.isEmpty() && backgroundTasks.isEmpty(), "Tasks have already been scheduled");
+		setScheduledTaskQueues(tickDuration);
+		return this;
+	}
+
+	@NotNull
+	public Eventloop withTaskTracing(boolean traceTasks) {
+		this.traceTasks = traceTasks;
+		return this;
+	}
+
 	@NotNull
 	public Eventloop withCurrentThread() {
 		CURRENT_EVENTLOOP.set(this);
@@ -242,6 +316,16 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 
 	// endregion
 
+	private void setScheduledTaskQueues(@Nullable Duration tickDuration) {
+		if (tickDuration == null) {
+			scheduledTasks = new ScheduledTaskHeap();
+			backgroundTasks = new ScheduledTaskHeap();
+		} else {
+			scheduledTasks = ScheduledTaskWheel.create(tickDuration.toMillis(), timestamp);
+			backgroundTasks = ScheduledTaskWheel.create(tickDuration.toMillis(), timestamp);
+		}
+	}
+
 	@Nullable
 	public Selector getSelector() {
 		return selector;
@@ -284,7 +368,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	private void openSelector() {
 		if (selector == null) {
 			try {
-				selector = nullToSupplier(selectorProvider, SelectorProvider::provider).openSelector();
+				selector = getEffectiveSelectorProvider().openSelector();
 			} catch (Exception e) {
 				logger.error("Could not open selector", e);
 				throw new RuntimeException(e);
@@ -307,6 +391,15 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		}
 	}
 
+	/**
+	 * Returns selector provider, which is used to open selector and channels of this eventloop.
+	 * Channels should be registered only with selector of the same provider.
+	 */
+	@NotNull
+	private SelectorProvider getEffectiveSelectorProvider() {
+		return nullToSupplier(selectorProvider, SelectorProvider::provider);
+	}
+
 	@Nullable
 	public Selector ensureSelector() {
 		if (selector == null) {
@@ -383,7 +476,8 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		ensureSelector();
 		assert selector != null;
 		breakEventloop = false;
-		boolean setWasOptimized = !JIGSAW_DETECTED && tryToOptimizeSelector(selector);
+		boolean setWasOptimized = OPTIMIZE_SELECTED_KEYS && !JIGSAW_DETECTED && tryToOptimizeSelector(selector);
+		selectedKeysOptimized = setWasOptimized;
 
 		long timeAfterSelectorSelect;
 		long timeAfterBusinessLogic = 0;
@@ -393,8 +487,10 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 				if (inspector != null) inspector.onUpdateSelectorSelectTimeout(selectTimeout);
 				if (selectTimeout <= 0) {
 					lastSelectedKeys = selector.selectNow();
+				} else if (spinNanos != 0 || backoffNanos != 0) {
+					lastSelectedKeys = selectAdaptively(selector, selectTimeout);
 				} else {
-					lastSelectedKeys = selector.select(selectTimeout);
+					lastSelectedKeys = park(selector, selectTimeout);
 				}
 				cancelledKeys = 0;
 			} catch (ClosedChannelException e) {
@@ -413,6 +509,8 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 			int backgroundTasks = executeBackgroundTasks();
 			int localTasks = executeLocalTasks();
 
+			updateLoad(timestamp - timeAfterSelectorSelect);
+
 			if (inspector != null) {
 				if (timeAfterBusinessLogic != 0) {
 					long selectorSelectTime = timeAfterSelectorSelect - timeAfterBusinessLogic;
@@ -438,6 +536,84 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		closeSelector();
 	}
 
+	/**
+	 * Accumulates time spent in business logic, and once in {@value #LOAD_UPDATE_PERIOD} millis
+	 * publishes the fraction of busy time, exponentially smoothed over {@link #LOAD_SMOOTHING_WINDOW}.
+	 * <p>
+	 * Timestamps are of millisecond precision, still partial milliseconds of short loops
+	 * are accounted correctly on average, as loops start at random moments within a millisecond.
+	 */
+	private void updateLoad(long busyTime) {
+		loadPeriodBusyTime += busyTime;
+		long periodTime = timestamp - loadPeriodStart;
+		if (periodTime < LOAD_UPDATE_PERIOD) return;
+		if (loadPeriodStart != 0) {
+			double busyFraction = Math.min(1.0, (double) loadPeriodBusyTime / periodTime);
+			double weight = 1.0 - Math.exp(-(double) periodTime / LOAD_SMOOTHING_WINDOW.toMillis());
+			load += (busyFraction - load) * weight;
+		}
+		loadTimestamp = timestamp;
+		loadPeriodStart = timestamp;
+		loadPeriodBusyTime = 0;
+	}
+
+	private int park(Selector selector, long selectTimeout) throws IOException {
+		parked.set(true);
+		// concurrent tasks are checked again after parking, so that a task added meanwhile is not missed
+		int selectedKeys = concurrentTasks.isEmpty() ?
+				selector.select(selectTimeout) :
+				selector.selectNow();
+		parked.lazySet(false);
+		return selectedKeys;
+	}
+
+	/**
+	 * Polls selector in three phases: spins with {@code selectNow()} for {@link #spinNanos},
+	 * then keeps polling with exponentially growing pauses for {@link #backoffNanos},
+	 * and only then parks in blocking {@code select()}.
+	 * <p>
+	 * While eventloop is spinning, concurrent tasks are picked up without waking the selector up.
+	 */
+	private int selectAdaptively(Selector selector, long selectTimeout) throws IOException {
+		long startTime = System.nanoTime();
+		long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(selectTimeout);
+		long spinDeadline = Math.min(startTime + spinNanos, deadline);
+		long backoffDeadline = Math.min(spinDeadline + backoffNanos, deadline);
+
+		int selectedKeys;
+		long now = startTime;
+		do {
+			selectedKeys = selector.selectNow();
+			if (selectedKeys != 0 || !concurrentTasks.isEmpty() || breakEventloop) {
+				if (inspector != null) inspector.onUpdateSelectorPolling(System.nanoTime() - startTime, 0, 0);
+				return selectedKeys;
+			}
+			now = System.nanoTime();
+		} while (now < spinDeadline);
+
+		long backoffStart = now;
+		for (int pause = 1; now < backoffDeadline; pause = Math.min(pause << 1, MAX_BACKOFF_SPINS)) {
+			for (int i = 0; i < pause; i++) {
+				onSpinWait();
+			}
+			selectedKeys = selector.selectNow();
+			if (selectedKeys != 0 || !concurrentTasks.isEmpty() || breakEventloop) {
+				if (inspector != null) inspector.onUpdateSelectorPolling(backoffStart - startTime, System.nanoTime() - backoffStart, 0);
+				return selectedKeys;
+			}
+			now = System.nanoTime();
+		}
+
+		long parkStart = now;
+		if (now < deadline) {
+			// rounded up, so that scheduled tasks are not polled too early
+			selectedKeys = park(selector, TimeUnit.NANOSECONDS.toMillis(deadline - now + 999_999));
+			now = System.nanoTime();
+		}
+		if (inspector != null) inspector.onUpdateSelectorPolling(backoffStart - startTime, parkStart - backoffStart, now - parkStart);
+		return selectedKeys;
+	}
+
 	private long getSelectTimeout() {
 		if (!concurrentTasks.isEmpty() || !localTasks.isEmpty())
 			return 0L;
@@ -446,16 +622,11 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return Math.min(getTimeBeforeExecution(scheduledTasks), getTimeBeforeExecution(backgroundTasks));
 	}
 
-	private long getTimeBeforeExecution(PriorityQueue<ScheduledRunnable> taskQueue) {
-		while (!taskQueue.isEmpty()) {
-			ScheduledRunnable first = taskQueue.peek();
-			if (first.isCancelled()) {
-				taskQueue.poll();
-				continue;
-			}
-			return first.getTimestamp() - currentTimeMillis();
-		}
-		return idleInterval.toMillis();
+	private long getTimeBeforeExecution(ScheduledTaskQueue taskQueue) {
+		long nextTimestamp = taskQueue.getNextTimestamp();
+		if (nextTimestamp == Long.MAX_VALUE)
+			return idleInterval.toMillis();
+		return nextTimestamp - currentTimeMillis();
 	}
 
 	/**
@@ -626,7 +797,8 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 
 		Stopwatch sw = monitoring ? Stopwatch.createUnstarted() : null;
 
-		while (true) {
+		// tasks which are added while draining are left for the next loop, so that I/O is not starved
+		for (int batch = this.concurrentTasks.size(); concurrentTasks < batch; ) {
 			Runnable runnable = this.concurrentTasks.poll();
 			if (runnable == null) {
 				break;
@@ -665,7 +837,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return executeScheduledTasks(backgroundTasks);
 	}
 
-	private int executeScheduledTasks(PriorityQueue<ScheduledRunnable> taskQueue) {
+	private int executeScheduledTasks(ScheduledTaskQueue taskQueue) {
 		long startTimestamp = timestamp;
 		boolean background = taskQueue == backgroundTasks;
 
@@ -673,17 +845,9 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		Stopwatch sw = monitoring ? Stopwatch.createUnstarted() : null;
 
 		for (; ; ) {
-			ScheduledRunnable peeked = taskQueue.peek();
+			ScheduledRunnable peeked = taskQueue.poll(currentTimeMillis());
 			if (peeked == null)
 				break;
-			if (peeked.isCancelled()) {
-				taskQueue.poll();
-				continue;
-			}
-			if (peeked.getTimestamp() > currentTimeMillis()) {
-				break;
-			}
-			taskQueue.poll();
 
 			Runnable runnable = peeked.getRunnable();
 			if (sw != null) {
@@ -834,7 +998,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		if (CHECK) checkState(inEventloopThread(), "Not in eventloop thread");
 		ServerSocketChannel serverSocketChannel = null;
 		try {
-			serverSocketChannel = ServerSocketChannel.open();
+			serverSocketChannel = getEffectiveSelectorProvider().openServerSocketChannel();
 			serverSocketSettings.applySettings(serverSocketChannel);
 			serverSocketChannel.configureBlocking(false);
 			serverSocketChannel.bind(address, serverSocketSettings.getBacklog());
@@ -859,12 +1023,35 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	 * @throws IOException if an I/O error occurs on opening DatagramChannel
 	 */
 	@NotNull
+	public DatagramChannel openDatagramChannel(DatagramSocketSettings datagramSocketSettings,
+			@Nullable InetSocketAddress bindAddress,
+			@Nullable InetSocketAddress connectAddress) throws IOException {
+		return createDatagramChannel(getEffectiveSelectorProvider(), datagramSocketSettings, bindAddress, connectAddress);
+	}
+
+	/**
+	 * Creates new UDP connection using default {@link SelectorProvider}.
+	 * Use {@link #openDatagramChannel} for a channel that can be registered in an eventloop with other selector provider.
+	 *
+	 * @param bindAddress address for binding DatagramSocket for this connection.
+	 * @return DatagramSocket of this connection
+	 * @throws IOException if an I/O error occurs on opening DatagramChannel
+	 */
+	@NotNull
 	public static DatagramChannel createDatagramChannel(DatagramSocketSettings datagramSocketSettings,
 			@Nullable InetSocketAddress bindAddress,
 			@Nullable InetSocketAddress connectAddress) throws IOException {
+		return createDatagramChannel(SelectorProvider.provider(), datagramSocketSettings, bindAddress, connectAddress);
+	}
+
+	@NotNull
+	private static DatagramChannel createDatagramChannel(SelectorProvider selectorProvider,
+			DatagramSocketSettings datagramSocketSettings,
+			@Nullable InetSocketAddress bindAddress,
+			@Nullable InetSocketAddress connectAddress) throws IOException {
 		DatagramChannel datagramChannel = null;
 		try {
-			datagramChannel = DatagramChannel.open();
+			datagramChannel = selectorProvider.openDatagramChannel();
 			datagramSocketSettings.applySettings(datagramChannel);
 			datagramChannel.configureBlocking(false);
 			datagramChannel.bind(bindAddress);
@@ -909,7 +1096,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		if (CHECK) checkState(inEventloopThread(), "Not in eventloop thread");
 		SocketChannel channel;
 		try {
-			channel = SocketChannel.open();
+			channel = getEffectiveSelectorProvider().openSocketChannel();
 		} catch (IOException e) {
 			try {
 				cb.accept(null, e);
@@ -964,7 +1151,7 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	 */
 	public void post(@NotNull @Async.Schedule Runnable runnable) {
 		if (CHECK) checkState(inEventloopThread(), "Not in eventloop thread");
-		localTasks.addFirst(runnable);
+		localTasks.addFirst(traced(runnable));
 	}
 
 	/**
@@ -974,12 +1161,16 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	 */
 	public void postLast(@NotNull @Async.Schedule Runnable runnable) {
 		if (CHECK) checkState(inEventloopThread(), "Not in eventloop thread");
-		localTasks.addLast(runnable);
+		localTasks.addLast(traced(runnable));
+	}
+
+	private Runnable traced(Runnable runnable) {
+		return traceTasks ? new TracedRunnable(runnable) : runnable;
 	}
 
 	public void postNext(@NotNull @Async.Schedule Runnable runnable) {
 		if (CHECK) checkState(inEventloopThread(), "Not in eventloop thread");
-		nextTasks.add(runnable);
+		nextTasks.add(traced(runnable));
 	}
 
 	/**
@@ -991,9 +1182,12 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 	 */
 	@Override
 	public void execute(@NotNull @Async.Schedule Runnable runnable) {
-		concurrentTasks.offer(runnable);
-		if (selector != null) {
-			selector.wakeup();
+		concurrentTasks.offer(traced(runnable));
+		if (parked.get() && parked.compareAndSet(true, false)) {
+			Selector selector = this.selector;
+			if (selector != null) {
+				selector.wakeup();
+			}
 		}
 	}
 
@@ -1030,9 +1224,9 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 
 	@NotNull
 	private ScheduledRunnable addScheduledTask(long timestamp, Runnable runnable, boolean background) {
-		ScheduledRunnable scheduledTask = ScheduledRunnable.create(timestamp, runnable);
-		PriorityQueue<ScheduledRunnable> taskQueue = background ? backgroundTasks : scheduledTasks;
-		taskQueue.offer(scheduledTask);
+		ScheduledRunnable scheduledTask = ScheduledRunnable.create(timestamp, traced(runnable));
+		ScheduledTaskQueue taskQueue = background ? backgroundTasks : scheduledTasks;
+		taskQueue.add(scheduledTask);
 		return scheduledTask;
 	}
 
@@ -1147,6 +1341,18 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return monitoring;
 	}
 
+	@JmxAttribute(description = "whether stack traces are captured when tasks are submitted, " +
+			"so that slowest tasks, which are collected while monitoring is enabled, could be traced back " +
+			"[ it causes a significant overhead for each of submitted tasks ]")
+	public boolean isTraceTasks() {
+		return traceTasks;
+	}
+
+	@JmxAttribute
+	public void setTraceTasks(boolean traceTasks) {
+		this.traceTasks = traceTasks;
+	}
+
 	private void recordIoError(@NotNull Exception e, @Nullable Object context) {
 		logger.warn("IO Error in {}: {}", context, e.toString());
 	}
@@ -1200,6 +1406,22 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return tick;
 	}
 
+	@Nullable
+	public SelectorProvider getSelectorProvider() {
+		return selectorProvider;
+	}
+
+	@JmxAttribute
+	public String getSelectorProviderName() {
+		return getEffectiveSelectorProvider().getClass().getName();
+	}
+
+	@JmxAttribute(description = "whether selected keys of the selector are collected into array-based set, " +
+			"instead of the default hash set [ only applicable to JDK selector implementations ]")
+	public boolean isSelectedKeysOptimized() {
+		return selectedKeysOptimized;
+	}
+
 	@Nullable
 	public FatalErrorHandler getFatalErrorHandler() {
 		return fatalErrorHandler;
@@ -1214,12 +1436,53 @@ public final class Eventloop implements Runnable, EventloopExecutor, Scheduler,
 		return keepAlive;
 	}
 
+	@Nullable
+	@JmxAttribute
+	public ScheduledTaskWheel getScheduledTasksWheel() {
+		return scheduledTasks instanceof ScheduledTaskWheel ? (ScheduledTaskWheel) scheduledTasks : null;
+	}
+
+	@Nullable
+	@JmxAttribute
+	public ScheduledTaskWheel getBackgroundTasksWheel() {
+		return backgroundTasks instanceof ScheduledTaskWheel ? (ScheduledTaskWheel) backgroundTasks : null;
+	}
+
+	/**
+	 * Returns the fraction of time this eventloop spends in business logic, from 0.0 (idle) to 1.0 (saturated),
+	 * smoothed over {@link #LOAD_SMOOTHING_WINDOW}.
+	 * <p>
+	 * Unlike other stats, it may be called from any thread, for example to dispatch work to the least loaded
+	 * of eventloops. While eventloop is idling in {@code Selector.select()}, the load keeps decaying.
+	 */
+	@JmxAttribute(description = "fraction of time spent in business logic, smoothed over 'loadSmoothingWindow' setting")
+	public double getLoad() {
+		double load = this.load;
+		if (parked.get()) {
+			long idleTime = timeProvider.currentTimeMillis() - loadTimestamp - LOAD_UPDATE_PERIOD;
+			if (idleTime > 0) {
+				load *= Math.exp(-(double) idleTime / LOAD_SMOOTHING_WINDOW.toMillis());
+			}
+		}
+		return load;
+	}
+
 	@Nullable
 	@JmxAttribute(name = "")
 	public EventloopStats getStats() {
 		return BaseInspector.lookup(inspector, EventloopStats.class);
 	}
 
+	@JmxAttribute
+	public Duration getSpinTime() {
+		return Duration.ofNanos(spinNanos);
+	}
+
+	@JmxAttribute
+	public Duration getBackoffTime() {
+		return Duration.ofNanos(backoffNanos);
+	}
+
 	@JmxAttribute
 	public Duration getIdleInterval() {
 		return idleInterval;
@@ -12,6 +12,11 @@ public interface EventloopInspector extends BaseInspector<EventloopInspector> {
 
 	void onUpdateSelectorSelectTimeout(long selectorSelectTimeout);
 
+	/**
+	 * Called after adaptive polling of selector, with nanoseconds spent in each of its phases
+	 */
+	void onUpdateSelectorPolling(long spinTime, long backoffTime, long parkTime);
+
 	void onUpdateSelectedKeyDuration(@NotNull Stopwatch sw);
 
 	void onUpdateSelectedKeysStats(int lastSelectedKeys, int invalidKeys, int acceptKeys, int connectKeys, int readKeys, int writeKeys, long loopTime);
@@ -16,6 +16,7 @@
 
 package io.datakernel.eventloop;
 
+import io.datakernel.common.ApplicationSettings;
 import io.datakernel.common.Stopwatch;
 import io.datakernel.jmx.api.attribute.JmxAttribute;
 import io.datakernel.jmx.api.attribute.JmxReducers.JmxReducerSum;
@@ -23,27 +24,33 @@ import io.datakernel.jmx.stats.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Instant;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 import static io.datakernel.eventloop.Eventloop.DEFAULT_SMOOTHING_WINDOW;
+import static io.datakernel.jmx.stats.JmxHistogram.POWERS_OF_TEN_LINEAR;
 import static io.datakernel.jmx.stats.JmxHistogram.POWERS_OF_TWO;
 
 @SuppressWarnings("unused")
 public final class EventloopStats implements EventloopInspector {
+	private static final int MAX_TASK_KEYS = ApplicationSettings.getInt(EventloopStats.class, "maxTaskKeys", 1000);
+	private static final String OTHER_TASKS_KEY = "<other>";
+
 	private final EventStats loops;
 	private final ValueStats selectorSelectTimeout;
 	private final ValueStats selectorSelectTime;
 	private final ValueStats businessLogicTime;
 	private final Tasks tasks;
 	private final Keys keys;
+	private final Polling polling;
 	private final ExceptionStats fatalErrors;
 	private final Map<Class<? extends Throwable>, ExceptionStats> fatalErrorsMap;
 	private final EventStats idleLoops;
 	private final EventStats idleLoopsWaitingExternalTask;
 	private final EventStats selectOverdues;
+	private final Map<String, ValueStats> taskDurations;
+	private final SlowTasks slowTasks;
 
 	private EventloopStats() {
 		loops = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
@@ -53,11 +60,14 @@ public final class EventloopStats implements EventloopInspector {
 		businessLogicTime = ValueStats.create(DEFAULT_SMOOTHING_WINDOW).withHistogram(POWERS_OF_TWO).withUnit("milliseconds");
 		tasks = new Tasks();
 		keys = new Keys();
+		polling = new Polling();
 		fatalErrors = ExceptionStats.create();
 		fatalErrorsMap = new HashMap<>();
 		idleLoops = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
 		idleLoopsWaitingExternalTask = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
 		selectOverdues = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
+		taskDurations = new HashMap<>();
+		slowTasks = new SlowTasks();
 	}
 
 	public static EventloopStats create() {
@@ -90,6 +100,21 @@ public final class EventloopStats implements EventloopInspector {
 		if (selectorSelectTimeout < 0) selectOverdues.recordEvent();
 	}
 
+	@Override
+	public void onUpdateSelectorPolling(long spinTime, long backoffTime, long parkTime) {
+		polling.spinTime.recordValue((int) TimeUnit.NANOSECONDS.toMicros(spinTime));
+		if (parkTime != 0) {
+			polling.backoffTime.recordValue((int) TimeUnit.NANOSECONDS.toMicros(backoffTime));
+			polling.parkTime.recordValue((int) TimeUnit.NANOSECONDS.toMicros(parkTime));
+			polling.parks.recordEvent();
+		} else if (backoffTime != 0) {
+			polling.backoffTime.recordValue((int) TimeUnit.NANOSECONDS.toMicros(backoffTime));
+			polling.backoffWakeups.recordEvent();
+		} else {
+			polling.spinWakeups.recordEvent();
+		}
+	}
+
 	@Override
 	public void onUpdateSelectedKeyDuration(@NotNull Stopwatch sw) {
 		keys.oneKeyTime.recordValue((int) sw.elapsed(TimeUnit.MICROSECONDS));
@@ -110,13 +135,30 @@ public final class EventloopStats implements EventloopInspector {
 	private void updateTaskDuration(ValueStats counter, DurationRunnable longestCounter, Runnable runnable, @Nullable Stopwatch sw) {
 		if (sw != null) {
 			int elapsed = (int) sw.elapsed(TimeUnit.MICROSECONDS);
+			Runnable task = runnable instanceof TracedRunnable ? ((TracedRunnable) runnable).getRunnable() : runnable;
 			counter.recordValue(elapsed);
 			if (elapsed > longestCounter.getDuration()) {
-				longestCounter.update(runnable, elapsed);
+				longestCounter.update(task, elapsed);
+			}
+			String key = getTaskKey(task);
+			ValueStats durations = taskDurations.get(key);
+			if (durations == null) {
+				durations = taskDurations.computeIfAbsent(taskDurations.size() < MAX_TASK_KEYS ? key : OTHER_TASKS_KEY,
+						$ -> ValueStats.create(DEFAULT_SMOOTHING_WINDOW).withHistogram(POWERS_OF_TEN_LINEAR).withUnit("microseconds"));
 			}
+			durations.recordValue(elapsed);
+			slowTasks.record(runnable, key, elapsed);
 		}
 	}
 
+	/**
+	 * Tasks are grouped by their contexts if they have one, otherwise by their classes
+	 */
+	private static String getTaskKey(Runnable task) {
+		Object context = task instanceof RunnableWithContext ? ((RunnableWithContext) task).getContext() : null;
+		return context != null ? context.getClass().getName() : task.getClass().getName();
+	}
+
 	@Override
 	public void onUpdateLocalTaskDuration(@NotNull Runnable runnable, @Nullable Stopwatch sw) {
 		updateTaskDuration(tasks.local.oneTaskTime, tasks.local.longestTask, runnable, sw);
@@ -209,6 +251,11 @@ public final class EventloopStats implements EventloopInspector {
 		return keys;
 	}
 
+	@JmxAttribute
+	public Polling getPolling() {
+		return polling;
+	}
+
 	@JmxAttribute
 	public ExceptionStats getFatalErrors() {
 		return fatalErrors;
@@ -234,6 +281,18 @@ public final class EventloopStats implements EventloopInspector {
 		return selectOverdues;
 	}
 
+	@JmxAttribute(description = "durations of tasks grouped by their contexts or classes " +
+			"[ collected only when extended monitoring is enabled ]")
+	public Map<String, ValueStats> getTaskDurations() {
+		return taskDurations;
+	}
+
+	@JmxAttribute(description = "slowest tasks with stack traces of their submissions, if task tracing is enabled " +
+			"[ collected only when extended monitoring is enabled ]")
+	public SlowTasks getSlowTasks() {
+		return slowTasks;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T extends EventloopInspector> @Nullable T lookup(Class<T> type) {
@@ -391,6 +450,147 @@ public final class EventloopStats implements EventloopInspector {
 		}
 	}
 
+	public static final class Polling {
+		private final ValueStats spinTime;
+		private final ValueStats backoffTime;
+		private final ValueStats parkTime;
+		private final EventStats spinWakeups;
+		private final EventStats backoffWakeups;
+		private final EventStats parks;
+
+		Polling() {
+			spinTime = ValueStats.create(DEFAULT_SMOOTHING_WINDOW).withHistogram(POWERS_OF_TWO).withUnit("microseconds");
+			backoffTime = ValueStats.create(DEFAULT_SMOOTHING_WINDOW).withHistogram(POWERS_OF_TWO).withUnit("microseconds");
+			parkTime = ValueStats.create(DEFAULT_SMOOTHING_WINDOW).withHistogram(POWERS_OF_TWO).withUnit("microseconds");
+			spinWakeups = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
+			backoffWakeups = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
+			parks = EventStats.create(DEFAULT_SMOOTHING_WINDOW);
+		}
+
+		@JmxAttribute(extraSubAttributes = "histogram")
+		public ValueStats getSpinTime() {
+			return spinTime;
+		}
+
+		@JmxAttribute(extraSubAttributes = "histogram")
+		public ValueStats getBackoffTime() {
+			return backoffTime;
+		}
+
+		@JmxAttribute(extraSubAttributes = "histogram")
+		public ValueStats getParkTime() {
+			return parkTime;
+		}
+
+		@JmxAttribute(description = "polls which ended while spinning")
+		public EventStats getSpinWakeups() {
+			return spinWakeups;
+		}
+
+		@JmxAttribute(description = "polls which ended while backing off")
+		public EventStats getBackoffWakeups() {
+			return backoffWakeups;
+		}
+
+		@JmxAttribute(description = "polls which ended up parked in blocking select")
+		public EventStats getParks() {
+			return parks;
+		}
+	}
+
+	public static final class SlowTasks implements JmxStats<SlowTasks>, JmxStatsWithReset {
+		private static final int MAX_SLOW_TASKS = 16;
+
+		private final SlowTask[] slowest = new SlowTask[MAX_SLOW_TASKS];
+		private int size;
+
+		void record(Runnable runnable, String key, int duration) {
+			if (size == MAX_SLOW_TASKS && duration <= slowest[size - 1].duration)
+				return;
+			Runnable task = runnable instanceof TracedRunnable ? ((TracedRunnable) runnable).getRunnable() : runnable;
+			Object context = task instanceof RunnableWithContext ? ((RunnableWithContext) task).getContext() : null;
+			StackTraceElement[] stackTrace = runnable instanceof TracedRunnable ?
+					((TracedRunnable) runnable).getSubmissionStackTrace() :
+					null;
+			insert(new SlowTask(duration, System.currentTimeMillis(), key, context != null ? context.toString() : null, stackTrace));
+		}
+
+		private void insert(SlowTask task) {
+			int i = size < MAX_SLOW_TASKS ? size++ : size - 1;
+			while (i > 0 && slowest[i - 1].duration < task.duration) {
+				slowest[i] = slowest[i - 1];
+				i--;
+			}
+			slowest[i] = task;
+		}
+
+		@Override
+		public void resetStats() {
+			Arrays.fill(slowest, null);
+			size = 0;
+		}
+
+		@Override
+		public void add(SlowTasks another) {
+			for (int i = 0; i < another.size; i++) {
+				SlowTask task = another.slowest[i];
+				if (size == MAX_SLOW_TASKS && task.duration <= slowest[size - 1].duration)
+					break;
+				insert(task);
+			}
+		}
+
+		@JmxAttribute(name = "threshold(μs)", description = "minimal duration of task to be among slowest ones")
+		public int getThreshold() {
+			return size == MAX_SLOW_TASKS ? slowest[size - 1].duration : 0;
+		}
+
+		@JmxAttribute
+		public List<String> getSlowest() {
+			List<String> result = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				result.add(slowest[i].toString());
+			}
+			return result;
+		}
+	}
+
+	private static final class SlowTask {
+		private final int duration;
+		private final long timestamp;
+		private final String key;
+		@Nullable
+		private final String context;
+		@Nullable
+		private final StackTraceElement[] stackTrace;
+
+		SlowTask(int duration, long timestamp, String key, @Nullable String context, @Nullable StackTraceElement[] stackTrace) {
+			this.duration = duration;
+			this.timestamp = timestamp;
+			this.key = key;
+			this.context = context;
+			this.stackTrace = stackTrace;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder()
+					.append(duration).append("μs ")
+					.append(Instant.ofEpochMilli(timestamp)).append(' ')
+					.append(key);
+			if (context != null) {
+				sb.append(" context: ").append(context);
+			}
+			if (stackTrace != null) {
+				sb.append(" submitted at:");
+				for (StackTraceElement element : stackTrace) {
+					sb.append("\n\tat ").append(element);
+				}
+			}
+			return sb.toString();
+		}
+	}
+
 	private static final class StackTrace {
 		private final StackTraceElement[] stackTraceElements;
 
@@ -24,6 +24,11 @@ public abstract class ForwardingEventloopInspector implements EventloopInspector
 		if (next != null) next.onUpdateSelectorSelectTimeout(selectorSelectTimeout);
 	}
 
+	@Override
+	public void onUpdateSelectorPolling(long spinTime, long backoffTime, long parkTime) {
+		if (next != null) next.onUpdateSelectorPolling(spinTime, backoffTime, parkTime);
+	}
+
 	@Override
 	public void onUpdateSelectedKeyDuration(@NotNull Stopwatch sw) {
 		if (next != null) next.onUpdateSelectedKeyDuration(sw);
@@ -17,6 +17,7 @@
 package io.datakernel.eventloop;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public final class ScheduledRunnable implements Comparable<ScheduledRunnable> {
 	private final long timestamp;
@@ -24,6 +25,14 @@ public final class ScheduledRunnable implements Comparable<ScheduledRunnable> {
 	private boolean cancelled;
 	private boolean complete;
 
+	// intrusive links, used while the task is kept in a ScheduledTaskWheel
+	@Nullable
+	ScheduledTaskWheel.Bucket bucket;
+	@Nullable
+	ScheduledRunnable prev;
+	@Nullable
+	ScheduledRunnable next;
+
 	// region builders
 	private ScheduledRunnable(long timestamp, @NotNull Runnable runnable) {
 		this.timestamp = timestamp;
@@ -39,6 +48,9 @@ public final class ScheduledRunnable implements Comparable<ScheduledRunnable> {
 	public void cancel() {
 		cancelled = true;
 		runnable = null;
+		if (bucket != null) {
+			bucket.remove(this);
+		}
 	}
 
 	@SuppressWarnings("AssignmentToNull") // runnable has been completed
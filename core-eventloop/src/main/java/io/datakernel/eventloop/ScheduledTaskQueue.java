@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.eventloop;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Storage of tasks, which are scheduled in {@link Eventloop} to be executed at particular timestamp.
+ * Accessed from eventloop thread only.
+ */
+interface ScheduledTaskQueue {
+	void add(@NotNull ScheduledRunnable task);
+
+	/**
+	 * Removes and returns next task, which should be executed at given timestamp,
+	 * or returns {@code null} if there are no such tasks.
+	 * Cancelled tasks are never returned.
+	 */
+	@Nullable
+	ScheduledRunnable poll(long timestamp);
+
+	/**
+	 * Returns the timestamp not later than the earliest of scheduled tasks,
+	 * or {@link Long#MAX_VALUE} if there are no tasks.
+	 */
+	long getNextTimestamp();
+
+	boolean isEmpty();
+
+	int size();
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.eventloop;
+
+import io.datakernel.jmx.api.attribute.JmxAttribute;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+import static io.datakernel.common.Preconditions.checkArgument;
+
+/**
+ * Hierarchical timer wheel of scheduled tasks, an alternative to the binary heap,
+ * which gives O(1) schedule and cancel.
+ * <p>
+ * Time is divided into ticks of fixed duration, and wheel is advanced up to the
+ * eventloop timestamp whenever tasks are polled. Each of {@value #LEVELS} levels has
+ * {@value #SLOTS} slots, a slot of level N covers {@code SLOTS^N} ticks; when lower level
+ * makes a full turn, tasks of the next slot of upper level are redistributed into lower levels.
+ * <p>
+ * A task is never executed before its timestamp, but may be executed up to one tick later,
+ * and tasks which are due in the same tick are executed in the order they were scheduled.
+ * Cancelled tasks are removed from the wheel immediately.
+ */
+public final class ScheduledTaskWheel implements ScheduledTaskQueue {
+	private static final int LEVEL_BITS = 8;
+	private static final int SLOTS = 1 << LEVEL_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+	private static final long MAX_DELTA = (1L << (LEVEL_BITS * LEVELS)) - 1;
+
+	private final long tickMillis;
+	private final Bucket[][] wheel = new Bucket[LEVELS][SLOTS];
+	private final Bucket expired = new Bucket(-1);
+	private final int[] levelSizes = new int[LEVELS];
+
+	private long currentTick;
+	private int size;
+
+	// region builders
+	private ScheduledTaskWheel(long tickMillis, long timestamp) {
+		this.tickMillis = tickMillis;
+		this.currentTick = timestamp / tickMillis;
+		for (int level = 0; level < LEVELS; level++) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				wheel[level][slot] = new Bucket(level);
+			}
+		}
+	}
+
+	public static ScheduledTaskWheel create(long tickMillis, long timestamp) {
+		checkArgument(tickMillis > 0, "Tick duration should be positive");
+		return new ScheduledTaskWheel(tickMillis, timestamp);
+	}
+	// endregion
+
+	final class Bucket {
+		private final int level;
+		private int size;
+		@Nullable
+		private ScheduledRunnable head;
+		@Nullable
+		private ScheduledRunnable tail;
+
+		Bucket(int level) {
+			this.level = level;
+		}
+
+		void add(ScheduledRunnable task) {
+			task.bucket = this;
+			task.prev = tail;
+			task.next = null;
+			if (tail == null) {
+				head = task;
+			} else {
+				tail.next = task;
+			}
+			tail = task;
+			size++;
+			if (level >= 0) levelSizes[level]++;
+		}
+
+		void remove(ScheduledRunnable task) {
+			assert task.bucket == this;
+			if (task.prev == null) {
+				head = task.next;
+			} else {
+				task.prev.next = task.next;
+			}
+			if (task.next == null) {
+				tail = task.prev;
+			} else {
+				task.next.prev = task.prev;
+			}
+			task.bucket = null;
+			task.prev = null;
+			task.next = null;
+			size--;
+			if (level >= 0) levelSizes[level]--;
+			ScheduledTaskWheel.this.size--;
+		}
+
+		@Nullable
+		ScheduledRunnable detachAll() {
+			ScheduledRunnable first = head;
+			for (ScheduledRunnable task = first; task != null; task = task.next) {
+				task.bucket = null;
+			}
+			if (level >= 0) levelSizes[level] -= size;
+			ScheduledTaskWheel.this.size -= size;
+			head = tail = null;
+			size = 0;
+			return first;
+		}
+	}
+
+	@Override
+	public void add(@NotNull ScheduledRunnable task) {
+		size++;
+		place(task);
+	}
+
+	private void place(ScheduledRunnable task) {
+		long timestamp = task.getTimestamp();
+		// rounded up, so that tasks are never executed before their timestamps
+		long tick = timestamp / tickMillis + (timestamp % tickMillis > 0 ? 1 : 0);
+		long delta = tick - currentTick;
+		if (delta <= 0) {
+			expired.add(task);
+			return;
+		}
+		if (delta > MAX_DELTA) {
+			// too distant tasks are parked in the farthest slot, and are redistributed once it is reached
+			delta = MAX_DELTA;
+			tick = currentTick + MAX_DELTA;
+		}
+		int level = 0;
+		while (delta >= 1L << (LEVEL_BITS * (level + 1))) {
+			level++;
+		}
+		wheel[level][(int) (tick >>> (LEVEL_BITS * level)) & SLOT_MASK].add(task);
+	}
+
+	/**
+	 * Moves the wheel forward up to the given timestamp, collecting tasks which became due
+	 */
+	private void advance(long timestamp) {
+		long targetTick = timestamp / tickMillis;
+		while (currentTick < targetTick) {
+			// ticks without any tasks to collect or redistribute are skipped
+			long nextTick = size == expired.size ? Long.MAX_VALUE : getNextTick();
+			if (nextTick > targetTick) {
+				currentTick = targetTick;
+				return;
+			}
+			currentTick = nextTick;
+			for (int level = 1; level < LEVELS && (currentTick & ((1L << (LEVEL_BITS * level)) - 1)) == 0; level++) {
+				cascade(wheel[level][(int) (currentTick >>> (LEVEL_BITS * level)) & SLOT_MASK]);
+			}
+			Bucket bucket = wheel[0][(int) currentTick & SLOT_MASK];
+			if (bucket.size != 0) {
+				cascade(bucket);
+			}
+		}
+	}
+
+	/**
+	 * Returns the nearest tick, at which some of non-empty slots is reached,
+	 * or {@link Long#MAX_VALUE} if there are no tasks in the wheel
+	 */
+	private long getNextTick() {
+		long nextTick = Long.MAX_VALUE;
+		for (int level = 0; level < LEVELS; level++) {
+			int shift = LEVEL_BITS * level;
+			long base = currentTick >>> shift;
+			if ((base + 1) << shift >= nextTick)
+				break;
+			if (levelSizes[level] == 0)
+				continue;
+			for (int i = 1; i <= SLOTS; i++) {
+				if (wheel[level][(int) (base + i) & SLOT_MASK].size != 0) {
+					nextTick = Math.min(nextTick, (base + i) << shift);
+					break;
+				}
+			}
+		}
+		return nextTick;
+	}
+
+	private void cascade(Bucket bucket) {
+		int tasks = bucket.size;
+		ScheduledRunnable task = bucket.detachAll();
+		size += tasks;
+		while (task != null) {
+			ScheduledRunnable next = task.next;
+			place(task);
+			task = next;
+		}
+	}
+
+	@Nullable
+	@Override
+	public ScheduledRunnable poll(long timestamp) {
+		advance(timestamp);
+		ScheduledRunnable task = expired.head;
+		if (task == null)
+			return null;
+		expired.remove(task);
+		return task;
+	}
+
+	@Override
+	public long getNextTimestamp() {
+		if (expired.size != 0)
+			return currentTick * tickMillis;
+		if (size == 0)
+			return Long.MAX_VALUE;
+		return getNextTick() * tickMillis;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	// region JMX
+	@JmxAttribute
+	public long getTickMillis() {
+		return tickMillis;
+	}
+
+	@JmxAttribute
+	public int getTasks() {
+		return size;
+	}
+
+	@JmxAttribute
+	public int getExpiredTasks() {
+		return expired.size;
+	}
+
+	@JmxAttribute(description = "number of tasks at each level of the wheel, from the finest to the coarsest one")
+	public String getTasksPerLevel() {
+		return Arrays.toString(levelSizes);
+	}
+
+	@JmxAttribute(description = "number of non-empty slots at each level of the wheel")
+	public String getOccupiedSlotsPerLevel() {
+		int[] occupied = new int[LEVELS];
+		for (int level = 0; level < LEVELS; level++) {
+			for (Bucket bucket : wheel[level]) {
+				if (bucket.size != 0) occupied[level]++;
+			}
+		}
+		return Arrays.toString(occupied);
+	}
+	// endregion
+
+	@Override
+	public String toString() {
+		return "ScheduledTaskWheel{tickMillis=" + tickMillis + ", tasks=" + size + ", expired=" + expired.size + '}';
+	}
+}
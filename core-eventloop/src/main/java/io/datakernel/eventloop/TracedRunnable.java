@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.eventloop;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Task which remembers where it has been submitted to eventloop,
+ * so that slow tasks could be traced back to the code which submitted them.
+ * <p>
+ * Stack trace of submission is captured lazily by JVM, and is only resolved if the task is reported.
+ */
+final class TracedRunnable implements RunnableWithContext {
+	private final Runnable runnable;
+	private final Throwable submission;
+
+	TracedRunnable(@NotNull Runnable runnable) {
+		this.runnable = runnable;
+		this.submission = new Throwable();
+	}
+
+	public Runnable getRunnable() {
+		return runnable;
+	}
+
+	public StackTraceElement[] getSubmissionStackTrace() {
+		StackTraceElement[] stackTrace = submission.getStackTrace();
+		int i = 0;
+		while (i < stackTrace.length && isInternalFrame(stackTrace[i])) {
+			i++;
+		}
+		StackTraceElement[] result = new StackTraceElement[stackTrace.length - i];
+		System.arraycopy(stackTrace, i, result, 0, result.length);
+		return result;
+	}
+
+	private static boolean isInternalFrame(StackTraceElement element) {
+		String className = element.getClassName();
+		return className.equals(TracedRunnable.class.getName()) || className.equals(Scheduler.class.getName()) ||
+				className.equals(Eventloop.class.getName()) || className.startsWith(Eventloop.class.getName() + '$');
+	}
+
+	@Override
+	public Object getContext() {
+		return runnable instanceof RunnableWithContext ? ((RunnableWithContext) runnable).getContext() : runnable;
+	}
+
+	@Override
+	public void run() {
+		runnable.run();
+	}
+
+	@Override
+	public String toString() {
+		return runnable.toString();
+	}
+}
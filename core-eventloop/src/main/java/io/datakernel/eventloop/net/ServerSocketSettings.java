@@ -18,8 +18,11 @@ package io.datakernel.eventloop.net;
 
 import io.datakernel.common.MemSize;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
 import java.nio.channels.ServerSocketChannel;
 
 import static io.datakernel.common.Preconditions.checkState;
@@ -36,34 +39,70 @@ public final class ServerSocketSettings {
 	private static final byte TRUE = 1;
 	private static final byte FALSE = 0;
 
+	/**
+	 * {@code SO_REUSEPORT} option is only present since Java 9
+	 */
+	@Nullable
+	private static final SocketOption<Boolean> SO_REUSEPORT = getReusePortOption();
+
 	private final int backlog;
 	private final int receiveBufferSize;
 	private final byte reuseAddress;
+	private final byte reusePort;
 
 	// region builders
-	private ServerSocketSettings(int backlog, int receiveBufferSize, byte reuseAddress) {
+	private ServerSocketSettings(int backlog, int receiveBufferSize, byte reuseAddress, byte reusePort) {
 		this.backlog = backlog;
 		this.receiveBufferSize = receiveBufferSize;
 		this.reuseAddress = reuseAddress;
+		this.reusePort = reusePort;
 	}
 
 	public static ServerSocketSettings create(int backlog) {
-		return new ServerSocketSettings(backlog, 0, DEF_BOOL);
+		return new ServerSocketSettings(backlog, 0, DEF_BOOL, DEF_BOOL);
 	}
 
 	public ServerSocketSettings withBacklog(int backlog) {
-		return new ServerSocketSettings(backlog, receiveBufferSize, reuseAddress);
+		return new ServerSocketSettings(backlog, receiveBufferSize, reuseAddress, reusePort);
 	}
 
 	public ServerSocketSettings withReceiveBufferSize(@NotNull MemSize receiveBufferSize) {
-		return new ServerSocketSettings(backlog, receiveBufferSize.toInt(), reuseAddress);
+		return new ServerSocketSettings(backlog, receiveBufferSize.toInt(), reuseAddress, reusePort);
 	}
 
 	public ServerSocketSettings withReuseAddress(boolean reuseAddress) {
-		return new ServerSocketSettings(backlog, receiveBufferSize, reuseAddress ? TRUE : FALSE);
+		return new ServerSocketSettings(backlog, receiveBufferSize, reuseAddress ? TRUE : FALSE, reusePort);
+	}
+
+	/**
+	 * Allows several server sockets to be bound to the same address,
+	 * so that incoming connections are distributed between them by OS kernel.
+	 *
+	 * @see #isReusePortSupported()
+	 */
+	public ServerSocketSettings withReusePort(boolean reusePort) {
+		return new ServerSocketSettings(backlog, receiveBufferSize, reuseAddress, reusePort ? TRUE : FALSE);
 	}
 	// endregion
 
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private static SocketOption<Boolean> getReusePortOption() {
+		try {
+			return (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+		} catch (NoSuchFieldException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether {@code SO_REUSEPORT} option is known to the JVM,
+	 * it still may be not supported by particular platform
+	 */
+	public static boolean isReusePortSupported() {
+		return SO_REUSEPORT != null;
+	}
+
 	public void applySettings(@NotNull ServerSocketChannel channel) throws IOException {
 		if (receiveBufferSize != 0) {
 			channel.setOption(SO_RCVBUF, receiveBufferSize);
@@ -71,6 +110,15 @@ public final class ServerSocketSettings {
 		if (reuseAddress != DEF_BOOL) {
 			channel.setOption(SO_REUSEADDR, reuseAddress != FALSE);
 		}
+		if (reusePort != DEF_BOOL) {
+			if (SO_REUSEPORT == null || !channel.supportedOptions().contains(SO_REUSEPORT)) {
+				if (reusePort != FALSE) {
+					throw new IOException("SO_REUSEPORT is not supported");
+				}
+			} else {
+				channel.setOption(SO_REUSEPORT, reusePort != FALSE);
+			}
+		}
 	}
 
 	public int getBacklog() {
@@ -99,4 +147,13 @@ public final class ServerSocketSettings {
 		checkState(hasReuseAddress(), "No 'reuse address' setting is present");
 		return reuseAddress != FALSE;
 	}
+
+	public boolean hasReusePort() {
+		return reusePort != DEF_BOOL;
+	}
+
+	public boolean getReusePort() {
+		checkState(hasReusePort(), "No 'reuse port' setting is present");
+		return reusePort != FALSE;
+	}
 }
@@ -0,0 +1,107 @@
+package io.datakernel.eventloop.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Unbounded multi-producer single-consumer queue of tasks, which are submitted
+ * to eventloop from other threads.
+ * <p>
+ * Tasks are stored in linked array segments, so that unlike {@link java.util.concurrent.ConcurrentLinkedQueue}
+ * there is no node allocated per task. A producer claims a slot with a single atomic increment,
+ * no CAS loops are needed, except for the rare case of linking a new segment.
+ * <p>
+ * Tasks of each producer are polled in the order they were offered.
+ * Only a single thread (the eventloop thread) may call {@link #poll()} and {@link #isEmpty()}.
+ */
+public final class ConcurrentTaskQueue {
+	private static final int SEGMENT_SHIFT = 10;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	private static final class Segment {
+		static final AtomicReferenceFieldUpdater<Segment, Segment> NEXT =
+				AtomicReferenceFieldUpdater.newUpdater(Segment.class, Segment.class, "next");
+
+		final long start;
+		final AtomicReferenceArray<Runnable> tasks = new AtomicReferenceArray<>(SEGMENT_SIZE);
+		volatile Segment next;
+
+		Segment(long start) {
+			this.start = start;
+		}
+
+		Segment next() {
+			Segment next = this.next;
+			if (next != null) return next;
+			Segment segment = new Segment(start + SEGMENT_SIZE);
+			return NEXT.compareAndSet(this, null, segment) ? segment : this.next;
+		}
+	}
+
+	private final AtomicLong producerIndex = new AtomicLong();
+	private volatile Segment producerSegment;
+
+	// accessed by consumer thread only
+	private Segment consumerSegment;
+	private long consumerIndex;
+
+	public ConcurrentTaskQueue() {
+		Segment segment = new Segment(0);
+		producerSegment = segment;
+		consumerSegment = segment;
+	}
+
+	public void offer(@NotNull Runnable task) {
+		// segment should be read before claiming an index, so that its start never exceeds the claimed index
+		Segment segment = producerSegment;
+		long index = producerIndex.getAndIncrement();
+		while (index >= segment.start + SEGMENT_SIZE) {
+			segment = segment.next();
+		}
+		if (segment != producerSegment && segment.start > producerSegment.start) {
+			producerSegment = segment;
+		}
+		segment.tasks.lazySet((int) (index & SEGMENT_MASK), task);
+	}
+
+	/**
+	 * Polls the next task, or returns {@code null} if there are no tasks which are ready to be polled.
+	 * A task may be not ready yet, even though its slot is already claimed by a producer.
+	 */
+	@Nullable
+	public Runnable poll() {
+		Segment segment = consumerSegment;
+		if (consumerIndex == segment.start + SEGMENT_SIZE) {
+			segment = segment.next;
+			if (segment == null) return null;
+			consumerSegment = segment;
+		}
+		int i = (int) (consumerIndex & SEGMENT_MASK);
+		Runnable task = segment.tasks.get(i);
+		if (task == null) return null;
+		segment.tasks.lazySet(i, null);
+		consumerIndex++;
+		return task;
+	}
+
+	public boolean isEmpty() {
+		return producerIndex.get() == consumerIndex;
+	}
+
+	/**
+	 * Returns an approximate number of tasks in this queue.
+	 */
+	public int size() {
+		return (int) Math.max(0, producerIndex.get() - consumerIndex);
+	}
+
+	@Override
+	public String toString() {
+		return "ConcurrentTaskQueue{size=" + size() + '}';
+	}
+}
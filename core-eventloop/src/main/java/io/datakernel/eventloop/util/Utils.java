@@ -1,8 +1,12 @@
 package io.datakernel.eventloop.util;
 
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.nio.channels.Selector;
 
@@ -16,6 +20,9 @@ public final class Utils {
 	private static Field SELECTED_KEYS_FIELD;
 	private static Field PUBLIC_SELECTED_KEYS_FIELD;
 
+	@Nullable
+	private static final MethodHandle ON_SPIN_WAIT;
+
 	static {
 		try {
 			Class<?> cls = Class.forName("sun.nio.ch.SelectorImpl", false, ClassLoader.getSystemClassLoader());
@@ -25,6 +32,33 @@ public final class Utils {
 			PUBLIC_SELECTED_KEYS_FIELD.setAccessible(true);
 		} catch (ClassNotFoundException | NoSuchFieldException e) {
 			logger.warn("Failed reflecting NIO selector fields", e);
+		} catch (RuntimeException e) {
+			// fields are not accessible with Java modules, selector is not optimized in that case
+			logger.debug("NIO selector fields are not accessible", e);
+			SELECTED_KEYS_FIELD = null;
+			PUBLIC_SELECTED_KEYS_FIELD = null;
+		}
+
+		MethodHandle onSpinWait;
+		try {
+			onSpinWait = MethodHandles.publicLookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			// prior to Java 9
+			onSpinWait = null;
+		}
+		ON_SPIN_WAIT = onSpinWait;
+	}
+
+	/**
+	 * Calls {@code Thread.onSpinWait()} if it is available in the running JVM, otherwise does nothing
+	 */
+	public static void onSpinWait() {
+		if (ON_SPIN_WAIT != null) {
+			try {
+				ON_SPIN_WAIT.invokeExact();
+			} catch (Throwable e) {
+				throw new AssertionError(e);
+			}
 		}
 	}
 
@@ -33,9 +67,12 @@ public final class Utils {
 	 * to {@link OptimizedSelectedKeysSet} to avoid overhead which causes a work of GC
 	 *
 	 * @param selector selector instance whose selected keys field is to be changed
-	 * @return <code>true</code> on success
+	 * @return <code>true</code> on success, <code>false</code> if selector is not a JDK selector implementation
 	 */
 	public static boolean tryToOptimizeSelector(Selector selector) {
+		if (SELECTED_KEYS_FIELD == null || !SELECTED_KEYS_FIELD.getDeclaringClass().isInstance(selector)) {
+			return false;
+		}
 		OptimizedSelectedKeysSet selectedKeys = new OptimizedSelectedKeysSet();
 		try {
 			SELECTED_KEYS_FIELD.set(selector, selectedKeys);
@@ -0,0 +1,86 @@
+package io.datakernel.eventloop;
+
+import io.datakernel.eventloop.util.ConcurrentTaskQueue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentTaskQueueTest {
+	@Test
+	public void testSingleThread() {
+		ConcurrentTaskQueue queue = new ConcurrentTaskQueue();
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll());
+
+		List<Integer> polled = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			int n = i;
+			queue.offer(() -> polled.add(n));
+		}
+		assertEquals(5000, queue.size());
+
+		Runnable task;
+		while ((task = queue.poll()) != null) {
+			task.run();
+		}
+		assertTrue(queue.isEmpty());
+		assertEquals(5000, polled.size());
+		for (int i = 0; i < polled.size(); i++) {
+			assertEquals(i, (int) polled.get(i));
+		}
+	}
+
+	@Test
+	public void testMultipleProducers() throws InterruptedException {
+		int producers = 4;
+		int tasksPerProducer = 100_000;
+		ConcurrentTaskQueue queue = new ConcurrentTaskQueue();
+		int[] lastSeen = new int[producers];
+		CountDownLatch start = new CountDownLatch(1);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			Thread thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+				for (int i = 1; i <= tasksPerProducer; i++) {
+					int n = i;
+					queue.offer(() -> {
+						assertEquals(lastSeen[producer] + 1, n);
+						lastSeen[producer] = n;
+					});
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+
+		start.countDown();
+		int polled = 0;
+		while (polled != producers * tasksPerProducer) {
+			Runnable task = queue.poll();
+			if (task == null) {
+				Thread.yield();
+				continue;
+			}
+			task.run();
+			polled++;
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertTrue(queue.isEmpty());
+		for (int p = 0; p < producers; p++) {
+			assertEquals(tasksPerProducer, lastSeen[p]);
+		}
+	}
+}
@@ -3,8 +3,14 @@ package io.datakernel.eventloop;
 import io.datakernel.common.ref.Ref;
 import org.junit.Test;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static java.util.Objects.requireNonNull;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public final class EventloopTest {
 	@Test
@@ -31,4 +37,114 @@ public final class EventloopTest {
 		assertEquals(error, errorRef.get());
 		assertEquals(contextString, sb.toString());
 	}
+
+	@Test
+	public void testAdaptivePolling() throws InterruptedException {
+		EventloopStats stats = EventloopStats.create();
+		Eventloop eventloop = Eventloop.create()
+				.withAdaptivePolling(Duration.ofMillis(5), Duration.ofMillis(5))
+				.withInspector(stats);
+		eventloop.keepAlive(true);
+		Thread thread = new Thread(eventloop);
+		thread.start();
+
+		CountDownLatch latch = new CountDownLatch(100);
+		for (int i = 0; i < 100; i++) {
+			eventloop.execute(latch::countDown);
+			Thread.sleep(i % 3);
+		}
+		latch.await();
+
+		CountDownLatch scheduledLatch = new CountDownLatch(1);
+		eventloop.execute(() -> eventloop.delay(50, scheduledLatch::countDown));
+		scheduledLatch.await();
+
+		eventloop.execute(() -> eventloop.keepAlive(false));
+		thread.join();
+
+		EventloopStats.Polling polling = stats.getPolling();
+		assertTrue(polling.getSpinWakeups().getTotalCount() + polling.getBackoffWakeups().getTotalCount() != 0);
+		assertTrue(polling.getParks().getTotalCount() != 0);
+	}
+
+	@Test
+	public void testSlowTasks() {
+		EventloopStats stats = EventloopStats.create();
+		Eventloop eventloop = Eventloop.create().withCurrentThread()
+				.withInspector(stats)
+				.withTaskTracing(true);
+		eventloop.startExtendedMonitoring();
+
+		Object context = new Object() {
+			@Override
+			public String toString() {
+				return "slow component";
+			}
+		};
+		for (int i = 0; i < 100; i++) {
+			eventloop.post(() -> {});
+		}
+		eventloop.post(RunnableWithContext.of(context, () -> sleep(20)));
+		eventloop.delay(1, () -> sleep(10));
+		eventloop.run();
+
+		assertTrue(stats.getTaskDurations().containsKey(context.getClass().getName()));
+		assertEquals(1, stats.getTaskDurations().get(context.getClass().getName()).getCount());
+
+		List<String> slowest = stats.getSlowTasks().getSlowest();
+		assertTrue(slowest.get(0).contains("slow component"));
+		assertTrue(slowest.get(0).contains("testSlowTasks"));
+		assertTrue(slowest.get(1).contains("testSlowTasks"));
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Test
+	public void testLoad() throws InterruptedException {
+		AtomicLong busyTime = new AtomicLong();
+		Eventloop eventloop = Eventloop.create(() -> System.currentTimeMillis() + busyTime.get()).withCurrentThread();
+
+		// 50 loops, each one busy for 100 millis
+		eventloop.post(new Runnable() {
+			int loops;
+
+			@Override
+			public void run() {
+				busyTime.addAndGet(100);
+				if (++loops < 50) {
+					eventloop.postNext(this);
+				}
+			}
+		});
+		eventloop.run();
+
+		// the first loop only starts a measurement period, the other 49 are 4.9 smoothing windows
+		double load = eventloop.getLoad();
+		assertEquals(1.0 - Math.exp(-4.9), load, 1e-3);
+
+		// idle time is published by the next loop
+		eventloop.delay(300, () -> {});
+		eventloop.run();
+		double idleLoad = eventloop.getLoad();
+		assertTrue(idleLoad < load * Math.exp(-0.25));
+		assertTrue(idleLoad > load * Math.exp(-0.5));
+
+		// while eventloop is parked, its load keeps decaying
+		eventloop.keepAlive(true);
+		Thread thread = new Thread(eventloop);
+		thread.start();
+		Thread.sleep(300);
+		double parkedLoad = eventloop.getLoad();
+		assertTrue(parkedLoad < idleLoad);
+		assertTrue(parkedLoad > 0);
+
+		eventloop.execute(() -> eventloop.keepAlive(false));
+		thread.join();
+	}
 }
@@ -0,0 +1,91 @@
+package io.datakernel.eventloop;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScheduledTaskWheelTest {
+	private static final Runnable NOOP = () -> {};
+
+	@Test
+	public void testTasksAreExecutedWithinTick() {
+		long start = 1_000_000_007L;
+		long tick = 10;
+		ScheduledTaskWheel wheel = ScheduledTaskWheel.create(tick, start);
+		Random random = new Random(0);
+
+		List<ScheduledRunnable> tasks = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			// covers all levels of the wheel, as well as tasks beyond its range
+			long delay = random.nextInt(4) == 0 ? random.nextInt(100) : (long) Math.pow(2, random.nextInt(45));
+			ScheduledRunnable task = ScheduledRunnable.create(start + delay, NOOP);
+			tasks.add(task);
+			wheel.add(task);
+		}
+		tasks.sort(null);
+		assertEquals(tasks.size(), wheel.size());
+
+		int polled = 0;
+		long now = start;
+		while (!wheel.isEmpty()) {
+			long next = wheel.getNextTimestamp();
+			assertTrue(next <= tasks.get(polled).getTimestamp() + tick);
+			now = Math.max(now, next);
+			ScheduledRunnable task;
+			while ((task = wheel.poll(now)) != null) {
+				assertTrue(task.getTimestamp() <= now);
+				assertTrue(task.getTimestamp() > now - tick);
+				polled++;
+			}
+		}
+		assertEquals(tasks.size(), polled);
+		assertEquals(Long.MAX_VALUE, wheel.getNextTimestamp());
+	}
+
+	@Test
+	public void testCancel() {
+		ScheduledTaskWheel wheel = ScheduledTaskWheel.create(1, 0);
+		List<ScheduledRunnable> tasks = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			ScheduledRunnable task = ScheduledRunnable.create(i * 100, NOOP);
+			tasks.add(task);
+			wheel.add(task);
+		}
+		for (int i = 0; i < tasks.size(); i += 2) {
+			tasks.get(i).cancel();
+		}
+		assertEquals(500, wheel.size());
+
+		int polled = 0;
+		ScheduledRunnable task;
+		while ((task = wheel.poll(100_000)) != null) {
+			assertFalse(task.isCancelled());
+			assertEquals(1, (task.getTimestamp() / 100) % 2);
+			polled++;
+		}
+		assertEquals(500, polled);
+		assertTrue(wheel.isEmpty());
+	}
+
+	@Test
+	public void testSameTickOrder() {
+		ScheduledTaskWheel wheel = ScheduledTaskWheel.create(1, 0);
+		ScheduledRunnable first = ScheduledRunnable.create(300, NOOP);
+		ScheduledRunnable second = ScheduledRunnable.create(300, NOOP);
+		ScheduledRunnable expired = ScheduledRunnable.create(0, NOOP);
+		wheel.add(first);
+		wheel.add(second);
+		wheel.add(expired);
+
+		assertSame(expired, wheel.poll(299));
+		assertNull(wheel.poll(299));
+		assertEquals(300, wheel.getNextTimestamp());
+		assertSame(first, wheel.poll(300));
+		assertSame(second, wheel.poll(300));
+		assertNull(wheel.poll(300));
+	}
+}
@@ -141,7 +141,7 @@ public final class RemoteAsyncDnsClient implements AsyncDnsClient, EventloopJmxB
 		}
 		try {
 			logger.trace("Incoming query, opening UDP socket");
-			DatagramChannel channel = Eventloop.createDatagramChannel(datagramSocketSettings, null, dnsServerAddress);
+			DatagramChannel channel = eventloop.openDatagramChannel(datagramSocketSettings, null, dnsServerAddress);
 			return AsyncUdpSocketNio.connect(eventloop, channel)
 					.map(s -> this.socket = s.withInspector(socketInspector));
 		} catch (IOException e) {
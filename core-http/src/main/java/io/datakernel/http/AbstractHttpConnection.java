@@ -62,6 +62,7 @@ public abstract class AbstractHttpConnection {
 	public static final MemSize MAX_HEADER_LINE_SIZE = MemSize.of(ApplicationSettings.getInt(HttpMessage.class, "maxHeaderLineSize", MemSize.kilobytes(8).toInt())); // http://stackoverflow.com/questions/686217/maximum-on-http-header-values
 	public static final int MAX_HEADER_LINE_SIZE_BYTES = MAX_HEADER_LINE_SIZE.toInt(); // http://stackoverflow.com/questions/686217/maximum-on-http-header-values
 	public static final int MAX_HEADERS = ApplicationSettings.getInt(HttpMessage.class, "maxHeaders", 100); // http://httpd.apache.org/docs/2.2/mod/core.html#limitrequestfields
+	public static final int GATHERING_WRITE_THRESHOLD = ApplicationSettings.getMemSize(HttpMessage.class, "gatheringWriteThreshold", MemSize.kilobytes(4)).toInt();
 
 	protected static final HttpHeaderValue CONNECTION_KEEP_ALIVE_HEADER = HttpHeaderValue.of("keep-alive");
 	protected static final HttpHeaderValue CONNECTION_CLOSE_HEADER = HttpHeaderValue.of("close");
@@ -180,24 +181,23 @@ public abstract class AbstractHttpConnection {
 		int size = 1;
 		for (int i = 0; i < readQueue.remainingBufs(); i++) {
 			ByteBuf buf = readQueue.peekBuf(i);
-			for (int p = buf.head(); p < buf.tail(); p++) {
-				if (buf.at(p) == LF) {
-					size += p - buf.head();
-					if (i == 0 && buf.head() == 0 && size >= 10) {
-						onStartLine(buf.array(), size);
-						readQueue.skip(size);
-					} else {
-						ByteBuf line = ByteBufPool.allocate(max(10, size)); // allocate at least 16 bytes
-						readQueue.drainTo(line, size);
-						try {
-							onStartLine(line.array(), size);
-						} finally {
-							line.recycle();
-						}
+			int p = indexOf(buf.array(), buf.head(), buf.readRemaining(), LF);
+			if (p != -1) {
+				size += p - buf.head();
+				if (i == 0 && buf.head() == 0 && size >= 10) {
+					onStartLine(buf.array(), size);
+					readQueue.skip(size);
+				} else {
+					ByteBuf line = ByteBufPool.allocate(max(10, size)); // allocate at least 16 bytes
+					readQueue.drainTo(line, size);
+					try {
+						onStartLine(line.array(), size);
+					} finally {
+						line.recycle();
 					}
-					readHeaders();
-					return;
 				}
+				readHeaders();
+				return;
 			}
 			size += buf.readRemaining();
 		}
@@ -213,8 +213,7 @@ public abstract class AbstractHttpConnection {
 			int head = buf.head();
 			int tail = buf.tail();
 			int i;
-			for (i = head; i < tail; i++) {
-				if (array[i] != LF) continue;
+			for (i = head; (i = indexOf(array, i, tail - i, LF)) != -1; i++) {
 
 				// check next byte to see if this is multiline header(CRLF + 1*(SP|HT)) rfc2616#2.2
 				if (i <= head + 1 || (i + 1 < tail && (array[i + 1] != SP && array[i + 1] != HT))) {
@@ -234,6 +233,9 @@ public abstract class AbstractHttpConnection {
 				}
 				break;
 			}
+			if (i == -1) {
+				i = tail;
+			}
 
 			if (i == tail && readQueue.remainingBufs() <= 1) {
 				break; // cannot determine if this is multiline header or not, need more data
@@ -406,6 +408,28 @@ public abstract class AbstractHttpConnection {
 				.whenComplete(afterProcessCb);
 	}
 
+	/**
+	 * Renders headers of http message which has a big enough body into a separate buf,
+	 * so that the body is not copied and both bufs are sent with a single gathering write
+	 *
+	 * @return headers buf and the body, or {@code null} if the message should be rendered with {@link #renderHttpMessage(HttpMessage)}
+	 */
+	@Nullable
+	static ByteBufQueue renderHttpMessageWithLargeBody(HttpMessage httpMessage) {
+		ByteBuf body = httpMessage.body;
+		if (body == null || (httpMessage.flags & HttpMessage.USE_GZIP) != 0 || body.readRemaining() < GATHERING_WRITE_THRESHOLD) {
+			return null;
+		}
+		httpMessage.body = null;
+		httpMessage.addHeader(CONTENT_LENGTH, ofDecimal(body.readRemaining()));
+		ByteBuf buf = ByteBufPool.allocate(httpMessage.estimateSize());
+		httpMessage.writeTo(buf);
+		ByteBufQueue bufs = new ByteBufQueue(2);
+		bufs.add(buf);
+		bufs.add(body);
+		return bufs;
+	}
+
 	static ByteBuf renderHttpMessage(HttpMessage httpMessage) {
 		if (httpMessage.body != null) {
 			ByteBuf body = httpMessage.body;
@@ -468,14 +492,21 @@ public abstract class AbstractHttpConnection {
 
 	protected void writeBuf(ByteBuf buf) {
 		socket.write(buf)
-				.whenComplete(($, e) -> {
-					if (isClosed()) return;
-					if (e == null) {
-						onBodySent();
-					} else {
-						closeWithError(e);
-					}
-				});
+				.whenComplete(this::onWriteComplete);
+	}
+
+	protected void writeBufs(ByteBufQueue bufs) {
+		socket.writeAll(bufs)
+				.whenComplete(this::onWriteComplete);
+	}
+
+	private void onWriteComplete(@Nullable Void $, @Nullable Throwable e) {
+		if (isClosed()) return;
+		if (e == null) {
+			onBodySent();
+		} else {
+			closeWithError(e);
+		}
 	}
 
 	private void writeStream(ChannelSupplier<ByteBuf> supplier) {
@@ -17,6 +17,7 @@
 package io.datakernel.http;
 
 import io.datakernel.bytebuf.ByteBuf;
+import io.datakernel.bytebuf.ByteBufQueue;
 import io.datakernel.common.parse.ParseException;
 import io.datakernel.common.parse.UnknownFormatException;
 import io.datakernel.csp.ChannelSupplier;
@@ -268,8 +269,11 @@ final class HttpClientConnection extends AbstractHttpConnection {
 			}
 		}
 		request.addHeader(CONNECTION, connectionHeader);
-		ByteBuf buf = renderHttpMessage(request);
-		if (buf != null) {
+		ByteBufQueue bufs = renderHttpMessageWithLargeBody(request);
+		ByteBuf buf = bufs == null ? renderHttpMessage(request) : null;
+		if (bufs != null) {
+			writeBufs(bufs);
+		} else if (buf != null) {
 			writeBuf(buf);
 		} else {
 			writeHttpMessageAsStream(request);
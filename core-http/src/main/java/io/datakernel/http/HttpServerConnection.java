@@ -17,6 +17,7 @@
 package io.datakernel.http;
 
 import io.datakernel.bytebuf.ByteBuf;
+import io.datakernel.bytebuf.ByteBufQueue;
 import io.datakernel.common.Check;
 import io.datakernel.common.concurrent.ThreadLocalCharArray;
 import io.datakernel.common.exception.UncheckedException;
@@ -39,6 +40,7 @@ import static io.datakernel.eventloop.RunnableWithContext.wrapContext;
 import static io.datakernel.http.HttpHeaders.CONNECTION;
 import static io.datakernel.http.HttpMessage.MUST_LOAD_BODY;
 import static io.datakernel.http.HttpMethod.*;
+import static java.lang.Math.max;
 
 /**
  * It represents server connection. It can receive {@link HttpRequest requests}
@@ -132,11 +134,9 @@ final class HttpServerConnection extends AbstractHttpConnection {
 
 		int urlStart = method.size + 1;
 
-		int urlEnd;
-		for (urlEnd = urlStart; urlEnd < limit; urlEnd++) {
-			if (line[urlEnd] == SP) {
-				break;
-			}
+		int urlEnd = indexOf(line, urlStart, limit - urlStart, SP);
+		if (urlEnd == -1) {
+			urlEnd = max(urlStart, limit);
 		}
 
 		int p;
@@ -230,6 +230,16 @@ final class HttpServerConnection extends AbstractHttpConnection {
 			}
 		}
 		httpResponse.addHeader(CONNECTION, connectionHeader);
+		ByteBufQueue bufs = renderHttpMessageWithLargeBody(httpResponse);
+		if (bufs != null) {
+			if ((flags & KEEP_ALIVE) != 0) {
+				eventloop.post(wrapContext(this, () -> writeBufs(bufs)));
+			} else {
+				writeBufs(bufs);
+			}
+			httpResponse.recycle();
+			return;
+		}
 		ByteBuf buf = renderHttpMessage(httpResponse);
 		if (buf != null) {
 			if ((flags & KEEP_ALIVE) != 0) {
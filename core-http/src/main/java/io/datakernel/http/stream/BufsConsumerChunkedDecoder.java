@@ -18,6 +18,7 @@ package io.datakernel.http.stream;
 
 import io.datakernel.bytebuf.ByteBuf;
 import io.datakernel.bytebuf.ByteBufQueue;
+import io.datakernel.bytebuf.ByteBufQueue.ByteBufQueueView;
 import io.datakernel.common.parse.InvalidSizeException;
 import io.datakernel.common.parse.ParseException;
 import io.datakernel.csp.AbstractCommunicatingProcess;
@@ -34,7 +35,6 @@ import static io.datakernel.bytebuf.ByteBufStrings.LF;
 import static io.datakernel.common.Preconditions.checkState;
 import static io.datakernel.csp.binary.ByteBufsDecoder.assertBytes;
 import static io.datakernel.csp.binary.ByteBufsDecoder.ofCrlfTerminatedBytes;
-import static java.lang.Math.min;
 
 /**
  * This is a binary channel transformer, that converts channels of {@link ByteBuf ByteBufs}
@@ -98,10 +98,11 @@ public final class BufsConsumerChunkedDecoder extends AbstractCommunicatingProce
 	private void processLength() {
 		input.parse(
 				queue -> {
+					ByteBufQueueView view = queue.view();
 					int chunkLength = 0;
 					int i;
-					for (i = 0; i < min(queue.remainingBytes(), MAX_CHUNK_LENGTH_DIGITS + 1); i++) {
-						byte c = queue.peekByte(i);
+					for (i = 0; i < MAX_CHUNK_LENGTH_DIGITS + 1 && view.canRead(); i++) {
+						byte c = view.readByte();
 						if (c >= '0' && c <= '9') {
 							chunkLength = (chunkLength << 4) + (c - '0');
 						} else if (c >= 'a' && c <= 'f') {
@@ -185,6 +185,38 @@ public final class AbstractHttpConnectionTest {
 		assertArrayEquals(expected.asArray(), result.asArray());
 	}
 
+	@Test
+	public void testLargeBodiesWithPartialWrites() throws IOException {
+		byte[] requestBytes = new byte[1_000_000];
+		byte[] responseBytes = new byte[1_000_000];
+		RANDOM.nextBytes(requestBytes);
+		RANDOM.nextBytes(responseBytes);
+
+		// large bodies are written to socket along with headers, a small send buffer splits them into partial writes
+		SocketSettings socketSettings = SocketSettings.create()
+				.withSendBufferSize(MemSize.kilobytes(4));
+
+		AsyncHttpServer server = AsyncHttpServer.create(Eventloop.getCurrentEventloop(),
+				request -> request.loadBody()
+						.map(body -> {
+							assertArrayEquals(requestBytes, body.getArray());
+							return HttpResponse.ok200().withBody(ByteBuf.wrapForReading(responseBytes));
+						}))
+				.withSocketSettings(socketSettings)
+				.withAcceptOnce()
+				.withListenPort(PORT);
+
+		server.listen();
+
+		byte[] result = await(AsyncHttpClient.create(Eventloop.getCurrentEventloop())
+				.withSocketSettings(socketSettings)
+				.request(HttpRequest.post(URL).withBody(ByteBuf.wrapForReading(requestBytes)))
+				.then(response -> response.loadBody())
+				.map(ByteBuf::getArray)
+				.whenComplete(server::close));
+		assertArrayEquals(responseBytes, result);
+	}
+
 	@Test
 	public void testEmptyRequestResponse() {
 		List<Consumer<HttpMessage>> messageDecorators = asList(
@@ -44,6 +44,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.datakernel.common.Preconditions.checkState;
 import static io.datakernel.eventloop.RunnableWithContext.wrapContext;
@@ -94,6 +95,13 @@ public abstract class AbstractServer<Self extends AbstractServer<Self>> implemen
 	private boolean running = false;
 	private List<ServerSocketChannel> serverSocketChannels;
 
+	/**
+	 * Open sockets of this server, including accepted ones, which are still being dispatched to its eventloop.
+	 * It is incremented by the server which has accepted a socket, and decremented when the socket is closed
+	 * or could not be set up.
+	 */
+	final AtomicInteger sockets = new AtomicInteger();
+
 	// jmx
 	private static final Duration SMOOTHING_WINDOW = Duration.ofMinutes(1);
 
@@ -227,6 +235,10 @@ public abstract class AbstractServer<Self extends AbstractServer<Self>> implemen
 		running = true;
 		onListen();
 		serverSocketChannels = new ArrayList<>();
+		doListen();
+	}
+
+	void doListen() throws IOException {
 		if (listenAddresses != null && !listenAddresses.isEmpty()) {
 			listenAddresses(listenAddresses, false);
 			logger.info("Listening on {}: {}", listenAddresses, this);
@@ -295,7 +307,7 @@ public abstract class AbstractServer<Self extends AbstractServer<Self>> implemen
 		return ssl ? socketSslInspector : socketInspector;
 	}
 
-	private void doAccept(SocketChannel channel, InetSocketAddress localAddress, boolean ssl) {
+	void doAccept(SocketChannel channel, InetSocketAddress localAddress, boolean ssl) {
 		InetAddress remoteAddress;
 		try {
 			remoteAddress = ((InetSocketAddress) channel.getRemoteAddress()).getAddress();
@@ -312,6 +324,9 @@ public abstract class AbstractServer<Self extends AbstractServer<Self>> implemen
 
 		WorkerServer workerServer = getWorkerServer();
 		Eventloop workerServerEventloop = workerServer.getEventloop();
+		if (workerServer instanceof AbstractServer) {
+			((AbstractServer<?>) workerServer).sockets.incrementAndGet();
+		}
 
 		if (workerServerEventloop == eventloop) {
 			workerServer.doAccept(channel, localAddress, remoteAddress, ssl, socketSettings);
@@ -336,10 +351,24 @@ public abstract class AbstractServer<Self extends AbstractServer<Self>> implemen
 		if (CHECK) checkState(eventloop.inEventloopThread(), "Not in eventloop thread");
 		accepts.recordEvent();
 		if (ssl) acceptsSsl.recordEvent();
-		onAccept(socketChannel, localAddress, remoteAddress, ssl);
-		AsyncTcpSocket asyncTcpSocket = wrapChannel(eventloop, socketChannel, socketSettings);
-		asyncTcpSocket = ssl ? wrapServerSocket(asyncTcpSocket, sslContext, sslExecutor) : asyncTcpSocket;
-		serve(asyncTcpSocket, remoteAddress);
+		AsyncTcpSocketNio asyncTcpSocketNio;
+		try {
+			onAccept(socketChannel, localAddress, remoteAddress, ssl);
+			asyncTcpSocketNio = wrapChannel(eventloop, socketChannel, socketSettings);
+		} catch (RuntimeException e) {
+			sockets.decrementAndGet();
+			eventloop.closeChannel(socketChannel, null);
+			throw e;
+		}
+		// from now on the socket is counted until it is closed
+		asyncTcpSocketNio.closeListener = sockets::decrementAndGet;
+		try {
+			AsyncTcpSocket asyncTcpSocket = ssl ? wrapServerSocket(asyncTcpSocketNio, sslContext, sslExecutor) : asyncTcpSocketNio;
+			serve(asyncTcpSocket, remoteAddress);
+		} catch (RuntimeException e) {
+			asyncTcpSocketNio.closeEx(e);
+			throw e;
+		}
 	}
 
 	private boolean isInetAddressAny(InetSocketAddress listenAddress) {
@@ -368,6 +397,14 @@ public abstract class AbstractServer<Self extends AbstractServer<Self>> implemen
 		return eventloop;
 	}
 
+	/**
+	 * Returns the number of open sockets of this server, it may be called from any thread
+	 */
+	@JmxAttribute
+	public final int getSocketsCount() {
+		return sockets.get();
+	}
+
 	@JmxAttribute(extraSubAttributes = "totalCount")
 	@Nullable
 	public final EventStats getAccepts() {
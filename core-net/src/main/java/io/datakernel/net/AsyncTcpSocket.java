@@ -18,6 +18,7 @@ package io.datakernel.net;
 
 import io.datakernel.async.process.AsyncCloseable;
 import io.datakernel.bytebuf.ByteBuf;
+import io.datakernel.bytebuf.ByteBufQueue;
 import io.datakernel.promise.Promise;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -58,5 +59,23 @@ public interface AsyncTcpSocket extends AsyncCloseable {
 	@NotNull
 	Promise<Void> write(@Nullable ByteBuf buf);
 
+	/**
+	 * Operation to write several bufs to network at once. Bufs are taken out of the given queue.
+	 * <p>
+	 * Implementations may pass all of the bufs to a single gathering write
+	 * instead of writing them one by one, which is what default implementation does.
+	 *
+	 * @param bufs data to be sent to network
+	 * @return promise that represents successfull write operation
+	 */
+	@NotNull
+	default Promise<Void> writeAll(@NotNull ByteBufQueue bufs) {
+		Promise<Void> result = Promise.complete();
+		while (bufs.hasRemaining()) {
+			result = write(bufs.take());
+		}
+		return result;
+	}
+
 	boolean isClosed();
 }
@@ -18,6 +18,7 @@ package io.datakernel.net;
 
 import io.datakernel.bytebuf.ByteBuf;
 import io.datakernel.bytebuf.ByteBufPool;
+import io.datakernel.bytebuf.ByteBufQueue;
 import io.datakernel.common.ApplicationSettings;
 import io.datakernel.common.Check;
 import io.datakernel.common.exception.AsyncTimeoutException;
@@ -67,8 +68,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 	@Nullable
 	private ByteBuf readBuf;
 	private boolean readEndOfStream;
-	@Nullable
-	private ByteBuf writeBuf;
+	private final ByteBufQueue writeQueue = new ByteBufQueue();
 	private boolean writeEndOfStream;
 
 	@Nullable
@@ -91,6 +91,9 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 	@Nullable
 	private Inspector inspector;
 
+	@Nullable
+	Runnable closeListener;
+
 	public interface Inspector extends BaseInspector<Inspector> {
 		void onReadTimeout();
 
@@ -102,7 +105,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 
 		void onWriteTimeout();
 
-		void onWrite(ByteBuf buf, int bytes);
+		void onWrite(ByteBufQueue bufs, int bytes);
 
 		void onWriteError(IOException e);
 	}
@@ -138,8 +141,8 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		}
 
 		@Override
-		public void onWrite(ByteBuf buf, int bytes) {
-			if (next != null) next.onWrite(buf, bytes);
+		public void onWrite(ByteBufQueue bufs, int bytes) {
+			if (next != null) next.onWrite(bufs, bytes);
 		}
 
 		@Override
@@ -192,9 +195,9 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		}
 
 		@Override
-		public void onWrite(ByteBuf buf, int bytes) {
+		public void onWrite(ByteBufQueue bufs, int bytes) {
 			writes.recordValue(bytes);
-			if (buf.readRemaining() != bytes)
+			if (!bufs.isEmpty())
 				writeOverloaded.recordEvent();
 		}
 
@@ -313,7 +316,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 
 	private void updateInterests() {
 		assert !isClosed() && ops >= 0;
-		byte newOps = (byte) (((readBuf == null && !readEndOfStream) ? SelectionKey.OP_READ : 0) | (writeBuf == null || writeEndOfStream ? 0 : SelectionKey.OP_WRITE));
+		byte newOps = (byte) (((readBuf == null && !readEndOfStream) ? SelectionKey.OP_READ : 0) | (writeQueue.isEmpty() || writeEndOfStream ? 0 : SelectionKey.OP_WRITE));
 		if (key == null) {
 			ops = newOps;
 			try {
@@ -400,7 +403,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 			buf.recycle();
 			if (inspector != null) inspector.onReadEndOfStream();
 			readEndOfStream = true;
-			if (writeEndOfStream && writeBuf == null) {
+			if (writeEndOfStream && writeQueue.isEmpty()) {
 				doClose();
 			}
 			return;
@@ -431,20 +434,54 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		}
 		writeEndOfStream |= buf == null;
 
-		if (writeBuf == null) {
-			if (buf != null && !buf.canRead()) {
+		if (buf != null) {
+			if (buf.canRead()) {
+				writeQueue.add(buf);
+			} else {
 				buf.recycle();
-				return Promise.complete();
+				if (writeQueue.isEmpty()) {
+					return Promise.complete();
+				}
 			}
-			writeBuf = buf;
-		} else {
-			if (buf != null) {
-				writeBuf = ByteBufPool.ensureWriteRemaining(this.writeBuf, buf.readRemaining());
-				writeBuf.put(buf.array(), buf.head(), buf.readRemaining());
+		}
+
+		return flush();
+	}
+
+	/**
+	 * Writes all of the given bufs to network at once, using a single gathering write.
+	 * Bufs are taken out of the given queue.
+	 *
+	 * @param bufs data to be sent to network
+	 * @return promise that represents successfull write operation
+	 */
+	@NotNull
+	@Override
+	public Promise<Void> writeAll(@NotNull ByteBufQueue bufs) {
+		if (CHECK) {
+			checkState(eventloop.inEventloopThread());
+			checkState(!writeEndOfStream, "End of stream has already been sent");
+		}
+		if (isClosed()) {
+			bufs.recycle();
+			return Promise.ofException(CLOSE_EXCEPTION);
+		}
+		while (bufs.hasRemaining()) {
+			ByteBuf buf = bufs.take();
+			if (buf.canRead()) {
+				writeQueue.add(buf);
+			} else {
 				buf.recycle();
 			}
 		}
+		if (writeQueue.isEmpty()) {
+			return Promise.complete();
+		}
+		return flush();
+	}
 
+	@NotNull
+	private Promise<Void> flush() {
 		if (write != null) return write;
 
 		try {
@@ -454,7 +491,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 			return Promise.ofException(e);
 		}
 
-		if (this.writeBuf == null) {
+		if (writeQueue.isEmpty()) {
 			return Promise.complete();
 		}
 		SettablePromise<Void> write = new SettablePromise<>();
@@ -478,7 +515,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 			closeEx(e);
 			return;
 		}
-		if (writeBuf == null) {
+		if (writeQueue.isEmpty()) {
 			SettablePromise<@Nullable Void> write = this.write;
 			this.write = null;
 			write.set(null);
@@ -490,26 +527,21 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 
 	private void doWrite() throws IOException {
 		assert channel != null;
-		if (writeBuf != null) {
-			ByteBuf buf = this.writeBuf;
-			ByteBuffer buffer = buf.toReadByteBuffer();
-
+		if (!writeQueue.isEmpty()) {
+			int numWritten;
 			try {
-				channel.write(buffer);
+				numWritten = write(channel, writeQueue);
 			} catch (IOException e) {
 				if (inspector != null) inspector.onWriteError(e);
 				throw e;
 			}
 
-			if (inspector != null) inspector.onWrite(buf, buffer.position() - buf.head());
+			writeQueue.skip(numWritten);
 
-			buf.ofReadByteBuffer(buffer);
+			if (inspector != null) inspector.onWrite(writeQueue, numWritten);
 
-			if (buf.canRead()) {
+			if (!writeQueue.isEmpty()) {
 				return;
-			} else {
-				buf.recycle();
-				writeBuf = null;
 			}
 		}
 
@@ -524,13 +556,20 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		}
 	}
 
+	private static int write(SocketChannel channel, ByteBufQueue queue) throws IOException {
+		if (queue.remainingBufs() == 1) {
+			return channel.write(queue.peekBuf().toReadByteBuffer());
+		}
+		return (int) channel.write(queue.toReadByteBuffers());
+	}
+
 	@Override
 	public void closeEx(@NotNull Throwable e) {
 		if (CHECK) checkState(eventloop.inEventloopThread());
 		if (isClosed()) return;
 		doClose();
 		readBuf = nullify(readBuf, ByteBuf::recycle);
-		writeBuf = nullify(writeBuf, ByteBuf::recycle);
+		writeQueue.recycle();
 		scheduledReadTimeout = nullify(scheduledReadTimeout, ScheduledRunnable::cancel);
 		scheduledWriteTimeout = nullify(scheduledWriteTimeout, ScheduledRunnable::cancel);
 		read = nullify(read, SettablePromise::setException, e);
@@ -541,6 +580,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		eventloop.closeChannel(channel, key);
 		channel = null;
 		CONNECTION_COUNT.decrementAndGet();
+		if (closeListener != null) closeListener.run();
 	}
 
 	@Override
@@ -558,7 +598,7 @@ public final class AsyncTcpSocketNio implements AsyncTcpSocket, NioChannelEventH
 		return "AsyncTcpSocketImpl{" +
 				"channel=" + (channel != null ? channel : "") +
 				", readBuf=" + readBuf +
-				", writeBuf=" + writeBuf +
+				", writeQueue=" + writeQueue +
 				", readEndOfStream=" + readEndOfStream +
 				", writeEndOfStream=" + writeEndOfStream +
 				", read=" + read +
@@ -16,24 +16,65 @@
 
 package io.datakernel.net;
 
+import io.datakernel.common.exception.UncheckedException;
 import io.datakernel.eventloop.Eventloop;
+import io.datakernel.eventloop.net.ServerSocketSettings;
+import io.datakernel.jmx.api.attribute.JmxAttribute;
 
+import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.datakernel.common.Preconditions.checkState;
 
 /**
  * It is a simple balancer server, which dispatches its connections to its {@link WorkerServer WorkerServers}.
  * <p>
- * When an incoming connection takes place, it forwards the request to one of them with a round-robin algorithm.
+ * When an incoming connection takes place, it forwards the request to one of them according to {@link DispatchPolicy},
+ * which is round-robin by default.
+ * <p>
+ * Alternatively, in {@link #withReusePort() reuse port} mode primary server does not accept connections itself,
+ * instead each of worker servers listens on its own server socket, bound to the same address with {@code SO_REUSEPORT}
+ * option, and connections are distributed between worker servers by OS kernel.
  */
 public final class PrimaryServer extends AbstractServer<PrimaryServer> {
 
+	public enum DispatchPolicy {
+		/**
+		 * Worker servers are chosen in turn
+		 */
+		ROUND_ROBIN,
+
+		/**
+		 * Worker server with the least number of open sockets is chosen
+		 */
+		LEAST_CONNECTIONS,
+
+		/**
+		 * Of two worker servers, next one in turn and a random one, the one whose eventloop
+		 * has less {@link Eventloop#getLoad() load} is chosen.
+		 * <p>
+		 * As load is smoothed over time, choosing the single least loaded worker server
+		 * would send all of the connections of a burst to it.
+		 */
+		LEAST_LOADED
+	}
+
 	private final WorkerServer[] workerServers;
 
+	private DispatchPolicy dispatchPolicy = DispatchPolicy.ROUND_ROBIN;
+	private boolean reusePort;
+
 	private int currentAcceptor = -1; // first server index is currentAcceptor + 1
 
+	private final List<List<ServerSocketChannel>> workerServerSocketChannels = new ArrayList<>();
+
 	// region builders
 	private PrimaryServer(Eventloop primaryEventloop, WorkerServer[] workerServers) {
 		super(primaryEventloop);
@@ -58,6 +99,28 @@ public final class PrimaryServer extends AbstractServer<PrimaryServer> {
 	public static PrimaryServer create(Eventloop primaryEventloop, WorkerServer... workerServer) {
 		return new PrimaryServer(primaryEventloop, workerServer);
 	}
+
+	public PrimaryServer withDispatchPolicy(DispatchPolicy dispatchPolicy) {
+		this.dispatchPolicy = dispatchPolicy;
+		return this;
+	}
+
+	public PrimaryServer withReusePort() {
+		return withReusePort(true);
+	}
+
+	/**
+	 * In this mode worker servers, which should be instances of {@link AbstractServer}, accept connections
+	 * on their own, applying their own accept filters and socket settings.
+	 * Server sockets are bound in eventloops of worker servers, so those eventloops should be already running
+	 * when this server begins listening.
+	 *
+	 * @see ServerSocketSettings#withReusePort(boolean)
+	 */
+	public PrimaryServer withReusePort(boolean reusePort) {
+		this.reusePort = reusePort;
+		return this;
+	}
 	// endregion
 
 	@Override
@@ -65,12 +128,136 @@ public final class PrimaryServer extends AbstractServer<PrimaryServer> {
 		throw new UnsupportedOperationException();
 	}
 
+	@Override
+	void doListen() throws IOException {
+		if (!reusePort) {
+			super.doListen();
+			return;
+		}
+		for (WorkerServer workerServer : workerServers) {
+			checkState(workerServer instanceof AbstractServer,
+					() -> "Worker server should be an instance of AbstractServer to listen on its own: " + workerServer);
+		}
+		ServerSocketSettings settings = serverSocketSettings.withReusePort(true);
+		for (WorkerServer workerServer : workerServers) {
+			AbstractServer<?> server = (AbstractServer<?>) workerServer;
+			List<ServerSocketChannel> channels = new ArrayList<>();
+			workerServerSocketChannels.add(channels);
+			try {
+				runInEventloop(server.getEventloop(), () -> {
+					listenAddresses(server, listenAddresses, false, settings, channels);
+					listenAddresses(server, sslListenAddresses, true, settings, channels);
+				});
+			} catch (IOException e) {
+				logger.error("Can't listen on " + server + " with reuse port: " + this, e);
+				close();
+				throw e;
+			}
+		}
+		logger.info("Listening with reuse port on {}{}: {}", listenAddresses,
+				sslListenAddresses.isEmpty() ? "" : ", with SSL on " + sslListenAddresses, this);
+	}
+
+	private static void listenAddresses(AbstractServer<?> server, List<InetSocketAddress> addresses, boolean ssl,
+			ServerSocketSettings settings, List<ServerSocketChannel> channels) throws IOException {
+		for (InetSocketAddress address : addresses) {
+			channels.add(server.getEventloop().listen(address, settings, channel -> server.doAccept(channel, address, ssl)));
+		}
+	}
+
+	@FunctionalInterface
+	private interface IOAction {
+		void run() throws IOException;
+	}
+
+	private void runInEventloop(Eventloop workerEventloop, IOAction action) throws IOException {
+		if (workerEventloop == eventloop) {
+			action.run();
+			return;
+		}
+		try {
+			workerEventloop.submit(() -> {
+				try {
+					action.run();
+				} catch (IOException e) {
+					throw new UncheckedException(e);
+				}
+			}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while listening in " + workerEventloop, e);
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		}
+	}
+
+	@Override
+	protected void closeServerSockets() {
+		super.closeServerSockets();
+		for (int i = 0; i < workerServerSocketChannels.size(); i++) {
+			List<ServerSocketChannel> channels = workerServerSocketChannels.get(i);
+			Eventloop workerEventloop = workerServers[i].getEventloop();
+			Runnable closeChannels = () -> {
+				for (ServerSocketChannel channel : channels) {
+					workerEventloop.closeChannel(channel, channel.keyFor(workerEventloop.getSelector()));
+				}
+			};
+			if (workerEventloop == eventloop) {
+				closeChannels.run();
+			} else {
+				workerEventloop.execute(closeChannels);
+			}
+		}
+		workerServerSocketChannels.clear();
+	}
+
 	@Override
 	protected WorkerServer getWorkerServer() {
-		currentAcceptor = (currentAcceptor + 1) % workerServers.length;
+		int next = (currentAcceptor + 1) % workerServers.length;
+		switch (dispatchPolicy) {
+			case LEAST_CONNECTIONS:
+				// ties are resolved in round-robin order, starting from the next worker server
+				int best = next;
+				int bestSockets = getSocketsCount(workerServers[next]);
+				for (int i = 1; i < workerServers.length; i++) {
+					int index = (next + i) % workerServers.length;
+					int sockets = getSocketsCount(workerServers[index]);
+					if (sockets < bestSockets) {
+						best = index;
+						bestSockets = sockets;
+					}
+				}
+				currentAcceptor = best;
+				break;
+			case LEAST_LOADED:
+				int random = ThreadLocalRandom.current().nextInt(workerServers.length);
+				currentAcceptor = workerServers[random].getEventloop().getLoad() < workerServers[next].getEventloop().getLoad() ?
+						random : next;
+				break;
+			default:
+				currentAcceptor = next;
+		}
 		return workerServers[currentAcceptor];
 	}
 
+	private static int getSocketsCount(WorkerServer workerServer) {
+		return workerServer instanceof AbstractServer ? ((AbstractServer<?>) workerServer).getSocketsCount() : 0;
+	}
+
+	public DispatchPolicy getDispatchPolicy() {
+		return dispatchPolicy;
+	}
+
+	@JmxAttribute(name = "dispatchPolicy")
+	public String getDispatchPolicyName() {
+		return dispatchPolicy.name();
+	}
+
+	@JmxAttribute
+	public boolean isReusePort() {
+		return reusePort;
+	}
+
 	@Override
 	public String toString() {
 		return "PrimaryServer{" +
@@ -78,6 +265,8 @@ public final class PrimaryServer extends AbstractServer<PrimaryServer> {
 				(listenAddresses.isEmpty() ? "" : ", listenAddresses=" + listenAddresses) +
 				(sslListenAddresses.isEmpty() ? "" : ", sslListenAddresses=" + sslListenAddresses) +
 				(acceptOnce ? ", acceptOnce" : "") +
+				(dispatchPolicy != DispatchPolicy.ROUND_ROBIN ? ", dispatchPolicy=" + dispatchPolicy : "") +
+				(reusePort ? ", reusePort" : "") +
 				", workerServers=" + Arrays.toString(workerServers) +
 				'}';
 	}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.net;
+
+import io.datakernel.bytebuf.ByteBuf;
+import io.datakernel.bytebuf.ByteBufQueue;
+import io.datakernel.common.ref.RefInt;
+import io.datakernel.eventloop.net.SocketSettings;
+import io.datakernel.promise.Promise;
+import io.datakernel.promise.Promises;
+import io.datakernel.test.rules.ByteBufRule;
+import io.datakernel.test.rules.EventloopRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Function;
+
+import static io.datakernel.common.MemSize.kilobytes;
+import static io.datakernel.promise.TestUtils.await;
+import static io.datakernel.test.TestUtils.getFreePort;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class AsyncTcpSocketNioTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	// a small send buffer makes the kernel accept only a part of the queued bufs on each write
+	private static final SocketSettings SOCKET_SETTINGS = SocketSettings.create()
+			.withSendBufferSize(kilobytes(4));
+
+	@Test
+	public void testWriteAllWithPartialWrites() throws IOException {
+		byte[] data = randomBytes(4 * 1024 * 1024);
+		RefInt partialWrites = new RefInt(0);
+
+		ByteBuf received = echoUpload(socket -> {
+			socket.withInspector(new PartialWritesInspector(partialWrites));
+			ByteBufQueue bufs = new ByteBufQueue();
+			Random random = new Random(1);
+			for (int offset = 0; offset < data.length; ) {
+				int size = Math.min(1 + random.nextInt(64 * 1024), data.length - offset);
+				bufs.add(ByteBuf.wrap(data, offset, offset + size));
+				offset += size;
+			}
+			return socket.writeAll(bufs);
+		});
+
+		assertArrayEquals(data, received.asArray());
+		assertTrue(partialWrites.get() > 0);
+	}
+
+	@Test
+	public void testWritesAreQueuedWhileWriteIsPending() throws IOException {
+		byte[] data = randomBytes(1024 * 1024);
+		RefInt partialWrites = new RefInt(0);
+
+		ByteBuf received = echoUpload(socket -> {
+			socket.withInspector(new PartialWritesInspector(partialWrites));
+			Promise<Void> result = Promise.complete();
+			for (int offset = 0; offset < data.length; offset += 1000) {
+				result = socket.write(ByteBuf.wrap(data, offset, Math.min(offset + 1000, data.length)));
+			}
+			return result;
+		});
+
+		assertArrayEquals(data, received.asArray());
+		assertTrue(partialWrites.get() > 0);
+	}
+
+	/**
+	 * Uploads data to a server, which sends everything it receives back once the upload is complete
+	 */
+	private static ByteBuf echoUpload(Function<AsyncTcpSocketNio, Promise<Void>> upload) throws IOException {
+		InetSocketAddress address = new InetSocketAddress("localhost", getFreePort());
+		SimpleServer.create(socket -> readAll(socket)
+				.then(buf -> socket.write(buf))
+				.then(() -> socket.write(null))
+				.whenComplete(socket::close))
+				.withListenAddress(address)
+				.withAcceptOnce()
+				.listen();
+
+		return await(AsyncTcpSocketNio.connect(address, null, SOCKET_SETTINGS)
+				.then(socket -> upload.apply(socket)
+						.then(() -> socket.write(null))
+						.then(() -> readAll(socket))
+						.whenComplete(socket::close)));
+	}
+
+	private static Promise<ByteBuf> readAll(AsyncTcpSocket socket) {
+		ByteBufQueue queue = new ByteBufQueue();
+		return Promises.<ByteBuf>until(null,
+				$ -> socket.read()
+						.whenResult(buf -> {
+							if (buf != null) {
+								queue.add(buf);
+							}
+						}),
+				Objects::isNull)
+				.map($ -> queue.takeRemaining());
+	}
+
+	private static byte[] randomBytes(int size) {
+		byte[] bytes = new byte[size];
+		new Random(0).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static final class PartialWritesInspector extends AsyncTcpSocketNio.ForwardingInspector {
+		private final RefInt partialWrites;
+
+		PartialWritesInspector(RefInt partialWrites) {
+			super(null);
+			this.partialWrites = partialWrites;
+		}
+
+		@Override
+		public void onWrite(ByteBufQueue bufs, int bytes) {
+			if (!bufs.isEmpty()) {
+				partialWrites.inc();
+			}
+		}
+	}
+}
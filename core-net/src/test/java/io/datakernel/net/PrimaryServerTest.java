@@ -0,0 +1,219 @@
+package io.datakernel.net;
+
+import io.datakernel.eventloop.Eventloop;
+import io.datakernel.eventloop.net.ServerSocketSettings;
+import io.datakernel.net.PrimaryServer.DispatchPolicy;
+import io.datakernel.promise.Promise;
+import io.datakernel.promise.Promises;
+import io.datakernel.promise.SettablePromise;
+import io.datakernel.test.rules.ByteBufRule;
+import io.datakernel.test.rules.EventloopRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static io.datakernel.promise.TestUtils.await;
+import static io.datakernel.test.TestUtils.getFreePort;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class PrimaryServerTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	@ClassRule
+	public static final ByteBufRule byteBufRule = new ByteBufRule();
+
+	private final Queue<SettablePromise<Void>> acceptCallbacks = new ArrayDeque<>();
+	private final List<AsyncTcpSocket> clientSockets = new ArrayList<>();
+
+	@Test
+	public void testLeastConnections() throws IOException {
+		InetSocketAddress address = new InetSocketAddress("localhost", getFreePort());
+		List<AsyncTcpSocket> firstWorkerSockets = new ArrayList<>();
+		SimpleServer firstWorker = createWorker(firstWorkerSockets);
+		SimpleServer secondWorker = createWorker(new ArrayList<>());
+		PrimaryServer primaryServer = PrimaryServer.create(firstWorker.getEventloop(), firstWorker, secondWorker)
+				.withDispatchPolicy(DispatchPolicy.LEAST_CONNECTIONS)
+				.withListenAddress(address);
+		primaryServer.listen();
+
+		List<Integer> socketsCounts = new ArrayList<>();
+		await(connect(address, 4)
+				.whenResult(() -> {
+					socketsCounts.add(firstWorker.getSocketsCount());
+					socketsCounts.add(secondWorker.getSocketsCount());
+					firstWorkerSockets.forEach(AsyncTcpSocket::close);
+					socketsCounts.add(firstWorker.getSocketsCount());
+				})
+				.then(() -> connect(address, 2))
+				.whenResult(() -> {
+					socketsCounts.add(firstWorker.getSocketsCount());
+					socketsCounts.add(secondWorker.getSocketsCount());
+				})
+				.whenComplete(() -> {
+					clientSockets.forEach(AsyncTcpSocket::close);
+					primaryServer.close();
+				}));
+
+		// round-robin would have dispatched one of the last connections to the second worker
+		assertEquals(asList(2, 2, 0, 2, 2), socketsCounts);
+	}
+
+	@Test
+	public void testReusePort() throws IOException {
+		if (!ServerSocketSettings.isReusePortSupported()) return;
+		InetSocketAddress address = new InetSocketAddress("localhost", getFreePort());
+		SimpleServer firstWorker = createWorker(new ArrayList<>());
+		SimpleServer secondWorker = createWorker(new ArrayList<>());
+		PrimaryServer primaryServer = PrimaryServer.create(firstWorker.getEventloop(), firstWorker, secondWorker)
+				.withReusePort()
+				.withListenAddress(address);
+		primaryServer.listen();
+
+		List<Integer> socketsCounts = new ArrayList<>();
+		await(connect(address, 10)
+				.whenResult(() -> {
+					socketsCounts.add(firstWorker.getSocketsCount() + secondWorker.getSocketsCount());
+					socketsCounts.add(primaryServer.getSocketsCount());
+				})
+				.whenComplete(() -> {
+					clientSockets.forEach(AsyncTcpSocket::close);
+					primaryServer.close();
+				}));
+
+		assertEquals(asList(10, 0), socketsCounts);
+	}
+
+	@Test
+	public void testLeastLoaded() throws Exception {
+		InetSocketAddress address = new InetSocketAddress("localhost", getFreePort());
+		Eventloop busyEventloop = Eventloop.create();
+		Eventloop idleEventloop = Eventloop.create();
+		List<Thread> threads = asList(start(busyEventloop), start(idleEventloop));
+
+		AtomicBoolean busy = new AtomicBoolean(true);
+		busyEventloop.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (!busy.get()) return;
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					throw new AssertionError(e);
+				}
+				busyEventloop.postNext(this);
+			}
+		});
+		while (busyEventloop.getLoad() < 0.5) {
+			Thread.sleep(10);
+		}
+
+		List<Eventloop> dispatched = new ArrayList<>();
+		PrimaryServer primaryServer = PrimaryServer.create(Eventloop.getCurrentEventloop(),
+				createWorker(busyEventloop, dispatched), createWorker(idleEventloop, dispatched))
+				.withDispatchPolicy(DispatchPolicy.LEAST_LOADED)
+				.withListenAddress(address);
+		primaryServer.listen();
+
+		try {
+			await(connect(address, 100)
+					.whenComplete(() -> {
+						clientSockets.forEach(AsyncTcpSocket::close);
+						primaryServer.close();
+					}));
+		} finally {
+			busy.set(false);
+			stop(threads, busyEventloop, idleEventloop);
+		}
+
+		// round-robin turn goes to the busy worker every other time, and it is taken only if the random choice is the same
+		for (int i = 1; i < dispatched.size(); i++) {
+			assertTrue(dispatched.get(i - 1) == idleEventloop || dispatched.get(i) == idleEventloop);
+		}
+		long idleCount = dispatched.stream().filter(eventloop -> eventloop == idleEventloop).count();
+		assertTrue(idleCount > dispatched.size() - idleCount);
+	}
+
+	@Test
+	public void testSocketsCountWhenServeFails() throws Exception {
+		InetSocketAddress address = new InetSocketAddress("localhost", getFreePort());
+		Eventloop mainEventloop = Eventloop.getCurrentEventloop();
+		Eventloop workerEventloop = Eventloop.create();
+		List<Thread> threads = asList(start(workerEventloop));
+
+		SimpleServer worker = SimpleServer.create(workerEventloop, socket -> {
+			mainEventloop.execute(() -> acceptCallbacks.remove().set(null));
+			throw new IllegalStateException("Failed to serve");
+		});
+		PrimaryServer primaryServer = PrimaryServer.create(mainEventloop, worker)
+				.withListenAddress(address);
+		primaryServer.listen();
+
+		try {
+			await(connect(address, 3)
+					.whenComplete(() -> {
+						clientSockets.forEach(AsyncTcpSocket::close);
+						primaryServer.close();
+					}));
+			// worker eventloop is done with the failed sockets once it runs this task
+			assertEquals(0, (int) workerEventloop.submit(() -> Promise.of(worker.getSocketsCount())).get());
+		} finally {
+			stop(threads, workerEventloop);
+		}
+	}
+
+	private static Thread start(Eventloop eventloop) {
+		eventloop.keepAlive(true);
+		Thread thread = new Thread(eventloop);
+		thread.start();
+		return thread;
+	}
+
+	private static void stop(List<Thread> threads, Eventloop... eventloops) throws InterruptedException {
+		for (Eventloop eventloop : eventloops) {
+			eventloop.execute(() -> eventloop.keepAlive(false));
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	private SimpleServer createWorker(Eventloop eventloop, List<Eventloop> dispatched) {
+		Eventloop mainEventloop = Eventloop.getCurrentEventloop();
+		return SimpleServer.create(eventloop, socket -> {
+			socket.close();
+			mainEventloop.execute(() -> {
+				dispatched.add(eventloop);
+				acceptCallbacks.remove().set(null);
+			});
+		});
+	}
+
+	private SimpleServer createWorker(List<AsyncTcpSocket> acceptedSockets) {
+		return SimpleServer.create(socket -> {
+			acceptedSockets.add(socket);
+			acceptCallbacks.remove().set(null);
+		});
+	}
+
+	private Promise<Void> connect(InetSocketAddress address, int connections) {
+		return Promises.sequence(IntStream.range(0, connections)
+				.mapToObj($ -> () -> {
+					SettablePromise<Void> accepted = new SettablePromise<>();
+					acceptCallbacks.add(accepted);
+					return AsyncTcpSocketNio.connect(address)
+							.whenResult(clientSockets::add)
+							.both(accepted);
+				}));
+	}
+}
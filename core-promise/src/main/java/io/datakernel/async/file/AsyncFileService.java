@@ -1,11 +1,44 @@
 package io.datakernel.async.file;
 
 import io.datakernel.promise.Promise;
+import io.datakernel.promise.Promises;
 
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
 public interface AsyncFileService {
 	Promise<Integer> read(FileChannel channel, long position, byte[] array, int offset, int size);
 
 	Promise<Integer> write(FileChannel channel, long position, byte[] array, int offset, int size);
+
+	/**
+	 * Writes all remaining bytes of given buffers one after another, starting from given position.
+	 * <p>
+	 * Default implementation writes the buffers one by one, implementations may write all of them at once.
+	 */
+	default Promise<Integer> write(FileChannel channel, long position, ByteBuffer[] buffers) {
+		long[] pos = {position};
+		return Promises.loop(0, i -> i < buffers.length,
+				i -> {
+					ByteBuffer buffer = buffers[i];
+					int size = buffer.remaining();
+					byte[] array;
+					int offset;
+					if (buffer.hasArray()) {
+						array = buffer.array();
+						offset = buffer.arrayOffset() + buffer.position();
+					} else {
+						array = new byte[size];
+						buffer.duplicate().get(array);
+						offset = 0;
+					}
+					return write(channel, pos[0], array, offset, size)
+							.map(written -> {
+								buffer.position(buffer.position() + written);
+								pos[0] += written;
+								return i + 1;
+							});
+				})
+				.map($ -> Math.toIntExact(pos[0] - position));
+	}
 }
@@ -55,4 +55,26 @@ public final class ExecutorAsyncFileService implements AsyncFileService {
 			return Math.toIntExact(pos - position);
 		});
 	}
+
+	@Override
+	public Promise<Integer> write(FileChannel channel, long position, ByteBuffer[] buffers) {
+		if (buffers.length == 0) {
+			return Promise.of(0);
+		}
+		return ofBlockingCallable(executor, () -> {
+			long pos = position;
+
+			try {
+				// FileChannel has no positional gathering write, and its own position is not touched here
+				for (ByteBuffer buffer : buffers) {
+					while (buffer.hasRemaining()) {
+						pos += channel.write(buffer, pos);
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedException(e);
+			}
+			return Math.toIntExact(pos - position);
+		});
+	}
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.async.process;
+
+import io.datakernel.common.ApplicationSettings;
+import io.datakernel.jmx.api.attribute.JmxAttribute;
+import io.datakernel.jmx.api.attribute.JmxOperation;
+import io.datakernel.jmx.stats.EventStats;
+import io.datakernel.jmx.stats.ValueStats;
+
+import java.time.Duration;
+
+import static io.datakernel.common.Preconditions.checkArgument;
+import static java.lang.Math.*;
+
+/**
+ * Limit of concurrent calls, which adapts to observed round trip times.
+ * <p>
+ * The limit follows TCP Vegas: once the calls are observed to take longer than the minimal round trip time,
+ * the excess is attributed to queueing, and the number of queued calls is estimated as
+ * {@code limit * (1 - minRtt / rtt)}. The limit grows while there are only a few of queued calls,
+ * and shrinks when there are too many of them. Dropped calls (timeouts or overloads)
+ * decrease the limit multiplicatively, as in AIMD.
+ * <p>
+ * Minimal round trip time is re-measured from time to time, so that the limit adapts to changes of the baseline.
+ * <p>
+ * Limiter is not thread-safe and is meant to be used from a single eventloop.
+ */
+public final class AdaptiveConcurrencyLimiter {
+	public static final int DEFAULT_INITIAL_LIMIT = ApplicationSettings.getInt(AdaptiveConcurrencyLimiter.class, "initialLimit", 20);
+	public static final int DEFAULT_MAX_LIMIT = ApplicationSettings.getInt(AdaptiveConcurrencyLimiter.class, "maxLimit", 1000);
+	public static final double DEFAULT_BACKOFF_RATIO = ApplicationSettings.getDouble(AdaptiveConcurrencyLimiter.class, "backoffRatio", 0.9);
+	public static final int DEFAULT_PROBE_INTERVAL = ApplicationSettings.getInt(AdaptiveConcurrencyLimiter.class, "probeInterval", 1000);
+	private static final Duration SMOOTHING_WINDOW = Duration.ofMinutes(1);
+
+	private int minLimit = 1;
+	private int maxLimit = DEFAULT_MAX_LIMIT;
+	private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+	private int probeInterval = DEFAULT_PROBE_INTERVAL;
+
+	private double limit = DEFAULT_INITIAL_LIMIT;
+	private int inFlight;
+	private long minRttNanos = Long.MAX_VALUE;
+	private int samplesUntilProbe = DEFAULT_PROBE_INTERVAL;
+
+	// region JMX
+	private final ValueStats queueingDelay = ValueStats.create(SMOOTHING_WINDOW).withUnit("microseconds");
+	private final EventStats drops = EventStats.create(SMOOTHING_WINDOW);
+	private final EventStats rejects = EventStats.create(SMOOTHING_WINDOW);
+	// endregion
+
+	// region builders
+	private AdaptiveConcurrencyLimiter() {
+	}
+
+	public static AdaptiveConcurrencyLimiter create() {
+		return new AdaptiveConcurrencyLimiter();
+	}
+
+	public AdaptiveConcurrencyLimiter withInitialLimit(int initialLimit) {
+		checkArgument(initialLimit > 0, "Initial limit should be positive");
+		this.limit = initialLimit;
+		return this;
+	}
+
+	public AdaptiveConcurrencyLimiter withMinLimit(int minLimit) {
+		checkArgument(minLimit > 0, "Min limit should be positive");
+		this.minLimit = minLimit;
+		return this;
+	}
+
+	public AdaptiveConcurrencyLimiter withMaxLimit(int maxLimit) {
+		checkArgument(maxLimit > 0, "Max limit should be positive");
+		this.maxLimit = maxLimit;
+		return this;
+	}
+
+	/**
+	 * Sets a ratio, by which the limit is multiplied when a call is dropped
+	 */
+	public AdaptiveConcurrencyLimiter withBackoffRatio(double backoffRatio) {
+		checkArgument(backoffRatio > 0 && backoffRatio < 1, "Backoff ratio should be in range (0, 1)");
+		this.backoffRatio = backoffRatio;
+		return this;
+	}
+
+	/**
+	 * Sets a number of samples, after which minimal round trip time is measured anew
+	 */
+	public AdaptiveConcurrencyLimiter withProbeInterval(int probeInterval) {
+		checkArgument(probeInterval > 0, "Probe interval should be positive");
+		this.probeInterval = probeInterval;
+		this.samplesUntilProbe = probeInterval;
+		return this;
+	}
+	// endregion
+
+	/**
+	 * Checks whether the limit allows one more call, without acquiring a permit
+	 */
+	public boolean hasCapacity() {
+		return inFlight < getLimit();
+	}
+
+	/**
+	 * Acquires a permit for a call, if the limit allows it.
+	 * Each acquired permit should be released with one of {@code on...} methods.
+	 * A call which has not got a permit is not counted as rejected,
+	 * as it may still wait for one, see {@link #onRejected()}.
+	 */
+	public boolean tryAcquire() {
+		if (!hasCapacity()) return false;
+		inFlight++;
+		return true;
+	}
+
+	/**
+	 * Records a call, which has been refused because of the limit
+	 */
+	public void onRejected() {
+		rejects.recordEvent();
+	}
+
+	/**
+	 * Releases a permit of a call, which has completed in given time
+	 */
+	public void onSuccess(long rttNanos) {
+		int inFlight = this.inFlight--;
+		if (--samplesUntilProbe == 0) {
+			samplesUntilProbe = probeInterval;
+			minRttNanos = Long.MAX_VALUE;
+		}
+		rttNanos = max(rttNanos, 1);
+		if (rttNanos < minRttNanos) {
+			minRttNanos = rttNanos;
+		}
+		queueingDelay.recordValue((rttNanos - minRttNanos) / 1000);
+
+		// the limit is not probed while it is not even used
+		if (inFlight * 2 < limit) return;
+
+		double queueSize = ceil(limit * (1 - (double) minRttNanos / rttNanos));
+		double log = max(1, floor(log10(limit)));
+		if (queueSize <= 3 * log) {
+			limit += log;
+		} else if (queueSize >= 6 * log) {
+			limit -= log;
+		}
+		limit = min(max(limit, minLimit), maxLimit);
+	}
+
+	/**
+	 * Releases a permit of a call, which has been dropped because of a timeout or an overload
+	 */
+	public void onDropped() {
+		inFlight--;
+		drops.recordEvent();
+		limit = max(limit * backoffRatio, minLimit);
+	}
+
+	/**
+	 * Releases a permit of a call, which has completed in a way that says nothing about the load,
+	 * for example with an application error
+	 */
+	public void onIgnored() {
+		inFlight--;
+	}
+
+	// region JMX
+	@JmxAttribute
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	@JmxAttribute
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	@JmxAttribute(description = "minimal round trip time since the last probe (in microseconds)")
+	public long getMinRtt() {
+		return minRttNanos == Long.MAX_VALUE ? 0 : minRttNanos / 1000;
+	}
+
+	@JmxAttribute(description = "excess of round trip time over the minimal one, which is attributed to queueing")
+	public ValueStats getQueueingDelay() {
+		return queueingDelay;
+	}
+
+	@JmxAttribute(description = "calls which have timed out or have been rejected because of an overload")
+	public EventStats getDrops() {
+		return drops;
+	}
+
+	@JmxAttribute(description = "calls which have been refused because of the limit")
+	public EventStats getRejects() {
+		return rejects;
+	}
+
+	@JmxOperation
+	public void resetMinRtt() {
+		minRttNanos = Long.MAX_VALUE;
+		samplesUntilProbe = probeInterval;
+	}
+	// endregion
+
+	@Override
+	public String toString() {
+		return "AdaptiveConcurrencyLimiter{" +
+				"limit=" + getLimit() +
+				", inFlight=" + inFlight +
+				", minRtt=" + getMinRtt() + "us" +
+				'}';
+	}
+}
@@ -17,6 +17,7 @@
 package io.datakernel.async.process;
 
 import io.datakernel.async.function.AsyncSupplier;
+import io.datakernel.common.exception.AsyncTimeoutException;
 import io.datakernel.eventloop.Eventloop;
 import io.datakernel.promise.Promise;
 import io.datakernel.promise.Promises;
@@ -133,6 +134,66 @@ public class AsyncExecutors {
 		};
 	}
 
+	public static AsyncExecutor adaptive(@NotNull AdaptiveConcurrencyLimiter limiter) {
+		return adaptive(limiter, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Same as {@link #buffered(int, int)}, but the number of parallel calls is limited by given
+	 * {@link AdaptiveConcurrencyLimiter}, which adapts to the observed durations of the calls.
+	 * Calls which complete with {@link AsyncTimeoutException} are considered to be dropped.
+	 */
+	public static AsyncExecutor adaptive(@NotNull AdaptiveConcurrencyLimiter limiter, int maxBufferedCalls) {
+		return new AsyncExecutor() {
+			private final ArrayDeque<Object> deque = new ArrayDeque<>();
+			private boolean processing;
+
+			@SuppressWarnings("unchecked")
+			private void processBuffer() {
+				// calls which complete right away do not process the buffer recursively
+				if (processing) return;
+				processing = true;
+				while (!deque.isEmpty() && limiter.tryAcquire()) {
+					AsyncSupplier<Object> supplier = (AsyncSupplier<Object>) deque.pollFirst();
+					SettablePromise<Object> cb = (SettablePromise<Object>) deque.pollFirst();
+					doExecute(supplier).whenComplete(cb);
+				}
+				processing = false;
+			}
+
+			private <T> Promise<T> doExecute(AsyncSupplier<T> supplier) {
+				long start = System.nanoTime();
+				return supplier.get()
+						.whenComplete((result, e) -> {
+							if (e == null) {
+								limiter.onSuccess(System.nanoTime() - start);
+							} else if (e instanceof AsyncTimeoutException) {
+								limiter.onDropped();
+							} else {
+								limiter.onIgnored();
+							}
+							processBuffer();
+						});
+			}
+
+			@NotNull
+			@Override
+			public <T> Promise<T> execute(@NotNull AsyncSupplier<T> supplier) throws RejectedExecutionException {
+				if (deque.isEmpty() && limiter.tryAcquire()) {
+					return doExecute(supplier);
+				}
+				if (deque.size() > maxBufferedCalls) {
+					limiter.onRejected();
+					throw new RejectedExecutionException("Too many operations running");
+				}
+				SettablePromise<T> result = new SettablePromise<>();
+				deque.addLast(supplier);
+				deque.addLast(result);
+				return result;
+			}
+		};
+	}
+
 	public static AsyncExecutor retry(@NotNull RetryPolicy<?> retryPolicy) {
 		return new AsyncExecutor() {
 			@NotNull
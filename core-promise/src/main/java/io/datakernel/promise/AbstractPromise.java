@@ -107,6 +107,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 	protected void complete(@Nullable T value) {
 		if (CHECK) checkState(!isComplete(), "Promise has already been completed");
 		result = value;
+		if (PromiseTracer.enabled) PromiseTracer.onComplete(this, null);
 		if (next != null) {
 			next.accept(value, null);
 			if (RESET_CALLBACKS) {
@@ -120,6 +121,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 		if (CHECK) checkState(!isComplete(), "Promise has already been completed");
 		result = null;
 		exception = e;
+		if (PromiseTracer.enabled) PromiseTracer.onComplete(this, e);
 		if (next != null) {
 			next.accept(null, e);
 			if (RESET_CALLBACKS) {
@@ -128,6 +130,18 @@ abstract class AbstractPromise<T> implements Promise<T> {
 		}
 	}
 
+	/**
+	 * Completes this promise with the outcome of given promise.
+	 * Already complete promise is not subscribed to, so no callback is allocated.
+	 */
+	protected void completeWith(@NotNull Promise<? extends T> promise) {
+		if (promise.isComplete()) {
+			complete(promise.getResult(), promise.getException());
+		} else {
+			promise.whenComplete(this::complete);
+		}
+	}
+
 	protected void tryComplete(@Nullable T value, @Nullable Throwable e) {
 		if (!isComplete()) {
 			complete(value, e);
@@ -159,7 +173,17 @@ abstract class AbstractPromise<T> implements Promise<T> {
 
 	@Async.Schedule
 	protected void subscribe(@NotNull Callback<? super T> callback) {
+		subscribe(callback, callback);
+	}
+
+	/**
+	 * Subscribes given callback, which was created to call given function, the callsite is used by {@link PromiseTracer}
+	 */
+	private void subscribe(@NotNull Callback<? super T> callback, @NotNull Object callsite) {
 		if (CHECK) checkState(!isComplete(), "Promise has already been completed");
+		if (PromiseTracer.enabled && callback instanceof AbstractPromise) {
+			PromiseTracer.onSubscribe(this, (AbstractPromise<?>) callback, callsite);
+		}
 		if (next == null) {
 			next = callback;
 		} else if (next instanceof CallbackList) {
@@ -201,7 +225,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 				return ".map(" + formatToString(fn) + ')';
 			}
 		};
-		subscribe(resultPromise);
+		subscribe(resultPromise, fn);
 		return resultPromise;
 	}
 
@@ -244,7 +268,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 				return ".mapEx(" + formatToString(fn) + ')';
 			}
 		};
-		subscribe(resultPromise);
+		subscribe(resultPromise, fn);
 		return resultPromise;
 	}
 
@@ -269,7 +293,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 						completeExceptionally(u.getCause());
 						return;
 					}
-					promise.whenComplete(this::complete);
+					completeWith(promise);
 				} else {
 					completeExceptionally(e);
 				}
@@ -280,7 +304,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 				return ".then(" + formatToString(fn) + ')';
 			}
 		};
-		subscribe(resultPromise);
+		subscribe(resultPromise, fn);
 		return resultPromise;
 	}
 
@@ -304,7 +328,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 						completeExceptionally(u.getCause());
 						return;
 					}
-					promise.whenComplete(this::complete);
+					completeWith(promise);
 				} else {
 					completeExceptionally(e);
 				}
@@ -315,7 +339,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 				return ".then(" + formatToString(fn) + ')';
 			}
 		};
-		subscribe(resultPromise);
+		subscribe(resultPromise, fn);
 		return resultPromise;
 	}
 
@@ -340,7 +364,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 						completeExceptionally(u.getCause());
 						return;
 					}
-					promise.whenComplete(this::complete);
+					completeWith(promise);
 				} else {
 					Promise<? extends U> promise;
 					try {
@@ -349,7 +373,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 						completeExceptionally(u.getCause());
 						return;
 					}
-					promise.whenComplete(this::complete);
+					completeWith(promise);
 				}
 			}
 
@@ -358,7 +382,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 				return ".thenEx(" + formatToString(fn) + ')';
 			}
 		};
-		subscribe(resultPromise);
+		subscribe(resultPromise, fn);
 		return resultPromise;
 	}
 
@@ -514,7 +538,7 @@ abstract class AbstractPromise<T> implements Promise<T> {
 		}
 		PromiseCombine<T, V, U> resultPromise = new PromiseCombine<>(fn);
 		other.whenComplete(resultPromise::acceptOther);
-		subscribe(resultPromise);
+		subscribe(resultPromise, fn);
 		return resultPromise;
 	}
 
@@ -720,26 +744,65 @@ abstract class AbstractPromise<T> implements Promise<T> {
 		return future;
 	}
 
-	private static class CallbackList<T> implements Callback<T> {
-		private int index = 2;
-		private Callback<? super T>[] callbacks = new Callback[4];
+	/**
+	 * Callbacks of a promise with several subscribers.
+	 * Up to 3 callbacks are stored inline, so that there is a single allocation
+	 * for the most common cases, the array is only allocated for more callbacks.
+	 */
+	private static final class CallbackList<T> implements Callback<T> {
+		private final Callback<? super T> first;
+		private final Callback<? super T> second;
+		@Nullable
+		private Callback<? super T> third;
+		@Nullable
+		private Callback<? super T>[] rest;
+		private int restSize;
 
-		public CallbackList(Callback<? super T> first, Callback<? super T> second) {
-			callbacks[0] = first;
-			callbacks[1] = second;
+		CallbackList(Callback<? super T> first, Callback<? super T> second) {
+			this.first = first;
+			this.second = second;
 		}
 
-		public void add(Callback<? super T> callback) {
-			if (index == callbacks.length) {
-				callbacks = Arrays.copyOf(callbacks, callbacks.length * 2);
+		void add(Callback<? super T> callback) {
+			if (third == null) {
+				third = callback;
+				return;
+			}
+			if (rest == null) {
+				rest = new Callback[4];
+			} else if (restSize == rest.length) {
+				rest = Arrays.copyOf(rest, rest.length * 2);
+			}
+			rest[restSize++] = callback;
+		}
+
+		int size() {
+			return third == null ? 2 : 3 + restSize;
+		}
+
+		Callback<? super T> get(int index) {
+			switch (index) {
+				case 0:
+					return first;
+				case 1:
+					return second;
+				case 2:
+					return third;
+				default:
+					assert rest != null;
+					return rest[index - 3];
 			}
-			callbacks[index++] = callback;
 		}
 
 		@Override
 		public void accept(T result, @Nullable Throwable e) {
-			for (int i = 0; i < index; i++) {
-				callbacks[i].accept(result, e);
+			first.accept(result, e);
+			second.accept(result, e);
+			if (third != null) {
+				third.accept(result, e);
+				for (int i = 0; i < restSize; i++) {
+					rest[i].accept(result, e);
+				}
 			}
 		}
 	}
@@ -754,8 +817,8 @@ abstract class AbstractPromise<T> implements Promise<T> {
 		}
 		if (callback instanceof CallbackList) {
 			CallbackList<? super T> callbackList = (CallbackList<? super T>) callback;
-			for (int i = 0; i < callbackList.index; i++) {
-				appendChildren(sb, callbackList.callbacks[i], indent);
+			for (int i = 0; i < callbackList.size(); i++) {
+				appendChildren(sb, callbackList.get(i), indent);
 			}
 		} else {
 			indent += "\t";
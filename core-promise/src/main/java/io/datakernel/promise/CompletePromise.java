@@ -74,7 +74,7 @@ public abstract class CompletePromise<T> implements Promise<T> {
 	@Override
 	public final <U> Promise<U> map(@NotNull Function<? super T, ? extends U> fn) {
 		try {
-			return Promise.of(fn.apply(getResult()));
+			return same(fn.apply(getResult()));
 		} catch (UncheckedException u) {
 			return Promise.ofException(u.getCause());
 		}
@@ -84,12 +84,19 @@ public abstract class CompletePromise<T> implements Promise<T> {
 	@Override
 	public final <U> Promise<U> mapEx(@NotNull BiFunction<? super T, Throwable, ? extends U> fn) {
 		try {
-			return Promise.of(fn.apply(getResult(), null));
+			return same(fn.apply(getResult(), null));
 		} catch (UncheckedException u) {
 			return Promise.ofException(u.getCause());
 		}
 	}
 
+	/**
+	 * Complete promise is immutable, so it is reused if mapping function returns the same result
+	 */
+	private <U> Promise<U> same(U newResult) {
+		return newResult == getResult() ? (Promise<U>) this : Promise.of(newResult);
+	}
+
 	@SuppressWarnings("unchecked")
 	@NotNull
 	@Override
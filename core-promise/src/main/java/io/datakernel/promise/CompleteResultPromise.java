@@ -1,17 +1,53 @@
 package io.datakernel.promise;
 
+import org.jetbrains.annotations.NotNull;
+
 /**
  * Represents a {@link CompletePromise} with a result of unspecified type.
  *
  * @param <T> type of the result
  */
 public final class CompleteResultPromise<T> extends CompletePromise<T> {
+	private static final CompleteResultPromise<Boolean> TRUE = new CompleteResultPromise<>(Boolean.TRUE);
+	private static final CompleteResultPromise<Boolean> FALSE = new CompleteResultPromise<>(Boolean.FALSE);
+
+	private static final int INTEGER_CACHE_LOW = -128;
+	private static final int INTEGER_CACHE_HIGH = 127;
+	private static final CompleteResultPromise<?>[] INTEGER_CACHE = new CompleteResultPromise<?>[INTEGER_CACHE_HIGH - INTEGER_CACHE_LOW + 1];
+
+	static {
+		for (int i = 0; i < INTEGER_CACHE.length; i++) {
+			INTEGER_CACHE[i] = new CompleteResultPromise<>(Integer.valueOf(i + INTEGER_CACHE_LOW));
+		}
+	}
+
 	private final T result;
 
 	public CompleteResultPromise(T result) {
 		this.result = result;
 	}
 
+	/**
+	 * Returns a shared promise for booleans and small integers, otherwise creates a new one.
+	 * Shared promise is only returned for the very same boxed instance, so the identity of a result is preserved.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> CompleteResultPromise<T> of(@NotNull T result) {
+		if (result instanceof Boolean) {
+			return (CompleteResultPromise<T>) (result == Boolean.TRUE ? TRUE : result == Boolean.FALSE ? FALSE : new CompleteResultPromise<>(result));
+		}
+		if (result instanceof Integer) {
+			int value = (Integer) result;
+			if (value >= INTEGER_CACHE_LOW && value <= INTEGER_CACHE_HIGH) {
+				CompleteResultPromise<?> cached = INTEGER_CACHE[value - INTEGER_CACHE_LOW];
+				if (cached.result == result) {
+					return (CompleteResultPromise<T>) cached;
+				}
+			}
+		}
+		return new CompleteResultPromise<>(result);
+	}
+
 	@Override
 	public final T getResult() {
 		return result;
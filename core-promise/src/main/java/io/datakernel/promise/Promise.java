@@ -74,7 +74,7 @@ public interface Promise<T> extends io.datakernel.promise.Async<T>, AsyncComputa
 	 */
 	@NotNull
 	static <T> CompletePromise<T> of(@Nullable T value) {
-		return value != null ? new CompleteResultPromise<>(value) : CompleteNullPromise.instance();
+		return value != null ? CompleteResultPromise.of(value) : CompleteNullPromise.instance();
 	}
 
 	/**
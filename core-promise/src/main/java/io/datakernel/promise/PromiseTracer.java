@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2015-2019 SoftIndex LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.datakernel.promise;
+
+import io.datakernel.common.ApplicationSettings;
+import io.datakernel.eventloop.Eventloop;
+import io.datakernel.eventloop.jmx.EventloopJmxBeanEx;
+import io.datakernel.jmx.api.attribute.JmxAttribute;
+import io.datakernel.jmx.api.attribute.JmxOperation;
+import io.datakernel.jmx.stats.EventStats;
+import io.datakernel.jmx.stats.ValueStats;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import static io.datakernel.common.Preconditions.checkArgument;
+import static io.datakernel.jmx.stats.JmxHistogram.POWERS_OF_TEN_LINEAR;
+
+/**
+ * Opt-in tracing of promises, which are completed in the eventloop thread.
+ * <p>
+ * While tracing is {@link #setEnabled enabled}, each promise derived from another one (with {@code map},
+ * {@code then}, {@link Promises#all} and other combinators) is linked to its parent and to its callsite,
+ * which is the function it was derived with. Recent links are kept in a ring buffer, so that once a promise
+ * fails, the chain of promises which have led to it, its async stack, is reconstructed.
+ * Durations of stages, from completion of the parent promise to completion of the derived one,
+ * are collected per callsite.
+ * <p>
+ * Only promises of eventloops with a tracer are traced, and while tracing is disabled,
+ * promises only check a single flag.
+ */
+public final class PromiseTracer implements EventloopJmxBeanEx {
+	public static final int DEFAULT_BUFFER_SIZE = ApplicationSettings.getInt(PromiseTracer.class, "bufferSize", 16384);
+	private static final int MAX_CALLSITES = ApplicationSettings.getInt(PromiseTracer.class, "maxCallsites", 1000);
+	private static final String OTHER_CALLSITES_KEY = "<other>";
+	private static final int MAX_FAILURES = 16;
+	private static final int MAX_ASYNC_STACK_DEPTH = 64;
+	private static final Duration SMOOTHING_WINDOW = Duration.ofMinutes(1);
+
+	static volatile boolean enabled = ApplicationSettings.getBoolean(PromiseTracer.class, "enabled", false);
+
+	private static final ThreadLocal<PromiseTracer> CURRENT = new ThreadLocal<>();
+
+	private final Eventloop eventloop;
+
+	private final Link[] links;
+	private long linksCount;
+
+	/**
+	 * Links of incomplete parent promises, several links of the same parent are chained
+	 */
+	private final IdentityHashMap<Object, Link> pendingLinks = new IdentityHashMap<>();
+	/**
+	 * The most recent link of each derived promise, which is still in the ring buffer
+	 */
+	private final IdentityHashMap<Object, Link> linksByChild = new IdentityHashMap<>();
+
+	private final Map<Class<?>, String> callsiteNames = new HashMap<>();
+	private final Map<String, ValueStats> durations = new HashMap<>();
+	private final ArrayDeque<String> recentFailures = new ArrayDeque<>();
+	private final EventStats failures = EventStats.create(SMOOTHING_WINDOW);
+
+	private static final class Link {
+		Object parent;
+		Object child;
+		String callsite;
+		long startNanos;
+
+		@Nullable
+		Link parentLink;
+		@Nullable
+		Link sibling;
+	}
+
+	// region builders
+	private PromiseTracer(Eventloop eventloop, int bufferSize) {
+		this.eventloop = eventloop;
+		this.links = new Link[bufferSize];
+	}
+
+	/**
+	 * Creates a tracer of promises of given eventloop, it is installed once eventloop executes its tasks
+	 */
+	public static PromiseTracer create(@NotNull Eventloop eventloop) {
+		return create(eventloop, DEFAULT_BUFFER_SIZE);
+	}
+
+	public static PromiseTracer create(@NotNull Eventloop eventloop, int bufferSize) {
+		checkArgument(bufferSize > 0, "Buffer size should be positive");
+		PromiseTracer tracer = new PromiseTracer(eventloop, bufferSize);
+		eventloop.execute(() -> CURRENT.set(tracer));
+		return tracer;
+	}
+	// endregion
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		PromiseTracer.enabled = enabled;
+	}
+
+	/**
+	 * Returns tracer of current thread, or {@code null} if there is no tracer
+	 */
+	@Nullable
+	public static PromiseTracer getCurrent() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Returns callsites of the chain of promises, which have led to given promise, starting from the promise itself,
+	 * or an empty list if the promise has not been traced or its link has already been evicted from the ring buffer.
+	 */
+	public static List<String> getAsyncStack(@NotNull Promise<?> promise) {
+		PromiseTracer tracer = CURRENT.get();
+		if (tracer == null) return Collections.emptyList();
+		return tracer.toAsyncStack(tracer.linksByChild.get(promise));
+	}
+
+	static void onSubscribe(AbstractPromise<?> parent, AbstractPromise<?> child, Object callsite) {
+		PromiseTracer tracer = CURRENT.get();
+		if (tracer != null) tracer.link(parent, child, callsite);
+	}
+
+	static void onComplete(AbstractPromise<?> promise, @Nullable Throwable e) {
+		PromiseTracer tracer = CURRENT.get();
+		if (tracer != null) tracer.complete(promise, e);
+	}
+
+	private void link(AbstractPromise<?> parent, AbstractPromise<?> child, Object callsite) {
+		int index = (int) (linksCount++ % links.length);
+		if (links[index] != null) {
+			evict(links[index]);
+		}
+		// links are not reused, as they may still be referenced as parent links
+		Link link = links[index] = new Link();
+		link.parent = parent;
+		link.child = child;
+		link.callsite = getCallsiteName(child, callsite);
+		link.parentLink = linksByChild.get(parent);
+		link.sibling = pendingLinks.put(parent, link);
+		linksByChild.put(child, link);
+	}
+
+	private void evict(Link link) {
+		if (linksByChild.get(link.child) == link) {
+			linksByChild.remove(link.child);
+		}
+		if (pendingLinks.get(link.parent) == link) {
+			if (link.sibling != null) {
+				pendingLinks.put(link.parent, link.sibling);
+			} else {
+				pendingLinks.remove(link.parent);
+			}
+		}
+		// callsite is kept, so that async stacks which refer to evicted link are truncated at it
+		link.parent = link.child = null;
+		link.parentLink = link.sibling = null;
+	}
+
+	private String getCallsiteName(AbstractPromise<?> child, Object callsite) {
+		String name = callsiteNames.get(callsite.getClass());
+		if (name == null) {
+			name = callsiteNames.size() < MAX_CALLSITES ? child.describe() : OTHER_CALLSITES_KEY;
+			callsiteNames.put(callsite.getClass(), name);
+		}
+		return name;
+	}
+
+	private void complete(AbstractPromise<?> promise, @Nullable Throwable e) {
+		long now = System.nanoTime();
+		Link link = linksByChild.get(promise);
+		if (link != null && link.startNanos != 0) {
+			recordDuration(link.callsite, now - link.startNanos);
+			if (e != null && !isPropagated(link, e)) {
+				recordFailure(link, e);
+			}
+		}
+		// stages derived from this promise are started
+		for (Link child = pendingLinks.remove(promise); child != null; child = child.sibling) {
+			child.startNanos = now;
+			linksByChild.put(child.child, child);
+		}
+	}
+
+	/**
+	 * Exception is propagated from the parent promise, unless the parent is not traced itself
+	 */
+	private static boolean isPropagated(Link link, Throwable e) {
+		return link.parentLink != null && link.parent instanceof Promise && ((Promise<?>) link.parent).getException() == e;
+	}
+
+	private void recordDuration(String callsite, long nanos) {
+		ValueStats stats = durations.get(callsite);
+		if (stats == null) {
+			stats = durations.computeIfAbsent(durations.size() < MAX_CALLSITES ? callsite : OTHER_CALLSITES_KEY,
+					$ -> ValueStats.create(SMOOTHING_WINDOW).withHistogram(POWERS_OF_TEN_LINEAR).withUnit("microseconds"));
+		}
+		stats.recordValue(nanos / 1000);
+	}
+
+	private void recordFailure(Link link, Throwable e) {
+		failures.recordEvent();
+		StringBuilder sb = new StringBuilder()
+				.append(Instant.ofEpochMilli(eventloop.currentTimeMillis())).append(' ')
+				.append(e);
+		for (String callsite : toAsyncStack(link)) {
+			sb.append("\n\tat ").append(callsite);
+		}
+		if (recentFailures.size() == MAX_FAILURES) {
+			recentFailures.removeFirst();
+		}
+		recentFailures.addLast(sb.toString());
+	}
+
+	private List<String> toAsyncStack(@Nullable Link link) {
+		List<String> result = new ArrayList<>();
+		for (; link != null; link = link.parentLink) {
+			if (result.size() == MAX_ASYNC_STACK_DEPTH) {
+				result.add("...");
+				break;
+			}
+			result.add(link.callsite);
+		}
+		return result;
+	}
+
+	@NotNull
+	@Override
+	public Eventloop getEventloop() {
+		return eventloop;
+	}
+
+	// region JMX
+	@JmxAttribute(description = "whether promises of all of eventloops with tracers are traced")
+	public boolean isTracingEnabled() {
+		return enabled;
+	}
+
+	@JmxAttribute
+	public void setTracingEnabled(boolean enabled) {
+		setEnabled(enabled);
+	}
+
+	@JmxAttribute
+	public int getBufferSize() {
+		return links.length;
+	}
+
+	@JmxAttribute
+	public long getLinksCount() {
+		return linksCount;
+	}
+
+	@JmxAttribute(description = "promises which are waited for by derived promises")
+	public int getPendingPromises() {
+		return pendingLinks.size();
+	}
+
+	@JmxAttribute(description = "durations of stages, from completion of parent promise to completion of derived one, " +
+			"grouped by callsites")
+	public Map<String, ValueStats> getDurations() {
+		return durations;
+	}
+
+	@JmxAttribute
+	public EventStats getFailures() {
+		return failures;
+	}
+
+	@JmxAttribute(description = "most recent failures with async stacks of the promises, where the exceptions have originated")
+	public List<String> getRecentFailures() {
+		return new ArrayList<>(recentFailures);
+	}
+
+	@JmxOperation
+	public void clear() {
+		for (Link link : links) {
+			if (link != null) evict(link);
+		}
+		pendingLinks.clear();
+		linksByChild.clear();
+		recentFailures.clear();
+	}
+	// endregion
+
+	@Override
+	public String toString() {
+		return "PromiseTracer{" +
+				"enabled=" + enabled +
+				", links=" + linksCount +
+				", pendingPromises=" + pendingLinks.size() +
+				", failures=" + failures.getTotalCount() +
+				'}';
+	}
+}
@@ -20,6 +20,7 @@ import io.datakernel.async.function.AsyncSupplier;
 import io.datakernel.common.collection.Try;
 import io.datakernel.common.exception.AsyncTimeoutException;
 import io.datakernel.common.exception.StacklessException;
+import io.datakernel.common.exception.UncheckedException;
 import io.datakernel.common.ref.RefInt;
 import io.datakernel.common.tuple.*;
 import io.datakernel.eventloop.Eventloop;
@@ -37,6 +38,7 @@ import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static io.datakernel.common.Preconditions.checkArgument;
 import static io.datakernel.common.Utils.nullify;
 import static io.datakernel.common.collection.CollectionUtils.asIterator;
 import static io.datakernel.common.collection.CollectionUtils.transformIterator;
@@ -1751,4 +1753,121 @@ public final class Promises {
 			}
 		}
 	}
+
+	/**
+	 * Returns a function, which coalesces calls with single keys into calls of given bulk function.
+	 * <p>
+	 * Keys which are requested within the same eventloop tick are collected into one batch,
+	 * while the same key requested several times within a batch is passed to the bulk function only once.
+	 * Results are then dispatched back to each of the callers, a key which is missing from
+	 * the resulting map is completed with {@code null}, and an exception of bulk function
+	 * completes all of the calls of the batch exceptionally, as well as a runtime exception
+	 * thrown by bulk function or a {@code null} map of results.
+	 *
+	 * @see #batch(int, Duration, Function)
+	 */
+	@Contract(pure = true)
+	@NotNull
+	public static <K, V> Function<K, Promise<V>> batch(@NotNull Function<List<K>, Promise<Map<K, V>>> bulkFn) {
+		return batch(Integer.MAX_VALUE, Duration.ZERO, bulkFn);
+	}
+
+	@Contract(pure = true)
+	@NotNull
+	public static <K, V> Function<K, Promise<V>> batch(int maxBatchSize, @NotNull Function<List<K>, Promise<Map<K, V>>> bulkFn) {
+		return batch(maxBatchSize, Duration.ZERO, bulkFn);
+	}
+
+	/**
+	 * Same as {@link #batch(Function)}, but a batch is passed to bulk function as soon as it
+	 * reaches {@code maxBatchSize} keys, and otherwise waits up to {@code maxDelay} for more keys,
+	 * instead of being passed at the end of the current eventloop tick.
+	 *
+	 * @param maxBatchSize max number of distinct keys in a batch
+	 * @param maxDelay     max delay of the first key of a batch, with granularity of eventloop timers,
+	 *                     zero means that batch is only collected within the current tick
+	 * @param bulkFn       function which loads values of a list of keys
+	 */
+	@Contract(pure = true)
+	@NotNull
+	public static <K, V> Function<K, Promise<V>> batch(int maxBatchSize, @NotNull Duration maxDelay,
+			@NotNull Function<List<K>, Promise<Map<K, V>>> bulkFn) {
+		checkArgument(maxBatchSize > 0, "Max batch size should be positive");
+		checkArgument(!maxDelay.isNegative(), "Max delay cannot be negative");
+		return new BatchImpl<>(maxBatchSize, maxDelay.toMillis(), bulkFn);
+	}
+
+	private static final class BatchImpl<K, V> implements Function<K, Promise<V>> {
+		private final int maxBatchSize;
+		private final long maxDelayMillis;
+		@NotNull
+		private final Function<List<K>, Promise<Map<K, V>>> bulkFn;
+
+		private Map<K, SettablePromise<V>> batch = new LinkedHashMap<>();
+		@Nullable
+		private ScheduledRunnable scheduledFlush;
+
+		BatchImpl(int maxBatchSize, long maxDelayMillis, @NotNull Function<List<K>, Promise<Map<K, V>>> bulkFn) {
+			this.maxBatchSize = maxBatchSize;
+			this.maxDelayMillis = maxDelayMillis;
+			this.bulkFn = bulkFn;
+		}
+
+		@Override
+		public Promise<V> apply(K key) {
+			SettablePromise<V> promise = batch.get(key);
+			if (promise != null) return promise;
+			promise = new SettablePromise<>();
+			batch.put(key, promise);
+			if (batch.size() >= maxBatchSize) {
+				flush();
+			} else if (batch.size() == 1) {
+				Map<K, SettablePromise<V>> batch = this.batch;
+				Runnable flush = wrapContext(this, () -> {
+					// batch may have already been flushed because of its size
+					if (this.batch == batch) flush();
+				});
+				if (maxDelayMillis == 0) {
+					getCurrentEventloop().postLast(flush);
+				} else {
+					scheduledFlush = getCurrentEventloop().delay(maxDelayMillis, flush);
+				}
+			}
+			return promise;
+		}
+
+		private void flush() {
+			Map<K, SettablePromise<V>> batch = this.batch;
+			this.batch = new LinkedHashMap<>();
+			scheduledFlush = nullify(scheduledFlush, ScheduledRunnable::cancel);
+			Promise<Map<K, V>> bulkPromise;
+			try {
+				bulkPromise = bulkFn.apply(new ArrayList<>(batch.keySet()));
+			} catch (UncheckedException u) {
+				bulkPromise = Promise.ofException(u.getCause());
+			} catch (RuntimeException e) {
+				bulkPromise = Promise.ofException(e);
+			}
+			bulkPromise
+					.whenComplete((result, e) -> {
+						if (e == null && result == null) {
+							e = new StacklessException(Promises.class, "Bulk function returned null instead of a map of results");
+						}
+						if (e == null) {
+							for (Map.Entry<K, SettablePromise<V>> entry : batch.entrySet()) {
+								entry.getValue().set(result.get(entry.getKey()));
+							}
+						} else {
+							for (SettablePromise<V> promise : batch.values()) {
+								promise.setException(e);
+							}
+						}
+					});
+		}
+
+		@Override
+		public String toString() {
+			return "Promises.batch(" + maxBatchSize + ", " + maxDelayMillis + "ms)";
+		}
+	}
 }
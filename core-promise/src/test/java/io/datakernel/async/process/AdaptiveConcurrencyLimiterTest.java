@@ -0,0 +1,140 @@
+package io.datakernel.async.process;
+
+import io.datakernel.common.exception.AsyncTimeoutException;
+import io.datakernel.promise.Promise;
+import io.datakernel.promise.SettablePromise;
+import io.datakernel.test.rules.EventloopRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static io.datakernel.promise.TestUtils.await;
+import static org.junit.Assert.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+	@ClassRule
+	public static EventloopRule eventloopRule = new EventloopRule();
+
+	@Test
+	public void testLimitFollowsQueueing() {
+		AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.create()
+				.withInitialLimit(10)
+				.withMaxLimit(100)
+				.withProbeInterval(100_000);
+
+		// calls take as long as the fastest one, so nothing is queued
+		for (int i = 0; i < 20; i++) {
+			runFullyLoaded(limiter, 1_000_000);
+		}
+		assertEquals(100, limiter.getLimit());
+		assertEquals(1000, limiter.getMinRtt());
+
+		// calls take twice as long, so half of them are queued
+		for (int i = 0; i < 5; i++) {
+			runFullyLoaded(limiter, 2_000_000);
+		}
+		assertTrue(limiter.getLimit() < 20);
+		assertEquals(0, limiter.getInFlight());
+
+		// once minimal round trip time is probed anew, slower calls are considered to be the baseline
+		limiter.resetMinRtt();
+		for (int i = 0; i < 20; i++) {
+			runFullyLoaded(limiter, 2_000_000);
+		}
+		assertEquals(100, limiter.getLimit());
+	}
+
+	@Test
+	public void testDropsDecreaseLimit() {
+		AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.create()
+				.withInitialLimit(100)
+				.withBackoffRatio(0.5);
+
+		assertTrue(limiter.tryAcquire());
+		limiter.onDropped();
+		assertEquals(50, limiter.getLimit());
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.onDropped();
+		}
+		assertEquals(1, limiter.getLimit());
+		assertEquals(11, limiter.getDrops().getTotalCount());
+	}
+
+	@Test
+	public void testAdaptiveExecutor() {
+		AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.create()
+				.withInitialLimit(4)
+				.withBackoffRatio(0.5);
+		AsyncExecutor executor = AsyncExecutors.adaptive(limiter);
+
+		List<SettablePromise<Integer>> calls = new ArrayList<>();
+		List<Promise<Integer>> results = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			results.add(executor.execute(() -> {
+				SettablePromise<Integer> call = new SettablePromise<>();
+				calls.add(call);
+				return call;
+			}));
+		}
+		assertEquals(4, calls.size());
+		assertEquals(4, limiter.getInFlight());
+		// buffered calls are not rejected
+		assertEquals(0, limiter.getRejects().getTotalCount());
+
+		// limit is halved, so the buffered calls wait for more calls to complete
+		calls.get(0).setException(new AsyncTimeoutException(AdaptiveConcurrencyLimiterTest.class, "timeout"));
+		assertEquals(2, limiter.getLimit());
+		assertEquals(4, calls.size());
+
+		for (int i = 1; i < 6; i++) {
+			calls.get(i).set(i);
+		}
+		assertEquals(6, calls.size());
+		assertEquals(Integer.valueOf(5), await(results.get(5)));
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	@Test
+	public void testRejectsAreCountedForRefusedCallsOnly() {
+		AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.create()
+				.withInitialLimit(1);
+		AsyncExecutor executor = AsyncExecutors.adaptive(limiter, 2);
+
+		SettablePromise<Integer> call = new SettablePromise<>();
+		executor.execute(() -> call);
+		assertFalse(limiter.hasCapacity());
+		assertFalse(limiter.tryAcquire());
+		assertEquals(0, limiter.getRejects().getTotalCount());
+
+		executor.execute(() -> Promise.of(2));
+		executor.execute(() -> Promise.of(3));
+		assertEquals(0, limiter.getRejects().getTotalCount());
+
+		try {
+			executor.execute(() -> Promise.of(4));
+			fail();
+		} catch (RejectedExecutionException ignored) {
+		}
+		assertEquals(1, limiter.getRejects().getTotalCount());
+
+		call.set(1);
+		assertEquals(0, limiter.getInFlight());
+		assertTrue(limiter.hasCapacity());
+		assertEquals(1, limiter.getRejects().getTotalCount());
+	}
+
+	private static void runFullyLoaded(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+		int calls = 0;
+		while (limiter.tryAcquire()) {
+			calls++;
+		}
+		for (int i = 0; i < calls; i++) {
+			limiter.onSuccess(rttNanos);
+		}
+	}
+}
@@ -4,7 +4,7 @@ import io.datakernel.common.ref.RefInt;
 import org.jetbrains.annotations.Nullable;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public final class AbstractPromiseTest {
 
@@ -38,4 +38,33 @@ public final class AbstractPromiseTest {
 		assertEquals("12345", sb.toString());
 
 	}
+
+	@Test
+	public void testCompletePromisesAreShared() {
+		assertSame(Promise.of(true), Promise.of(true));
+		assertSame(Promise.of(100), Promise.of(100));
+		assertNotSame(Promise.of(1000), Promise.of(1000));
+
+		@SuppressWarnings({"deprecation", "UnnecessaryBoxing"})
+		Integer notCached = new Integer(100);
+		assertSame(notCached, Promise.of(notCached).getResult());
+
+		Promise<String> promise = Promise.of("value");
+		assertSame(promise, promise.map(value -> value));
+		assertSame(promise, promise.mapEx((value, e) -> value));
+	}
+
+	@Test
+	public void testThenCompletesWithCompletePromise() {
+		SettablePromise<Integer> settablePromise = new SettablePromise<>();
+		StringBuilder sb = new StringBuilder();
+		settablePromise
+				.then(value -> Promise.of(value + 1))
+				.then(value -> Promise.<Integer>ofException(new Exception("error " + value)))
+				.whenException(e -> sb.append(e.getMessage()));
+
+		settablePromise.set(1);
+
+		assertEquals("error 2", sb.toString());
+	}
 }
@@ -0,0 +1,91 @@
+package io.datakernel.promise;
+
+import io.datakernel.common.exception.StacklessException;
+import io.datakernel.eventloop.Eventloop;
+import io.datakernel.test.rules.EventloopRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.List;
+
+import static io.datakernel.eventloop.Eventloop.getCurrentEventloop;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public final class PromiseTracerTest {
+	@ClassRule
+	public static final EventloopRule eventloopRule = new EventloopRule();
+
+	private PromiseTracer tracer;
+
+	@Before
+	public void setUp() {
+		Eventloop eventloop = getCurrentEventloop();
+		tracer = PromiseTracer.create(eventloop, 1024);
+		eventloop.run();
+		PromiseTracer.setEnabled(true);
+	}
+
+	@After
+	public void tearDown() {
+		PromiseTracer.setEnabled(false);
+	}
+
+	@Test
+	public void testAsyncStackOfFailedPromise() {
+		StacklessException exception = new StacklessException(PromiseTracerTest.class, "failure");
+		SettablePromise<Integer> settablePromise = new SettablePromise<>();
+		Promise<Integer> promise = settablePromise
+				.map(value -> value + 1)
+				.then(value -> Promise.<Integer>ofException(exception))
+				.map(value -> value * 2);
+
+		settablePromise.set(1);
+
+		assertSame(exception, promise.getException());
+		List<String> asyncStack = PromiseTracer.getAsyncStack(promise);
+		assertEquals(3, asyncStack.size());
+		assertTrue(asyncStack.get(0).startsWith(".map("));
+		assertTrue(asyncStack.get(1).startsWith(".then("));
+		assertTrue(asyncStack.get(2).startsWith(".map("));
+
+		// exception is recorded only where it has originated, not where it is propagated
+		assertEquals(1, tracer.getFailures().getTotalCount());
+		String failure = tracer.getRecentFailures().get(0);
+		assertTrue(failure.contains("failure"));
+		assertEquals(2, failure.split("\n\tat ").length - 1);
+
+		assertEquals(3, tracer.getDurations().size());
+		assertEquals(0, tracer.getPendingPromises());
+	}
+
+	@Test
+	public void testFailureOfUntracedPromise() {
+		StacklessException exception = new StacklessException(PromiseTracerTest.class, "failure");
+		SettablePromise<Integer> first = new SettablePromise<>();
+		SettablePromise<Integer> second = new SettablePromise<>();
+		SettablePromise<Integer> third = new SettablePromise<>();
+		Promise<Void> promise = Promises.all(first, second, third).toVoid();
+
+		first.set(1);
+		second.setException(exception);
+
+		assertSame(exception, promise.getException());
+		assertEquals(asList(".toVoid()", "Promises.all()"), PromiseTracer.getAsyncStack(promise));
+		assertEquals(1, tracer.getFailures().getTotalCount());
+	}
+
+	@Test
+	public void testDisabled() {
+		PromiseTracer.setEnabled(false);
+		SettablePromise<Integer> settablePromise = new SettablePromise<>();
+		Promise<Integer> promise = settablePromise.map(value -> value + 1);
+
+		settablePromise.set(1);
+
+		assertTrue(PromiseTracer.getAsyncStack(promise).isEmpty());
+		assertEquals(0, tracer.getLinksCount());
+	}
+}
@@ -19,6 +19,7 @@ package io.datakernel.promise;
 import io.datakernel.async.function.AsyncSupplier;
 import io.datakernel.common.collection.Try;
 import io.datakernel.common.exception.StacklessException;
+import io.datakernel.common.exception.UncheckedException;
 import io.datakernel.common.tuple.*;
 import io.datakernel.eventloop.Eventloop;
 import io.datakernel.test.rules.EventloopRule;
@@ -33,6 +34,7 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -617,6 +619,73 @@ public final class PromisesTest {
 		assertion.accept(iteratorHasNext);
 	}
 
+	@Test
+	public void testBatch() {
+		List<List<Integer>> bulkCalls = new ArrayList<>();
+		Function<Integer, Promise<String>> batched = batch(3, keys -> {
+			bulkCalls.add(keys);
+			return Promise.of(keys.stream()
+					.filter(key -> key != 0)
+					.collect(Collectors.toMap(key -> key, key -> "value" + key)))
+					.async();
+		});
+
+		List<String> results = await(Promises.toList(Stream.of(1, 2, 1, 3, 4, 0).map(batched)));
+
+		assertEquals(asList("value1", "value2", "value1", "value3", "value4", null), results);
+		assertEquals(asList(asList(1, 2, 3), asList(4, 0)), bulkCalls);
+	}
+
+	@Test
+	public void testBatchWithDelay() {
+		List<List<Integer>> bulkCalls = new ArrayList<>();
+		Function<Integer, Promise<Integer>> batched = batch(100, ofMillis(10), keys -> {
+			bulkCalls.add(keys);
+			return Promise.of(keys.stream().collect(Collectors.toMap(key -> key, key -> key * 2)));
+		});
+
+		Promise<Integer> first = batched.apply(1);
+		Promise<Integer> second = Promises.delay(ofMillis(1)).then(() -> batched.apply(2));
+
+		assertEquals(Integer.valueOf(6), await(first.combine(second, Integer::sum)));
+		assertEquals(singletonList(asList(1, 2)), bulkCalls);
+	}
+
+	@Test
+	public void testBatchException() {
+		StacklessException exception = new StacklessException(PromisesTest.class, "Bulk call failed");
+		Function<Integer, Promise<Integer>> batched = batch(keys -> Promise.ofException(exception));
+
+		Throwable e = awaitException(Promises.all(batched.apply(1), batched.apply(2)));
+
+		assertSame(exception, e);
+	}
+
+	@Test
+	public void testBatchThrowingBulkFunction() {
+		StacklessException exception = new StacklessException(PromisesTest.class, "Bulk call failed");
+		Function<Integer, Promise<Integer>> batched = batch(keys -> {
+			throw new UncheckedException(exception);
+		});
+
+		Promise<Integer> first = batched.apply(1);
+		Promise<Integer> second = batched.apply(2);
+
+		assertSame(exception, awaitException(first));
+		assertSame(exception, second.getException());
+	}
+
+	@Test
+	public void testBatchNullResult() {
+		Function<Integer, Promise<Integer>> batched = batch(keys -> Promise.of(null));
+
+		Promise<Integer> first = batched.apply(1);
+		Promise<Integer> second = batched.apply(2);
+
+		Throwable e = awaitException(first);
+		assertSame(e, second.getException());
+	}
+
 	private Promise<Integer> getPromise(Integer number) {
 		assertEquals(0, counter.get());
 		counter.incrementAndGet();
@@ -44,14 +44,21 @@ public class Initializers {
 	}
 
 	public static Initializer<PrimaryServer> ofPrimaryServer(Config config) {
-		return ofAbstractServer(config);
+		return server -> server
+				.initialize(ofAbstractServer(config))
+				.withDispatchPolicy(config.get(ofEnum(PrimaryServer.DispatchPolicy.class), "dispatchPolicy", server.getDispatchPolicy()))
+				.withReusePort(config.get(ofBoolean(), "reusePort", server.isReusePort()));
 	}
 
 	public static Initializer<Eventloop> ofEventloop(Config config) {
 		return eventloop -> eventloop
 				.withFatalErrorHandler(config.get(ofFatalErrorHandler(), "fatalErrorHandler", eventloop.getFatalErrorHandler()))
 				.withIdleInterval(config.get(ofDuration(), "idleInterval", eventloop.getIdleInterval()))
-				.withThreadPriority(config.get(ofInteger(), "threadPriority", eventloop.getThreadPriority()));
+				.withThreadPriority(config.get(ofInteger(), "threadPriority", eventloop.getThreadPriority()))
+				.withSelectorProvider(config.get(ofSelectorProvider(), "selectorProvider", eventloop.getSelectorProvider()))
+				.withAdaptivePolling(
+						config.get(ofDuration(), "polling.spinTime", eventloop.getSpinTime()),
+						config.get(ofDuration(), "polling.backoffTime", eventloop.getBackoffTime()));
 	}
 
 	public static Initializer<EventloopTaskScheduler> ofEventloopTaskScheduler(Config config) {
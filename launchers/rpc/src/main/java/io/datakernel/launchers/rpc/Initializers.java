@@ -36,6 +36,7 @@ public final class Initializers {
 						config.get(ofMemSize(), "rpc.streamProtocol.defaultPacketSize", DEFAULT_INITIAL_BUFFER_SIZE),
 						config.get(ofMemSize(), "rpc.streamProtocol.maxPacketSize", DEFAULT_MAX_MESSAGE_SIZE),
 						config.get(ofBoolean(), "rpc.streamProtocol.compression", false))
-				.withAutoFlushInterval(config.get(ofDuration(), "rpc.flushDelay", Duration.ZERO));
+				.withAutoFlushInterval(config.get(ofDuration(), "rpc.flushDelay", Duration.ZERO))
+				.withAdaptiveFlush(config.get(ofDuration(), "rpc.adaptiveFlushDelay", null));
 	}
 }